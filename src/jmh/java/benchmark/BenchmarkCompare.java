@@ -0,0 +1,118 @@
+package benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对比两份 JMH JSON 结果（通常是基线提交与当前提交），逐项打印得分与每次操作分配字节数的变化
+ *
+ * 用法：BenchmarkCompare &lt;baseline.json&gt; &lt;current.json&gt; [阈值百分比，默认 10]
+ * 得分变差超过阈值且超出两次结果误差之和的项标记为 REGRESSION，存在这样的项时以退出码 1 结束，便于在 CI 中使用。
+ * 吞吐量模式得分越高越好，其余模式（平均时间、采样时间等）越低越好。
+ */
+public class BenchmarkCompare {
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: BenchmarkCompare <baseline.json> <current.json> [阈值百分比]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JSONObject> baseline = load(Path.of(args[0]));
+        Map<String, JSONObject> current = load(Path.of(args[1]));
+
+        int regressions = 0;
+        System.out.println(String.format("%-80s | %14s | %14s | %8s | %s", "Benchmark", "Baseline", "Current",
+                "Change", "Alloc B/op"));
+        for (Map.Entry<String, JSONObject> entry : current.entrySet()) {
+            JSONObject now = entry.getValue();
+            JSONObject before = baseline.get(entry.getKey());
+            JSONObject nowMetric = now.getJSONObject("primaryMetric");
+            if (before == null) {
+                System.out.println(String.format("%-80s | %14s | %14.3f | %8s | %s", entry.getKey(), "-",
+                        nowMetric.getDoubleValue("score"), "new", formatAlloc(null, now)));
+                continue;
+            }
+            JSONObject beforeMetric = before.getJSONObject("primaryMetric");
+            double beforeScore = beforeMetric.getDoubleValue("score");
+            double nowScore = nowMetric.getDoubleValue("score");
+            double change = beforeScore == 0 ? 0 : (nowScore - beforeScore) / beforeScore * 100;
+            boolean higherIsBetter = "thrpt".equals(now.getString("mode"));
+            double worse = higherIsBetter ? -change : change;
+            // 差值落在两次结果的误差范围内时不视为回退
+            double errors = error(beforeMetric) + error(nowMetric);
+            boolean regression = worse > threshold && Math.abs(nowScore - beforeScore) > errors;
+            if (regression) {
+                regressions++;
+            }
+            System.out.println(String.format("%-80s | %14.3f | %14.3f | %+7.1f%% | %s%s", entry.getKey(), beforeScore,
+                    nowScore, change, formatAlloc(before, now), regression ? "  REGRESSION" : ""));
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.println(String.format("%-80s | %s", key, "当前结果中缺失"));
+            }
+        }
+        System.out.println(regressions == 0 ? "没有超过阈值的回退" : regressions + " 项回退超过 " + threshold + "%");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    // 基准方法名加参数作为对比的键
+    private static Map<String, JSONObject> load(Path path) throws IOException {
+        JSONArray results = JSON.parseArray(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        Map<String, JSONObject> byKey = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            StringBuilder key = new StringBuilder(result.getString("benchmark"))
+                    .append(" [").append(result.getString("mode")).append(", ")
+                    .append(result.getIntValue("threads")).append("t");
+            JSONObject params = result.getJSONObject("params");
+            if (params != null) {
+                for (Map.Entry<String, Object> param : new TreeMap<>(params).entrySet()) {
+                    key.append(", ").append(param.getKey()).append('=').append(param.getValue());
+                }
+            }
+            byKey.put(key.append(']').toString(), result);
+        }
+        return byKey;
+    }
+
+    private static double error(JSONObject metric) {
+        Double error = metric.getDouble("scoreError");
+        return error == null || error.isNaN() ? 0 : error;
+    }
+
+    private static String formatAlloc(JSONObject before, JSONObject now) {
+        Double nowAlloc = alloc(now);
+        if (nowAlloc == null) {
+            return "-";
+        }
+        Double beforeAlloc = before == null ? null : alloc(before);
+        return beforeAlloc == null ? String.format("%.0f", nowAlloc)
+                : String.format("%.0f -> %.0f", beforeAlloc, nowAlloc);
+    }
+
+    // JMH 1.36 之前的键带有前缀 "·"
+    private static Double alloc(JSONObject result) {
+        JSONObject secondary = result.getJSONObject("secondaryMetrics");
+        if (secondary == null) {
+            return null;
+        }
+        for (String name : secondary.keySet()) {
+            if (name.endsWith(ALLOC_METRIC)) {
+                return secondary.getJSONObject(name).getDouble("score");
+            }
+        }
+        return null;
+    }
+}
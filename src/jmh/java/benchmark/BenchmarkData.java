@@ -0,0 +1,92 @@
+package benchmark;
+
+import common.message.RpcRequest;
+import common.message.RpcResponse;
+import common.pojo.User;
+import common.service.UserService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 基准测试共用的消息
+ * 请求调用 UserService#insertUser(User)：参数是 POJO，所有序列化方式都能还原参数类型
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @param kind request、response（单个 User）或 users（10 个 User 的列表）
+     */
+    static Object message(String kind) {
+        switch (kind) {
+            case "request":
+                return request();
+            case "response":
+                return RpcResponse.success(users(1).get(0));
+            case "users":
+                return RpcResponse.success(users(10));
+            default:
+                throw new IllegalArgumentException("未知的消息类型: " + kind);
+        }
+    }
+
+    static int messageType(Object message) {
+        return message instanceof RpcRequest ? 0 : 1;
+    }
+
+    /**
+     * 往返后的消息与原消息类型相同，且参数 / 返回值的类型也相同
+     */
+    static boolean sameShape(Object expected, Object actual) {
+        if (actual == null || expected.getClass() != actual.getClass()) {
+            return false;
+        }
+        if (expected instanceof RpcRequest) {
+            Object[] params = ((RpcRequest) actual).getParams();
+            return params != null && params.length == 1 && params[0] instanceof User;
+        }
+        Object data = ((RpcResponse) actual).getData();
+        Object expectedData = ((RpcResponse) expected).getData();
+        if (expectedData instanceof List) {
+            return data instanceof List && ((List<?>) data).size() == ((List<?>) expectedData).size()
+                    && ((List<?>) data).get(0) instanceof User;
+        }
+        return data instanceof User;
+    }
+
+    static RpcRequest request() {
+        return RpcRequest.builder()
+                .requestId(UUID.randomUUID().toString())
+                .interfaceName(UserService.class.getName())
+                .methodName("insertUser")
+                .params(new Object[] { users(1).get(0) })
+                .paramsType(new Class<?>[] { User.class })
+                .timestamp(System.currentTimeMillis())
+                .traceId(UUID.randomUUID().toString())
+                .spanId(UUID.randomUUID().toString())
+                .build();
+    }
+
+    static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = 100_000L + i;
+            users.add(User.builder()
+                    .id(id)
+                    .userName("user_" + id)
+                    .sex(i % 2 == 0)
+                    .age(18 + i % 50)
+                    .email("user_" + id + "@example.com")
+                    .phone("13800138" + String.format("%03d", i % 1000))
+                    .address("北京市海淀区" + i + "号")
+                    .userType("NORMAL")
+                    .lastUpdateTime(1_700_000_000_000L + i)
+                    .build());
+        }
+        return users;
+    }
+}
@@ -0,0 +1,45 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口，接受与 org.openjdk.jmh.Main 相同的参数（过滤正则、-f、-wi、-p 等）
+ *
+ * 在 JMH 默认值之上：
+ * - 始终启用 GC profiler（gc.alloc.rate.norm 即每次操作分配的字节数）
+ * - 未指定 -rf / -rff 时以 JSON 写入 target/jmh-result.json，供 {@link BenchmarkCompare} 对比两次提交的结果
+ */
+public class BenchmarkRunner {
+    private static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        boolean gcProfilerGiven = commandLine.getProfilers().stream()
+                .anyMatch(profiler -> "gc".equals(profiler.getKlass())
+                        || GCProfiler.class.getName().equals(profiler.getKlass()));
+        if (!gcProfilerGiven) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result(DEFAULT_RESULT);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import client.proxy.breaker.Breaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Breaker#allowRequest：每次远程调用前都会经过
+ * - CLOSED：正常状态的放行路径
+ * - OPEN：失败次数达到阈值后的拒绝路径（重试周期足够长，测量期间不会进入半开）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BreakerBenchmark {
+    private static final int FAILURE_THRESHOLD = 5;
+
+    @Param({ "CLOSED", "OPEN" })
+    private String state;
+
+    private Breaker breaker;
+
+    @Setup
+    public void setUp() {
+        breaker = new Breaker(FAILURE_THRESHOLD, 0.5, TimeUnit.HOURS.toMillis(1));
+        if ("OPEN".equals(state)) {
+            for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+                breaker.recordFailure();
+            }
+        }
+        if (!state.equals(String.valueOf(breaker.getCurrentState()))) {
+            throw new IllegalStateException("熔断器未进入 " + state + " 状态");
+        }
+    }
+
+    @Benchmark
+    public boolean allowRequest() {
+        return breaker.allowRequest();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean allowRequestContended() {
+        return breaker.allowRequest();
+    }
+}
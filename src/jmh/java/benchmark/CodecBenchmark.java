@@ -0,0 +1,106 @@
+package benchmark;
+
+import common.Decoder;
+import common.Encoder;
+import common.message.ProtocolConstants;
+import common.message.RawMessage;
+import common.serializer.Serializer;
+import common.serializer.SerializerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoder / Decoder 的单帧编解码：帧头、序列化、池化缓冲区的分配与释放
+ * 使用 EmbeddedChannel 驱动与线上相同的 pipeline（LengthFieldBasedFrameDecoder + Decoder、Encoder）。
+ *
+ * 序列化方式通过 rpc.serializer.type 系统属性指定：SerializerFactory 按配置选择实现并缓存，
+ * JMH 为每组参数单独 fork JVM，因此每组参数各自生效。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({ "kryo", "codegen" })
+    private String serializerName;
+
+    @Param({ "request", "response", "users" })
+    private String message;
+
+    private EmbeddedChannel encodeChannel;
+    private EmbeddedChannel decodeChannel;
+    private Serializer serializer;
+    private Object value;
+    private ByteBuf frame;
+
+    @Setup
+    public void setUp() {
+        System.setProperty("rpc.serializer.type", serializerName);
+        Encoder encoder = new Encoder(3);
+        encodeChannel = new EmbeddedChannel(encoder);
+        decodeChannel = new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(ProtocolConstants.MAX_FRAME_LENGTH,
+                        ProtocolConstants.LENGTH_FIELD_OFFSET, ProtocolConstants.LENGTH_FIELD_LENGTH, 0, 0),
+                new Decoder());
+        serializer = SerializerFactory.getSerializerByCode(3);
+        value = BenchmarkData.message(message);
+
+        encodeChannel.writeOutbound(value);
+        frame = encodeChannel.readOutbound();
+    }
+
+    @TearDown
+    public void tearDown() {
+        frame.release();
+        encodeChannel.finishAndReleaseAll();
+        decodeChannel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int encode() {
+        encodeChannel.writeOutbound(value);
+        ByteBuf out = encodeChannel.readOutbound();
+        int length = out.readableBytes();
+        out.release();
+        return length;
+    }
+
+    @Benchmark
+    public int decode() {
+        decodeChannel.writeInbound(frame.retainedDuplicate());
+        RawMessage raw = decodeChannel.readInbound();
+        int length = raw.content().readableBytes();
+        raw.release();
+        return length;
+    }
+
+    // 与 handler 相同，直接从池化缓冲区的视图反序列化
+    @Benchmark
+    public Object decodeAndDeserialize() {
+        decodeChannel.writeInbound(frame.retainedDuplicate());
+        RawMessage raw = decodeChannel.readInbound();
+        try {
+            return serializer.deserialize(raw.content().nioBuffer(), raw.getMessageType());
+        } finally {
+            raw.release();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package benchmark;
+
+import common.util.HashUtil;
+import common.util.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求都会执行的两步：HashUtil#generateFeatureCode（构造 RpcRequest 时）与 SnowflakeIdGenerator#nextId（请求ID）
+ * nextId 是 synchronized 方法，且每毫秒最多 4096 个，多线程结果同时反映锁争用与序列号耗尽后的等待。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+    private final SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(1, 1);
+    private final Object[] params = { 100_001L, BenchmarkData.users(1).get(0) };
+
+    @Benchmark
+    public long generateFeatureCode() {
+        return HashUtil.generateFeatureCode("common.service.UserService", "insertUser", params);
+    }
+
+    @Benchmark
+    public long snowflakeNextId() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long snowflakeNextIdContended() {
+        return idGenerator.nextId();
+    }
+}
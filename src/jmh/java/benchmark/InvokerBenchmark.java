@@ -0,0 +1,56 @@
+package benchmark;
+
+import common.service.EchoService;
+import common.service.impl.EchoServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import server.provider.LambdaMetafactoryInvoker;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务方法调用：LambdaMetafactoryInvoker 与反射、直接调用的对比
+ * 参数数组每次调用复用，只衡量调用路径本身。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvokerBenchmark {
+
+    private final EchoService service = new EchoServiceImpl();
+    private final LambdaMetafactoryInvoker invoker = new LambdaMetafactoryInvoker();
+    private final Object[] args = { "hello" };
+    private Method method;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        method = EchoService.class.getMethod("echo", String.class);
+    }
+
+    @Benchmark
+    public Object direct() {
+        return service.echo((String) args[0]);
+    }
+
+    @Benchmark
+    public Object reflection() throws Exception {
+        return method.invoke(service, args);
+    }
+
+    @Benchmark
+    public Object lambdaMetafactoryInvoker() throws Exception {
+        return invoker.invoke(service, method, args);
+    }
+}
@@ -0,0 +1,81 @@
+package benchmark;
+
+import client.serviceCenter.balance.LoadBalance;
+import client.serviceCenter.balance.LoadBalanceFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各负载均衡实现的一次选址，实现通过 SPI 按类型加载（与客户端相同）
+ * 地址列表在调用之间保持不变，对应服务节点稳定时的常态；特征码逐次变化，覆盖一致性哈希环上的不同位置。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadBalanceBenchmark {
+    private static final String SERVICE_NAME = "common.service.UserService";
+
+    @Param({ "SEQUENCE", "RANDOM", "CONSISTENCY_HASH", "LSTM" })
+    private LoadBalance.BalanceType type;
+
+    @Param({ "3", "32" })
+    private int addressCount;
+
+    private LoadBalance loadBalance;
+    private List<InetSocketAddress> addresses;
+
+    @Setup
+    public void setUp() {
+        loadBalance = LoadBalanceFactory.getLoadBalance(type);
+        if (loadBalance.getType() != type) {
+            throw new IllegalStateException("未通过 SPI 加载到负载均衡实现: " + type);
+        }
+        addresses = new ArrayList<>(addressCount);
+        for (int i = 0; i < addressCount; i++) {
+            addresses.add(InetSocketAddress.createUnresolved("10.0." + (i / 256) + "." + (i % 256), 9999));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FeatureCode {
+        private long next = 0x9E3779B97F4A7C15L;
+
+        long next() {
+            // 每次调用换一个特征码（xorshift），不引入 Random 的同步开销
+            next ^= next << 13;
+            next ^= next >>> 7;
+            next ^= next << 17;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public InetSocketAddress select(FeatureCode featureCode) {
+        return loadBalance.select(SERVICE_NAME, addresses, featureCode.next());
+    }
+
+    // 实现共享同一个实例，多个调用线程同时选址
+    @Benchmark
+    @Threads(4)
+    public InetSocketAddress selectContended(FeatureCode featureCode) {
+        return loadBalance.select(SERVICE_NAME, addresses, featureCode.next());
+    }
+}
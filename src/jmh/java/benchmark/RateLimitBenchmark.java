@@ -0,0 +1,53 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import server.provider.ratelimit.impl.TokenBucketRateLimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenBucketRateLimit#getToken 在单线程与多线程争用同一个桶时的耗时
+ * - tps=1000：令牌很快耗尽，多数调用走拒绝路径
+ * - tps=1000000000：每次调用都能补充到令牌，走补充 + 扣减的 CAS 路径
+ * 争用结果依赖核数，单核机器上多线程只反映调度开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    @Param({ "1000", "1000000000" })
+    private long tps;
+
+    private TokenBucketRateLimit rateLimit;
+
+    @Setup
+    public void setUp() {
+        rateLimit = new TokenBucketRateLimit(tps, 100);
+    }
+
+    @Benchmark
+    public boolean getToken() {
+        return rateLimit.getToken();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean getTokenContended() {
+        return rateLimit.getToken();
+    }
+}
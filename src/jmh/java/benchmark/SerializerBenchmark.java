@@ -0,0 +1,97 @@
+package benchmark;
+
+import common.serializer.Serializer;
+import common.serializer.impl.CodegenSerializer;
+import common.serializer.impl.JsonSerializer;
+import common.serializer.impl.KryoSerializer;
+import common.serializer.impl.ObjectSerializer;
+import common.serializer.impl.ProtobufSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各序列化实现的序列化 / 反序列化耗时与分配
+ * 直接创建实现类而不经过 SerializerFactory：工厂会按 rpc.serializer.type 覆盖请求的类型。
+ *
+ * 准备阶段先做一次往返校验，实现无法还原的组合直接报错而不是测量失败路径：
+ * json 只能还原对象类型的返回值，json × users 会被 JMH 报告为失败，可用 -p message=request,response 跳过。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({ "object", "json", "protobuf", "kryo", "codegen" })
+    private String serializerName;
+
+    @Param({ "request", "response", "users" })
+    private String message;
+
+    private Serializer serializer;
+    private Object value;
+    private int messageType;
+    private byte[] bytes;
+    private ByteBuffer directBuffer;
+
+    @Setup
+    public void setUp() {
+        serializer = create(serializerName);
+        value = BenchmarkData.message(message);
+        messageType = BenchmarkData.messageType(value);
+        bytes = serializer.serialize(value);
+        Object restored = bytes == null ? null : serializer.deserialize(bytes, messageType);
+        if (!BenchmarkData.sameShape(value, restored)) {
+            throw new IllegalStateException(serializerName + " 无法还原 " + message + " 消息");
+        }
+        directBuffer = ByteBuffer.allocateDirect(bytes.length);
+        directBuffer.put(bytes).flip();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes, messageType);
+    }
+
+    // Decoder 交给下游的是池化直接内存的视图，服务端与客户端都走这条路径
+    @Benchmark
+    public Object deserializeDirectBuffer() {
+        return serializer.deserialize(directBuffer.duplicate(), messageType);
+    }
+
+    private static Serializer create(String name) {
+        switch (name) {
+            case "object":
+                return new ObjectSerializer();
+            case "json":
+                return new JsonSerializer();
+            case "protobuf":
+                return new ProtobufSerializer();
+            case "kryo":
+                return new KryoSerializer();
+            case "codegen":
+                return new CodegenSerializer();
+            default:
+                throw new IllegalArgumentException("未知的序列化方式: " + name);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package client.netty;
+
+import client.netty.handler.HeartbeatHandler;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.SocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 单个服务节点的连接池
+ * 每个节点维护固定数量的连接（槽位），避免所有请求串行经过同一个 socket 和两端各一个 IO 线程，
+ * 也减少大响应造成的队头阻塞。
+ *
+ * - 选择：优先心跳正常的连接，其次可写（未超过写缓冲高水位）的连接，其中在途请求最少者胜出；
+ * 起点随机，避免并列时总选第一个。心跳判定失效的连接已被关闭，不会再被选中
+ * - 预热：创建后立即为所有槽位发起连接
+ * - 非阻塞获取：没有活跃连接时返回共享的 CompletableFuture，所有等待者挂在同一次建连上，不占用调用线程
+ * - 后台替换：连接断开后按指数退避在后台重连该槽位；连续失败超过上限后放弃，
+ * 直到本池内有连接重新建立成功（节点恢复）时再补齐
+ */
+public class EndpointChannelPool {
+    private static final Logger logger = LoggerFactory.getLogger(EndpointChannelPool.class);
+
+    // 重连退避：初始延迟、最大延迟与放弃前的最大连续失败次数
+    private static final long RECONNECT_BASE_DELAY_MS = 200;
+    private static final long RECONNECT_MAX_DELAY_MS = 10_000;
+    private static final int MAX_RECONNECT_ATTEMPTS = 6;
+
+    private final Bootstrap bootstrap;
+    private final SocketAddress address;
+    private final int size;
+
+    private final AtomicReferenceArray<Channel> channels;
+    // 各槽位正在进行中的连接，避免重复发起
+    private final AtomicReferenceArray<ChannelFuture> connecting;
+    // 各槽位连续连接失败次数
+    private final AtomicIntegerArray failures;
+    // 池内没有活跃连接时所有请求共享的等待 future
+    private volatile CompletableFuture<Channel> pendingAcquire;
+    private volatile boolean closed;
+
+    public EndpointChannelPool(Bootstrap bootstrap, SocketAddress address, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("连接池大小必须为正数: " + size);
+        }
+        this.bootstrap = bootstrap;
+        this.address = address;
+        this.size = size;
+        this.channels = new AtomicReferenceArray<>(size);
+        this.connecting = new AtomicReferenceArray<>(size);
+        this.failures = new AtomicIntegerArray(size);
+    }
+
+    /**
+     * 预热：为所有空槽位发起异步连接
+     */
+    public void warmUp() {
+        for (int slot = 0; slot < size; slot++) {
+            if (channels.get(slot) == null) {
+                connect(slot);
+            }
+        }
+    }
+
+    /**
+     * 异步获取一个可用连接，调用线程从不阻塞
+     * 有活跃连接时返回已完成的 future；否则为所有空槽位发起连接，返回一个由所有等待者共享的 future，
+     * 任一槽位连接成功即完成，本轮全部连接失败时异常完成
+     */
+    public CompletableFuture<Channel> acquire() {
+        Channel channel = select();
+        if (channel != null) {
+            return CompletableFuture.completedFuture(channel);
+        }
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("连接池已关闭: " + address));
+        }
+
+        CompletableFuture<Channel> waiter = pendingAcquire;
+        if (waiter != null && !waiter.isDone()) {
+            return waiter;
+        }
+        synchronized (this) {
+            waiter = pendingAcquire;
+            if (waiter != null && !waiter.isDone()) {
+                return waiter;
+            }
+            // 加锁后复查，避免在等待锁期间已有连接建立
+            channel = select();
+            if (channel != null) {
+                return CompletableFuture.completedFuture(channel);
+            }
+            waiter = new CompletableFuture<>();
+            pendingAcquire = waiter;
+        }
+
+        // 没有活跃连接：重新发起全部槽位的连接，第一个成功者完成共享 future
+        CompletableFuture<Channel> shared = waiter;
+        AtomicInteger remaining = new AtomicInteger(size);
+        for (int slot = 0; slot < size; slot++) {
+            // connect 自身的监听器先注册，回调到这里时连接已放入槽位
+            connect(slot).addListener((ChannelFuture f) -> {
+                if (f.isSuccess()) {
+                    shared.complete(f.channel());
+                } else if (remaining.decrementAndGet() == 0) {
+                    Throwable cause = f.cause() != null ? f.cause()
+                            : new IllegalStateException("连接已取消: " + address);
+                    shared.completeExceptionally(cause);
+                }
+            });
+        }
+        return shared;
+    }
+
+    /**
+     * 按心跳状态、可写性与在途请求数选择连接，没有活跃连接时返回 null
+     * 可疑连接只在没有其他活跃连接时才会被选中
+     */
+    Channel select() {
+        Channel best = null;
+        boolean bestHealthy = false;
+        boolean bestWritable = false;
+        int bestPending = Integer.MAX_VALUE;
+
+        int start = size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size);
+        for (int i = 0; i < size; i++) {
+            Channel channel = channels.get((start + i) % size);
+            if (channel == null || !channel.isActive()) {
+                continue;
+            }
+            boolean healthy = !HeartbeatHandler.isSuspect(channel);
+            boolean writable = channel.isWritable();
+            InFlightRequests inFlightRequests = InFlightRequests.get(channel);
+            int pending = inFlightRequests == null ? 0 : inFlightRequests.pendingCount();
+            boolean better = best == null || (healthy && !bestHealthy)
+                    || (healthy == bestHealthy && ((writable && !bestWritable)
+                            || (writable == bestWritable && pending < bestPending)));
+            if (better) {
+                best = channel;
+                bestHealthy = healthy;
+                bestWritable = writable;
+                bestPending = pending;
+            }
+        }
+        return best;
+    }
+
+    private ChannelFuture connect(int slot) {
+        ChannelFuture future;
+        synchronized (this) {
+            ChannelFuture pending = connecting.get(slot);
+            if (pending != null) {
+                return pending;
+            }
+            future = bootstrap.connect(address);
+            connecting.set(slot, future);
+        }
+
+        future.addListener((ChannelFuture f) -> {
+            connecting.compareAndSet(slot, f, null);
+            if (f.isSuccess()) {
+                onConnected(slot, f.channel());
+            } else {
+                int attempts = failures.incrementAndGet(slot);
+                logger.warn("连接 {} 失败（槽位 {}，连续第 {} 次）: {}", address, slot, attempts,
+                        f.cause() == null ? null : f.cause().getMessage());
+                scheduleReconnect(slot);
+            }
+        });
+        return future;
+    }
+
+    private void onConnected(int slot, Channel channel) {
+        if (closed) {
+            channel.close();
+            return;
+        }
+        Channel previous = channels.getAndSet(slot, channel);
+        if (previous != null && previous != channel) {
+            previous.close();
+        }
+        boolean recovered = failures.getAndSet(slot, 0) > 0;
+        logger.debug("连接 {} 已建立（槽位 {}）", address, slot);
+
+        // 连接断开后在后台替换，而不是等到下一次请求时才发现
+        channel.closeFuture().addListener(f -> {
+            if (channels.compareAndSet(slot, channel, null) && !closed) {
+                logger.debug("连接 {} 已断开（槽位 {}），后台重连", address, slot);
+                scheduleReconnect(slot);
+            }
+        });
+
+        // 节点恢复：补齐此前因连续失败而放弃重连的槽位
+        if (recovered) {
+            warmUp();
+        }
+    }
+
+    private void scheduleReconnect(int slot) {
+        if (closed) {
+            return;
+        }
+        int attempts = failures.get(slot);
+        if (attempts > MAX_RECONNECT_ATTEMPTS) {
+            logger.warn("连接 {} 槽位 {} 连续失败 {} 次，暂停后台重连", address, slot, attempts);
+            return;
+        }
+        long delay = Math.min(RECONNECT_MAX_DELAY_MS, RECONNECT_BASE_DELAY_MS << Math.min(attempts, 16));
+        try {
+            bootstrap.config().group().schedule(() -> {
+                if (!closed && channels.get(slot) == null) {
+                    connect(slot);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // IO 线程组正在关闭，不再重连
+            logger.debug("IO 线程组已关闭，放弃重连 {}", address);
+        }
+    }
+
+    /**
+     * 当前活跃连接数
+     */
+    public int activeCount() {
+        int active = 0;
+        for (int slot = 0; slot < size; slot++) {
+            Channel channel = channels.get(slot);
+            if (channel != null && channel.isActive()) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    public void close() {
+        closed = true;
+        CompletableFuture<Channel> waiter = pendingAcquire;
+        if (waiter != null) {
+            waiter.completeExceptionally(new IllegalStateException("连接池已关闭: " + address));
+        }
+        for (int slot = 0; slot < size; slot++) {
+            Channel channel = channels.getAndSet(slot, null);
+            if (channel != null) {
+                channel.close();
+            }
+            ChannelFuture future = connecting.get(slot);
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package client.netty;
+
+import common.util.AppConfig;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.Timeout;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个连接的在途请求上限与等待队列
+ * 下游变慢时，出站缓冲区与在途请求表原本会随调用方的发送速度无限增长；每个连接发送前须先取得一个许可：
+ * - 许可数为 rpc.client.maxInFlightPerConnection，请求完成（响应、超时、失败）时归还
+ * - 连接不可写（出站缓冲区超过高水位）时同样视为饱和，不再往缓冲区里堆请求
+ *
+ * 取不到许可时由调用方按 {@link Policy} 处理。QUEUE 策略下请求进入本连接的有界等待队列，
+ * 许可归还或连接恢复可写时按入队顺序发出；在队列中等到超时的请求直接以超时失败，不会再发出。
+ * 等待队列在连接关闭时整体失败。
+ *
+ * 服务端流式调用由信用控制流量，不占用许可。
+ *
+ * 配置项：
+ * - rpc.client.maxInFlightPerConnection：单连接在途请求上限，默认 2048
+ * - rpc.client.saturation.policy：饱和时的处理策略 fail_fast / queue / reroute，默认 queue
+ * - rpc.client.saturation.queueSize：QUEUE 策略下单连接等待队列长度，默认 4096
+ */
+public class InFlightLimiter {
+    private static final AttributeKey<InFlightLimiter> KEY = AttributeKey.valueOf("rpc.inFlightLimiter");
+
+    /**
+     * 连接饱和时的处理策略
+     */
+    public enum Policy {
+        // 立即以 503 失败，由调用方决定重试或降级
+        FAIL_FAST,
+        // 进入连接的有界等待队列，队列满时立即失败
+        QUEUE,
+        // 转到另一个未饱和节点的已建立连接，没有可用节点时立即失败
+        REROUTE
+    }
+
+    private final Channel channel;
+    private final int maxInFlight;
+    private final int maxQueued;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private volatile Throwable closeCause;
+
+    public InFlightLimiter(Channel channel, int maxInFlight, int maxQueued) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight 必须为正数: " + maxInFlight);
+        }
+        this.channel = channel;
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = Math.max(0, maxQueued);
+    }
+
+    /**
+     * 按配置为新建立的连接创建并绑定到 Channel 属性上
+     */
+    public static InFlightLimiter attach(Channel channel) {
+        InFlightLimiter limiter = new InFlightLimiter(channel,
+                AppConfig.getInt("rpc.client.maxInFlightPerConnection", 2048),
+                AppConfig.getInt("rpc.client.saturation.queueSize", 4096));
+        channel.attr(KEY).set(limiter);
+        return limiter;
+    }
+
+    public static InFlightLimiter get(Channel channel) {
+        return channel.attr(KEY).get();
+    }
+
+    public static Policy policyFromConfig() {
+        return AppConfig.getEnumIgnoreCase("rpc.client.saturation.policy", Policy.class, Policy.QUEUE);
+    }
+
+    /**
+     * 尝试取得一个许可；连接不可写或在途请求数已达上限时返回 false
+     * 等待队列非空时同样返回 false，新请求不会越过排队中的请求
+     */
+    public boolean tryAcquire() {
+        return waiting.get() == 0 && acquire();
+    }
+
+    /**
+     * 归还许可，并按顺序发出等待中的请求
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * 请求进入等待队列，取得许可后在归还许可或连接恢复可写的线程上执行 send；send 负责在请求完成时调用 {@link #release()}
+     * 在队列中等待超过 timeoutNanos 的请求以 TimeoutException 失败
+     *
+     * @return 队列已满或连接已关闭时返回 false，请求未入队
+     */
+    public boolean enqueue(CompletableFuture<?> future, Runnable send, long timeoutNanos) {
+        if (closeCause != null) {
+            return false;
+        }
+        if (waiting.incrementAndGet() > maxQueued) {
+            waiting.decrementAndGet();
+            SaturationStats.recordQueueFull();
+            return false;
+        }
+        Timeout timeout = RequestTimeoutTimer.INSTANCE.newTimeout(t -> {
+            if (future.completeExceptionally(new TimeoutException("Queued Request Timeout"))) {
+                SaturationStats.recordQueueTimeout();
+            }
+        }, timeoutNanos, TimeUnit.NANOSECONDS);
+        waiters.offer(new Waiter(future, send, timeout));
+        SaturationStats.recordQueued();
+        // 入队与许可归还可能同时发生，入队后再检查一次，避免请求停留在有空闲许可的队列中
+        drain();
+        if (closeCause != null) {
+            failWaiters(closeCause);
+        }
+        return true;
+    }
+
+    /**
+     * 连接恢复可写时调用
+     */
+    public void onWritable() {
+        drain();
+    }
+
+    /**
+     * 连接关闭时调用：等待中的请求立即以 cause 失败，之后不再接受排队
+     */
+    public void close(Throwable cause) {
+        closeCause = cause;
+        failWaiters(cause);
+    }
+
+    public int inFlightCount() {
+        return inFlight.get();
+    }
+
+    public int waitingCount() {
+        return waiting.get();
+    }
+
+    private boolean acquire() {
+        if (!channel.isWritable()) {
+            return false;
+        }
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void drain() {
+        while (waiting.get() > 0 && acquire()) {
+            Waiter waiter = waiters.poll();
+            if (waiter == null) {
+                // 计数已增加但尚未入队，由入队方随后的 drain 处理
+                inFlight.decrementAndGet();
+                return;
+            }
+            waiting.decrementAndGet();
+            RequestTimeoutTimer.INSTANCE.cancel(waiter.timeout);
+            if (waiter.future.isDone()) {
+                // 已在队列中超时
+                inFlight.decrementAndGet();
+                continue;
+            }
+            waiter.send.run();
+        }
+    }
+
+    private void failWaiters(Throwable cause) {
+        Waiter waiter;
+        while ((waiter = waiters.poll()) != null) {
+            waiting.decrementAndGet();
+            RequestTimeoutTimer.INSTANCE.cancel(waiter.timeout);
+            waiter.future.completeExceptionally(cause);
+        }
+    }
+
+    private static final class Waiter {
+        private final CompletableFuture<?> future;
+        private final Runnable send;
+        private final Timeout timeout;
+
+        private Waiter(CompletableFuture<?> future, Runnable send, Timeout timeout) {
+            this.future = future;
+            this.send = send;
+            this.timeout = timeout;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package client.netty;
+
+import common.message.RpcResponse;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个连接上的在途请求表
+ * 替代原先全局共享、以 UUID 字符串为键的 UnprocessedRequests：
+ * - 每个 Channel 一张表，请求ID 为该连接内单调递增的 long，写入 v2 帧头，响应原样回显
+ * - 使用按请求ID 分段加锁的原始类型开放寻址表（LongObjectHashMap），避免装箱和字符串哈希，
+ * 连续的请求ID 依次落在不同分段上，写线程、响应线程与超时线程之间的竞争被分散
+ * - 连接关闭时立即让该连接上的所有在途请求失败，而不是等待各自超时
+ *
+ * 请求ID 从 1 开始，0 保留给帧头中没有请求ID 的情况（v1 帧）。
+ * 服务端流式调用另外登记在流表中，元素帧与结束帧交给对应的 {@link RemoteStream}；流的结束帧仍完成在途请求表中的 future。
+ */
+public class InFlightRequests {
+    private static final AttributeKey<InFlightRequests> KEY = AttributeKey.valueOf("rpc.inFlightRequests");
+
+    // 分段数，必须为 2 的幂
+    private static final int STRIPES = 16;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger pending = new AtomicInteger();
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private final LongObjectMap<CompletableFuture<RpcResponse>>[] stripes = new LongObjectMap[STRIPES];
+    private volatile Throwable closeCause;
+    // 进行中的服务端流式调用，数量通常很少
+    private final Map<Long, RemoteStream> streams = new ConcurrentHashMap<>();
+
+    public InFlightRequests() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongObjectHashMap<>();
+        }
+    }
+
+    /**
+     * 为新建立的连接创建在途请求表并绑定到 Channel 属性上
+     */
+    public static InFlightRequests attach(Channel channel) {
+        InFlightRequests inFlightRequests = new InFlightRequests();
+        channel.attr(KEY).set(inFlightRequests);
+        return inFlightRequests;
+    }
+
+    public static InFlightRequests get(Channel channel) {
+        return channel.attr(KEY).get();
+    }
+
+    /**
+     * 分配请求ID 并登记待完成的 future
+     * 连接已关闭时 future 会被立即标记失败，请求ID 仍正常返回
+     *
+     * @return 该连接内唯一的请求ID
+     */
+    public long register(CompletableFuture<RpcResponse> future) {
+        long requestId = sequence.incrementAndGet();
+        LongObjectMap<CompletableFuture<RpcResponse>> stripe = stripe(requestId);
+        synchronized (stripe) {
+            // 在分段锁内检查关闭状态，保证与 failAll 的清理互斥，不会遗漏
+            if (closeCause == null) {
+                stripe.put(requestId, future);
+                pending.incrementAndGet();
+                return requestId;
+            }
+        }
+        future.completeExceptionally(closeCause);
+        return requestId;
+    }
+
+    /**
+     * 响应到达，完成对应请求
+     *
+     * @return 是否找到对应的在途请求（未找到通常是已超时或已失败）
+     */
+    public boolean complete(long requestId, RpcResponse response) {
+        CompletableFuture<RpcResponse> future = remove(requestId);
+        if (future == null) {
+            return false;
+        }
+        future.complete(response);
+        return true;
+    }
+
+    /**
+     * 登记流式调用，须在 register 分配请求ID 之后、写出请求之前调用
+     */
+    public void registerStream(long requestId, RemoteStream stream) {
+        streams.put(requestId, stream);
+    }
+
+    /**
+     * @return 请求ID 对应的流，不是流式调用或流已结束时返回 null
+     */
+    public RemoteStream stream(long requestId) {
+        return streams.isEmpty() ? null : streams.get(requestId);
+    }
+
+    public void removeStream(long requestId) {
+        streams.remove(requestId);
+    }
+
+    /**
+     * 以异常结束指定请求（发送失败、超时、响应无法解析等）
+     */
+    public boolean fail(long requestId, Throwable cause) {
+        CompletableFuture<RpcResponse> future = remove(requestId);
+        if (future == null) {
+            return false;
+        }
+        future.completeExceptionally(cause);
+        return true;
+    }
+
+    /**
+     * 连接关闭时调用：此后登记的请求立即失败，已登记的在途请求全部以 cause 结束
+     *
+     * @return 被结束的在途请求数
+     */
+    public int failAll(Throwable cause) {
+        closeCause = cause;
+        streams.clear();
+        List<CompletableFuture<RpcResponse>> drained = new ArrayList<>();
+        for (LongObjectMap<CompletableFuture<RpcResponse>> stripe : stripes) {
+            synchronized (stripe) {
+                drained.addAll(stripe.values());
+                pending.addAndGet(-stripe.size());
+                stripe.clear();
+            }
+        }
+        // 在锁外回调，避免 future 的后续阶段在持锁状态下执行
+        for (CompletableFuture<RpcResponse> future : drained) {
+            future.completeExceptionally(cause);
+        }
+        return drained.size();
+    }
+
+    /**
+     * 当前在途请求数
+     */
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    private CompletableFuture<RpcResponse> remove(long requestId) {
+        LongObjectMap<CompletableFuture<RpcResponse>> stripe = stripe(requestId);
+        CompletableFuture<RpcResponse> future;
+        synchronized (stripe) {
+            future = stripe.remove(requestId);
+        }
+        if (future != null) {
+            pending.decrementAndGet();
+        }
+        return future;
+    }
+
+    private LongObjectMap<CompletableFuture<RpcResponse>> stripe(long requestId) {
+        return stripes[(int) (requestId & (STRIPES - 1))];
+    }
+}
@@ -0,0 +1,294 @@
+package client.netty;
+
+import common.message.MessageType;
+import common.message.RawMessage;
+import common.message.RpcResponse;
+import common.message.StreamFrame;
+import common.serializer.Serializer;
+import common.serializer.SerializerFactory;
+import io.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * 客户端的一次服务端流式调用，对调用方表现为只能订阅一次的 Flow.Publisher
+ *
+ * 生命周期：
+ * - 订阅方第一次 request(n) 时才发起调用（starter 负责服务发现、取连接并调用 {@link #attach}）
+ * - attach 在同一个 IO 任务中分配请求ID、先写出累计的信用帧再写出请求帧，服务端读到请求时该流的占位已经存在
+ * - 之后的 request(n) 累加到 unsentCredit，由一个 IO 任务合并写出，订阅方逐个请求时不会每次都写一帧
+ * - 元素帧与结束帧按到达顺序进入队列，在 ResponseDispatcher 选定的线程上串行反序列化并通知订阅方，
+ * 分发模式为 pool 时也不会乱序
+ * - 结束帧完成 {@link #result()}，连接关闭、发送失败同样通过它结束；result 完成后通知 onComplete/onError
+ *
+ * 流式调用没有整体超时，由订阅方的需求决定持续时间；cancel 会通知服务端停止产生元素。
+ */
+public class RemoteStream implements Flow.Publisher<Object>, Flow.Subscription {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteStream.class);
+
+    private final Consumer<RemoteStream> starter;
+    private final CompletableFuture<RpcResponse> result = new CompletableFuture<>();
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Flow.Subscriber<? super Object> subscriber;
+
+    // attach 的 IO 任务执行后才有值
+    private volatile Channel channel;
+    private volatile InFlightRequests inFlightRequests;
+    private volatile long requestId;
+
+    // 订阅方已请求、尚未写给服务端的需求
+    private final AtomicLong unsentCredit = new AtomicLong();
+    private final AtomicBoolean creditScheduled = new AtomicBoolean();
+    private final AtomicBoolean cancelSent = new AtomicBoolean();
+    private volatile boolean cancelled;
+    // 订阅方违反 request(n) 约定时以此结束流
+    private volatile Throwable requestError;
+
+    // 待处理的信号：RawMessage（元素帧或结束帧）或 Terminal
+    private final Queue<Object> signals = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    // 只在串行的 drain 中访问
+    private boolean done;
+
+    public RemoteStream(Consumer<RemoteStream> starter) {
+        this.starter = starter;
+        result.whenComplete((response, throwable) -> {
+            InFlightRequests registered = inFlightRequests;
+            if (registered != null) {
+                registered.removeStream(requestId);
+            }
+            signals.offer(new Terminal(response, throwable));
+            schedule();
+        });
+    }
+
+    /**
+     * 整个调用的结果：服务端的结束帧，或发送失败、连接关闭、取消等异常
+     */
+    public CompletableFuture<RpcResponse> result() {
+        return result;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Object> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("远程流只能被订阅一次"));
+            return;
+        }
+        this.subscriber = subscriber;
+        subscriber.onSubscribe(this);
+    }
+
+    @Override
+    public void request(long n) {
+        if (cancelled || result.isDone()) {
+            return;
+        }
+        if (n <= 0) {
+            requestError = new IllegalArgumentException("request(n) 的 n 必须为正数: " + n);
+            cancel();
+            return;
+        }
+        unsentCredit.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+        if (started.compareAndSet(false, true)) {
+            try {
+                starter.accept(this);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+            return;
+        }
+        scheduleCredit();
+    }
+
+    @Override
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        CancellationException cause = new CancellationException("流已被取消");
+        Channel attached = channel;
+        if (attached != null) {
+            sendCancel(attached);
+            inFlightRequests.fail(requestId, cause);
+        }
+        result.completeExceptionally(cause);
+    }
+
+    /**
+     * 在连接上发起调用：在连接的 IO 线程上分配请求ID 并登记，先写出订阅方至今的需求，再写出请求
+     * 请求ID 在写出前的同一个 IO 任务中分配，服务端读到任何更大的请求ID 之前必然先读到本流的首个信用帧，
+     * 据此区分“尚未开始”与“已经结束”的流
+     *
+     * @param sendRequest 以分配的请求ID 写出请求帧
+     */
+    public void attach(Channel channel, InFlightRequests inFlightRequests, LongConsumer sendRequest) {
+        this.inFlightRequests = inFlightRequests;
+        channel.eventLoop().execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            long id = inFlightRequests.register(result);
+            this.requestId = id;
+            inFlightRequests.registerStream(id, this);
+            long credit = unsentCredit.getAndSet(0);
+            if (credit > 0) {
+                channel.write(StreamFrame.credit(id, credit));
+            }
+            sendRequest.accept(id);
+            // 发布 channel 之后的信用与取消都经由同一个事件循环排在请求之后写出
+            this.channel = channel;
+            if (cancelled) {
+                sendCancel(channel);
+                inFlightRequests.fail(id, new CancellationException("流已被取消"));
+            }
+        });
+    }
+
+    /**
+     * IO 线程收到该流的元素帧或结束帧，消息的引用由本流负责释放
+     */
+    public void onFrame(RawMessage rawMessage) {
+        signals.offer(rawMessage);
+        schedule();
+    }
+
+    private void scheduleCredit() {
+        Channel attached = channel;
+        if (attached == null || !creditScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        attached.eventLoop().execute(() -> {
+            creditScheduled.set(false);
+            long credit = unsentCredit.getAndSet(0);
+            if (credit > 0 && !cancelled && !result.isDone()) {
+                attached.writeAndFlush(StreamFrame.credit(requestId, credit));
+            }
+        });
+    }
+
+    private void sendCancel(Channel attached) {
+        if (cancelSent.compareAndSet(false, true)) {
+            attached.eventLoop().execute(() -> attached.writeAndFlush(StreamFrame.cancel(requestId)));
+        }
+    }
+
+    private void schedule() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        try {
+            ResponseDispatcher.INSTANCE.dispatch(this::drain);
+        } catch (RejectedExecutionException e) {
+            // 线程池已满时在当前线程处理，流内的信号不能丢弃
+            drain();
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        do {
+            Object signal;
+            while ((signal = signals.poll()) != null) {
+                if (signal instanceof RawMessage) {
+                    handleFrame((RawMessage) signal);
+                } else {
+                    handleTerminal((Terminal) signal);
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void handleFrame(RawMessage rawMessage) {
+        try {
+            if (done || cancelled) {
+                return;
+            }
+            Serializer serializer = SerializerFactory.getSerializerByCode(rawMessage.getSerializerType());
+            if (serializer == null) {
+                throw new IllegalStateException("不支持的序列化类型: " + rawMessage.getSerializerType());
+            }
+            // 元素帧的消息体同样是 RpcResponse
+            Object deserialized = serializer.deserialize(rawMessage.content().nioBuffer(),
+                    MessageType.RESPONSE.getCode());
+            if (!(deserialized instanceof RpcResponse)) {
+                throw new IllegalStateException("收到非RpcResponse消息: "
+                        + (deserialized == null ? null : deserialized.getClass()));
+            }
+            RpcResponse response = (RpcResponse) deserialized;
+            if (rawMessage.getMessageType() == MessageType.STREAM_ITEM.getCode()) {
+                subscriber.onNext(response.getData());
+            } else {
+                inFlightRequests.complete(requestId, response);
+            }
+        } catch (Exception e) {
+            logger.error("流式响应处理异常: {}", requestId, e);
+            // 通知服务端停止产生元素，否则服务端的流一直占用连接上的流配额，直到连接关闭
+            sendCancel(channel);
+            inFlightRequests.fail(requestId, e);
+        } finally {
+            rawMessage.release();
+        }
+    }
+
+    private void handleTerminal(Terminal terminal) {
+        if (done) {
+            return;
+        }
+        done = true;
+        if (requestError != null) {
+            subscriber.onError(requestError);
+            return;
+        }
+        if (cancelled) {
+            return;
+        }
+        if (terminal.throwable != null) {
+            subscriber.onError(terminal.throwable);
+        } else if (terminal.response == null || terminal.response.getCode() != 200) {
+            subscriber.onError(new RuntimeException("RPC调用错误: "
+                    + (terminal.response == null ? "无响应" : terminal.response.getMessage())));
+        } else {
+            subscriber.onComplete();
+        }
+    }
+
+    private static final class Terminal {
+        private final RpcResponse response;
+        private final Throwable throwable;
+
+        private Terminal(RpcResponse response, Throwable throwable) {
+            this.response = response;
+            this.throwable = throwable;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package client.netty;
+
+import common.message.RequestBatch;
+import common.message.RpcRequest;
+import common.util.AppConfig;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个连接上的请求攒批器
+ * 标记为 {@link common.service.Batchable} 的请求先进入队列：第一个请求入队时在连接的事件循环上登记一个窗口定时任务，
+ * 窗口结束或攒满 maxSize 个请求时把队列中的请求编码为 BATCH_REQUEST 帧写出（只有一个请求时仍按普通请求帧写出）。
+ * 服务端逐个分发批内请求并分别回复，响应的处理与普通请求完全相同。
+ *
+ * 调用方线程只做一次无锁入队，出队与写出都在事件循环中进行。请求在入队前已登记在途请求表，
+ * 写出失败时逐个标记失败；连接关闭时由在途请求表统一失败。
+ *
+ * 配置项：
+ * - rpc.client.batch.maxSize：每批最多请求数，默认 64
+ * - rpc.client.batch.windowMicros：攒批窗口（微秒），默认 200；NIO 传输的定时精度为毫秒级，窗口实际会被放大
+ */
+public class RequestBatcher {
+    private static final Logger logger = LoggerFactory.getLogger(RequestBatcher.class);
+    private static final AttributeKey<RequestBatcher> KEY = AttributeKey.valueOf("rpc.requestBatcher");
+
+    private final Channel channel;
+    private final InFlightRequests inFlightRequests;
+    private final int maxBatchSize;
+    private final long windowMicros;
+
+    private final Queue<RpcRequest> queue = PlatformDependent.newMpscQueue();
+    // 已入队、尚未出队的请求数
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean windowScheduled = new AtomicBoolean();
+    private final Runnable flushTask = this::flush;
+    private final Runnable windowTask = () -> {
+        windowScheduled.set(false);
+        flush();
+    };
+
+    RequestBatcher(Channel channel, InFlightRequests inFlightRequests, int maxBatchSize, long windowMicros) {
+        this.channel = channel;
+        this.inFlightRequests = inFlightRequests;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowMicros = Math.max(0, windowMicros);
+    }
+
+    /**
+     * 获取连接的攒批器，首次使用时按配置创建
+     */
+    public static RequestBatcher of(Channel channel) {
+        Attribute<RequestBatcher> attribute = channel.attr(KEY);
+        RequestBatcher batcher = attribute.get();
+        if (batcher == null) {
+            RequestBatcher created = new RequestBatcher(channel, InFlightRequests.get(channel),
+                    AppConfig.getInt("rpc.client.batch.maxSize", 64),
+                    AppConfig.getInt("rpc.client.batch.windowMicros", 200));
+            batcher = attribute.setIfAbsent(created);
+            if (batcher == null) {
+                batcher = created;
+            }
+        }
+        return batcher;
+    }
+
+    /**
+     * 请求入队，须已在在途请求表中登记并设置请求ID
+     */
+    public void add(RpcRequest request) {
+        queue.offer(request);
+        int size = queued.incrementAndGet();
+        try {
+            if (size % maxBatchSize == 0) {
+                // 攒满一批，不等窗口结束
+                channel.eventLoop().execute(flushTask);
+            } else if (windowScheduled.compareAndSet(false, true)) {
+                channel.eventLoop().schedule(windowTask, windowMicros, TimeUnit.MICROSECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // 事件循环已关闭，连接不可用，队列中的请求由在途请求表随连接关闭失败
+            logger.warn("连接 {} 的事件循环已关闭，无法发送批量请求", channel.remoteAddress());
+            inFlightRequests.fail(request.getSequenceId(), e);
+        }
+    }
+
+    /**
+     * 当前排队中的请求数
+     */
+    public int pendingCount() {
+        return queued.get();
+    }
+
+    private void flush() {
+        boolean written = false;
+        int size;
+        while ((size = Math.min(queued.get(), maxBatchSize)) > 0) {
+            List<RpcRequest> batch = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                batch.add(queue.poll());
+            }
+            queued.addAndGet(-size);
+            write(batch);
+            written = true;
+        }
+        if (written) {
+            channel.flush();
+        }
+    }
+
+    private void write(List<RpcRequest> batch) {
+        Object message = batch.size() == 1 ? batch.get(0) : new RequestBatch(batch);
+        channel.write(message).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                logger.error("发送批量请求失败，{} 个请求被标记失败", batch.size(), future.cause());
+                for (RpcRequest request : batch) {
+                    inFlightRequests.fail(request.getSequenceId(), new Exception("发送请求失败", future.cause()));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,132 @@
+package client.netty;
+
+import common.util.AppConfig;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 客户端请求超时定时器（单例）
+ * 基于时间轮（HashedWheelTimer）：登记与取消都是 O(1)，请求完成时取消对应超时，
+ * 不会像 ScheduledThreadPoolExecutor 那样在延迟队列堆中为每个请求保留一个任务直到超时。
+ * 代价是超时精度为一个 tick，对秒级的 RPC 超时可以忽略。
+ *
+ * 配置项：
+ * - rpc.client.timeout.tickMs：时间轮每格时长，默认 10ms
+ * - rpc.client.timeout.ticksPerWheel：时间轮格数，默认 512
+ */
+public enum RequestTimeoutTimer {
+    /**
+     * 单例实例
+     */
+    INSTANCE;
+
+    // 调度延迟探针的间隔
+    private static final long PROBE_INTERVAL_MS = 100;
+
+    private final HashedWheelTimer timer;
+    private final long tickMs;
+
+    // 统计
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final AtomicLong lastTickLagNanos = new AtomicLong();
+    private final AtomicLong maxTickLagNanos = new AtomicLong();
+
+    RequestTimeoutTimer() {
+        this.tickMs = Math.max(1, AppConfig.getInt("rpc.client.timeout.tickMs", 10));
+        int ticksPerWheel = AppConfig.getInt("rpc.client.timeout.ticksPerWheel", 512);
+        this.timer = new HashedWheelTimer(new DefaultThreadFactory("rpc-client-timeout", true),
+                tickMs, TimeUnit.MILLISECONDS, ticksPerWheel);
+        scheduleProbe();
+        // 枚举构造器中不能引用静态字段 logger
+        LoggerFactory.getLogger(RequestTimeoutTimer.class)
+                .info("请求超时时间轮已启动: tick={}ms, ticksPerWheel={}", tickMs, ticksPerWheel);
+    }
+
+    /**
+     * 登记一个超时任务，请求完成时应调用返回值的 cancel()
+     */
+    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        scheduled.increment();
+        return timer.newTimeout(timeout -> {
+            expired.increment();
+            task.run(timeout);
+        }, delay, unit);
+    }
+
+    /**
+     * 取消超时任务（请求已完成）
+     */
+    public void cancel(Timeout timeout) {
+        if (timeout.cancel()) {
+            cancelled.increment();
+        }
+    }
+
+    /**
+     * 周期性探针：比较实际触发时间与预期触发时间，得到时间轮线程的调度延迟
+     * 时间轮按 tick 对齐触发，不超过一个 tick 的延迟属于正常；持续高于 tick 说明超时回调过重或时间轮线程得不到 CPU
+     */
+    private void scheduleProbe() {
+        long expectedNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PROBE_INTERVAL_MS);
+        timer.newTimeout(timeout -> {
+            long lag = Math.max(0, System.nanoTime() - expectedNanos);
+            lastTickLagNanos.set(lag);
+            maxTickLagNanos.accumulateAndGet(lag, Math::max);
+            scheduleProbe();
+        }, PROBE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 尚未触发也未被清理的超时任务数（不含内部探针）
+     * 已取消的任务在下一次 tick 时才从时间轮中移除
+     */
+    public long getPendingTimeouts() {
+        return Math.max(0, timer.pendingTimeouts() - 1);
+    }
+
+    public long getScheduledCount() {
+        return scheduled.sum();
+    }
+
+    public long getCancelledCount() {
+        return cancelled.sum();
+    }
+
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    /**
+     * 最近一次探针测得的调度延迟（毫秒）
+     */
+    public double getLastTickLagMs() {
+        return lastTickLagNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * 启动以来探针测得的最大调度延迟（毫秒）
+     */
+    public double getMaxTickLagMs() {
+        return maxTickLagNanos.get() / 1_000_000.0;
+    }
+
+    public String reportStats() {
+        return String.format("RequestTimeoutTimer[pending=%d, scheduled=%d, cancelled=%d, expired=%d, "
+                + "tickLag=%.2fms, maxTickLag=%.2fms]",
+                getPendingTimeouts(), getScheduledCount(), getCancelledCount(), getExpiredCount(),
+                getLastTickLagMs(), getMaxTickLagMs());
+    }
+}
@@ -0,0 +1,145 @@
+package client.netty;
+
+import common.util.AppConfig;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 客户端响应分发器（单例）
+ * 决定响应在哪个线程上反序列化并完成请求 future。ClientProxy 的类型转换及调用方挂在 future 上的回调
+ * 都在完成 future 的线程上同步执行，因此每个响应最多只有一次线程切换。
+ *
+ * 分发模式（rpc.client.responseDispatch）：
+ * - eventloop：在 IO 线程上直接反序列化并完成，没有线程切换；适合小响应、回调很轻的场景，
+ * 回调阻塞会拖慢同一 IO 线程上的所有连接
+ * - pool（默认）：提交到共享线程池，一次线程切换
+ * - virtual：每个响应一个虚拟线程，一次线程切换，没有队列容量上限；
+ * 依赖 ThreadLocal 缓存实例的序列化器（如 Kryo）在该模式下每个响应都要重新创建实例，开销明显
+ *
+ * 其他配置项：
+ * - rpc.client.responsePool.queueCapacity：pool 模式的队列容量，默认 5000；队列满时拒绝，对应请求立即失败
+ */
+public enum ResponseDispatcher {
+    /**
+     * 单例实例
+     */
+    INSTANCE;
+
+    /**
+     * 响应分发模式
+     */
+    public enum Mode {
+        EVENT_LOOP, POOL, VIRTUAL_THREAD;
+
+        public static Mode parse(String name) {
+            if (name == null) {
+                return POOL;
+            }
+            switch (name.trim().toLowerCase()) {
+                case "eventloop":
+                case "event_loop":
+                    return EVENT_LOOP;
+                case "virtual":
+                case "virtual_thread":
+                    return VIRTUAL_THREAD;
+                default:
+                    return POOL;
+            }
+        }
+    }
+
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService virtualThreads;
+    private volatile Mode mode;
+
+    // 统计
+    private final LongAdder inline = new LongAdder();
+    private final LongAdder pooled = new LongAdder();
+    private final LongAdder virtual = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    ResponseDispatcher() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int queueCapacity = AppConfig.getInt("rpc.client.responsePool.queueCapacity", 5000);
+        this.pool = new ThreadPoolExecutor(
+                cores * 2,
+                cores * 4,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new DefaultThreadFactory("rpc-client-response", true));
+        this.virtualThreads = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("rpc-client-response-vt-", 0).factory());
+        this.mode = Mode.parse(AppConfig.getString("rpc.client.responseDispatch", "pool"));
+        // 枚举构造器中不能引用静态字段 logger
+        LoggerFactory.getLogger(ResponseDispatcher.class).info("客户端响应分发模式: {}", mode);
+    }
+
+    /**
+     * 按当前模式执行响应处理任务
+     *
+     * @throws RejectedExecutionException pool 模式下队列已满，调用方负责释放消息并让请求失败
+     */
+    public void dispatch(Runnable task) {
+        switch (mode) {
+            case EVENT_LOOP:
+                inline.increment();
+                task.run();
+                break;
+            case VIRTUAL_THREAD:
+                virtual.increment();
+                virtualThreads.execute(task);
+                break;
+            default:
+                try {
+                    pool.execute(task);
+                    pooled.increment();
+                } catch (RejectedExecutionException e) {
+                    rejected.increment();
+                    throw e;
+                }
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * 运行时切换分发模式，对之后到达的响应生效（用于压测对比不同模式）
+     */
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public long getInlineCount() {
+        return inline.sum();
+    }
+
+    public long getPooledCount() {
+        return pooled.sum();
+    }
+
+    public long getVirtualCount() {
+        return virtual.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public String reportStats() {
+        return String.format("ResponseDispatcher[mode=%s, inline=%d, pooled=%d, virtual=%d, rejected=%d, "
+                + "poolActive=%d, poolQueue=%d]",
+                mode, getInlineCount(), getPooledCount(), getVirtualCount(), getRejectedCount(),
+                pool.getActiveCount(), pool.getQueue().size());
+    }
+}
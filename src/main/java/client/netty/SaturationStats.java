@@ -0,0 +1,77 @@
+package client.netty;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 客户端连接饱和统计
+ * 连接在途请求数达到上限或出站缓冲区超过高水位（不可写）时，按 rpc.client.saturation.policy 处理，
+ * 这里记录各处理路径的触发次数，用于观察下游变慢时请求被拒绝、排队还是转移。
+ */
+public final class SaturationStats {
+    private SaturationStats() {
+    }
+
+    // 直接以 503 失败（fail_fast 策略，或其他策略无法处理时）
+    private static final LongAdder FAILED_FAST = new LongAdder();
+    // 进入连接的等待队列
+    private static final LongAdder QUEUED = new LongAdder();
+    // 等待队列已满而失败
+    private static final LongAdder QUEUE_FULL = new LongAdder();
+    // 在等待队列中超时
+    private static final LongAdder QUEUE_TIMEOUTS = new LongAdder();
+    // 转到另一个节点的连接发送
+    private static final LongAdder REROUTED = new LongAdder();
+
+    public static void recordFailedFast() {
+        FAILED_FAST.increment();
+    }
+
+    public static void recordQueued() {
+        QUEUED.increment();
+    }
+
+    public static void recordQueueFull() {
+        QUEUE_FULL.increment();
+    }
+
+    public static void recordQueueTimeout() {
+        QUEUE_TIMEOUTS.increment();
+    }
+
+    public static void recordRerouted() {
+        REROUTED.increment();
+    }
+
+    public static long getFailedFast() {
+        return FAILED_FAST.sum();
+    }
+
+    public static long getQueued() {
+        return QUEUED.sum();
+    }
+
+    public static long getQueueFull() {
+        return QUEUE_FULL.sum();
+    }
+
+    public static long getQueueTimeouts() {
+        return QUEUE_TIMEOUTS.sum();
+    }
+
+    public static long getRerouted() {
+        return REROUTED.sum();
+    }
+
+    public static String report() {
+        return String.format("Saturation[failedFast=%d, queued=%d, queueFull=%d, queueTimeouts=%d, rerouted=%d]",
+                getFailedFast(), getQueued(), getQueueFull(), getQueueTimeouts(), getRerouted());
+    }
+
+    public static void reset() {
+        FAILED_FAST.reset();
+        QUEUED.reset();
+        QUEUE_FULL.reset();
+        QUEUE_TIMEOUTS.reset();
+        REROUTED.reset();
+    }
+}
@@ -0,0 +1,130 @@
+package client.netty.handler;
+
+import client.netty.InFlightRequests;
+import common.message.Heartbeat;
+import common.message.MessageType;
+import common.message.ProtocolConstants;
+import common.message.RawMessage;
+import common.util.AppConfig;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AttributeKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端心跳处理器，配合前置的 {@link IdleStateHandler} 发现半开（对端已失效但未收到 FIN/RST）的连接
+ *
+ * - 写空闲：发送 PING，使服务端的空闲检测不会回收仍在使用的连接（例如只接收流元素、不再发送信用的连接）
+ * - 读空闲：一个周期内没有收到任何数据即记一次未应答并发送 PING；收到任何消息（包括 PONG）清零
+ * - 连续未应答超过 maxMissed 次：判定连接失效，立即以心跳超时结束该连接上的全部在途请求并关闭连接，
+ * 连接池随后在后台重连该槽位
+ * - 至少一次 PING 未获应答（未应答计数达到 2）的连接视为可疑，连接池在有其他连接时不再选择它
+ *
+ * 心跳帧只有 v2 格式，配置为 v1 协议时不启用。须放在 Decoder 与 Encoder 之后、NettyClientHandler 之前，
+ * PONG 在此消费，不会传给业务处理器。非 @Sharable：每个连接一个实例，状态只在事件循环中修改。
+ *
+ * 配置项：
+ * - rpc.client.heartbeat.enabled：是否启用，默认 true
+ * - rpc.client.heartbeat.intervalMs：空闲检测周期，默认 3000
+ * - rpc.client.heartbeat.maxMissed：判定失效前允许的连续未应答次数，默认 3
+ */
+public class HeartbeatHandler extends ChannelInboundHandlerAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(HeartbeatHandler.class);
+    private static final AttributeKey<HeartbeatHandler> KEY = AttributeKey.valueOf("rpc.heartbeat");
+
+    private final long intervalMs;
+    private final int maxMissed;
+    // 连续的读空闲周期数
+    private volatile int missed;
+
+    public HeartbeatHandler(long intervalMs, int maxMissed) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("心跳周期必须为正数: " + intervalMs);
+        }
+        this.intervalMs = intervalMs;
+        this.maxMissed = Math.max(1, maxMissed);
+    }
+
+    /**
+     * 按配置创建，未启用或配置为 v1 协议时返回 null
+     */
+    public static HeartbeatHandler fromConfig() {
+        if (!AppConfig.getBoolean("rpc.client.heartbeat.enabled", true)
+                || AppConfig.getInt("rpc.protocol.version", ProtocolConstants.VERSION_2) == ProtocolConstants.VERSION_1) {
+            return null;
+        }
+        return new HeartbeatHandler(AppConfig.getInt("rpc.client.heartbeat.intervalMs", 3000),
+                AppConfig.getInt("rpc.client.heartbeat.maxMissed", 3));
+    }
+
+    /**
+     * 与本处理器配套的空闲检测器，读写空闲周期均为心跳周期，需放在 pipeline 靠前的位置以观察到所有读写
+     */
+    public IdleStateHandler newIdleStateHandler() {
+        return new IdleStateHandler(intervalMs, intervalMs, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 连接是否可疑：已发出的 PING 超过一个周期未获应答
+     */
+    public static boolean isSuspect(Channel channel) {
+        HeartbeatHandler handler = channel.attr(KEY).get();
+        return handler != null && handler.missed >= 2;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        ctx.channel().attr(KEY).set(this);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        missed = 0;
+        if (msg instanceof RawMessage
+                && ((RawMessage) msg).getMessageType() == MessageType.HEARTBEAT_PONG.getCode()) {
+            ((RawMessage) msg).release();
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (!(evt instanceof IdleStateEvent)) {
+            super.userEventTriggered(ctx, evt);
+            return;
+        }
+        IdleStateEvent event = (IdleStateEvent) evt;
+        if (event.state() == IdleState.READER_IDLE) {
+            // 首个读空闲事件表示上一次读取之后已经过了一个周期
+            int current = event.isFirst() ? 1 : missed + 1;
+            missed = current;
+            if (current > maxMissed) {
+                onDead(ctx, current);
+                return;
+            }
+        }
+        ctx.writeAndFlush(Heartbeat.PING).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+    }
+
+    private void onDead(ChannelHandlerContext ctx, int current) {
+        Channel channel = ctx.channel();
+        logger.warn("连接 {} 已 {} 个心跳周期（{}ms）未收到任何数据，判定失效并关闭", channel.remoteAddress(),
+                current, intervalMs);
+        InFlightRequests inFlightRequests = InFlightRequests.get(channel);
+        if (inFlightRequests != null) {
+            // 先以心跳超时结束在途请求，调用方得到明确的原因；随后的 channelInactive 不会再有可结束的请求
+            inFlightRequests.failAll(new IOException("连接心跳超时: " + channel.remoteAddress()));
+        }
+        ctx.close();
+    }
+}
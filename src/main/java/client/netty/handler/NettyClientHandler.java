@@ -1,7 +1,13 @@
 package client.netty.handler;
 
+import client.netty.InFlightLimiter;
+import client.netty.InFlightRequests;
+import client.netty.RemoteStream;
+import client.netty.ResponseDispatcher;
+import common.message.MessageType;
 import common.message.RawMessage;
 import common.message.RpcResponse;
+import common.message.SignatureDictionary;
 import common.serializer.Serializer;
 import common.serializer.SerializerFactory;
 import io.netty.channel.ChannelHandlerContext;
@@ -9,33 +15,19 @@ import io.netty.channel.SimpleChannelInboundHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.RejectedExecutionException;
 
 public class NettyClientHandler extends SimpleChannelInboundHandler<Object> {
     private static final Logger logger = LoggerFactory.getLogger(NettyClientHandler.class);
 
-    // 客户端业务线程池，用于处理响应的反序列化
-    private static final ThreadPoolExecutor clientWorkerPool;
-
-    static {
-        int cores = Runtime.getRuntime().availableProcessors();
-        clientWorkerPool = new ThreadPoolExecutor(
-                cores * 2,
-                cores * 4,
-                60L,
-                TimeUnit.SECONDS,
-                new ArrayBlockingQueue<>(5000),
-                java.util.concurrent.Executors.defaultThreadFactory());
-
-        // 简单的监控
-        java.util.concurrent.Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
-            if (clientWorkerPool.getQueue().size() > 500) {
-                logger.warn("ClientWorkerPool High Load: [Active: {}, Queue: {}]",
-                        clientWorkerPool.getActiveCount(), clientWorkerPool.getQueue().size());
-            }
-        }, 10, 10, TimeUnit.SECONDS);
+    // 当前连接的在途请求表
+    private final InFlightRequests inFlightRequests;
+    // 当前连接的签名字典，首次收到响应时从 Channel 属性获取
+    private SignatureDictionary dictionary;
+
+    public NettyClientHandler(InFlightRequests inFlightRequests) {
+        this.inFlightRequests = inFlightRequests;
     }
 
     @Override
@@ -45,27 +37,103 @@ public class NettyClientHandler extends SimpleChannelInboundHandler<Object> {
             return;
         }
 
-        RawMessage rawMessage = (RawMessage) msg;
+        // 流式调用的元素帧与结束帧交给对应的流，由流串行处理以保证顺序
+        RawMessage frame = (RawMessage) msg;
+        RemoteStream stream = frame.getRequestId() == 0L ? null : inFlightRequests.stream(frame.getRequestId());
+        if (stream != null) {
+            stream.onFrame(frame.retain());
+            return;
+        }
+        if (frame.getMessageType() == MessageType.STREAM_ITEM.getCode()) {
+            logger.debug("流已结束或已取消，丢弃元素帧: {}", frame.getRequestId());
+            return;
+        }
 
-        // 提交到线程池处理
-        clientWorkerPool.execute(() -> {
-            try {
-                Serializer serializer = SerializerFactory.getSerializerByCode(rawMessage.getSerializerType());
-                if (serializer == null) {
-                    logger.error("不支持的序列化类型: {}", rawMessage.getSerializerType());
-                    return;
-                }
+        if (frame.hasRoute() && frame.getMessageType() == MessageType.RESPONSE.getCode()) {
+            // 响应帧头回显了请求的服务ID/方法ID：服务端已能按ID 还原该签名，之后的请求可以省略
+            if (dictionary == null) {
+                dictionary = SignatureDictionary.get(channelHandlerContext.channel());
+            }
+            dictionary.acknowledge(frame.getServiceId(), frame.getMethodId());
+        }
+
+        // 消息体可能在其他线程中消费：先 retain，保证 channelRead0 返回后的自动 release 不会回收缓冲区
+        RawMessage rawMessage = frame.retain();
 
-                Object deserialized = serializer.deserialize(rawMessage.getData(), rawMessage.getMessageType());
-                if (deserialized instanceof RpcResponse) {
-                    client.netty.UnprocessedRequests.complete((RpcResponse) deserialized);
-                } else {
-                    logger.warn("收到非RpcResponse消息: {}", deserialized.getClass());
+        // 按配置的分发模式处理：IO 线程直接处理，或一次切换到共享线程池/虚拟线程
+        try {
+            ResponseDispatcher.INSTANCE.dispatch(() -> {
+                try {
+                    Serializer serializer = SerializerFactory.getSerializerByCode(rawMessage.getSerializerType());
+                    if (serializer == null) {
+                        throw new IllegalStateException("不支持的序列化类型: " + rawMessage.getSerializerType());
+                    }
+
+                    Object deserialized = serializer.deserialize(rawMessage.content().nioBuffer(),
+                            rawMessage.getMessageType());
+                    if (deserialized instanceof RpcResponse) {
+                        completeRequest(rawMessage.getRequestId(), (RpcResponse) deserialized);
+                    } else {
+                        throw new IllegalStateException("收到非RpcResponse消息: "
+                                + (deserialized == null ? null : deserialized.getClass()));
+                    }
+                } catch (Exception e) {
+                    logger.error("客户端反序列化异常", e);
+                    // 帧头中带有请求ID 时可立即让对应请求失败，无需等待超时
+                    inFlightRequests.fail(rawMessage.getRequestId(), e);
+                } finally {
+                    rawMessage.release();
                 }
-            } catch (Exception e) {
-                logger.error("客户端反序列化异常", e);
-            }
-        });
+            });
+        } catch (RejectedExecutionException e) {
+            // 任务未被接收，异步路径不会释放，这里归还引用
+            rawMessage.release();
+            logger.error("客户端响应处理线程池已满，丢弃响应", e);
+            inFlightRequests.fail(rawMessage.getRequestId(), e);
+        }
+    }
+
+    private void completeRequest(long requestId, RpcResponse response) {
+        if (requestId == 0L) {
+            // v1 帧头没有请求ID，Encoder 在 v1 模式下把请求ID 写入了消息体的 requestId 字段
+            requestId = parseRequestId(response.getRequestId());
+        }
+        if (!inFlightRequests.complete(requestId, response)) {
+            logger.debug("响应对应的请求已结束（超时或已失败），忽略: {}", requestId);
+        }
+    }
+
+    private long parseRequestId(String requestId) {
+        try {
+            return requestId == null ? 0L : Long.parseLong(requestId);
+        } catch (NumberFormatException e) {
+            logger.warn("无法关联 v1 响应，requestId 不是连接内请求ID: {}", requestId);
+            return 0L;
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // 出站缓冲区降到低水位以下，发出因连接不可写而排队的请求
+        InFlightLimiter limiter = InFlightLimiter.get(ctx.channel());
+        if (limiter != null && ctx.channel().isWritable()) {
+            limiter.onWritable();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // 连接断开后不会再收到响应，立即结束该连接上的全部在途请求与排队中的请求
+        InFlightLimiter limiter = InFlightLimiter.get(ctx.channel());
+        if (limiter != null) {
+            limiter.close(new ClosedChannelException());
+        }
+        int failed = inFlightRequests.failAll(new ClosedChannelException());
+        if (failed > 0) {
+            logger.warn("连接 {} 已关闭，{} 个在途请求被标记失败", ctx.channel().remoteAddress(), failed);
+        }
+        super.channelInactive(ctx);
     }
 
     @Override
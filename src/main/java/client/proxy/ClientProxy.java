@@ -5,18 +5,23 @@ import client.rpcClient.RpcClient;
 import common.message.RpcRequest;
 import common.message.RpcResponse;
 import common.result.Result;
+import common.service.Batchable;
+import common.util.HashUtil;
 import com.alibaba.fastjson.JSON;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.*;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
 
 /**
  * JDK动态代理类，负责拦截接口方法调用并转发给 RpcClient（纯异步模式）
  * 特性：
- * - 仅支持异步调用，所有接口方法必须返回 CompletableFuture<T>
+ * - 仅支持异步调用，所有接口方法必须返回 CompletableFuture<T>，或返回 Flow.Publisher<T> 的服务端流式调用
  * - 资源复用：共享 RpcClient 实例，避免创建多个 Netty 线程池
  * - 泛型自动转换：支持复杂类型的自动转换
  */
@@ -26,21 +31,8 @@ public class ClientProxy implements InvocationHandler {
     private final RpcClient rpcClient;
     @SuppressWarnings("unused") // 保留用于未来的异步重试功能
     private final GuavaRetry retryStrategy;
-
-    // 专用线程池用于异步处理响应，避免阻塞 Netty EventLoop
-    private static final java.util.concurrent.ExecutorService responseExecutor;
-
-    static {
-        int cores = Runtime.getRuntime().availableProcessors();
-        responseExecutor = new java.util.concurrent.ThreadPoolExecutor(
-                cores * 2,
-                cores * 4,
-                60L,
-                java.util.concurrent.TimeUnit.SECONDS,
-                new java.util.concurrent.ArrayBlockingQueue<>(5000),
-                r -> new Thread(r, "ClientResponseProcessor-" + System.nanoTime()),
-                new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
-    }
+    // 每个方法的发送属性（路由ID、是否 @Batchable），避免每次调用都读取注解、在 IO 线程上重新计算路由ID
+    private final Map<Method, MethodInfo> methodInfos = new ConcurrentHashMap<>();
 
     // 建议使用此构造函数，传入共享的 rpcClient 实例，避免每个 Proxy 创建独立的 Netty 线程池
     public ClientProxy(RpcClient rpcClient, GuavaRetry retryStrategy) {
@@ -60,10 +52,15 @@ public class ClientProxy implements InvocationHandler {
         // 2. 构建 RPC 请求对象
         RpcRequest request = buildRpcRequest(method, args);
 
-        // 3. 仅支持异步调用 (返回值必须为 CompletableFuture)
+        // 3. 服务端流式调用：元素在订阅方的线程上按泛型参数转换
+        if (Flow.Publisher.class == method.getReturnType()) {
+            return new ConvertingPublisher(rpcClient.streamRequest(request), getFutureGenericType(method));
+        }
+
+        // 仅支持异步调用 (返回值必须为 CompletableFuture)
         if (!CompletableFuture.class.isAssignableFrom(method.getReturnType())) {
             throw new UnsupportedOperationException(
-                    "ClientProxy 仅支持异步调用，方法返回类型必须为 CompletableFuture<T>: "
+                    "ClientProxy 仅支持异步调用，方法返回类型必须为 CompletableFuture<T> 或 Flow.Publisher<T>: "
                             + method.getDeclaringClass().getName() + "." + method.getName());
         }
 
@@ -71,8 +68,8 @@ public class ClientProxy implements InvocationHandler {
         common.util.PerformanceTracker.startTracking(request.getRequestId());
         common.util.PerformanceTracker.record(request.getRequestId(), "proxy_build_end");
 
-        // 使用体thenApplyAsync 在专用线程池执行，避免阻塞 Netty EventLoop
-        return rpcClient.sendRequestAsync(request).thenApplyAsync(response -> {
+        // 在完成 future 的线程上同步转换：该线程已由 ResponseDispatcher 按分发模式选定，不再二次切换线程
+        return rpcClient.sendRequestAsync(request).thenApply(response -> {
             common.util.PerformanceTracker.record(request.getRequestId(), "response_process_start");
             try {
                 // 异步回调中处理类型转换（获取 Future 的泛型参数类型）
@@ -85,21 +82,46 @@ public class ClientProxy implements InvocationHandler {
                 common.util.PerformanceTracker.record(request.getRequestId(), "response_process_end");
                 logPerformance(method, startTime);
             }
-        }, responseExecutor); // 指定专用线程池
+        });
     }
 
     /**
      * 构建请求对象
      */
     private RpcRequest buildRpcRequest(Method method, Object[] args) {
-        return RpcRequest.builder()
+        RpcRequest request = RpcRequest.builder()
                 .interfaceName(method.getDeclaringClass().getName())
                 .methodName(method.getName())
                 .params(args)
                 .paramsType(method.getParameterTypes())
                 .timestamp(System.currentTimeMillis())
-                .requestId(UUID.randomUUID().toString())
                 .build();
+        MethodInfo info = methodInfos.computeIfAbsent(method, MethodInfo::new);
+        request.setServiceId(info.serviceId);
+        request.setMethodId(info.methodId);
+        request.setBatchable(info.batchable);
+        // 请求关联使用连接内的 long 请求ID（发送时分配），不再为每次调用生成 UUID；
+        // 仅在开启性能追踪时生成字符串ID 作为追踪键
+        if (common.util.PerformanceTracker.ENABLED) {
+            request.setRequestId(UUID.randomUUID().toString());
+        }
+        return request;
+    }
+
+    /**
+     * 方法级的请求属性，首次调用时计算；路由ID 与 Encoder 对手工构造的请求补齐时的计算方式相同
+     */
+    private static final class MethodInfo {
+        private final int serviceId;
+        private final int methodId;
+        private final boolean batchable;
+
+        MethodInfo(Method method) {
+            this.serviceId = HashUtil.serviceRouteId(method.getDeclaringClass().getName());
+            this.methodId = HashUtil.methodRouteId(method.getName(), method.getParameterTypes());
+            this.batchable = method.isAnnotationPresent(Batchable.class)
+                    || method.getDeclaringClass().isAnnotationPresent(Batchable.class);
+        }
     }
 
     /**
@@ -184,6 +206,64 @@ public class ClientProxy implements InvocationHandler {
         return Object.class;
     }
 
+    /**
+     * 把远程流的元素转换为接口声明的元素类型，转换失败时取消远程流并以 onError 结束
+     */
+    private class ConvertingPublisher implements Flow.Publisher<Object> {
+        private final Flow.Publisher<Object> source;
+        private final Type elementType;
+
+        ConvertingPublisher(Flow.Publisher<Object> source, Type elementType) {
+            this.source = source;
+            this.elementType = elementType;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super Object> subscriber) {
+            source.subscribe(new Flow.Subscriber<Object>() {
+                private Flow.Subscription subscription;
+                private boolean failed;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscriber.onSubscribe(subscription);
+                }
+
+                @Override
+                public void onNext(Object item) {
+                    if (failed) {
+                        return;
+                    }
+                    Object converted;
+                    try {
+                        converted = convertDataToType(item, elementType);
+                    } catch (RuntimeException e) {
+                        failed = true;
+                        subscription.cancel();
+                        subscriber.onError(e);
+                        return;
+                    }
+                    subscriber.onNext(converted);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    if (!failed) {
+                        subscriber.onError(throwable);
+                    }
+                }
+
+                @Override
+                public void onComplete() {
+                    if (!failed) {
+                        subscriber.onComplete();
+                    }
+                }
+            });
+        }
+    }
+
     private void logPerformance(Method method, long startTime) {
         long elapsedTime = System.currentTimeMillis() - startTime;
         if (elapsedTime > 1000 || logger.isDebugEnabled()) {
@@ -4,6 +4,7 @@ import common.message.RpcRequest;
 import common.message.RpcResponse;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 /**
  * RPC客户端接口 - 支持异步调用
@@ -30,6 +31,16 @@ public interface RpcClient {
      */
     CompletableFuture<RpcResponse> sendRequestAsync(RpcRequest request);
 
+    /**
+     * 服务端流式调用：服务方法返回 Flow.Publisher，元素按订阅方的 request(n) 逐批传回
+     *
+     * @param request RPC请求
+     * @return 只能订阅一次的发布者，订阅方第一次 request(n) 时发起调用
+     */
+    default Flow.Publisher<Object> streamRequest(RpcRequest request) {
+        throw new UnsupportedOperationException("当前客户端不支持流式调用");
+    }
+
     /**
      * 报告服务状态
      */
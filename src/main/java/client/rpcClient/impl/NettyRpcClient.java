@@ -1,6 +1,13 @@
 package client.rpcClient.impl;
 
-import client.netty.UnprocessedRequests;
+import client.netty.EndpointChannelPool;
+import client.netty.InFlightLimiter;
+import client.netty.InFlightRequests;
+import client.netty.RemoteStream;
+import client.netty.RequestBatcher;
+import client.netty.RequestTimeoutTimer;
+import client.netty.ResponseDispatcher;
+import client.netty.SaturationStats;
 import client.netty.initializer.NettyClientInitializer;
 import client.proxy.breaker.Breaker;
 import client.proxy.breaker.BreakerProvider;
@@ -10,26 +17,40 @@ import client.serviceCenter.ZKServiceCenter;
 import client.serviceCenter.balance.LoadBalance;
 import client.serviceCenter.balance.LoadBalanceFactory;
 import common.context.RpcRequestContext;
+import common.message.MessageType;
+import common.message.ProtocolConstants;
 import common.message.RpcRequest;
 import common.message.RpcResponse;
+import common.serializer.Serializer;
+import common.serializer.SerializerFactory;
 import common.trace.TraceContext;
 import common.trace.TraceInterceptor;
+import common.transport.DomainSockets;
+import common.transport.InJvmRegistry;
+import common.transport.Transport;
+import common.util.AppConfig;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.net.InetSocketAddress;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 
 public class NettyRpcClient implements RpcClient, AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(NettyRpcClient.class);
 
+    // 进程内调用复制参数与返回值时使用的序列化器，与 NettyClientInitializer 中的编码器一致
+    private static final int COPY_SERIALIZER_CODE = 2;
+
     private final ServiceCenter serviceCenter;
     private final EventLoopGroup eventLoopGroup;
     private final Bootstrap bootstrap;
@@ -38,13 +59,12 @@ public class NettyRpcClient implements RpcClient, AutoCloseable {
     // 可配置参数
     private final long readTimeout;
     private final TimeUnit timeUnit;
-
-    // 共享调度器，用于处理超时（建议全局单例或静态管理，避免每个Client创建太多线程）
-    private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(4, r -> {
-        Thread t = new Thread(r, "rpc-client-scheduler");
-        t.setDaemon(true);
-        return t;
-    });
+    // 是否对 @Batchable 的请求攒批发送（批量请求帧需要 v2 协议）
+    private final boolean batchEnabled;
+    // 连接在途请求数达到上限或不可写时的处理策略
+    private final InFlightLimiter.Policy saturationPolicy;
+    // 进程内调用复制参数与返回值的序列化器，构造时解析一次：工厂按配置的类型缓存，按编码查找每次都会重新扫描 SPI
+    private final Serializer copySerializer;
 
     // ================= 构造函数优化 =================
 
@@ -57,22 +77,47 @@ public class NettyRpcClient implements RpcClient, AutoCloseable {
     }
 
     public NettyRpcClient(LoadBalance loadBalance, long timeout, TimeUnit timeUnit) {
-        this.serviceCenter = new ZKServiceCenter(loadBalance);
+        this(new ZKServiceCenter(loadBalance), timeout, timeUnit);
+    }
+
+    /**
+     * 使用指定的服务发现中心，例如不依赖 Zookeeper 的进程内注册表
+     */
+    public NettyRpcClient(ServiceCenter serviceCenter, long timeout, TimeUnit timeUnit) {
+        this.serviceCenter = serviceCenter;
         this.readTimeout = timeout;
         this.timeUnit = timeUnit;
+        this.batchEnabled = AppConfig.getBoolean("rpc.client.batch.enabled", true)
+                && AppConfig.getInt("rpc.protocol.version", ProtocolConstants.VERSION_2) != ProtocolConstants.VERSION_1;
+        this.saturationPolicy = InFlightLimiter.policyFromConfig();
+        this.copySerializer = SerializerFactory.getSerializerByCode(COPY_SERIALIZER_CODE);
 
         // 初始化 Netty 资源 (不再是 static，支持多实例)
-        // 线程数设置为 CPU 核数 * 2 或根据业务密集度调整
-        this.eventLoopGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors() * 2);
+        // 传输实现由 rpc.transport 选择（auto 时 Linux 上优先 epoll），IO 线程数默认取 CPU 数
+        Transport transport = Transport.fromConfig();
+        this.eventLoopGroup = transport.newEventLoopGroup(Transport.ioThreads("rpc.client.ioThreads"),
+                "rpc-client-io");
         this.bootstrap = new Bootstrap();
         this.bootstrap.group(eventLoopGroup)
-                .channel(NioSocketChannel.class)
+                .channel(transport.socketChannelClass())
                 .option(io.netty.channel.ChannelOption.TCP_NODELAY, true)
                 .option(io.netty.channel.ChannelOption.SO_KEEPALIVE, true)
                 .option(io.netty.channel.ChannelOption.CONNECT_TIMEOUT_MILLIS, 3000)
                 .handler(new NettyClientInitializer());
+        transport.configure(bootstrap);
+        logger.debug("NettyRpcClient transport: {}", transport);
+
+        // 同机节点优先走 domain socket，与 TCP 连接共用 IO 线程组
+        Bootstrap domainSocketBootstrap = null;
+        if (transport.supportsDomainSocket() && DomainSockets.isClientPreferred()) {
+            domainSocketBootstrap = new Bootstrap()
+                    .group(eventLoopGroup)
+                    .channel(transport.domainSocketChannelClass())
+                    .option(io.netty.channel.ChannelOption.CONNECT_TIMEOUT_MILLIS, 3000)
+                    .handler(new NettyClientInitializer());
+        }
 
-        this.connectionManager = new ConnectionManager(bootstrap);
+        this.connectionManager = new ConnectionManager(bootstrap, domainSocketBootstrap, serviceCenter);
     }
 
     @Override
@@ -106,6 +151,13 @@ public class NettyRpcClient implements RpcClient, AutoCloseable {
         common.util.PerformanceTracker.record(request.getRequestId(), "client_send_start");
 
         try {
+            // 同进程内已有该接口的服务提供方：直接调用，跳过服务发现、序列化与网络
+            InJvmRegistry.Endpoint localEndpoint = InJvmRegistry.INSTANCE.lookup(request.getInterfaceName());
+            if (localEndpoint != null) {
+                sendInJvm(localEndpoint, request, resultFuture);
+                return resultFuture;
+            }
+
             // 2. 服务发现
             InetSocketAddress addr = serviceCenter.serviceDiscovery(
                     request.getInterfaceName(),
@@ -123,72 +175,327 @@ public class NettyRpcClient implements RpcClient, AutoCloseable {
                 return resultFuture;
             }
 
-            // 4. 获取连接 (从连接池)
-            Channel channel;
-            try {
-                channel = connectionManager.getChannel(addr);
-                common.util.PerformanceTracker.record(request.getRequestId(), "client_conn_acquired");
-            } catch (Exception e) {
-                breaker.recordFailure();
-                logger.error("连接建立失败: {}", addr, e);
-                completeFail(resultFuture, 500, "连接失败: " + e.getMessage());
-                return resultFuture;
+            // 4. 获取连接 (从连接池)：已有活跃连接时直接发送，否则挂在共享的建连 future 上，调用线程不阻塞
+            CompletableFuture<Channel> channelFuture = connectionManager.getChannel(addr, request.getInterfaceName());
+            if (channelFuture.isDone() && !channelFuture.isCompletedExceptionally()) {
+                send(channelFuture.join(), addr, request, resultFuture, breaker);
+            } else {
+                channelFuture.whenComplete((channel, e) -> {
+                    if (e != null) {
+                        breaker.recordFailure();
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        logger.error("连接建立失败: {}", addr, cause);
+                        completeFail(resultFuture, 500, "连接失败: " + cause.getMessage());
+                    } else {
+                        try {
+                            send(channel, addr, request, resultFuture, breaker);
+                        } catch (Exception ex) {
+                            logger.error("发送异步请求流程异常", ex);
+                            completeFail(resultFuture, 500, "客户端内部错误: " + ex.getMessage());
+                        }
+                    }
+                });
             }
 
-            // 5. 注册待处理请求
-            UnprocessedRequests.put(request.getRequestId(), resultFuture);
+        } catch (Exception e) {
+            logger.error("发送异步请求流程异常", e);
+            completeFail(resultFuture, 500, "客户端内部错误: " + e.getMessage());
+        }
+
+        return resultFuture;
+    }
+
+    /**
+     * 服务端流式调用
+     * 服务发现、熔断与连接池与普通请求相同；流没有整体超时，只在连接关闭、发送失败或取消时以异常结束。
+     * 同进程内有提供方时直接订阅服务方法返回的发布者，不经过信用帧，也不复制元素。
+     */
+    @Override
+    public Flow.Publisher<Object> streamRequest(RpcRequest request) {
+        InJvmRegistry.Endpoint localEndpoint = InJvmRegistry.INSTANCE.lookup(request.getInterfaceName());
+        if (localEndpoint != null) {
+            return subscriber -> streamInJvm(localEndpoint, request, subscriber);
+        }
+        return new RemoteStream(stream -> startStream(stream, request));
+    }
+
+    /**
+     * 进程内流式调用：熔断与链路追踪的处理同远程流，流结束（完成或出错）时计入提供方地址的熔断器，订阅方取消不计入
+     */
+    private void streamInJvm(InJvmRegistry.Endpoint endpoint, RpcRequest request,
+                             Flow.Subscriber<? super Object> subscriber) {
+        TraceInterceptor.clientBeforeRequest();
+        request.setTraceId(TraceContext.getTraceId());
+        request.setSpanId(TraceContext.getSpanId());
+
+        Breaker breaker = BreakerProvider.getInstance().getBreaker(endpoint.getAddress());
+        if (!breaker.allowRequest()) {
+            TraceInterceptor.clientAfterResponse();
+            RpcRequestContext.clear();
+            rejectStream(subscriber, new RuntimeException("RPC调用错误: 服务节点熔断: " + endpoint.getAddress()));
+            return;
+        }
+
+        endpoint.invoke(request).whenComplete((response, e) -> {
+            Object data = response == null ? null : response.getData();
+            if (e == null && response.getCode() == 200 && data instanceof Flow.Publisher) {
+                @SuppressWarnings("unchecked")
+                Flow.Publisher<Object> publisher = (Flow.Publisher<Object>) data;
+                publisher.subscribe(new InJvmStreamSubscriber(subscriber,
+                        (result, throwable) -> onComplete(request, breaker, null, result, throwable)));
+                return;
+            }
+            onComplete(request, breaker, null, response, e);
+            rejectStream(subscriber, e != null ? e : new RuntimeException("RPC调用错误: "
+                    + (response.getCode() == 200 ? "服务方法未返回 Flow.Publisher" : response.getMessage())));
+        });
+    }
+
+    // 流未能开始：按 Flow 约定先 onSubscribe 再 onError
+    private static void rejectStream(Flow.Subscriber<? super Object> subscriber, Throwable cause) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onError(cause);
+    }
+
+    /**
+     * 订阅方第一次 request(n) 时发起远程流式调用
+     */
+    private void startStream(RemoteStream stream, RpcRequest request) {
+        // 流元素与信用帧依赖帧头的请求ID，v1 帧无法关联
+        if (AppConfig.getInt("rpc.protocol.version", ProtocolConstants.VERSION_2) == ProtocolConstants.VERSION_1) {
+            stream.result().complete(RpcResponse.fail(400, "流式调用需要 v2 协议"));
+            return;
+        }
+        TraceInterceptor.clientBeforeRequest();
+        request.setTraceId(TraceContext.getTraceId());
+        request.setSpanId(TraceContext.getSpanId());
+
+        InetSocketAddress addr = serviceCenter.serviceDiscovery(request.getInterfaceName(), request.getFeatureCode());
+        if (addr == null) {
+            stream.result().complete(RpcResponse.fail(404, "服务未找到: " + request.getInterfaceName()));
+            return;
+        }
+        Breaker breaker = BreakerProvider.getInstance().getBreaker(addr);
+        if (!breaker.allowRequest()) {
+            stream.result().complete(RpcResponse.fail(500, "服务节点熔断: " + addr));
+            return;
+        }
+        stream.result().whenComplete((response, throwable) -> {
+            // 订阅方主动取消不计入熔断失败
+            if (!(throwable instanceof CancellationException)) {
+                onComplete(request, breaker, null, response, throwable);
+            }
+        });
+
+        connectionManager.getChannel(addr, request.getInterfaceName()).whenComplete((channel, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                logger.error("连接建立失败: {}", addr, cause);
+                stream.result().completeExceptionally(cause);
+                return;
+            }
+            if (stream.isCancelled()) {
+                return;
+            }
+            InFlightRequests inFlightRequests = InFlightRequests.get(channel);
+            stream.attach(channel, inFlightRequests, sequenceId -> {
+                request.setSequenceId(sequenceId);
+                channel.writeAndFlush(request).addListener((ChannelFutureListener) future -> {
+                    if (!future.isSuccess()) {
+                        inFlightRequests.fail(sequenceId, new Exception("发送请求失败", future.cause()));
+                        logger.error("发送流式请求失败", future.cause());
+                    }
+                });
+            });
+        });
+    }
+
+    // 辅助方法：统一处理失败
+    private void completeFail(CompletableFuture<RpcResponse> future, int code, String msg) {
+        future.complete(RpcResponse.fail(code, msg));
+        TraceInterceptor.clientAfterResponse();
+        RpcRequestContext.clear();
+    }
+
+    /**
+     * 取得连接的在途许可后发送；连接饱和（在途请求数达到上限或不可写）时按 rpc.client.saturation.policy 处理：
+     * - queue：进入连接的有界等待队列，许可归还或连接恢复可写时发出，排队时间计入请求超时
+     * - reroute：转到另一个节点已建立的未饱和连接
+     * - fail_fast：立即以 503 失败
+     * 队列已满、没有可转移的节点时同样以 503 失败。饱和属于本端的流量控制，不计入熔断。
+     */
+    private void send(Channel channel, InetSocketAddress addr, RpcRequest request,
+                      CompletableFuture<RpcResponse> resultFuture, Breaker breaker) {
+        InFlightLimiter limiter = InFlightLimiter.get(channel);
+        long timeoutNanos = timeUnit.toNanos(readTimeout);
+        if (limiter.tryAcquire()) {
+            sendOnChannel(channel, limiter, request, resultFuture, breaker, timeoutNanos);
+            return;
+        }
+        if (saturationPolicy == InFlightLimiter.Policy.QUEUE) {
+            long deadline = System.nanoTime() + timeoutNanos;
+            if (limiter.enqueue(resultFuture, () -> sendOnChannel(channel, limiter, request, resultFuture, breaker,
+                    deadline - System.nanoTime()), timeoutNanos)) {
+                return;
+            }
+        } else if (saturationPolicy == InFlightLimiter.Policy.REROUTE && reroute(addr, request, resultFuture)) {
+            return;
+        }
+        SaturationStats.recordFailedFast();
+        completeFail(resultFuture, 503, "连接已饱和: " + addr);
+    }
+
+    /**
+     * 转到另一个节点：只使用已建立且未饱和的连接，不为转移而等待建连
+     */
+    private boolean reroute(InetSocketAddress saturated, RpcRequest request,
+                            CompletableFuture<RpcResponse> resultFuture) {
+        InetSocketAddress alternative = serviceCenter.serviceDiscovery(request.getInterfaceName(),
+                request.getFeatureCode(), saturated);
+        if (alternative == null) {
+            return false;
+        }
+        CompletableFuture<Channel> channelFuture = connectionManager.getChannel(alternative, request.getInterfaceName());
+        if (!channelFuture.isDone() || channelFuture.isCompletedExceptionally()) {
+            return false;
+        }
+        Channel channel = channelFuture.join();
+        InFlightLimiter limiter = InFlightLimiter.get(channel);
+        if (!limiter.tryAcquire()) {
+            return false;
+        }
+        Breaker breaker = BreakerProvider.getInstance().getBreaker(alternative);
+        if (!breaker.allowRequest()) {
+            limiter.release();
+            return false;
+        }
+        SaturationStats.recordRerouted();
+        sendOnChannel(channel, limiter, request, resultFuture, breaker, timeUnit.toNanos(readTimeout));
+        return true;
+    }
+
+    /**
+     * 在已获得的连接上登记、发送请求并登记超时，全程非阻塞；调用前须已取得连接的在途许可，请求完成时归还
+     * 可能在调用线程上执行（已有活跃连接），也可能在建连完成、许可归还或连接恢复可写的线程上执行
+     */
+    private void sendOnChannel(Channel channel, InFlightLimiter limiter, RpcRequest request,
+                               CompletableFuture<RpcResponse> resultFuture, Breaker breaker, long timeoutNanos) {
+        if (resultFuture.isDone()) {
+            // 在等待队列中已超时
+            limiter.release();
+            return;
+        }
+        common.util.PerformanceTracker.record(request.getRequestId(), "client_conn_acquired");
+
+        // 5. 在该连接的在途请求表中登记，分配连接内请求ID（写入帧头，由服务端回显）
+        InFlightRequests inFlightRequests = InFlightRequests.get(channel);
+        long sequenceId = inFlightRequests.register(resultFuture);
+        request.setSequenceId(sequenceId);
 
-            // 6. 发送请求 (异步写)
+        // 6. 发送请求 (异步写)：@Batchable 的请求交给连接的攒批器，与同一窗口内的其他请求合并为一个帧
+        if (batchEnabled && request.isBatchable()) {
+            RequestBatcher.of(channel).add(request);
+        } else {
             channel.writeAndFlush(request).addListener((ChannelFutureListener) future -> {
                 if (!future.isSuccess()) {
-                    UnprocessedRequests.fail(request.getRequestId(), new Exception("发送请求失败")); // 移除并标记失败
-                    breaker.recordFailure();
+                    // 移除并标记失败，熔断计数由 resultFuture 的回调统一处理
+                    inFlightRequests.fail(sequenceId, new Exception("发送请求失败", future.cause()));
                     logger.error("发送请求失败", future.cause());
-                    completeFail(resultFuture, 500, "网络发送失败");
                 } else {
                     common.util.PerformanceTracker.record(request.getRequestId(), "client_write_success");
                 }
             });
+        }
 
-            // 7. 异步结果处理的回调 (当 UnprocessedRequests 收到 Response 并 complete future 时触发)
-            resultFuture.whenComplete((response, throwable) -> {
-                common.util.PerformanceTracker.record(request.getRequestId(), "client_response_receive");
-                if (throwable != null) {
-                    // 异常情况通常是超时被外部触发
-                    breaker.recordFailure();
-                } else {
-                    // 正常响应处理
-                    handleResponseMetrics(response, breaker);
-                    TraceInterceptor.clientAfterResponse();
-                }
-                RpcRequestContext.clear(); // 清理 ThreadLocal (注意：如果是异步回调，这里的clear可能清理的是Netty线程的TL，需谨慎)
-            });
+        // 7. 登记超时：时间轮 O(1) 插入，请求完成时取消，不会在队列中残留到超时时刻
+        Timeout timeout = RequestTimeoutTimer.INSTANCE.newTimeout(t -> {
+            if (inFlightRequests.fail(sequenceId, new TimeoutException("Async Request Timeout"))) {
+                logger.warn("异步请求超时监控触发: {}#{}", channel.remoteAddress(), sequenceId);
+            }
+        }, Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS);
 
-            // 8. 设置超时任务
-            // 注意：这里使用 remove 机制，如果请求已经完成，scheduled task 执行时会由 UnprocessedRequests
-            // 内部逻辑处理或被忽略
-            SCHEDULER.schedule(() -> {
-                if (!resultFuture.isDone()) {
-                    logger.warn("异步请求超时监控触发: {}", request.getRequestId());
-                    breaker.recordFailure();
-                    // UnprocessedRequests.fail 会触发 resultFuture.completeExceptionally
-                    UnprocessedRequests.fail(request.getRequestId(), new TimeoutException("Async Request Timeout"));
-                }
-            }, readTimeout, timeUnit);
+        // 8. 异步结果处理的回调 (当在途请求表收到 Response 并 complete future 时触发)，同时归还在途许可
+        resultFuture.whenComplete((response, throwable) -> {
+            limiter.release();
+            onComplete(request, breaker, timeout, response, throwable);
+        });
+    }
 
-        } catch (Exception e) {
-            logger.error("发送异步请求流程异常", e);
-            completeFail(resultFuture, 500, "客户端内部错误: " + e.getMessage());
+    /**
+     * 进程内调用：熔断器按提供方注册的地址获取，与经网络调用该节点时共用；超时、熔断计数与链路追踪的处理同网络请求
+     * rpc.client.injvm.copy 开启时参数与返回值经序列化复制，否则调用双方共享同一对象
+     */
+    private void sendInJvm(InJvmRegistry.Endpoint endpoint, RpcRequest request,
+                           CompletableFuture<RpcResponse> resultFuture) {
+        Breaker breaker = BreakerProvider.getInstance().getBreaker(endpoint.getAddress());
+        if (!breaker.allowRequest()) {
+            completeFail(resultFuture, 500, "服务节点熔断: " + endpoint.getAddress());
+            return;
         }
 
-        return resultFuture;
+        boolean copy = InJvmRegistry.isCopyOnCall();
+        CompletableFuture<RpcResponse> invocation = endpoint.invoke(copy ? copyOf(request) : request);
+
+        // @FastService 通常同步完成，不必登记超时
+        Timeout timeout = invocation.isDone() ? null : RequestTimeoutTimer.INSTANCE.newTimeout(t -> {
+            if (resultFuture.completeExceptionally(new TimeoutException("InJvm Request Timeout"))) {
+                logger.warn("进程内请求超时: {}#{}", request.getInterfaceName(), request.getMethodName());
+            }
+        }, readTimeout, timeUnit);
+        resultFuture.whenComplete((response, throwable) -> onComplete(request, breaker, timeout, response, throwable));
+
+        invocation.whenComplete((response, e) -> {
+            if (e != null) {
+                resultFuture.completeExceptionally(e);
+            } else {
+                resultFuture.complete(copy ? copyOf(response) : response);
+            }
+        });
     }
 
-    // 辅助方法：统一处理失败
-    private void completeFail(CompletableFuture<RpcResponse> future, int code, String msg) {
-        future.complete(RpcResponse.fail(code, msg));
-        TraceInterceptor.clientAfterResponse();
-        RpcRequestContext.clear();
+    /**
+     * 请求完成（响应、超时、连接关闭或发送失败）时更新熔断器并清理上下文
+     */
+    private void onComplete(RpcRequest request, Breaker breaker, Timeout timeout, RpcResponse response,
+                            Throwable throwable) {
+        if (timeout != null) {
+            RequestTimeoutTimer.INSTANCE.cancel(timeout);
+        }
+        common.util.PerformanceTracker.record(request.getRequestId(), "client_response_receive");
+        if (throwable != null) {
+            // 异常情况：超时、连接关闭或发送失败
+            breaker.recordFailure();
+        } else {
+            // 正常响应处理
+            handleResponseMetrics(response, breaker);
+            TraceInterceptor.clientAfterResponse();
+        }
+        RpcRequestContext.clear(); // 清理 ThreadLocal (注意：如果是异步回调，这里的clear可能清理的是Netty线程的TL，需谨慎)
+    }
+
+    /**
+     * 经序列化复制请求或响应，使进程内调用双方不共享可变对象
+     * 序列化器与编码器相同，复制结果与经网络传输后一致；帧头字段不在消息体中，需单独保留
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T copyOf(T message) {
+        int messageType = message instanceof RpcRequest ? MessageType.REQUEST.getCode() : MessageType.RESPONSE.getCode();
+        T copy = (T) copySerializer.deserialize(copySerializer.serialize(message), messageType);
+        if (message instanceof RpcRequest) {
+            RpcRequest source = (RpcRequest) message;
+            RpcRequest target = (RpcRequest) copy;
+            target.setServiceId(source.getServiceId());
+            target.setMethodId(source.getMethodId());
+        }
+        return copy;
     }
 
     // 辅助方法：处理响应与熔断器状态
@@ -211,7 +518,8 @@ public class NettyRpcClient implements RpcClient, AutoCloseable {
 
     @Override
     public String reportServiceStatus() {
-        return serviceCenter.reportServiceDistribution();
+        return serviceCenter.reportServiceDistribution() + "\n" + RequestTimeoutTimer.INSTANCE.reportStats()
+                + "\n" + ResponseDispatcher.INSTANCE.reportStats() + "\n" + SaturationStats.report();
     }
 
     /**
@@ -219,70 +527,135 @@ public class NettyRpcClient implements RpcClient, AutoCloseable {
      */
     @Override
     public void close() {
+        // 先关闭连接池，停止后台重连，再关闭 IO 线程组
+        connectionManager.close();
         if (eventLoopGroup != null) {
             eventLoopGroup.shutdownGracefully();
         }
-        connectionManager.close();
         logger.info("NettyRpcClient stopped.");
     }
 
+    /**
+     * 转发进程内流的信号，在流结束时回调一次：完成视为成功响应，出错视为调用失败；订阅方取消后不再回调
+     */
+    private static final class InJvmStreamSubscriber implements Flow.Subscriber<Object>, Flow.Subscription {
+        private final Flow.Subscriber<? super Object> downstream;
+        private final BiConsumer<RpcResponse, Throwable> onTerminate;
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        private volatile Flow.Subscription upstream;
+
+        private InJvmStreamSubscriber(Flow.Subscriber<? super Object> downstream,
+                                      BiConsumer<RpcResponse, Throwable> onTerminate) {
+            this.downstream = downstream;
+            this.onTerminate = onTerminate;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(Object item) {
+            downstream.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (terminated.compareAndSet(false, true)) {
+                onTerminate.accept(null, throwable);
+            }
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (terminated.compareAndSet(false, true)) {
+                onTerminate.accept(RpcResponse.success(null), null);
+            }
+            downstream.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            terminated.set(true);
+            upstream.cancel();
+        }
+    }
+
     // ================= 内部类：连接管理器 =================
 
     /**
-     * 负责管理连接缓存，解决并发连接问题
+     * 负责管理各服务节点的连接池
+     * 每个节点 rpc.client.connectionsPerEndpoint 个连接（默认 4），首次访问时预热
      */
     private static class ConnectionManager {
         private final Bootstrap bootstrap;
-        private final Map<String, Channel> channels = new ConcurrentHashMap<>();
-        // 使用锁对象防止对同一Host的并发Connect
-        private final Map<String, Object> connectLocks = new ConcurrentHashMap<>();
+        // 访问本机节点时使用的 domain socket 引导，当前传输不支持或未开启时为 null
+        private final Bootstrap domainSocketBootstrap;
+        private final ServiceCenter serviceCenter;
+        private final int connectionsPerEndpoint;
+        private final Map<String, EndpointChannelPool> pools = new ConcurrentHashMap<>();
 
-        public ConnectionManager(Bootstrap bootstrap) {
+        public ConnectionManager(Bootstrap bootstrap, Bootstrap domainSocketBootstrap, ServiceCenter serviceCenter) {
             this.bootstrap = bootstrap;
+            this.domainSocketBootstrap = domainSocketBootstrap;
+            this.serviceCenter = serviceCenter;
+            this.connectionsPerEndpoint = Math.max(1, AppConfig.getInt("rpc.client.connectionsPerEndpoint", 4));
         }
 
-        public Channel getChannel(InetSocketAddress address) throws InterruptedException {
+        /**
+         * 异步获取连接：有活跃连接时返回已完成的 future，否则返回连接池内所有等待者共享的建连 future
+         * 连接池仍以 host:port 为键（熔断、负载均衡不变），节点在本机且通告了 socket 路径时池内连接走 domain socket
+         */
+        public CompletableFuture<Channel> getChannel(InetSocketAddress address, String serviceName) {
             String key = address.toString();
-
-            // 1. 快速检查
-            Channel channel = channels.get(key);
-            if (channel != null && channel.isActive()) {
-                return channel;
+            EndpointChannelPool pool = pools.get(key);
+            if (pool == null) {
+                pool = pools.computeIfAbsent(key, k -> createPool(address, serviceName));
             }
-
-            // 2. 获取锁对象 (细粒度锁，只锁当前地址)
-            Object lock = connectLocks.computeIfAbsent(key, k -> new Object());
-
-            synchronized (lock) {
-                // 3. 双重检查
-                channel = channels.get(key);
-                if (channel != null && channel.isActive()) {
-                    return channel;
-                }
-
-                // 4. 建立连接 (同步等待，因为建立连接通常很快，且必须建立后才能发请求)
-                // 也可以优化为返回 Future<Channel> 实现全异步，但增加了复杂度
-                logger.debug("Connecting to {}", address);
-                channel = bootstrap.connect(address).sync().channel();
-
-                // 5. 添加关闭监听，自动移除失效连接
-                channel.closeFuture().addListener(future -> {
-                    logger.debug("Channel disconnected: {}", key);
-                    channels.remove(key);
-                    connectLocks.remove(key); // 清理锁对象
+            EndpointChannelPool acquiredPool = pool;
+
+            CompletableFuture<Channel> future = acquiredPool.acquire();
+            if (!future.isDone() || future.isCompletedExceptionally()) {
+                future.whenComplete((channel, e) -> {
+                    // 节点上没有任何可用连接且重连失败：移除整个连接池，下次访问时重新创建
+                    if (e != null && acquiredPool.activeCount() == 0 && pools.remove(key, acquiredPool)) {
+                        acquiredPool.close();
+                    }
                 });
+            }
+            return future;
+        }
 
-                channels.put(key, channel);
+        private EndpointChannelPool createPool(InetSocketAddress address, String serviceName) {
+            EndpointChannelPool created;
+            String socketPath = domainSocketBootstrap != null && DomainSockets.isLocalAddress(address)
+                    ? serviceCenter.getDomainSocketPath(serviceName, address)
+                    : null;
+            if (socketPath != null && new File(socketPath).exists()) {
+                logger.info("节点 {} 位于本机，使用 domain socket: {}", address, socketPath);
+                created = new EndpointChannelPool(domainSocketBootstrap, new DomainSocketAddress(socketPath),
+                        connectionsPerEndpoint);
+            } else {
+                logger.debug("Creating channel pool for {} (size {})", address, connectionsPerEndpoint);
+                created = new EndpointChannelPool(bootstrap, address, connectionsPerEndpoint);
             }
-            return channel;
+            created.warmUp();
+            return created;
         }
 
         public void close() {
-            for (Channel channel : channels.values()) {
-                channel.close();
+            for (EndpointChannelPool pool : pools.values()) {
+                pool.close();
             }
-            channels.clear();
-            connectLocks.clear();
+            pools.clear();
         }
     }
-}
\ No newline at end of file
+}
@@ -21,6 +21,27 @@ public interface ServiceCenter {
      */
     InetSocketAddress serviceDiscovery(String serviceName, long featureCode);
 
+    /**
+     * 服务发现，排除指定节点（例如该节点的连接已饱和）
+     * @param serviceName 服务名称
+     * @param featureCode 请求特征码（长整型），用于一致性哈希
+     * @param excluded 不参与选择的节点
+     * @return 服务地址，除 excluded 外没有可用节点时返回 null
+     */
+    default InetSocketAddress serviceDiscovery(String serviceName, long featureCode, InetSocketAddress excluded) {
+        return null;
+    }
+
+    /**
+     * 服务节点通告的 Unix domain socket 路径
+     * @param serviceName 服务名称
+     * @param address 服务发现选中的节点地址
+     * @return socket 文件路径，节点未通告时返回 null
+     */
+    default String getDomainSocketPath(String serviceName, InetSocketAddress address) {
+        return null;
+    }
+
     // 判断是否可重试
     boolean checkRetry(String serviceName);
 
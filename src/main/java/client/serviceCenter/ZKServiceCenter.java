@@ -3,6 +3,7 @@ package client.serviceCenter;
 import client.serviceCenter.balance.LoadBalance;
 import client.serviceCenter.balance.impl.ConsistencyHashBalance;
 import client.serviceCenter.cache.ZKCache;
+import common.transport.DomainSockets;
 import common.util.AddressUtil;
 import common.util.AppConfig;
 import io.netty.util.internal.ThreadLocalRandom;
@@ -38,6 +39,9 @@ public class ZKServiceCenter implements ServiceCenter, AutoCloseable {
     private final LoadBalance loadBalance;
     private final ZKCache serviceAddressCache;
 
+    // 节点通告的 domain socket 路径：服务名/地址 -> 路径，未通告时为空串；节点变化时按服务清理
+    private final Map<String, String> domainSocketPaths = new ConcurrentHashMap<>();
+
     // 用于管理和关闭 CuratorCache 实例，防止资源泄露
     private final Map<String, CuratorCache> watcherMap = new ConcurrentHashMap<>();
 
@@ -73,6 +77,11 @@ public class ZKServiceCenter implements ServiceCenter, AutoCloseable {
 
     @Override
     public InetSocketAddress serviceDiscovery(String serviceName, long featureCode) {
+        return serviceDiscovery(serviceName, featureCode, null);
+    }
+
+    @Override
+    public InetSocketAddress serviceDiscovery(String serviceName, long featureCode, InetSocketAddress excluded) {
         try {
             // 从缓存获取最新的地址列表
             List<String> addressList = serviceAddressCache.getServices(serviceName);
@@ -101,11 +110,16 @@ public class ZKServiceCenter implements ServiceCenter, AutoCloseable {
             // 将地址列表转换为 InetSocketAddress 列表
             List<InetSocketAddress> inetSocketAddressList = convertToSocketAddressList(addressList);
 
-            // 过滤掉熔断器不可用的节点
+            // 过滤掉调用方排除的节点与熔断器不可用的节点
             List<InetSocketAddress> availableAddressList = inetSocketAddressList.stream()
+                    .filter(addr -> !addr.equals(excluded))
                     .filter(addr -> BreakerProvider.getInstance().getBreaker(addr).isAvailable())
                     .collect(Collectors.toList());
 
+            if (availableAddressList.isEmpty() && excluded != null) {
+                logger.debug("服务 {} 除 {} 外没有可用节点", serviceName, excluded);
+                return null;
+            }
             if (availableAddressList.isEmpty()) {
                 // 如果所有节点都熔断了，尝试使用全部节点（或者直接失败，这里选择尝试全部，让 NettyRpcClient 去触发熔断更新）
                 // 但根据 isAvailable 的逻辑，只有 OPEN 且未到重试时间的才会被过滤。
@@ -130,6 +144,23 @@ public class ZKServiceCenter implements ServiceCenter, AutoCloseable {
         }
     }
 
+    @Override
+    public String getDomainSocketPath(String serviceName, InetSocketAddress address) {
+        String instance = AddressUtil.toString(address);
+        String path = domainSocketPaths.computeIfAbsent(serviceName + "/" + instance, k -> {
+            try {
+                String socketPath = DomainSockets.decodeRegistration(
+                        client.getData().forPath("/" + serviceName + "/" + instance));
+                return socketPath == null ? "" : socketPath;
+            } catch (Exception e) {
+                // 节点已下线等情况，不缓存，下次重新读取
+                logger.debug("读取节点 {} 的注册数据失败: {}", k, e.getMessage());
+                return null;
+            }
+        });
+        return path == null || path.isEmpty() ? null : path;
+    }
+
     /**
      * 注册监听器，当服务节点发生变化时更新缓存。
      * 使用 computeIfAbsent 确保每个服务只注册一个监听器。
@@ -166,6 +197,9 @@ public class ZKServiceCenter implements ServiceCenter, AutoCloseable {
 
             // 【核心修改】只更新当前服务的缓存，而不是清空所有
             serviceAddressCache.setServices(serviceName, newAddressList);
+            // 节点重新注册时可能改变通告的 socket 路径
+            String prefix = serviceName + "/";
+            domainSocketPaths.keySet().removeIf(key -> key.startsWith(prefix));
 
             // 【核心修改】不再需要手动调用 updateServiceAddresses
             // 新的 ConsistencyHashBalance 会在下次 select 时自动更新哈希环
@@ -2,7 +2,10 @@ package common;
 
 import java.util.List;
 
+import common.chunk.ChunkAssembler;
+import common.compress.FrameCompression;
 import common.message.MessageType;
+import common.message.ProtocolConstants;
 import common.message.RawMessage;
 import common.serializer.Serializer;
 import common.serializer.SerializerFactory;
@@ -10,31 +13,118 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 
+/**
+ * 自定义解码器，协议格式见 {@link ProtocolConstants}
+ * 同时接受 v1 与 v2 帧：首个 short 等于魔数时按 v2 解析，否则按 v1 解析
+ * v2 帧：记录对端在标志位中通告的可接受压缩算法；分片帧按请求ID拼接，收齐后再输出；
+ * 带 FLAG_COMPRESSED 的消息体在此解压，下游看到的总是完整的原始消息体
+ * 请求帧的版本记录到 Channel 属性 {@link Encoder#REQUEST_VERSION}，Encoder 据此按对端的版本回复
+ */
 public class Decoder extends ByteToMessageDecoder {
+    // 连接级压缩状态，与 Encoder 共享
+    private FrameCompression compression;
+    // 未收齐的分片消息
+    private final ChunkAssembler chunks = ChunkAssembler.fromConfig();
+    // 已记录到 Channel 属性的请求帧版本，版本不变时不再重复设置
+    private byte requestVersion;
 
     @Override
     protected void decode(ChannelHandlerContext channelHandlerContext, ByteBuf in, List<Object> out) throws Exception {
+        short head = in.readShort();
+        RawMessage rawMessage = head == ProtocolConstants.MAGIC ? decodeV2(channelHandlerContext, in) : decodeV1(head, in);
+        if (rawMessage != null) {
+            recordRequestVersion(channelHandlerContext, rawMessage);
+            out.add(rawMessage);
+        }
+    }
+
+    private void recordRequestVersion(ChannelHandlerContext ctx, RawMessage rawMessage) {
+        short messageType = rawMessage.getMessageType();
+        if (rawMessage.getVersion() != requestVersion && (messageType == MessageType.REQUEST.getCode()
+                || messageType == MessageType.BATCH_REQUEST.getCode())) {
+            requestVersion = rawMessage.getVersion();
+            ctx.channel().attr(Encoder.REQUEST_VERSION).set(requestVersion);
+        }
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        chunks.releaseAll();
+    }
+
+    private RawMessage decodeV1(short messageType, ByteBuf in) {
         // 读取并判断消息类型是否合法
-        short messageType = in.readShort();
+        checkMessageType(messageType);
+
+        // 读取序列化方式和类型
+        short serializerType = in.readShort();
+        checkSerializer(serializerType);
+
+        // 读取消息体：切出引用计数的 slice，不拷贝到堆内 byte[]
+        // slice 与池化缓冲区共享内存，由下游 handler 消费后负责 release
+        int arrLen = in.readInt();
+        ByteBuf body = in.readRetainedSlice(arrLen);
+
+        // 关键修改：不进行反序列化，直接封装为 RawMessage
+        return new RawMessage(messageType, serializerType, body);
+    }
+
+    /**
+     * @return 解码出的消息；分片消息尚未收齐时返回 null
+     */
+    private RawMessage decodeV2(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        byte version = in.readByte();
+        if (version != ProtocolConstants.VERSION_2) {
+            throw new RuntimeException("CORE-DECODER: 不支持的协议版本: " + version);
+        }
+        byte flags = in.readByte();
+        int remaining = in.readInt();
+
+        short messageType = in.readUnsignedByte();
+        checkMessageType(messageType);
+        short serializerType = in.readUnsignedByte();
+        checkSerializer(serializerType);
+
+        long requestId = in.readLong();
+        int serviceId = in.readInt();
+        int methodId = in.readInt();
+
+        // 扩展头部之后即为消息体，同样以 retained slice 交给下游
+        ByteBuf body = in.readRetainedSlice(remaining - ProtocolConstants.V2_EXTENDED_HEADER_LENGTH);
+
+        if (compression == null) {
+            compression = FrameCompression.get(ctx.channel());
+        }
+        compression.onPeerFlags(flags);
+
+        body = chunks.append(ctx.alloc(), requestId, body, !ProtocolConstants.hasFlag(flags, ProtocolConstants.FLAG_MORE_CHUNKS));
+        if (body == null) {
+            return null;
+        }
+        if (ProtocolConstants.hasFlag(flags, ProtocolConstants.FLAG_COMPRESSED)) {
+            ByteBuf compressed = body;
+            try {
+                body = FrameCompression.decompress(ctx.alloc(), compressed);
+            } finally {
+                // 无论解压是否成功都归还压缩数据的 slice，异常由 ByteToMessageDecoder 传播
+                compressed.release();
+            }
+            flags &= ~ProtocolConstants.FLAG_COMPRESSED;
+        }
+        return new RawMessage(version, flags, messageType, serializerType, requestId, serviceId, methodId, body);
+    }
+
+    private void checkMessageType(short messageType) {
         if (!MessageType.isValid(messageType)) {
             throw new RuntimeException("CORE-DECODER: 不支持的消息类型: " + messageType);
         }
+    }
 
-        // 读取序列化方式和类型
-        short serializerType = in.readShort();
+    private void checkSerializer(short serializerType) {
         // 校验序列化器是否存在（虽然不立即反序列化，但最好先校验一下）
         Serializer serializer = SerializerFactory.getSerializerByCode(serializerType);
         if (serializer == null)
             throw new RuntimeException("CORE-DECODER: 不存在对应序列化器：" + serializerType);
-
-        // 读取序列化数组信息
-        int arrLen = in.readInt();
-        byte[] bytes = new byte[arrLen];
-        in.readBytes(bytes);
-
-        // 关键修改：不进行反序列化，直接封装为 RawMessage
-        RawMessage rawMessage = new RawMessage(messageType, serializerType, bytes);
-        out.add(rawMessage);
     }
 
 }
@@ -1,52 +1,96 @@
 package common;
 
+import common.compress.FrameCompression;
+import common.message.Heartbeat;
 import common.message.MessageType;
+import common.message.ProtocolConstants;
+import common.message.RequestBatch;
 import common.message.RpcRequest;
 import common.message.RpcResponse;
+import common.message.SignatureDictionary;
+import common.message.StreamFrame;
 import common.serializer.Serializer;
 import common.serializer.SerializerFactory;
 import common.serializer.impl.JsonSerializer;
+import common.util.AppConfig;
+import common.util.HashUtil;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+
 /**
  * 自定义编码器，用于将对象编码为网络传输的字节流
  * 
  * <pre>
- * 协议格式:
- * +----------------------------------------------+
- * | 消息类型 | 序列化类型 | 数据长度 |    数据     |
- * |  2字节   |   2字节    |  4字节   |  N字节     |
- * +----------------------------------------------+
+ * 协议格式（v2，v1 格式与字段布局详见 ProtocolConstants）:
+ * +--------------------------------------------------------------------------------------------+
+ * | 魔数 | 版本 | 标志位 | 剩余长度 | 消息类型 | 序列化类型 | 请求ID | 服务ID | 方法ID |  数据  |
+ * | 2字节| 1字节| 1字节  |  4字节   |  1字节   |   1字节    | 8字节  | 4字节  | 4字节  | N字节  |
+ * +--------------------------------------------------------------------------------------------+
  * </pre>
  * 
  * 字段说明：
- * 1. 消息类型(2字节):
- * - 0: 心跳请求
- * - 1: 心跳响应
- * - 2: RPC请求
- * - 3: RPC响应
+ * 1. 消息类型（见 {@link MessageType}）:
+ * - 0: RPC请求
+ * - 1: RPC响应
+ * - 2~4: 流式调用的元素、信用与取消帧
+ * - 5: 批量请求
+ * - 6: 心跳请求
+ * - 7: 心跳响应
  * 
- * 2. 序列化类型(2字节):
+ * 2. 序列化类型:
  * - 0: Java序列化
  * - 1: JSON序列化
  * - 2: Protobuf序列化
  * 
- * 3. 数据长度(4字节):
- * - 标识序列化后的数据长度
+ * 3. 剩余长度(4字节):
+ * - v1 为序列化后的数据长度；v2 为长度字段之后的扩展头部与数据的总长度
+ * 
+ * 4. 请求ID/服务ID/方法ID:
+ * - 服务端可只读取帧头完成路由、限流与线程选择，无需先反序列化消息体
  * 
- * 4. 数据(N字节):
+ * 5. 数据(N字节):
  * - 序列化后的消息体数据
+ *
+ * 默认发送 v2 帧；灰度期间可配置 rpc.protocol.version=1 继续发送 v1 帧，Decoder 始终同时接受两种版本。
+ * 收到过请求的连接（即服务端）按对端最近一个请求帧的版本回复，见 {@link #REQUEST_VERSION}，
+ * 服务端无论配置哪个版本都能回复旧版本客户端。
+ *
+ * v2 帧在标志位中通告本端可接受的压缩算法；对端也通告过且消息体达到阈值时压缩消息体并设置 FLAG_COMPRESSED，
+ * 见 {@link FrameCompression}。v1 帧没有标志位，从不压缩。
+ *
+ * v2 请求的签名已被对端确认时，消息体省略接口名、方法名与参数类型，只靠帧头的服务ID/方法ID 路由，
+ * 见 {@link SignatureDictionary}。响应帧头的服务ID/方法ID 即对这一签名的确认。
+ *
+ * 每条消息编码为一个完整的帧，超过单帧上限的 v2 帧由 pipeline 中的 {@link common.chunk.ChunkedFrameWriter} 拆成分片发送。
  */
 
 public class Encoder extends MessageToByteEncoder<Object> {
     private static final Logger logger = LoggerFactory.getLogger(Encoder.class);
+    /** 对端最近一个请求帧的协议版本，由 Decoder 记录；设置后本连接的帧都按该版本写出（心跳除外） */
+    public static final AttributeKey<Byte> REQUEST_VERSION = AttributeKey.valueOf("rpc.requestVersion");
     private Serializer serializer;
+    // 配置的协议版本，未收到过对端请求时使用
+    private final byte protocolVersion;
+    // 连接级压缩状态，首次编码时从 Channel 属性获取
+    private FrameCompression compression;
+    // 连接级签名字典，首次编码时从 Channel 属性获取
+    private SignatureDictionary dictionary;
+    // 对端请求帧的版本，首次编码时从 Channel 属性获取
+    private Attribute<Byte> requestVersion;
 
     public Encoder(int serializerType) {
+        this.protocolVersion = AppConfig.getInt("rpc.protocol.version", ProtocolConstants.VERSION_2) == ProtocolConstants.VERSION_1
+                ? ProtocolConstants.VERSION_1
+                : ProtocolConstants.VERSION_2;
         try {
             logger.debug("初始化编码器，指定序列化类型: {}", serializerType);
             // 使用SPI机制加载序列化器
@@ -70,23 +114,92 @@ public class Encoder extends MessageToByteEncoder<Object> {
     protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) throws Exception {
         // logger.debug("CORE-ENCODER: 开始编码消息: {}", msg.getClass().getName());
 
+        if (compression == null) {
+            compression = FrameCompression.get(ctx.channel());
+        }
+        if (dictionary == null) {
+            dictionary = SignatureDictionary.get(ctx.channel());
+        }
+        if (requestVersion == null) {
+            requestVersion = ctx.channel().attr(REQUEST_VERSION);
+        }
+        Byte peerVersion = requestVersion.get();
+        byte version = peerVersion != null ? peerVersion : protocolVersion;
         try {
             // 1. 处理 RawMessage (直接透传，不序列化)
+            // 消息体由 MessageToByteEncoder 在 encode 返回后自动 release
             if (msg instanceof common.message.RawMessage) {
                 common.message.RawMessage rawMsg = (common.message.RawMessage) msg;
-                out.writeShort(rawMsg.getMessageType());
-                out.writeShort(rawMsg.getSerializerType());
-                out.writeInt(rawMsg.getData().length);
-                out.writeBytes(rawMsg.getData());
+                ByteBuf body = rawMsg.content();
+                // 消息体原样写出（Decoder 已解压），清除压缩标志并通告本端可接受的算法
+                byte flags = compression.advertise((byte) (rawMsg.getFlags() & ~ProtocolConstants.FLAG_COMPRESSED));
+                int lengthIndex = writeHeader(out, version, flags, rawMsg.getMessageType(),
+                        rawMsg.getSerializerType(), rawMsg.getRequestId(), rawMsg.getServiceId(), rawMsg.getMethodId());
+                out.writeBytes(body, body.readerIndex(), body.readableBytes());
+                patchLength(out, lengthIndex);
+                return;
+            }
+
+            // 心跳帧没有消息体；无论配置的版本都按 v2 写出，只有 v2 对端会发送或收到心跳
+            if (msg instanceof Heartbeat) {
+                byte flags = compression.advertise(ProtocolConstants.FLAG_HEARTBEAT);
+                int lengthIndex = writeV2Header(out, flags, ((Heartbeat) msg).getType().getCode(),
+                        serializer.getType(), 0L, ProtocolConstants.UNKNOWN_ROUTE_ID,
+                        ProtocolConstants.UNKNOWN_ROUTE_ID);
+                patchLength(out, lengthIndex);
                 return;
             }
 
             // 2. 处理普通对象 (需要序列化 - 兼容旧逻辑或特殊情况)
+            Object body = msg;
             int messageType = 0;
+            long requestId = 0L;
+            int serviceId = ProtocolConstants.UNKNOWN_ROUTE_ID;
+            int methodId = ProtocolConstants.UNKNOWN_ROUTE_ID;
             if (msg instanceof RpcRequest) {
+                RpcRequest request = (RpcRequest) msg;
                 messageType = MessageType.REQUEST.getCode();
+                requestId = request.getSequenceId();
+                if (version == ProtocolConstants.VERSION_1 && request.getRequestId() == null) {
+                    // v1 帧头没有请求ID，借消息体的 requestId 字段携带，服务端会在响应中原样回显；
+                    // 写入副本，调用方的请求可能仍在其他线程上用于重试或改路由
+                    request = request.withRequestId(Long.toString(requestId));
+                }
+                serviceId = serviceIdOf(request);
+                methodId = methodIdOf(request);
+                body = compactIfAcknowledged(request, version, serviceId, methodId);
+            } else if (msg instanceof RequestBatch) {
+                if (version == ProtocolConstants.VERSION_1) {
+                    throw new IllegalStateException("批量请求需要 v2 协议");
+                }
+                messageType = MessageType.BATCH_REQUEST.getCode();
+                // 帧头请求ID 只用于分片拼接，取批内第一个请求的ID
+                requestId = ((RequestBatch) msg).getRequests().get(0).getSequenceId();
             } else if (msg instanceof RpcResponse) {
+                RpcResponse response = (RpcResponse) msg;
                 messageType = MessageType.RESPONSE.getCode();
+                requestId = response.getSequenceId();
+                serviceId = response.getServiceId();
+                methodId = response.getMethodId();
+            } else if (msg instanceof StreamFrame) {
+                StreamFrame frame = (StreamFrame) msg;
+                if (version == ProtocolConstants.VERSION_1) {
+                    // v1 帧头没有请求ID，无法关联流
+                    throw new IllegalStateException("流式调用需要 v2 协议");
+                }
+                messageType = frame.getType().getCode();
+                requestId = frame.getSequenceId();
+                if (frame.getItem() == null) {
+                    // 控制帧：消息体只有需求数（取消帧为空），不经过序列化器
+                    int lengthIndex = writeHeader(out, version, compression.advertise((byte) 0), messageType,
+                            serializer.getType(), requestId, serviceId, methodId);
+                    if (frame.getType() == MessageType.STREAM_CREDIT) {
+                        out.writeLong(frame.getCredit());
+                    }
+                    patchLength(out, lengthIndex);
+                    return;
+                }
+                body = frame.getItem();
             } else {
                 logger.error("CORE-ENCODER: 不支持的消息类型: {}", msg.getClass().getName());
                 throw new IllegalArgumentException("不支持的消息类型: " + msg.getClass().getName());
@@ -97,21 +210,122 @@ public class Encoder extends MessageToByteEncoder<Object> {
                 serializer = new JsonSerializer();
             }
 
-            byte[] serializedBytes = serializer.serialize(msg);
-
-            if (serializedBytes == null) {
+            // 先写入头部并为长度字段占位，序列化器直接写入 out（池化直接内存），
+            // 写完后回填长度字段，避免 serialize() -> byte[] -> writeBytes 的中间拷贝
+            int frameStart = out.writerIndex();
+            byte flags = compression.advertise((byte) 0);
+            int lengthIndex = writeHeader(out, version, flags, messageType, serializer.getType(), requestId,
+                    serviceId, methodId);
+            int bodyStart = out.writerIndex();
+            try {
+                if (msg instanceof RequestBatch) {
+                    writeBatchBody((RequestBatch) msg, out);
+                } else {
+                    serializer.serialize(body, new ByteBufOutputStream(out));
+                }
+            } catch (Exception e) {
+                // 回滚已写入的半帧，异常交由 MessageToByteEncoder 释放缓冲区并使写操作失败
+                out.writerIndex(frameStart);
                 logger.error("序列化失败，消息将不会被发送");
-                return;
+                throw e;
             }
-
-            out.writeShort(messageType);
-            out.writeShort(serializer.getType());
-            out.writeInt(serializedBytes.length);
-            out.writeBytes(serializedBytes);
+            int bodyLength = out.writerIndex() - bodyStart;
+            if (bodyLength > ProtocolConstants.MAX_MESSAGE_LENGTH) {
+                // 对端无法拼接或解压，在本端让这次写失败，而不是让对端断开连接
+                out.writerIndex(frameStart);
+                throw new TooLongFrameException("消息体长度 " + bodyLength + " 超过上限 "
+                        + ProtocolConstants.MAX_MESSAGE_LENGTH);
+            }
+            if (version == ProtocolConstants.VERSION_2 && compression.compress(out, bodyStart)) {
+                // 标志位紧跟在魔数与版本之后
+                out.setByte(frameStart + ProtocolConstants.FLAGS_OFFSET, flags | ProtocolConstants.FLAG_COMPRESSED);
+            }
+            patchLength(out, lengthIndex);
 
         } catch (Exception e) {
             logger.error("CORE-ENCODER: 编码消息时发生异常: {}", e.getMessage(), e);
             throw e;
         }
     }
+
+    /**
+     * 写出批量请求的消息体：请求数，再逐个写出请求ID、路由ID、长度与序列化后的请求
+     */
+    private void writeBatchBody(RequestBatch batch, ByteBuf out) throws IOException {
+        ByteBufOutputStream stream = new ByteBufOutputStream(out);
+        out.writeInt(batch.getRequests().size());
+        for (RpcRequest request : batch.getRequests()) {
+            int serviceId = serviceIdOf(request);
+            int methodId = methodIdOf(request);
+            out.writeLong(request.getSequenceId());
+            out.writeInt(serviceId);
+            out.writeInt(methodId);
+            int lengthIndex = out.writerIndex();
+            out.writeInt(0);
+            serializer.serialize(compactIfAcknowledged(request, ProtocolConstants.VERSION_2, serviceId, methodId),
+                    stream);
+            out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+        }
+    }
+
+    /**
+     * 对端已确认该签名时改用省略签名的副本；v1 帧头没有路由ID，参数不带类型信息的序列化方式需要参数类型，均发送完整请求
+     */
+    private RpcRequest compactIfAcknowledged(RpcRequest request, byte version, int serviceId, int methodId) {
+        if (version == ProtocolConstants.VERSION_2 && serializer.isSelfDescribing()
+                && dictionary.isAcknowledged(serviceId, methodId)) {
+            return request.withoutSignature();
+        }
+        return request;
+    }
+
+    // ClientProxy 按方法缓存路由ID；手工构造、未预先计算路由ID 的请求在此根据接口名与方法签名补齐
+    private static int serviceIdOf(RpcRequest request) {
+        return request.getServiceId() != ProtocolConstants.UNKNOWN_ROUTE_ID ? request.getServiceId()
+                : HashUtil.serviceRouteId(request.getInterfaceName());
+    }
+
+    private static int methodIdOf(RpcRequest request) {
+        return request.getMethodId() != ProtocolConstants.UNKNOWN_ROUTE_ID ? request.getMethodId()
+                : HashUtil.methodRouteId(request.getMethodName(), request.getParamsType());
+    }
+
+    /**
+     * 按给定的协议版本写入帧头，长度字段先写 0 占位
+     *
+     * @return 长度字段的写入位置，供 patchLength 回填
+     */
+    private int writeHeader(ByteBuf out, byte version, byte flags, int messageType, int serializerType,
+            long requestId, int serviceId, int methodId) {
+        if (version == ProtocolConstants.VERSION_1) {
+            out.writeShort(messageType);
+            out.writeShort(serializerType);
+            int lengthIndex = out.writerIndex();
+            out.writeInt(0);
+            return lengthIndex;
+        }
+        return writeV2Header(out, flags, messageType, serializerType, requestId, serviceId, methodId);
+    }
+
+    private int writeV2Header(ByteBuf out, byte flags, int messageType, int serializerType,
+            long requestId, int serviceId, int methodId) {
+        out.writeShort(ProtocolConstants.MAGIC);
+        out.writeByte(ProtocolConstants.VERSION_2);
+        out.writeByte(flags);
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+        out.writeByte(messageType);
+        out.writeByte(serializerType);
+        out.writeLong(requestId);
+        out.writeInt(serviceId);
+        out.writeInt(methodId);
+        return lengthIndex;
+    }
+
+    /**
+     * 回填长度字段：两个版本均为长度字段之后写入的字节数
+     */
+    private void patchLength(ByteBuf out, int lengthIndex) {
+        out.setInt(lengthIndex, out.writerIndex() - lengthIndex - ProtocolConstants.LENGTH_FIELD_LENGTH);
+    }
 }
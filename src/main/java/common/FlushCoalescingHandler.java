@@ -0,0 +1,204 @@
+package common;
+
+import common.util.AppConfig;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 写合并处理器：把同一次读循环或同一个事件循环 tick 内的多次 flush 合并为一次，减少 write 系统调用
+ *
+ * - 读循环中（channelRead 到 channelReadComplete 之间）产生的 flush 推迟到 channelReadComplete 统一执行，
+ * 服务端在 IO 线程内联处理的请求因此批量写回
+ * - 读循环外（业务线程、客户端调用线程提交的写）的第一次 flush 向事件循环提交一个 flush 任务，
+ * 在它执行之前排队的写任务共享这一次 flush
+ * - 预算：累计的 flush 次数或待刷出字节数达到上限时立即 flush，避免单次写出过大或延迟无上限
+ *
+ * 需放在 pipeline 头部（编码器之前），以便按编码后的字节数计算预算。
+ * 非 @Sharable：每个连接一个实例，状态只在该连接的事件循环中访问。
+ *
+ * 配置项（prefix 为 rpc.client 或 rpc.server，两端独立）：
+ * - {prefix}.flush.coalesce：是否启用，默认 true
+ * - {prefix}.flush.maxPendingFlushes：合并的最大 flush 次数，默认 64
+ * - {prefix}.flush.maxPendingBytes：合并的最大待刷出字节数，默认 64KB
+ */
+public class FlushCoalescingHandler extends ChannelDuplexHandler {
+
+    /**
+     * 客户端连接的合并统计
+     */
+    public static final Stats CLIENT_STATS = new Stats();
+    /**
+     * 服务端连接的合并统计
+     */
+    public static final Stats SERVER_STATS = new Stats();
+
+    private final int maxPendingFlushes;
+    private final int maxPendingBytes;
+    private final Stats stats;
+
+    private ChannelHandlerContext ctx;
+    private int pendingFlushes;
+    private long pendingBytes;
+    private boolean readInProgress;
+    private boolean flushScheduled;
+    private final Runnable flushTask = () -> {
+        flushScheduled = false;
+        if (pendingFlushes > 0 && !readInProgress) {
+            flushNow();
+        }
+    };
+
+    public FlushCoalescingHandler(int maxPendingFlushes, int maxPendingBytes, Stats stats) {
+        if (maxPendingFlushes <= 0) {
+            throw new IllegalArgumentException("maxPendingFlushes 必须为正数: " + maxPendingFlushes);
+        }
+        this.maxPendingFlushes = maxPendingFlushes;
+        this.maxPendingBytes = maxPendingBytes;
+        this.stats = stats;
+    }
+
+    /**
+     * 按配置创建，未启用时返回 null
+     *
+     * @param prefix 配置前缀，rpc.client 或 rpc.server
+     */
+    public static FlushCoalescingHandler fromConfig(String prefix, Stats stats) {
+        if (!AppConfig.getBoolean(prefix + ".flush.coalesce", true)) {
+            return null;
+        }
+        return new FlushCoalescingHandler(
+                AppConfig.getInt(prefix + ".flush.maxPendingFlushes", 64),
+                AppConfig.getInt(prefix + ".flush.maxPendingBytes", 64 * 1024),
+                stats);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof ByteBuf) {
+            pendingBytes += ((ByteBuf) msg).readableBytes();
+        } else if (msg instanceof ByteBufHolder) {
+            pendingBytes += ((ByteBufHolder) msg).content().readableBytes();
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        stats.requested.increment();
+        if (++pendingFlushes >= maxPendingFlushes || pendingBytes >= maxPendingBytes) {
+            flushNow();
+            return;
+        }
+        if (readInProgress) {
+            // channelReadComplete 时统一 flush
+            return;
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            ctx.channel().eventLoop().execute(flushTask);
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        readInProgress = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        readInProgress = false;
+        flushIfPending();
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // 不可写时尽快把已合并的数据刷出，让出站缓冲区回落
+        if (!ctx.channel().isWritable()) {
+            flushIfPending();
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        flushIfPending();
+        ctx.fireExceptionCaught(cause);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushIfPending();
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushIfPending();
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        flushIfPending();
+    }
+
+    private void flushIfPending() {
+        if (pendingFlushes > 0) {
+            flushNow();
+        }
+    }
+
+    private void flushNow() {
+        pendingFlushes = 0;
+        pendingBytes = 0;
+        stats.flushed.increment();
+        ctx.flush();
+    }
+
+    /**
+     * 合并统计：请求的 flush 次数与实际执行的 flush 次数
+     */
+    public static final class Stats {
+        private final LongAdder requested = new LongAdder();
+        private final LongAdder flushed = new LongAdder();
+
+        public long getRequestedFlushes() {
+            return requested.sum();
+        }
+
+        public long getActualFlushes() {
+            return flushed.sum();
+        }
+
+        /**
+         * 平均每次实际 flush 合并的 flush 请求数
+         */
+        public double getCoalescingRatio() {
+            long actual = getActualFlushes();
+            return actual == 0 ? 0 : (double) getRequestedFlushes() / actual;
+        }
+
+        public void reset() {
+            requested.reset();
+            flushed.reset();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("requested=%d, flushed=%d, ratio=%.2f", getRequestedFlushes(),
+                    getActualFlushes(), getCoalescingRatio());
+        }
+    }
+}
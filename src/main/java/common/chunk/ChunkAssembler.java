@@ -0,0 +1,105 @@
+package common.chunk;
+
+import common.message.ProtocolConstants;
+import common.util.AppConfig;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分片拼接：Decoder 按请求ID把分片帧的消息体拼成完整消息体
+ *
+ * 分片的消息体是解码时切出的 retained slice，以 CompositeByteBuf 组合，不做拷贝。
+ * 单条消息不超过 MAX_MESSAGE_LENGTH，一个连接上所有未收齐的消息合计不超过 rpc.chunk.maxPendingBytes，
+ * 超出时抛出 TooLongFrameException（handler 随即关闭连接），连接占用的内存因此有上限。
+ *
+ * 非线程安全：每个 Decoder 一个实例，只在事件循环中访问。
+ *
+ * 配置项：
+ * - rpc.chunk.maxPendingBytes：单个连接上未收齐消息的总字节数上限，默认 128MB
+ */
+public final class ChunkAssembler {
+    // 超过后 CompositeByteBuf 合并已有分片，限制极小分片带来的组件数量
+    private static final int MAX_COMPONENTS = 1024;
+
+    private final long maxPendingBytes;
+    // <请求ID，已收到的分片>
+    private final Map<Long, CompositeByteBuf> pending = new HashMap<>();
+    private long pendingBytes;
+
+    public ChunkAssembler(long maxPendingBytes) {
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    public static ChunkAssembler fromConfig() {
+        return new ChunkAssembler(AppConfig.getInt("rpc.chunk.maxPendingBytes", 128 * 1024 * 1024));
+    }
+
+    /**
+     * 接收一个帧的消息体，调用方转移 body 的所有权
+     *
+     * @param last 是否为消息的最后一个分片（帧上没有 FLAG_MORE_CHUNKS）
+     * @return 完整的消息体；消息尚未收齐时返回 null。未分片的帧原样返回
+     */
+    public ByteBuf append(ByteBufAllocator alloc, long requestId, ByteBuf body, boolean last)
+            throws TooLongFrameException {
+        if (last && pending.isEmpty()) {
+            return body;
+        }
+        CompositeByteBuf assembled = pending.get(requestId);
+        if (assembled == null) {
+            if (last) {
+                return body;
+            }
+            assembled = alloc.compositeBuffer(MAX_COMPONENTS);
+            pending.put(requestId, assembled);
+        }
+
+        int length = body.readableBytes();
+        if (assembled.readableBytes() + (long) length > ProtocolConstants.MAX_MESSAGE_LENGTH
+                || pendingBytes + length > maxPendingBytes) {
+            body.release();
+            discard(requestId);
+            throw new TooLongFrameException("分片消息超过上限: requestId=" + requestId
+                    + ", 已接收 " + assembled.readableBytes() + " 字节, 连接未收齐总量 " + pendingBytes + " 字节");
+        }
+        assembled.addComponent(true, body);
+        pendingBytes += length;
+        if (!last) {
+            return null;
+        }
+        pending.remove(requestId);
+        pendingBytes -= assembled.readableBytes();
+        return assembled;
+    }
+
+    /**
+     * 未收齐的消息数
+     */
+    public int pendingMessages() {
+        return pending.size();
+    }
+
+    /**
+     * 释放所有未收齐的消息，连接关闭时调用
+     */
+    public void releaseAll() {
+        for (CompositeByteBuf assembled : pending.values()) {
+            assembled.release();
+        }
+        pending.clear();
+        pendingBytes = 0;
+    }
+
+    private void discard(long requestId) {
+        CompositeByteBuf assembled = pending.remove(requestId);
+        if (assembled != null) {
+            pendingBytes -= assembled.readableBytes();
+            assembled.release();
+        }
+    }
+}
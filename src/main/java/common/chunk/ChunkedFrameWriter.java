@@ -0,0 +1,206 @@
+package common.chunk;
+
+import common.message.ProtocolConstants;
+import common.util.AppConfig;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.PromiseNotifier;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+
+/**
+ * 分片写出处理器：把 Encoder 输出的超过单帧上限的 v2 帧拆成分片帧，按 Channel 可写性逐个写出
+ *
+ * - 分片帧复制原帧头，只改写剩余长度，并在最后一个分片之前的分片上设置 FLAG_MORE_CHUNKS；
+ * 分片的消息体是原帧的 retained slice，不做拷贝
+ * - 只在 Channel 可写时写出下一个分片，不可写时等待 channelWritabilityChanged，
+ * 出站缓冲区因此不超过高水位加一个分片，大消息不会一次性堆进出站缓冲区
+ * - 其他请求ID 的消息不排队，直接写出，可以穿插在分片之间（接收方按请求ID拼接），小请求不会被大消息阻塞
+ * - 与正在拆分的消息请求ID 相同的帧（流的后续元素与结束响应、流的信用与取消帧）排在这些分片之后整帧写出：
+ * 接收方按请求ID 拼接，同一ID 的帧若越过未写完的分片，会被拼进前一条消息
+ * - 原写操作的 promise 在最后一个分片写出后完成，任一分片失败则失败
+ *
+ * 只拆分超过 MAX_FRAME_LENGTH 的帧：这类帧旧版本节点本来就无法接收，不超过上限的帧仍按原样发送，保持兼容。
+ * 需放在 Encoder 与 FlushCoalescingHandler 之间。非 @Sharable：每个连接一个实例，状态只在事件循环中访问。
+ *
+ * 配置项：
+ * - rpc.chunk.size：每个分片的消息体字节数，默认 256KB，不超过单帧上限
+ */
+public class ChunkedFrameWriter extends ChannelDuplexHandler {
+
+    private final int chunkSize;
+    // 尚未写完的大消息，按写入顺序逐个拆分
+    private final ArrayDeque<PendingFrame> pending = new ArrayDeque<>();
+
+    public ChunkedFrameWriter(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize 必须为正数: " + chunkSize);
+        }
+        this.chunkSize = Math.min(chunkSize,
+                ProtocolConstants.MAX_FRAME_LENGTH - ProtocolConstants.V2_HEADER_LENGTH);
+    }
+
+    public static ChunkedFrameWriter fromConfig() {
+        return new ChunkedFrameWriter(AppConfig.getInt("rpc.chunk.size", 256 * 1024));
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            if (isOversizedFrame(buf)) {
+                pending.add(new PendingFrame(buf, promise, true));
+                writeChunks(ctx);
+                return;
+            }
+            if (!pending.isEmpty() && isV2Frame(buf) && isPending(requestIdOf(buf))) {
+                pending.add(new PendingFrame(buf, promise, false));
+                writeChunks(ctx);
+                return;
+            }
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        writeChunks(ctx);
+        ctx.flush();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable() && !pending.isEmpty()) {
+            writeChunks(ctx);
+            ctx.flush();
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        failPending(new ClosedChannelException());
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        failPending(new ClosedChannelException());
+    }
+
+    /**
+     * 是否为需要拆分的单个 v2 帧（Encoder 每次输出一个完整的帧）
+     */
+    private static boolean isOversizedFrame(ByteBuf buf) {
+        return buf.readableBytes() > ProtocolConstants.MAX_FRAME_LENGTH && isV2Frame(buf);
+    }
+
+    private static boolean isV2Frame(ByteBuf buf) {
+        int length = buf.readableBytes();
+        if (length < ProtocolConstants.V2_HEADER_LENGTH) {
+            return false;
+        }
+        int start = buf.readerIndex();
+        return buf.getShort(start) == ProtocolConstants.MAGIC
+                && buf.getByte(start + 2) == ProtocolConstants.VERSION_2
+                && buf.getInt(start + ProtocolConstants.LENGTH_FIELD_OFFSET)
+                        + ProtocolConstants.LENGTH_FIELD_OFFSET + ProtocolConstants.LENGTH_FIELD_LENGTH == length;
+    }
+
+    // 请求ID 位于长度字段、消息类型与序列化类型之后
+    private static long requestIdOf(ByteBuf frame) {
+        return frame.getLong(frame.readerIndex() + ProtocolConstants.LENGTH_FIELD_OFFSET
+                + ProtocolConstants.LENGTH_FIELD_LENGTH + 2);
+    }
+
+    // 排队中的帧很少（通常只有正在拆分的一个），逐个比较即可
+    private boolean isPending(long requestId) {
+        for (PendingFrame frame : pending) {
+            if (frame.requestId == requestId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeChunks(ChannelHandlerContext ctx) {
+        while (!pending.isEmpty() && ctx.channel().isWritable()) {
+            PendingFrame frame = pending.peek();
+            if (frame.writeNext(ctx, chunkSize)) {
+                pending.poll();
+            }
+        }
+    }
+
+    private void failPending(Throwable cause) {
+        PendingFrame frame;
+        while ((frame = pending.poll()) != null) {
+            frame.fail(cause);
+        }
+    }
+
+    /**
+     * 排队的帧：需要拆分的帧记录下一个分片的消息体起点；不拆分的帧排在同一请求ID 的分片之后整帧写出
+     */
+    private static final class PendingFrame {
+        private final ByteBuf frame;
+        private final ChannelPromise promise;
+        private final long requestId;
+        private final boolean chunked;
+        private int offset;
+
+        PendingFrame(ByteBuf frame, ChannelPromise promise, boolean chunked) {
+            this.frame = frame;
+            this.promise = promise;
+            this.requestId = requestIdOf(frame);
+            this.chunked = chunked;
+            this.offset = frame.readerIndex() + ProtocolConstants.V2_HEADER_LENGTH;
+        }
+
+        /**
+         * 写出下一个分片，不拆分的帧整帧写出
+         *
+         * @return 是否已写出最后一个分片
+         */
+        boolean writeNext(ChannelHandlerContext ctx, int chunkSize) {
+            if (!chunked) {
+                ctx.write(frame, promise);
+                return true;
+            }
+            int length = Math.min(chunkSize, frame.writerIndex() - offset);
+            boolean last = offset + length == frame.writerIndex();
+
+            int start = frame.readerIndex();
+            ByteBuf header = ctx.alloc().buffer(ProtocolConstants.V2_HEADER_LENGTH);
+            header.writeBytes(frame, start, ProtocolConstants.V2_HEADER_LENGTH);
+            header.setInt(ProtocolConstants.LENGTH_FIELD_OFFSET, ProtocolConstants.V2_EXTENDED_HEADER_LENGTH + length);
+            if (!last) {
+                byte flags = frame.getByte(start + ProtocolConstants.FLAGS_OFFSET);
+                header.setByte(ProtocolConstants.FLAGS_OFFSET, flags | ProtocolConstants.FLAG_MORE_CHUNKS);
+            }
+            ByteBuf chunk = ctx.alloc().compositeBuffer(2)
+                    .addComponents(true, header, frame.retainedSlice(offset, length));
+            offset += length;
+
+            if (last) {
+                frame.release();
+                ctx.write(chunk).addListener(new PromiseNotifier<>(false, promise));
+            } else {
+                ctx.write(chunk).addListener(future -> {
+                    if (!future.isSuccess()) {
+                        promise.tryFailure(future.cause());
+                    }
+                });
+            }
+            return last;
+        }
+
+        void fail(Throwable cause) {
+            frame.release();
+            promise.tryFailure(cause);
+        }
+    }
+}
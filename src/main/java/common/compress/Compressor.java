@@ -0,0 +1,35 @@
+package common.compress;
+
+/**
+ * 帧压缩算法接口，通过 SPI（META-INF/services/common.compress.Compressor）加载
+ * 实现需线程安全：同一实例被所有连接共享。
+ */
+public interface Compressor {
+
+    /**
+     * 算法编号，写入帧头标志位的高 4 位与压缩后消息体的首字节，取值 1~15
+     */
+    byte getType();
+
+    /**
+     * 配置项 rpc.compress.codec 使用的名称
+     */
+    String getName();
+
+    /**
+     * 压缩 length 字节所需的最大输出空间
+     */
+    int maxCompressedLength(int length);
+
+    /**
+     * 压缩
+     *
+     * @return 压缩后的字节数
+     */
+    int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff);
+
+    /**
+     * 解压，输出必须恰好为 originalLength 字节，否则抛出 IllegalArgumentException
+     */
+    void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int originalLength);
+}
@@ -0,0 +1,56 @@
+package common.compress;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 压缩算法工厂：启动时通过 SPI 加载全部实现，按编号或名称查找
+ */
+public class CompressorFactory {
+    private static final Logger logger = LoggerFactory.getLogger(CompressorFactory.class);
+
+    private static final Map<Byte, Compressor> BY_TYPE = new ConcurrentHashMap<>();
+    private static final Map<String, Compressor> BY_NAME = new ConcurrentHashMap<>();
+
+    static {
+        for (Compressor compressor : ServiceLoader.load(Compressor.class)) {
+            byte type = compressor.getType();
+            if (type <= 0 || type > 15) {
+                logger.warn("压缩算法 {} 的编号 {} 超出 1~15，忽略", compressor.getName(), type);
+                continue;
+            }
+            Compressor previous = BY_TYPE.putIfAbsent(type, compressor);
+            if (previous != null) {
+                logger.warn("压缩算法编号冲突: {} 与 {} 均为 {}，忽略后者", previous.getName(), compressor.getName(), type);
+                continue;
+            }
+            BY_NAME.put(compressor.getName().toLowerCase(Locale.ROOT), compressor);
+            logger.debug("加载压缩算法: {} ({})", compressor.getName(), type);
+        }
+    }
+
+    private CompressorFactory() {
+    }
+
+    /**
+     * 按编号查找，未加载时返回 null
+     */
+    public static Compressor getByType(int type) {
+        return BY_TYPE.get((byte) type);
+    }
+
+    /**
+     * 按名称查找（不区分大小写），未加载或为 none 时返回 null
+     */
+    public static Compressor getByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        return BY_NAME.get(name.trim().toLowerCase(Locale.ROOT));
+    }
+}
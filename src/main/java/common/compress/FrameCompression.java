@@ -0,0 +1,185 @@
+package common.compress;
+
+import common.message.ProtocolConstants;
+import common.util.AppConfig;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+
+/**
+ * 连接级的帧压缩：协商与执行
+ *
+ * 协商：每个 v2 帧在标志位高 4 位通告发送方可接受的压缩算法（本端配置的 rpc.compress.codec）。
+ * Decoder 收到对端帧时记录对端可接受的算法，Encoder 只在对端通告过、且本端也加载了该算法时压缩，
+ * 因此不会向旧版本节点（不通告）发送压缩帧；连接上第一个请求在收到对端帧之前总是不压缩。
+ *
+ * 执行：序列化后的消息体达到 rpc.compress.threshold 字节时压缩，压缩后没有变小则保持原样发送。
+ * 压缩与解压都在 IO 线程进行，临时数组按线程复用。
+ *
+ * 配置项：
+ * - rpc.compress.codec：本端可接受的压缩算法，none / deflate / lz4，默认 lz4
+ * - rpc.compress.threshold：压缩阈值（字节），默认 2048
+ */
+public final class FrameCompression {
+    private static final AttributeKey<FrameCompression> KEY = AttributeKey.valueOf("rpc.frameCompression");
+
+    /** 解压后长度上限，防止恶意帧声明超大原始长度 */
+    public static final int MAX_DECOMPRESSED_LENGTH = ProtocolConstants.MAX_MESSAGE_LENGTH;
+
+    // 超过该长度的临时数组用完即弃，不常驻 IO 线程
+    private static final int MAX_CACHED_SCRATCH = 256 * 1024;
+    private static final ThreadLocal<byte[]> INPUT_SCRATCH = new ThreadLocal<>();
+    private static final ThreadLocal<byte[]> OUTPUT_SCRATCH = new ThreadLocal<>();
+
+    // 本端可接受的算法，null 表示不接受压缩
+    private final Compressor localCompressor;
+    private final int threshold;
+    // 对端通告的可接受算法编号，收到对端 v2 帧前为 0（不压缩）
+    private volatile int peerCodec;
+
+    public FrameCompression(Compressor localCompressor, int threshold) {
+        this.localCompressor = localCompressor;
+        this.threshold = threshold;
+    }
+
+    /**
+     * 获取连接的压缩状态，首次访问时按配置创建；Encoder 与 Decoder 共享同一实例
+     */
+    public static FrameCompression get(Channel channel) {
+        Attribute<FrameCompression> attr = channel.attr(KEY);
+        FrameCompression compression = attr.get();
+        if (compression == null) {
+            FrameCompression created = fromConfig();
+            compression = attr.setIfAbsent(created);
+            if (compression == null) {
+                compression = created;
+            }
+        }
+        return compression;
+    }
+
+    public static FrameCompression fromConfig() {
+        return new FrameCompression(
+                CompressorFactory.getByName(AppConfig.getString("rpc.compress.codec", "lz4")),
+                Math.max(0, AppConfig.getInt("rpc.compress.threshold", 2048)));
+    }
+
+    /**
+     * 在待发送帧的标志位中写入本端可接受的算法
+     */
+    public byte advertise(byte flags) {
+        return ProtocolConstants.withAcceptedCodec(flags, localCompressor == null ? 0 : localCompressor.getType());
+    }
+
+    /**
+     * 记录对端帧中通告的可接受算法
+     */
+    public void onPeerFlags(byte flags) {
+        int codec = ProtocolConstants.acceptedCodec(flags);
+        if (codec != peerCodec) {
+            peerCodec = codec;
+        }
+    }
+
+    /**
+     * 发送给对端时使用的算法，对端未通告或本端未加载时返回 null
+     */
+    public Compressor peerCompressor() {
+        int codec = peerCodec;
+        return codec == 0 ? null : CompressorFactory.getByType(codec);
+    }
+
+    /**
+     * 就地压缩 out 中从 bodyStart 到写指针的消息体
+     *
+     * @return 是否已压缩（调用方需设置 FLAG_COMPRESSED）
+     */
+    public boolean compress(ByteBuf out, int bodyStart) {
+        int bodyLength = out.writerIndex() - bodyStart;
+        if (bodyLength < threshold || bodyLength <= ProtocolConstants.COMPRESSED_BODY_HEADER_LENGTH) {
+            return false;
+        }
+        Compressor compressor = peerCompressor();
+        if (compressor == null) {
+            return false;
+        }
+
+        byte[] src;
+        int srcOff;
+        if (out.hasArray()) {
+            src = out.array();
+            srcOff = out.arrayOffset() + bodyStart;
+        } else {
+            src = scratch(INPUT_SCRATCH, bodyLength);
+            srcOff = 0;
+            out.getBytes(bodyStart, src, 0, bodyLength);
+        }
+        byte[] dst = scratch(OUTPUT_SCRATCH, compressor.maxCompressedLength(bodyLength));
+        int compressedLength = compressor.compress(src, srcOff, bodyLength, dst, 0);
+        if (compressedLength + ProtocolConstants.COMPRESSED_BODY_HEADER_LENGTH >= bodyLength) {
+            return false;
+        }
+
+        out.writerIndex(bodyStart);
+        out.writeByte(compressor.getType());
+        out.writeInt(bodyLength);
+        out.writeBytes(dst, 0, compressedLength);
+        return true;
+    }
+
+    /**
+     * 解压消息体，返回新分配的缓冲区；调用方负责释放传入的 body
+     */
+    public static ByteBuf decompress(ByteBufAllocator alloc, ByteBuf body) {
+        if (body.readableBytes() < ProtocolConstants.COMPRESSED_BODY_HEADER_LENGTH) {
+            throw new IllegalArgumentException("压缩消息体长度不足: " + body.readableBytes());
+        }
+        int codec = body.getUnsignedByte(body.readerIndex());
+        int originalLength = body.getInt(body.readerIndex() + 1);
+        if (originalLength < 0 || originalLength > MAX_DECOMPRESSED_LENGTH) {
+            throw new IllegalArgumentException("非法的解压长度: " + originalLength);
+        }
+        Compressor compressor = CompressorFactory.getByType(codec);
+        if (compressor == null) {
+            throw new IllegalArgumentException("不支持的压缩算法: " + codec);
+        }
+
+        int srcLen = body.readableBytes() - ProtocolConstants.COMPRESSED_BODY_HEADER_LENGTH;
+        int srcStart = body.readerIndex() + ProtocolConstants.COMPRESSED_BODY_HEADER_LENGTH;
+        byte[] src;
+        int srcOff;
+        if (body.hasArray()) {
+            src = body.array();
+            srcOff = body.arrayOffset() + srcStart;
+        } else {
+            src = scratch(INPUT_SCRATCH, srcLen);
+            srcOff = 0;
+            body.getBytes(srcStart, src, 0, srcLen);
+        }
+
+        ByteBuf decompressed = alloc.heapBuffer(originalLength, originalLength);
+        try {
+            compressor.decompress(src, srcOff, srcLen, decompressed.array(), decompressed.arrayOffset(),
+                    originalLength);
+            decompressed.writerIndex(originalLength);
+            return decompressed;
+        } catch (RuntimeException e) {
+            decompressed.release();
+            throw e;
+        }
+    }
+
+    private static byte[] scratch(ThreadLocal<byte[]> cache, int size) {
+        byte[] buf = cache.get();
+        if (buf != null && buf.length >= size) {
+            return buf;
+        }
+        buf = new byte[size];
+        if (size <= MAX_CACHED_SCRATCH) {
+            cache.set(buf);
+        }
+        return buf;
+    }
+}
@@ -0,0 +1,81 @@
+package common.compress.impl;
+
+import common.compress.Compressor;
+import common.util.AppConfig;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * JDK Deflater 压缩（zlib 格式），压缩率高、速度较慢，作为基线
+ * 压缩级别由 rpc.compress.deflate.level 配置，默认 1（最快）
+ * Deflater/Inflater 持有本地内存，按线程复用，避免每帧创建与释放
+ */
+public class DeflateCompressor implements Compressor {
+    public static final byte TYPE = 1;
+
+    private static final int LEVEL = AppConfig.getInt("rpc.compress.deflate.level", Deflater.BEST_SPEED);
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(LEVEL));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    @Override
+    public byte getType() {
+        return TYPE;
+    }
+
+    @Override
+    public String getName() {
+        return "deflate";
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        // zlib 的 compressBound 再加上头尾
+        return length + (length >> 12) + (length >> 14) + (length >> 25) + 32;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(src, srcOff, srcLen);
+        deflater.finish();
+        int written = 0;
+        while (!deflater.finished()) {
+            int n = deflater.deflate(dst, dstOff + written, dst.length - dstOff - written);
+            if (n == 0 && dst.length - dstOff - written == 0) {
+                throw new IllegalArgumentException("Deflate 输出空间不足");
+            }
+            written += n;
+        }
+        return written;
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int originalLength) {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(src, srcOff, srcLen);
+        int read = 0;
+        try {
+            while (read < originalLength && !inflater.finished()) {
+                int n = inflater.inflate(dst, dstOff + read, originalLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read == originalLength && !inflater.finished()) {
+                // 输出已满但流未结束（含原始长度为 0 的情况）：再读一个字节，确认没有多余数据
+                read += inflater.inflate(new byte[1]);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Deflate 数据损坏: " + e.getMessage(), e);
+        }
+        if (read != originalLength || !inflater.finished()) {
+            throw new IllegalArgumentException("Deflate 解压长度不符: 期望 " + originalLength + "，实际 " + read);
+        }
+    }
+}
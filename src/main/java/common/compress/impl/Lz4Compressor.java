@@ -0,0 +1,223 @@
+package common.compress.impl;
+
+import common.compress.Compressor;
+
+import java.util.Arrays;
+
+/**
+ * 纯 Java 实现的 LZ4 块格式压缩，不依赖本地库
+ * 单遍哈希匹配（4 字节序列、64KB 窗口），压缩率低于 Deflate，但压缩与解压速度高一个数量级，
+ * 适合对延迟敏感的 RPC 帧。输出与标准 LZ4 block 格式兼容（不含 frame 头）。
+ *
+ * 块格式：若干 sequence，每个为 token(高 4 位字面量长度、低 4 位匹配长度-4) + 扩展长度 + 字面量 + 2 字节小端偏移 + 扩展长度，
+ * 最后一个 sequence 只有字面量。格式约束：最后 5 字节必须为字面量，最后一个匹配须在结尾 12 字节之前开始。
+ */
+public class Lz4Compressor implements Compressor {
+    public static final byte TYPE = 2;
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 65535;
+    private static final int HASH_LOG = 12;
+    private static final int HASH_SIZE = 1 << HASH_LOG;
+    // 连续未命中时逐步加大步长，不可压缩的数据也能快速跳过
+    private static final int SKIP_TRIGGER = 6;
+
+    // 哈希表按线程复用，每次压缩前清空
+    private static final ThreadLocal<int[]> HASH_TABLE = ThreadLocal.withInitial(() -> new int[HASH_SIZE]);
+
+    @Override
+    public byte getType() {
+        return TYPE;
+    }
+
+    @Override
+    public String getName() {
+        return "lz4";
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        int srcEnd = srcOff + srcLen;
+        int anchor = srcOff;
+        int op = dstOff;
+
+        if (srcLen > MF_LIMIT) {
+            int[] table = HASH_TABLE.get();
+            Arrays.fill(table, -1);
+            int matchLimit = srcEnd - LAST_LITERALS;
+            int mfLimit = srcEnd - MF_LIMIT;
+            int ip = srcOff;
+            int searchCount = 1 << SKIP_TRIGGER;
+
+            while (ip < mfLimit) {
+                int sequence = readInt(src, ip);
+                int h = hash(sequence);
+                int ref = table[h];
+                table[h] = ip;
+                if (ref < srcOff || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    ip += searchCount++ >>> SKIP_TRIGGER;
+                    continue;
+                }
+                searchCount = 1 << SKIP_TRIGGER;
+
+                // 向前扩展匹配
+                while (ip > anchor && ref > srcOff && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+                // 向后扩展匹配，保留结尾的字面量
+                int matchLength = MIN_MATCH;
+                while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) {
+                    matchLength++;
+                }
+
+                op = writeSequence(src, anchor, ip - anchor, dst, op, ip - ref, matchLength - MIN_MATCH);
+                ip += matchLength;
+                anchor = ip;
+                if (ip < mfLimit) {
+                    // 把匹配末尾附近的位置也放入哈希表，提高下一次命中率
+                    table[hash(readInt(src, ip - 2))] = ip - 2;
+                }
+            }
+        }
+
+        // 最后一个 sequence：剩余全部为字面量
+        int literalLength = srcEnd - anchor;
+        op = writeLiteralLength(dst, op, literalLength);
+        System.arraycopy(src, anchor, dst, op, literalLength);
+        return op + literalLength - dstOff;
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int originalLength) {
+        int ip = srcOff;
+        int srcEnd = srcOff + srcLen;
+        int op = dstOff;
+        int dstEnd = dstOff + originalLength;
+
+        while (true) {
+            if (ip >= srcEnd) {
+                throw new IllegalArgumentException("LZ4 数据损坏: 缺少 token");
+            }
+            int token = src[ip++] & 0xFF;
+
+            int literalLength = token >>> 4;
+            if (literalLength == 15) {
+                int b;
+                do {
+                    if (ip >= srcEnd) {
+                        throw new IllegalArgumentException("LZ4 数据损坏: 字面量长度越界");
+                    }
+                    b = src[ip++] & 0xFF;
+                    literalLength += b;
+                } while (b == 255);
+            }
+            if (literalLength > srcEnd - ip || literalLength > dstEnd - op) {
+                throw new IllegalArgumentException("LZ4 数据损坏: 字面量越界");
+            }
+            System.arraycopy(src, ip, dst, op, literalLength);
+            ip += literalLength;
+            op += literalLength;
+
+            if (ip == srcEnd) {
+                // 最后一个 sequence 没有匹配部分
+                break;
+            }
+
+            if (srcEnd - ip < 2) {
+                throw new IllegalArgumentException("LZ4 数据损坏: 偏移越界");
+            }
+            int offset = (src[ip] & 0xFF) | ((src[ip + 1] & 0xFF) << 8);
+            ip += 2;
+            if (offset == 0 || offset > op - dstOff) {
+                throw new IllegalArgumentException("LZ4 数据损坏: 非法偏移 " + offset);
+            }
+
+            int matchLength = token & 0x0F;
+            if (matchLength == 15) {
+                int b;
+                do {
+                    if (ip >= srcEnd) {
+                        throw new IllegalArgumentException("LZ4 数据损坏: 匹配长度越界");
+                    }
+                    b = src[ip++] & 0xFF;
+                    matchLength += b;
+                } while (b == 255);
+            }
+            matchLength += MIN_MATCH;
+            if (matchLength > dstEnd - op) {
+                throw new IllegalArgumentException("LZ4 数据损坏: 匹配越界");
+            }
+
+            int ref = op - offset;
+            if (offset >= matchLength) {
+                System.arraycopy(dst, ref, dst, op, matchLength);
+                op += matchLength;
+            } else {
+                // 重叠复制（如游程），必须逐字节进行
+                for (int i = 0; i < matchLength; i++) {
+                    dst[op++] = dst[ref++];
+                }
+            }
+        }
+
+        if (op != dstEnd) {
+            throw new IllegalArgumentException("LZ4 解压长度不符: 期望 " + originalLength + "，实际 " + (op - dstOff));
+        }
+    }
+
+    private static int writeSequence(byte[] src, int literalStart, int literalLength, byte[] dst, int op,
+                                     int offset, int matchLengthMinus4) {
+        int tokenIndex = op;
+        op = writeLiteralLength(dst, op, literalLength);
+        System.arraycopy(src, literalStart, dst, op, literalLength);
+        op += literalLength;
+
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+
+        if (matchLengthMinus4 >= 15) {
+            dst[tokenIndex] |= 0x0F;
+            op = writeExtraLength(dst, op, matchLengthMinus4 - 15);
+        } else {
+            dst[tokenIndex] |= (byte) matchLengthMinus4;
+        }
+        return op;
+    }
+
+    /**
+     * 写入 token（仅字面量长度部分）及其扩展长度
+     */
+    private static int writeLiteralLength(byte[] dst, int op, int literalLength) {
+        if (literalLength >= 15) {
+            dst[op++] = (byte) (15 << 4);
+            return writeExtraLength(dst, op, literalLength - 15);
+        }
+        dst[op++] = (byte) (literalLength << 4);
+        return op;
+    }
+
+    private static int writeExtraLength(byte[] dst, int op, int length) {
+        while (length >= 255) {
+            dst[op++] = (byte) 255;
+            length -= 255;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    private static int readInt(byte[] buf, int i) {
+        return (buf[i] & 0xFF) | ((buf[i + 1] & 0xFF) << 8) | ((buf[i + 2] & 0xFF) << 16) | ((buf[i + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
@@ -0,0 +1,18 @@
+package common.message;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 心跳帧，由 Encoder 编码为带 FLAG_HEARTBEAT、没有消息体的 v2 帧
+ * - PING：客户端在连接空闲时发送
+ * - PONG：服务端收到 PING 后立即回复
+ */
+@Getter
+@AllArgsConstructor
+public enum Heartbeat {
+    PING(MessageType.HEARTBEAT_PING),
+    PONG(MessageType.HEARTBEAT_PONG);
+
+    private final MessageType type;
+}
@@ -5,7 +5,19 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor
 public enum MessageType{
     // 规定消息类型对应码
-    REQUEST(0),RESPONSE(1);
+    REQUEST(0),RESPONSE(1),
+    // 服务端流式调用（仅 v2 帧，按帧头请求ID关联）：
+    // 流元素（服务端 -> 客户端，消息体为 RpcResponse），流以一个普通 RESPONSE 帧结束
+    STREAM_ITEM(2),
+    // 订阅方追加的需求（客户端 -> 服务端，消息体为 8 字节的元素个数）
+    STREAM_CREDIT(3),
+    // 订阅方取消（客户端 -> 服务端，无消息体）
+    STREAM_CANCEL(4),
+    // 批量请求（客户端 -> 服务端，仅 v2 帧）：一个帧内携带多个请求，服务端逐个分发并分别回复普通 RESPONSE 帧
+    BATCH_REQUEST(5),
+    // 心跳（仅 v2 帧，带 FLAG_HEARTBEAT，无消息体）：客户端在连接空闲时发送 PING，服务端立即回复 PONG
+    HEARTBEAT_PING(6),
+    HEARTBEAT_PONG(7);
 
     // 返回对应码
     private int code;
@@ -0,0 +1,108 @@
+package common.message;
+
+/**
+ * 传输协议常量
+ *
+ * <pre>
+ * v1 帧（兼容旧版本，只解码不主动发送）:
+ * +----------------------------------------------+
+ * | 消息类型 | 序列化类型 | 数据长度 |    数据     |
+ * |  2字节   |   2字节    |  4字节   |  N字节     |
+ * +----------------------------------------------+
+ *
+ * v2 帧:
+ * +--------------------------------------------------------------------------------------------+
+ * | 魔数 | 版本 | 标志位 | 剩余长度 | 消息类型 | 序列化类型 | 请求ID | 服务ID | 方法ID |  数据  |
+ * | 2字节| 1字节| 1字节  |  4字节   |  1字节   |   1字节    | 8字节  | 4字节  | 4字节  | N字节  |
+ * +--------------------------------------------------------------------------------------------+
+ * </pre>
+ *
+ * 两个版本的长度字段都位于偏移 4 处，因此同一个 LengthFieldBasedFrameDecoder 即可完成拆包；
+ * v2 的"剩余长度"包含长度字段之后的扩展头部（18 字节）与数据。
+ * v1 的首个 short 是消息类型（取值很小），不可能与魔数冲突，Decoder 据此区分版本。
+ *
+ * 标志位低 4 位为帧属性（压缩/单向/心跳/分片），高 4 位为发送方可接受的压缩算法编号（0 表示不接受压缩），
+ * 双方据此按连接协商压缩算法，见 {@link common.compress.FrameCompression}。
+ * 压缩帧的消息体为: 算法编号(1字节) + 原始长度(4字节) + 压缩数据。
+ *
+ * 超过单帧上限的 v2 消息拆成多个分片帧发送：各分片的帧头与原消息一致（剩余长度为分片自身的长度），
+ * 除最后一个分片外都带 FLAG_MORE_CHUNKS；接收方按请求ID拼接消息体，收到最后一个分片后再解压、交给下游。
+ * 分片之间可以穿插其他消息的帧，见 {@link common.chunk.ChunkedFrameWriter} 与 {@link common.chunk.ChunkAssembler}。
+ *
+ * 批量请求帧（BATCH_REQUEST）的帧头请求ID 为批内第一个请求的ID（只用于分片拼接），服务ID/方法ID 未知，
+ * 消息体为: 请求数(4字节) + 每个请求 [请求ID(8字节) + 服务ID(4字节) + 方法ID(4字节) + 长度(4字节) + 序列化后的请求]。
+ * 整个消息体作为一个整体参与压缩与分片。
+ *
+ * 响应帧的服务ID/方法ID 非 0 时表示服务端确认能按这两个ID 还原请求签名，客户端之后在同一连接上的请求消息体
+ * 可以省略接口名、方法名与参数类型，见 {@link SignatureDictionary}。
+ *
+ * 心跳帧（HEARTBEAT_PING / HEARTBEAT_PONG）带 FLAG_HEARTBEAT，请求ID 与路由字段为 0，没有消息体。
+ * 心跳总是以 v2 帧发送：配置为 v1 的客户端不发送心跳，服务端只会向发送过 PING 的 v2 对端回复 PONG。
+ */
+public final class ProtocolConstants {
+    private ProtocolConstants() {
+    }
+
+    /** v2 帧魔数 */
+    public static final short MAGIC = (short) 0xCAFE;
+
+    public static final byte VERSION_1 = 1;
+    public static final byte VERSION_2 = 2;
+
+    /** 单帧最大长度 */
+    public static final int MAX_FRAME_LENGTH = 1024 * 1024;
+    /** 分片消息拼接后（以及压缩消息解压后）的最大长度 */
+    public static final int MAX_MESSAGE_LENGTH = 64 * 1024 * 1024;
+    /** 长度字段偏移（两个版本一致） */
+    public static final int LENGTH_FIELD_OFFSET = 4;
+    /** v2 标志位偏移 */
+    public static final int FLAGS_OFFSET = 3;
+    /** 长度字段字节数 */
+    public static final int LENGTH_FIELD_LENGTH = 4;
+
+    /** v1 头部总长度 */
+    public static final int V1_HEADER_LENGTH = 8;
+    /** v2 长度字段之后的扩展头部长度: 消息类型1 + 序列化类型1 + 请求ID8 + 服务ID4 + 方法ID4 */
+    public static final int V2_EXTENDED_HEADER_LENGTH = 18;
+    /** v2 头部总长度 */
+    public static final int V2_HEADER_LENGTH = 8 + V2_EXTENDED_HEADER_LENGTH;
+    /** 批量请求中每个请求的头部长度: 请求ID8 + 服务ID4 + 方法ID4 + 长度4 */
+    public static final int BATCH_ITEM_HEADER_LENGTH = 20;
+
+    // 标志位
+    /** 消息体已压缩 */
+    public static final byte FLAG_COMPRESSED = 0x01;
+    /** 单向调用，不需要响应 */
+    public static final byte FLAG_ONEWAY = 0x02;
+    /** 心跳帧 */
+    public static final byte FLAG_HEARTBEAT = 0x04;
+    /** 分片帧，同一请求ID还有后续分片 */
+    public static final byte FLAG_MORE_CHUNKS = 0x08;
+    /** 高 4 位：发送方可接受的压缩算法编号 */
+    public static final int ACCEPT_CODEC_SHIFT = 4;
+    public static final int ACCEPT_CODEC_MASK = 0xF0;
+
+    /** 压缩消息体的头部长度: 算法编号1 + 原始长度4 */
+    public static final int COMPRESSED_BODY_HEADER_LENGTH = 5;
+
+    /** 服务ID/方法ID 未知（例如 v1 帧），需要反序列化消息体后再路由 */
+    public static final int UNKNOWN_ROUTE_ID = 0;
+
+    public static boolean hasFlag(byte flags, byte flag) {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * 标志位中通告的可接受压缩算法编号
+     */
+    public static int acceptedCodec(byte flags) {
+        return (flags & ACCEPT_CODEC_MASK) >>> ACCEPT_CODEC_SHIFT;
+    }
+
+    /**
+     * 用指定的可接受压缩算法编号替换标志位的高 4 位
+     */
+    public static byte withAcceptedCodec(byte flags, int codec) {
+        return (byte) ((flags & ~ACCEPT_CODEC_MASK) | ((codec << ACCEPT_CODEC_SHIFT) & ACCEPT_CODEC_MASK));
+    }
+}
@@ -1,18 +1,75 @@
 package common.message;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import lombok.Getter;
 
 /**
  * 原始消息封装，用于延迟反序列化
- * 保存了从网络读取的原始字节和元数据
+ * 保存了从网络读取的消息体和帧头元数据（v1 帧只有消息类型与序列化类型，其余字段为默认值）
+ *
+ * 消息体是 Decoder 从 Netty 池化缓冲区中切出的 retained slice，不再拷贝成 byte[]，
+ * 因此 RawMessage 本身是引用计数对象：谁最后使用消息体，谁负责 release()。
+ * - 在 channelRead0 内同步消费：由 SimpleChannelInboundHandler 自动释放
+ * - 需要跨线程消费：先 retain()，在异步任务的 finally 中 release()
  */
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
-public class RawMessage {
-    private short messageType;
-    private short serializerType;
-    private byte[] data;
+@Getter
+public class RawMessage extends DefaultByteBufHolder {
+    private final byte version;
+    private final byte flags;
+    private final short messageType;
+    private final short serializerType;
+    // 请求ID，响应帧中回显对应请求的ID
+    private final long requestId;
+    // 路由字段，未知时为 ProtocolConstants.UNKNOWN_ROUTE_ID
+    private final int serviceId;
+    private final int methodId;
+
+    public RawMessage(short messageType, short serializerType, ByteBuf data) {
+        this(ProtocolConstants.VERSION_1, (byte) 0, messageType, serializerType, 0L,
+                ProtocolConstants.UNKNOWN_ROUTE_ID, ProtocolConstants.UNKNOWN_ROUTE_ID, data);
+    }
+
+    public RawMessage(byte version, byte flags, short messageType, short serializerType,
+            long requestId, int serviceId, int methodId, ByteBuf data) {
+        super(data);
+        this.version = version;
+        this.flags = flags;
+        this.messageType = messageType;
+        this.serializerType = serializerType;
+        this.requestId = requestId;
+        this.serviceId = serviceId;
+        this.methodId = methodId;
+    }
+
+    public boolean hasFlag(byte flag) {
+        return ProtocolConstants.hasFlag(flags, flag);
+    }
+
+    public boolean hasRoute() {
+        return serviceId != ProtocolConstants.UNKNOWN_ROUTE_ID && methodId != ProtocolConstants.UNKNOWN_ROUTE_ID;
+    }
+
+    @Override
+    public RawMessage replace(ByteBuf content) {
+        return new RawMessage(version, flags, messageType, serializerType, requestId, serviceId, methodId, content);
+    }
+
+    @Override
+    public RawMessage retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public RawMessage retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public RawMessage touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
 }
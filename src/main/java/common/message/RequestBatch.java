@@ -0,0 +1,21 @@
+package common.message;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 客户端攒批后的一组请求，由 Encoder 编码为一个 BATCH_REQUEST 帧，消息体格式见 {@link ProtocolConstants}
+ * 批内各请求已分配请求ID，服务端逐个回复普通 RESPONSE 帧，客户端按请求ID 分别完成。
+ */
+@Getter
+public final class RequestBatch {
+    private final List<RpcRequest> requests;
+
+    public RequestBatch(List<RpcRequest> requests) {
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("批量请求不能为空");
+        }
+        this.requests = requests;
+    }
+}
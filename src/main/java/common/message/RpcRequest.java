@@ -30,6 +30,16 @@ public class RpcRequest implements Serializable {
     // 链路追踪相关字段
     private String traceId;
     private String spanId;
+
+    // 协议头字段：由 Encoder 写入 v2 帧头、由服务端从帧头回填，不参与消息体序列化
+    // 数字请求ID
+    private transient long sequenceId;
+    // 服务/方法路由ID，见 HashUtil#serviceRouteId / HashUtil#methodRouteId
+    private transient int serviceId;
+    private transient int methodId;
+
+    // 客户端发送选项：是否允许与同一连接上的其他请求攒批发送（见 common.service.Batchable），不参与序列化
+    private transient boolean batchable;
     
     @Builder
     public RpcRequest(String requestId, String interfaceName, String methodName, 
@@ -47,4 +57,35 @@ public class RpcRequest implements Serializable {
         // 在构造时计算特征码
         this.featureCode = HashUtil.generateFeatureCode(interfaceName, methodName, params);
     }
+
+    /**
+     * 省略服务签名（接口名、方法名、参数类型）的副本，用于对端已确认该签名的连接，见 {@link SignatureDictionary}
+     * 原请求不被修改，可能仍在其他线程上用于重试或改路由
+     */
+    public RpcRequest withoutSignature() {
+        RpcRequest compact = new RpcRequest();
+        compact.requestId = requestId;
+        compact.params = params;
+        compact.timestamp = timestamp;
+        compact.featureCode = featureCode;
+        compact.traceId = traceId;
+        compact.spanId = spanId;
+        compact.sequenceId = sequenceId;
+        compact.serviceId = serviceId;
+        compact.methodId = methodId;
+        compact.batchable = batchable;
+        return compact;
+    }
+
+    /**
+     * 换用另一个请求ID 的副本，用于 v1 帧借消息体携带数字请求ID；原请求不被修改，理由同 {@link #withoutSignature()}
+     */
+    public RpcRequest withRequestId(String requestId) {
+        RpcRequest copy = withoutSignature();
+        copy.requestId = requestId;
+        copy.interfaceName = interfaceName;
+        copy.methodName = methodName;
+        copy.paramsType = paramsType;
+        return copy;
+    }
 }
@@ -23,6 +23,12 @@ public class RpcResponse implements Serializable {
     // 链路追踪相关字段
     private String traceId;
     private String spanId;
+
+    // 协议头字段：回显请求帧头中的数字请求ID，不参与消息体序列化
+    private transient long sequenceId;
+    // 协议头字段：服务端已能按ID 还原的请求签名，非 0 时写入响应帧头作为确认，见 SignatureDictionary
+    private transient int serviceId;
+    private transient int methodId;
     
     public static RpcResponse success(Object data) {
         return RpcResponse.builder()
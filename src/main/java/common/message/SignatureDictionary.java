@@ -0,0 +1,84 @@
+package common.message;
+
+import common.util.AppConfig;
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 连接级的服务签名字典
+ * 请求消息体中的全限定接口名、方法名与参数类型名占了小请求的大部分字节，服务端还要按名称解析参数类型。
+ * v2 帧头已经携带由签名计算出的服务ID/方法ID（见 {@link common.util.HashUtil}），字典记录对端已确认能按ID 还原的签名：
+ *
+ * - 客户端在连接上首次调用某个方法时发送完整签名
+ * - 服务端在分发表中找到帧头的服务ID/方法ID 时，在响应帧头中回显这两个ID 作为确认；
+ * 旧版本服务端的响应帧头路由ID 为 0，不会产生确认
+ * - 客户端收到确认后记入本连接的字典，之后该方法的请求消息体省略接口名、方法名与参数类型
+ * - 服务端收到省略了签名的请求时按帧头中的ID 从分发表补齐，不再按名称解析类
+ *
+ * 字典随连接存在，连接重建（包括服务端重启）后重新确认。只有参数自带类型信息的序列化方式才省略签名，
+ * 见 {@link common.serializer.Serializer#isSelfDescribing()}。
+ *
+ * 配置项：
+ * - rpc.protocol.compactSignature：是否省略已确认的签名，默认 true
+ */
+public final class SignatureDictionary {
+    private static final AttributeKey<SignatureDictionary> KEY = AttributeKey.valueOf("rpc.signatureDictionary");
+
+    // 单个连接最多记录的签名数，防止异常的对端撑大字典；超出后新签名继续完整发送
+    static final int MAX_ENTRIES = 4096;
+
+    private final boolean enabled;
+    // 已确认的签名，高 32 位为服务ID，低 32 位为方法ID
+    private final Set<Long> acknowledged = ConcurrentHashMap.newKeySet();
+
+    public SignatureDictionary(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * 获取连接的签名字典，首次访问时按配置创建；Encoder 与客户端处理器共享同一实例
+     */
+    public static SignatureDictionary get(Channel channel) {
+        Attribute<SignatureDictionary> attr = channel.attr(KEY);
+        SignatureDictionary dictionary = attr.get();
+        if (dictionary == null) {
+            SignatureDictionary created = new SignatureDictionary(
+                    AppConfig.getBoolean("rpc.protocol.compactSignature", true));
+            dictionary = attr.setIfAbsent(created);
+            if (dictionary == null) {
+                dictionary = created;
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * 记录对端在响应帧头中确认的签名
+     */
+    public void acknowledge(int serviceId, int methodId) {
+        if (!enabled || serviceId == ProtocolConstants.UNKNOWN_ROUTE_ID
+                || methodId == ProtocolConstants.UNKNOWN_ROUTE_ID || acknowledged.size() >= MAX_ENTRIES) {
+            return;
+        }
+        acknowledged.add(key(serviceId, methodId));
+    }
+
+    /**
+     * 对端是否已确认该签名，即请求消息体可以省略签名
+     */
+    public boolean isAcknowledged(int serviceId, int methodId) {
+        return enabled && !acknowledged.isEmpty() && acknowledged.contains(key(serviceId, methodId));
+    }
+
+    public int size() {
+        return acknowledged.size();
+    }
+
+    private static long key(int serviceId, int methodId) {
+        return ((long) serviceId << 32) | (methodId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,38 @@
+package common.message;
+
+import lombok.Getter;
+
+/**
+ * 服务端流式调用的控制与数据帧，由 Encoder 编码为 v2 帧，帧头请求ID 即流所属请求的ID
+ * - STREAM_ITEM：一个流元素，消息体为序列化后的 RpcResponse（data 为元素）
+ * - STREAM_CREDIT：订阅方追加的需求，消息体为 8 字节的元素个数
+ * - STREAM_CANCEL：订阅方取消，无消息体
+ */
+@Getter
+public final class StreamFrame {
+    private final MessageType type;
+    private final long sequenceId;
+    // STREAM_ITEM 的元素
+    private final RpcResponse item;
+    // STREAM_CREDIT 的需求
+    private final long credit;
+
+    private StreamFrame(MessageType type, long sequenceId, RpcResponse item, long credit) {
+        this.type = type;
+        this.sequenceId = sequenceId;
+        this.item = item;
+        this.credit = credit;
+    }
+
+    public static StreamFrame item(long sequenceId, Object element) {
+        return new StreamFrame(MessageType.STREAM_ITEM, sequenceId, RpcResponse.success(element), 0L);
+    }
+
+    public static StreamFrame credit(long sequenceId, long credit) {
+        return new StreamFrame(MessageType.STREAM_CREDIT, sequenceId, null, credit);
+    }
+
+    public static StreamFrame cancel(long sequenceId) {
+        return new StreamFrame(MessageType.STREAM_CANCEL, sequenceId, null, 0L);
+    }
+}
@@ -1,15 +1,44 @@
 package common.serializer;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
 public interface Serializer {
     // 把对象序列化成字节数组
     byte[] serialize(Object obj);
+
+    // 流式序列化：直接写入编码器提供的输出流（通常是包装池化 ByteBuf 的 ByteBufOutputStream）
+    // 默认实现先序列化为字节数组再写出，支持流式写入的实现应覆盖此方法以省去中间数组
+    default void serialize(Object obj, OutputStream out) throws IOException {
+        byte[] bytes = serialize(obj);
+        if (bytes == null) {
+            throw new IOException("序列化失败: " + obj.getClass().getName());
+        }
+        out.write(bytes);
+    }
+
     // 从字节数组反序列化成消息, 使用java自带序列化方式不用messageType也能得到相应的对象（序列化字节数组里包含类信息）
     // 其它方式需指定消息格式，再根据message转化成相应的对象
     Object deserialize(byte[] bytes, int messageType);
 
+    // 直接从缓冲区反序列化（可能是指向 Netty 直接内存的视图，只在调用期间有效）
+    // 默认实现拷贝为字节数组，支持零拷贝读取的实现应覆盖此方法
+    default Object deserialize(ByteBuffer buffer, int messageType) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return deserialize(bytes, messageType);
+    }
+
+    // 消息体中的参数是否自带类型信息，即反序列化请求不依赖 paramsType
+    // 只有这样的序列化方式才能省略请求中已被对端确认的服务签名（见 SignatureDictionary）
+    default boolean isSelfDescribing() {
+        return false;
+    }
+
     // 返回使用的序列器，是哪个
     // 0：java自带序列化方式, 1: json序列化方式
     int getType();
-    
+
     String getSerializerName();
 }
@@ -103,6 +103,8 @@ public class SerializerFactory {
                     return 2;
                 case "kryo":
                     return 3;
+                case "codegen":
+                    return 4;
                 default:
                     return null;
             }
@@ -0,0 +1,34 @@
+package common.serializer.codec;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+import java.io.IOException;
+
+/**
+ * 单个类型的二进制编解码器，ProtobufSerializer 用它把参数与返回值编码为 rpc.proto 中 TypedValue 的 value 字段
+ * 通过 SPI（META-INF/services/common.serializer.codec.ValueCodec）加载，客户端与服务端须加载相同的编解码器。
+ * 实现需线程安全：同一实例被所有线程共享。
+ */
+public interface ValueCodec<T> {
+
+    /**
+     * 编解码器编号，写入 TypedValue.codec；0~15 保留给内置编解码器，见 {@link ValueCodecs}
+     */
+    int getId();
+
+    /**
+     * 处理的类型，按值的运行时类型精确匹配（不匹配子类）
+     */
+    Class<T> getType();
+
+    /**
+     * 写出值，value 不为 null
+     */
+    void write(T value, CodedOutputStream out) throws IOException;
+
+    /**
+     * 读取 write 写出的值，输入只包含这一个值
+     */
+    T read(CodedInputStream in) throws IOException;
+}
@@ -0,0 +1,286 @@
+package common.serializer.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import common.util.ClassCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 参数与返回值的二进制编解码：按值的运行时类型选择编解码器
+ *
+ * 内置编解码器（编号 0~15）：
+ * - 0 null，没有内容
+ * - 1 JSON，没有专用编解码器的类型的兜底，TypedValue.type 携带类名
+ * - 2~8 String / Integer / Long / Boolean / Double / Float / byte[]，按 protobuf 标量的编码写出
+ * - 9 List，逐个元素按本规则编码，解码为 ArrayList
+ *
+ * 其余编解码器（例如 common.pojo.User）通过 SPI 加载，编号须大于 15 且各不相同，冲突时忽略后加载的。
+ */
+public final class ValueCodecs {
+    private static final Logger logger = LoggerFactory.getLogger(ValueCodecs.class);
+
+    public static final int NULL_ID = 0;
+    public static final int JSON_ID = 1;
+    /** SPI 编解码器可用的最小编号 */
+    public static final int MIN_CUSTOM_ID = 16;
+
+    private static final Map<Integer, ValueCodec<?>> BY_ID = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ValueCodec<?>> BY_TYPE = new ConcurrentHashMap<>();
+    // 没有专用编解码器的类型，按需创建
+    private static final Map<Class<?>, ValueCodec<?>> JSON_CODECS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[4096]);
+
+    static {
+        register(new ScalarCodec<>(2, String.class, (v, out) -> out.writeStringNoTag(v), CodedInputStream::readString));
+        register(new ScalarCodec<>(3, Integer.class, (v, out) -> out.writeSInt32NoTag(v), CodedInputStream::readSInt32));
+        register(new ScalarCodec<>(4, Long.class, (v, out) -> out.writeSInt64NoTag(v), CodedInputStream::readSInt64));
+        register(new ScalarCodec<>(5, Boolean.class, (v, out) -> out.writeBoolNoTag(v), CodedInputStream::readBool));
+        register(new ScalarCodec<>(6, Double.class, (v, out) -> out.writeDoubleNoTag(v), CodedInputStream::readDouble));
+        register(new ScalarCodec<>(7, Float.class, (v, out) -> out.writeFloatNoTag(v), CodedInputStream::readFloat));
+        register(new ScalarCodec<>(8, byte[].class, (v, out) -> out.writeByteArrayNoTag(v),
+                CodedInputStream::readByteArray));
+        ListCodec listCodec = new ListCodec();
+        register(listCodec);
+        // 按运行时类型精确匹配，常见的 List 实现都指向同一个编解码器
+        BY_TYPE.put(ArrayList.class, listCodec);
+        BY_TYPE.put(java.util.LinkedList.class, listCodec);
+        BY_TYPE.put(List.of().getClass(), listCodec);
+        BY_TYPE.put(List.of(1).getClass(), listCodec);
+        BY_TYPE.put(java.util.Arrays.asList().getClass(), listCodec);
+
+        for (ValueCodec<?> codec : ServiceLoader.load(ValueCodec.class)) {
+            if (codec.getId() < MIN_CUSTOM_ID) {
+                logger.warn("编解码器 {} 的编号 {} 小于 {}，忽略", codec.getClass().getName(), codec.getId(), MIN_CUSTOM_ID);
+                continue;
+            }
+            ValueCodec<?> previous = BY_ID.get(codec.getId());
+            if (previous != null) {
+                logger.warn("编解码器编号冲突: {} 与 {} 均为 {}，忽略后者", previous.getClass().getName(),
+                        codec.getClass().getName(), codec.getId());
+                continue;
+            }
+            register(codec);
+            logger.debug("加载编解码器: {} -> {} ({})", codec.getType().getName(), codec.getClass().getName(),
+                    codec.getId());
+        }
+    }
+
+    private ValueCodecs() {
+    }
+
+    private static void register(ValueCodec<?> codec) {
+        BY_ID.put(codec.getId(), codec);
+        BY_TYPE.put(codec.getType(), codec);
+    }
+
+    /**
+     * 值对应的编解码器编号；null 为 {@link #NULL_ID}，没有专用编解码器时为 {@link #JSON_ID}
+     */
+    public static int codecId(Object value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        ValueCodec<?> codec = BY_TYPE.get(value.getClass());
+        return codec == null ? JSON_ID : codec.getId();
+    }
+
+    /**
+     * 按值的运行时类型编码，null 编码为空
+     */
+    @SuppressWarnings("unchecked")
+    public static ByteString encode(Object value) throws IOException {
+        if (value == null) {
+            return ByteString.EMPTY;
+        }
+        ValueCodec<Object> codec = (ValueCodec<Object>) forType(value.getClass());
+        // 先写入线程内复用的临时数组，只拷贝一次；放不下时改用可增长的输出
+        byte[] scratch = SCRATCH.get();
+        CodedOutputStream out = CodedOutputStream.newInstance(scratch);
+        try {
+            codec.write(value, out);
+            return ByteString.copyFrom(scratch, 0, out.getTotalBytesWritten());
+        } catch (CodedOutputStream.OutOfSpaceException e) {
+            return encodeGrowable(codec, value);
+        }
+    }
+
+    private static ByteString encodeGrowable(ValueCodec<Object> codec, Object value) throws IOException {
+        ByteString.Output bytes = ByteString.newOutput();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        codec.write(value, out);
+        out.flush();
+        return bytes.toByteString();
+    }
+
+    /**
+     * 解码 encode 写出的值
+     *
+     * @param codecId  编码时的 {@link #codecId(Object)}
+     * @param typeName 值的类名，仅 JSON 编码需要
+     */
+    public static Object decode(int codecId, String typeName, ByteString value) throws IOException {
+        if (codecId == NULL_ID) {
+            return null;
+        }
+        ValueCodec<?> codec;
+        if (codecId == JSON_ID) {
+            try {
+                codec = jsonCodec(ClassCache.forName(typeName));
+            } catch (ClassNotFoundException e) {
+                throw new IOException("找不到参数类型: " + typeName, e);
+            }
+        } else {
+            codec = BY_ID.get(codecId);
+            if (codec == null) {
+                throw new IOException("未知的编解码器编号: " + codecId);
+            }
+        }
+        return codec.read(value.newCodedInput());
+    }
+
+    private static ValueCodec<?> forType(Class<?> type) {
+        ValueCodec<?> codec = BY_TYPE.get(type);
+        return codec != null ? codec : jsonCodec(type);
+    }
+
+    // 解码时只看编号：对端没有某类型的专用编解码器而按 JSON 编码时，本端仍按 JSON 解码
+    private static ValueCodec<?> jsonCodec(Class<?> type) {
+        return JSON_CODECS.computeIfAbsent(type, JsonCodec::new);
+    }
+
+    /**
+     * 嵌套在其他编解码器中的值：编解码器编号、JSON 编码时的类名、长度前缀的内容
+     */
+    public static void writeNested(Object value, CodedOutputStream out) throws IOException {
+        int codecId = codecId(value);
+        out.writeUInt32NoTag(codecId);
+        if (codecId == JSON_ID) {
+            out.writeStringNoTag(value.getClass().getName());
+        }
+        if (codecId != NULL_ID) {
+            // 外层值可能正在使用临时数组，嵌套的值不使用
+            @SuppressWarnings("unchecked")
+            ValueCodec<Object> codec = (ValueCodec<Object>) forType(value.getClass());
+            out.writeBytesNoTag(encodeGrowable(codec, value));
+        }
+    }
+
+    public static Object readNested(CodedInputStream in) throws IOException {
+        int codecId = in.readUInt32();
+        String typeName = codecId == JSON_ID ? in.readString() : null;
+        return codecId == NULL_ID ? null : decode(codecId, typeName, in.readBytes());
+    }
+
+    private interface Writer<T> {
+        void write(T value, CodedOutputStream out) throws IOException;
+    }
+
+    private interface Reader<T> {
+        T read(CodedInputStream in) throws IOException;
+    }
+
+    private static final class ScalarCodec<T> implements ValueCodec<T> {
+        private final int id;
+        private final Class<T> type;
+        private final Writer<T> writer;
+        private final Reader<T> reader;
+
+        private ScalarCodec(int id, Class<T> type, Writer<T> writer, Reader<T> reader) {
+            this.id = id;
+            this.type = type;
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public Class<T> getType() {
+            return type;
+        }
+
+        @Override
+        public void write(T value, CodedOutputStream out) throws IOException {
+            writer.write(value, out);
+        }
+
+        @Override
+        public T read(CodedInputStream in) throws IOException {
+            return reader.read(in);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final class ListCodec implements ValueCodec<List> {
+        @Override
+        public int getId() {
+            return 9;
+        }
+
+        @Override
+        public Class<List> getType() {
+            return List.class;
+        }
+
+        @Override
+        public void write(List value, CodedOutputStream out) throws IOException {
+            out.writeUInt32NoTag(value.size());
+            for (Object element : value) {
+                writeNested(element, out);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List read(CodedInputStream in) throws IOException {
+            int size = in.readUInt32();
+            // 长度来自对端，限制预分配的容量
+            List list = new ArrayList<>(Math.min(size, 1024));
+            for (int i = 0; i < size; i++) {
+                list.add(readNested(in));
+            }
+            return list;
+        }
+    }
+
+    private static final class JsonCodec<T> implements ValueCodec<T> {
+        private final Class<T> type;
+
+        private JsonCodec(Class<T> type) {
+            this.type = type;
+        }
+
+        @Override
+        public int getId() {
+            return JSON_ID;
+        }
+
+        @Override
+        public Class<T> getType() {
+            return type;
+        }
+
+        @Override
+        public void write(T value, CodedOutputStream out) throws IOException {
+            out.writeByteArrayNoTag(JSON.toJSONBytes(value));
+        }
+
+        @Override
+        public T read(CodedInputStream in) throws IOException {
+            return JSON.parseObject(in.readByteArray(), type);
+        }
+    }
+}
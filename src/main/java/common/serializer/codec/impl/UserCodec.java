@@ -0,0 +1,102 @@
+package common.serializer.codec.impl;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import common.pojo.User;
+import common.serializer.codec.ValueCodec;
+
+import java.io.IOException;
+
+/**
+ * {@link User} 的二进制编解码，按 rpc.proto 中 message User 的字段编号写出 protobuf 线格式
+ * 值为 null 的字段不写出，读取时保持 null；未知字段跳过，便于双方独立增加字段。
+ */
+public class UserCodec implements ValueCodec<User> {
+    private static final int ID = 1;
+    private static final int USER_NAME = 2;
+    private static final int SEX = 3;
+    private static final int AGE = 4;
+    private static final int EMAIL = 5;
+    private static final int PHONE = 6;
+    private static final int ADDRESS = 7;
+    private static final int USER_TYPE = 8;
+    private static final int LAST_UPDATE_TIME = 9;
+
+    @Override
+    public int getId() {
+        return 16;
+    }
+
+    @Override
+    public Class<User> getType() {
+        return User.class;
+    }
+
+    @Override
+    public void write(User user, CodedOutputStream out) throws IOException {
+        if (user.getId() != null) {
+            out.writeInt64(ID, user.getId());
+        }
+        writeString(out, USER_NAME, user.getUserName());
+        if (user.getSex() != null) {
+            out.writeBool(SEX, user.getSex());
+        }
+        if (user.getAge() != null) {
+            out.writeInt32(AGE, user.getAge());
+        }
+        writeString(out, EMAIL, user.getEmail());
+        writeString(out, PHONE, user.getPhone());
+        writeString(out, ADDRESS, user.getAddress());
+        writeString(out, USER_TYPE, user.getUserType());
+        if (user.getLastUpdateTime() != null) {
+            out.writeInt64(LAST_UPDATE_TIME, user.getLastUpdateTime());
+        }
+    }
+
+    @Override
+    public User read(CodedInputStream in) throws IOException {
+        User user = new User();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case ID:
+                    user.setId(in.readInt64());
+                    break;
+                case USER_NAME:
+                    user.setUserName(in.readString());
+                    break;
+                case SEX:
+                    user.setSex(in.readBool());
+                    break;
+                case AGE:
+                    user.setAge(in.readInt32());
+                    break;
+                case EMAIL:
+                    user.setEmail(in.readString());
+                    break;
+                case PHONE:
+                    user.setPhone(in.readString());
+                    break;
+                case ADDRESS:
+                    user.setAddress(in.readString());
+                    break;
+                case USER_TYPE:
+                    user.setUserType(in.readString());
+                    break;
+                case LAST_UPDATE_TIME:
+                    user.setLastUpdateTime(in.readInt64());
+                    break;
+                default:
+                    in.skipField(tag);
+            }
+        }
+        return user;
+    }
+
+    private static void writeString(CodedOutputStream out, int field, String value) throws IOException {
+        if (value != null) {
+            out.writeString(field, value);
+        }
+    }
+}
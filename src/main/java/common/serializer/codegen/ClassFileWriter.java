@@ -0,0 +1,245 @@
+package common.serializer.codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 最小的 class 文件写出器，只支持 {@link CodecGenerator} 用到的指令
+ *
+ * 生成的方法都是顺序执行的代码：没有跳转、没有异常表，因此不需要 StackMapTable，
+ * 也不需要计算栈帧；max_stack / max_locals 由调用方给出上界。
+ * 类名、描述符均使用 JVM 内部形式（如 common/pojo/User、(J)V）。
+ */
+final class ClassFileWriter {
+    // Java 17
+    private static final int MAJOR_VERSION = 61;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constants = new DataOutputStream(constantBytes);
+    private final Map<String, Integer> constantIndexes = new HashMap<>();
+    private int constantCount = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+    private final List<byte[]> methods = new ArrayList<>();
+
+    ClassFileWriter(String className, String superName, String... interfaceNames) {
+        this.thisClass = classRef(className);
+        this.superClass = classRef(superName);
+        this.interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaces[i] = classRef(interfaceNames[i]);
+        }
+    }
+
+    /**
+     * 开始写一个 public 方法，写完后调用 {@link Code#end()}
+     */
+    Code method(String name, String descriptor, int maxStack, int maxLocals) {
+        return new Code(utf8(name), utf8(descriptor), maxStack, maxLocals);
+    }
+
+    byte[] toByteArray() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(constantCount);
+            constants.flush();
+            constantBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int index : interfaces) {
+                out.writeShort(index);
+            }
+            // 没有字段
+            out.writeShort(0);
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            // 没有类属性
+            out.writeShort(0);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int utf8(String value) {
+        return constant("U" + value, out -> {
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(value);
+        });
+    }
+
+    private int classRef(String internalName) {
+        int name = utf8(internalName);
+        return constant("C" + internalName, out -> {
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(name);
+        });
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        return constant("N" + name + ' ' + descriptor, out -> {
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameAndTypeIndex = nameAndType(name, descriptor);
+        return constant(tag + owner + '.' + name + ' ' + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndTypeIndex);
+        });
+    }
+
+    private int constant(String key, ConstantWriter writer) {
+        Integer index = constantIndexes.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            writer.write(constants);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        constantIndexes.put(key, constantCount);
+        return constantCount++;
+    }
+
+    private interface ConstantWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * 单个方法的字节码
+     */
+    final class Code {
+        private final int name;
+        private final int descriptor;
+        private final int maxStack;
+        private final int maxLocals;
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+
+        private Code(int name, int descriptor, int maxStack, int maxLocals) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+        }
+
+        Code aload(int local) {
+            return local <= 3 ? op(0x2a + local) : op(0x19).u1(local);
+        }
+
+        Code astore(int local) {
+            return local <= 3 ? op(0x4b + local) : op(0x3a).u1(local);
+        }
+
+        Code dup() {
+            return op(0x59);
+        }
+
+        Code newObject(String type) {
+            return op(0xbb).u2(classRef(type));
+        }
+
+        Code checkcast(String type) {
+            return op(0xc0).u2(classRef(type));
+        }
+
+        Code getfield(String owner, String name, String descriptor) {
+            return op(0xb4).u2(memberRef(CONSTANT_FIELDREF, owner, name, descriptor));
+        }
+
+        Code putfield(String owner, String name, String descriptor) {
+            return op(0xb5).u2(memberRef(CONSTANT_FIELDREF, owner, name, descriptor));
+        }
+
+        Code invokevirtual(String owner, String name, String descriptor) {
+            return op(0xb6).u2(memberRef(CONSTANT_METHODREF, owner, name, descriptor));
+        }
+
+        Code invokespecial(String owner, String name, String descriptor) {
+            return op(0xb7).u2(memberRef(CONSTANT_METHODREF, owner, name, descriptor));
+        }
+
+        Code returnVoid() {
+            return op(0xb1);
+        }
+
+        Code areturn() {
+            return op(0xb0);
+        }
+
+        void end() {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeShort(ACC_PUBLIC);
+                out.writeShort(name);
+                out.writeShort(descriptor);
+                out.writeShort(1);
+                out.writeShort(utf8("Code"));
+                // max_stack、max_locals、code_length、code、空的异常表与属性表
+                out.writeInt(2 + 2 + 4 + code.size() + 2 + 2);
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(code.size());
+                code.writeTo(out);
+                out.writeShort(0);
+                out.writeShort(0);
+                out.flush();
+                methods.add(bytes.toByteArray());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private Code op(int opcode) {
+            code.write(opcode);
+            return this;
+        }
+
+        private Code u1(int value) {
+            code.write(value);
+            return this;
+        }
+
+        private Code u2(int value) {
+            code.write(value >>> 8);
+            code.write(value);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package common.serializer.codegen;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 为单个类生成 {@link GeneratedCodec}
+ *
+ * 生成的类通过 Lookup.defineHiddenClass 以 NESTMATE 方式定义为目标类的嵌套成员，
+ * 因此可以用 getfield / putfield 直接读写 private 字段，不需要 getter/setter 与反射。
+ * 字段按声明类从父类到子类、同一类内按名称排序（getDeclaredFields 的顺序不确定）；
+ * 每个字段按声明类型选择 {@link CodegenOutput} / {@link CodegenInput} 中的读写方法，基本类型字段不装箱。
+ *
+ * 以下情况无法生成，由调用方退回通用编码：没有无参构造器、有 final 实例字段（只能在构造器中赋值）、
+ * 字段或字段类型对目标类所在的包不可访问。
+ */
+final class CodecGenerator {
+    private static final String OBJECT = "java/lang/Object";
+    private static final String OUTPUT = internalName(CodegenOutput.class);
+    private static final String INPUT = internalName(CodegenInput.class);
+    private static final String CODEC = internalName(GeneratedCodec.class);
+
+    // 字段声明类型 -> 读写方法；不在表中的类型按 Object 带类型标签读写
+    private static final Map<Class<?>, Accessor> ACCESSORS = new HashMap<>();
+    private static final Accessor OBJECT_ACCESSOR = new Accessor("writeObject", Object.class, "readObject",
+            Object.class);
+
+    static {
+        accessor(int.class, "writeVarInt", int.class, "readVarInt");
+        accessor(long.class, "writeVarLong", long.class, "readVarLong");
+        accessor(short.class, "writeVarInt", int.class, "readShort");
+        accessor(char.class, "writeVarInt", int.class, "readChar");
+        accessor(byte.class, "writeByte", int.class, "readByte");
+        accessor(boolean.class, "writeBoolean", boolean.class, "readBoolean");
+        accessor(float.class, "writeFloat", float.class, "readFloat");
+        accessor(double.class, "writeDouble", double.class, "readDouble");
+        accessor(String.class, "writeString", String.class, "readString");
+        accessor(Integer.class, "writeNullableInt", Integer.class, "readNullableInt");
+        accessor(Long.class, "writeNullableLong", Long.class, "readNullableLong");
+        accessor(Boolean.class, "writeNullableBoolean", Boolean.class, "readNullableBoolean");
+        accessor(Double.class, "writeNullableDouble", Double.class, "readNullableDouble");
+        accessor(Class.class, "writeClass", Class.class, "readClass");
+        accessor(Class[].class, "writeClassArray", Class[].class, "readClassArray");
+        accessor(Object[].class, "writeObjectArray", Object[].class, "readObjectArray");
+    }
+
+    private CodecGenerator() {
+    }
+
+    private static void accessor(Class<?> fieldType, String writeName, Class<?> writeParam, String readName) {
+        ACCESSORS.put(fieldType, new Accessor(writeName, writeParam, readName, fieldType));
+    }
+
+    /**
+     * 参与序列化的字段：非 static、非 transient
+     */
+    static List<Field> serializedFields(Class<?> type) {
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.add(0, c);
+        }
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c : hierarchy) {
+            Field[] declared = c.getDeclaredFields();
+            Arrays.sort(declared, Comparator.comparing(Field::getName));
+            for (Field field : declared) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * 无法为该类生成编解码器的原因，可以生成时返回 null
+     */
+    static String unsupportedReason(Class<?> type) {
+        if (type.isInterface() || type.isArray() || type.isPrimitive() || type.isEnum() || type.isHidden()
+                || Modifier.isAbstract(type.getModifiers())) {
+            return "不是可实例化的普通类";
+        }
+        try {
+            type.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            return "缺少无参构造器";
+        }
+        for (Field field : serializedFields(type)) {
+            if (Modifier.isFinal(field.getModifiers())) {
+                return "字段 " + field.getName() + " 为 final";
+            }
+            if (!isAccessible(field, type)) {
+                return "字段 " + field.getName() + " 不可访问";
+            }
+            if (!isAccessible(field.getType(), type)) {
+                return "字段 " + field.getName() + " 的类型 " + field.getType().getName() + " 不可访问";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 生成并定义隐藏类，返回其实例；调用前须确认 {@link #unsupportedReason(Class)} 为 null
+     */
+    static GeneratedCodec generate(Class<?> type) throws Throwable {
+        byte[] classBytes = classBytes(type, serializedFields(type));
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        MethodHandles.Lookup codecLookup = lookup.defineHiddenClass(classBytes, true,
+                MethodHandles.Lookup.ClassOption.NESTMATE);
+        return (GeneratedCodec) codecLookup
+                .findConstructor(codecLookup.lookupClass(), MethodType.methodType(void.class))
+                .invoke();
+    }
+
+    static byte[] classBytes(Class<?> type, List<Field> fields) {
+        String owner = internalName(type);
+        // 隐藏类须与 Lookup 所在类同包，JVM 会在类名后追加唯一后缀
+        ClassFileWriter writer = new ClassFileWriter(owner + "$$RpcCodec", OBJECT, CODEC);
+
+        writer.method("<init>", "()V", 1, 1)
+                .aload(0)
+                .invokespecial(OBJECT, "<init>", "()V")
+                .returnVoid()
+                .end();
+
+        // write(Object value, CodegenOutput out)：局部变量 3 为转型后的 value
+        ClassFileWriter.Code write = writer.method("write", "(L" + OBJECT + ";L" + OUTPUT + ";)V", 4, 4)
+                .aload(1)
+                .checkcast(owner)
+                .astore(3);
+        for (Field field : fields) {
+            Accessor accessor = ACCESSORS.getOrDefault(field.getType(), OBJECT_ACCESSOR);
+            write.aload(2)
+                    .aload(3)
+                    .getfield(owner, field.getName(), field.getType().descriptorString())
+                    .invokevirtual(OUTPUT, accessor.writeName, accessor.writeDescriptor);
+        }
+        write.returnVoid().end();
+
+        // read(CodegenInput in)：局部变量 2 为新建的对象
+        ClassFileWriter.Code read = writer.method("read", "(L" + INPUT + ";)L" + OBJECT + ";", 4, 3)
+                .newObject(owner)
+                .dup()
+                .invokespecial(owner, "<init>", "()V")
+                .astore(2);
+        for (Field field : fields) {
+            Class<?> fieldType = field.getType();
+            Accessor accessor = ACCESSORS.getOrDefault(fieldType, OBJECT_ACCESSOR);
+            read.aload(2)
+                    .aload(1)
+                    .invokevirtual(INPUT, accessor.readName, accessor.readDescriptor);
+            if (accessor == OBJECT_ACCESSOR && fieldType != Object.class) {
+                read.checkcast(fieldType.isArray() ? fieldType.descriptorString() : internalName(fieldType));
+            }
+            read.putfield(owner, field.getName(), fieldType.descriptorString());
+        }
+        read.aload(2).areturn().end();
+
+        return writer.toByteArray();
+    }
+
+    // 同一嵌套内的成员（含 private）均可访问；其余按包访问规则，跨包的父类只接受 public 字段
+    private static boolean isAccessible(Field field, Class<?> type) {
+        Class<?> owner = field.getDeclaringClass();
+        if (owner.getNestHost() == type.getNestHost()) {
+            return true;
+        }
+        int modifiers = field.getModifiers();
+        if (Modifier.isPrivate(modifiers)) {
+            return false;
+        }
+        if (owner.getPackageName().equals(type.getPackageName())) {
+            return true;
+        }
+        return Modifier.isPublic(modifiers) && Modifier.isPublic(owner.getModifiers());
+    }
+
+    // 字段类型会出现在生成代码的常量池中（checkcast、字段描述符），须能从目标类所在的包解析
+    private static boolean isAccessible(Class<?> fieldType, Class<?> type) {
+        Class<?> element = fieldType;
+        while (element.isArray()) {
+            element = element.getComponentType();
+        }
+        return element.isPrimitive() || Modifier.isPublic(element.getModifiers())
+                || element.getNestHost() == type.getNestHost()
+                || (!Modifier.isPrivate(element.getModifiers())
+                        && element.getPackageName().equals(type.getPackageName()));
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static final class Accessor {
+        private final String writeName;
+        private final String writeDescriptor;
+        private final String readName;
+        private final String readDescriptor;
+
+        private Accessor(String writeName, Class<?> writeParam, String readName, Class<?> readReturn) {
+            this.writeName = writeName;
+            this.writeDescriptor = MethodType.methodType(void.class, writeParam).toMethodDescriptorString();
+            this.readName = readName;
+            this.readDescriptor = MethodType.methodType(readReturn).toMethodDescriptorString();
+        }
+    }
+}
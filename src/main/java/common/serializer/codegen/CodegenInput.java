@@ -0,0 +1,351 @@
+package common.serializer.codegen;
+
+import common.util.ClassCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成代码使用的输入，读取 {@link CodegenOutput} 写出的内容，不是线程安全的
+ * 长度与数量来自对端，分配前先与剩余字节数比较，畸形输入抛出 IllegalStateException 而不会大量分配内存。
+ * 退回 Java 序列化的内容只允许出现注册表中的类与 JDK 的类（java.*），其他类在实例化之前即被拒绝。
+ */
+public final class CodegenInput {
+    private static final byte[] EMPTY = new byte[0];
+    private static final int MAX_DEPTH = 64;
+
+    private final CodegenRegistry registry;
+    private byte[] buffer = EMPTY;
+    private int position;
+    private int limit;
+    private int depth;
+
+    public CodegenInput(CodegenRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void setBuffer(byte[] bytes, int offset, int length) {
+        this.buffer = bytes;
+        this.position = offset;
+        this.limit = offset + length;
+        this.depth = 0;
+    }
+
+    /**
+     * 释放对输入数组的引用
+     */
+    public void clear() {
+        setBuffer(EMPTY, 0, 0);
+    }
+
+    // ---------------- 基本类型 ----------------
+
+    public byte readByte() {
+        require(1);
+        return buffer[position++];
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public short readShort() {
+        return (short) readVarInt();
+    }
+
+    public char readChar() {
+        return (char) readVarInt();
+    }
+
+    public int readVarInt() {
+        int raw = readUnsignedVarInt();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public long readVarLong() {
+        long raw = readUnsignedVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public int readUnsignedVarInt() {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = readByte();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("变长整数格式错误");
+    }
+
+    public long readUnsignedVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("变长整数格式错误");
+    }
+
+    public float readFloat() {
+        return Float.intBitsToFloat(readFixedInt());
+    }
+
+    public double readDouble() {
+        long low = readFixedInt() & 0xFFFFFFFFL;
+        long high = readFixedInt() & 0xFFFFFFFFL;
+        return Double.longBitsToDouble(low | (high << 32));
+    }
+
+    private int readFixedInt() {
+        require(4);
+        byte[] buf = buffer;
+        int pos = position;
+        position = pos + 4;
+        return (buf[pos] & 0xFF) | (buf[pos + 1] & 0xFF) << 8 | (buf[pos + 2] & 0xFF) << 16
+                | (buf[pos + 3] & 0xFF) << 24;
+    }
+
+    // ---------------- 可为 null 的字段 ----------------
+
+    public String readString() {
+        int length = readUnsignedVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public Integer readNullableInt() {
+        return readByte() == 0 ? null : readVarInt();
+    }
+
+    public Long readNullableLong() {
+        return readByte() == 0 ? null : readVarLong();
+    }
+
+    public Boolean readNullableBoolean() {
+        byte b = readByte();
+        return b == 0 ? null : b == 2;
+    }
+
+    public Double readNullableDouble() {
+        return readByte() == 0 ? null : readDouble();
+    }
+
+    public Class<?> readClass() {
+        int marker = readUnsignedVarInt();
+        if (marker == 0) {
+            return null;
+        }
+        if (marker >= 2) {
+            return registry.classOf(marker - 2);
+        }
+        String name = readString();
+        try {
+            return ClassCache.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("找不到类: " + name, e);
+        }
+    }
+
+    public Class<?>[] readClassArray() {
+        int length = readUnsignedVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        Class<?>[] types = new Class<?>[checkCount(length)];
+        for (int i = 0; i < length; i++) {
+            types[i] = readClass();
+        }
+        return types;
+    }
+
+    public Object[] readObjectArray() {
+        int length = readUnsignedVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        Object[] values = new Object[checkCount(length)];
+        for (int i = 0; i < length; i++) {
+            values[i] = readObject();
+        }
+        return values;
+    }
+
+    /**
+     * 读取 {@link CodegenOutput#writeObject(Object)} 写出的值
+     */
+    public Object readObject() {
+        int tag = readUnsignedVarInt();
+        if (tag >= CodegenTags.REGISTERED) {
+            GeneratedCodec codec = registry.codecOf(tag - CodegenTags.REGISTERED);
+            enter();
+            Object value = codec.read(this);
+            depth--;
+            return value;
+        }
+        switch (tag) {
+            case CodegenTags.NULL:
+                return null;
+            case CodegenTags.STRING:
+                return readString();
+            case CodegenTags.INT:
+                return readVarInt();
+            case CodegenTags.LONG:
+                return readVarLong();
+            case CodegenTags.BOOLEAN:
+                return readBoolean();
+            case CodegenTags.DOUBLE:
+                return readDouble();
+            case CodegenTags.FLOAT:
+                return readFloat();
+            case CodegenTags.SHORT:
+                return readShort();
+            case CodegenTags.BYTE:
+                return readByte();
+            case CodegenTags.CHAR:
+                return readChar();
+            case CodegenTags.BYTES:
+                return readRawBytes(readUnsignedVarInt());
+            case CodegenTags.INT_ARRAY: {
+                int[] ints = new int[checkCount(readUnsignedVarInt())];
+                for (int i = 0; i < ints.length; i++) {
+                    ints[i] = readVarInt();
+                }
+                return ints;
+            }
+            case CodegenTags.LONG_ARRAY: {
+                long[] longs = new long[checkCount(readUnsignedVarInt())];
+                for (int i = 0; i < longs.length; i++) {
+                    longs[i] = readVarLong();
+                }
+                return longs;
+            }
+            case CodegenTags.OBJECT_ARRAY:
+                return readElements(new ArrayList<>()).toArray();
+            case CodegenTags.ARRAY: {
+                Class<?> componentType = readClass();
+                List<Object> elements = readElements(new ArrayList<>());
+                return elements.toArray((Object[]) Array.newInstance(componentType, 0));
+            }
+            case CodegenTags.LIST:
+                return readElements(new ArrayList<>());
+            case CodegenTags.SET:
+                return readElements(new LinkedHashSet<>());
+            case CodegenTags.MAP: {
+                int size = checkCount(readUnsignedVarInt());
+                Map<Object, Object> map = new LinkedHashMap<>(Math.min(size, 1024) * 4 / 3 + 1);
+                enter();
+                for (int i = 0; i < size; i++) {
+                    map.put(readObject(), readObject());
+                }
+                depth--;
+                return map;
+            }
+            case CodegenTags.CLASS:
+                return readClass();
+            case CodegenTags.ENUM:
+                return readEnum();
+            case CodegenTags.BIG_DECIMAL:
+                return new BigDecimal(readString());
+            case CodegenTags.BIG_INTEGER:
+                return new BigInteger(readRawBytes(readUnsignedVarInt()));
+            case CodegenTags.DATE:
+                return new Date(readVarLong());
+            case CodegenTags.JAVA:
+                return javaDeserialize(readRawBytes(readUnsignedVarInt()));
+            default:
+                throw new IllegalStateException("未知的类型标签: " + tag);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object readEnum() {
+        Class type = readClass();
+        return Enum.valueOf(type, readString());
+    }
+
+    private <C extends Collection<Object>> C readElements(C elements) {
+        int size = checkCount(readUnsignedVarInt());
+        enter();
+        for (int i = 0; i < size; i++) {
+            elements.add(readObject());
+        }
+        depth--;
+        return elements;
+    }
+
+    private byte[] readRawBytes(int length) {
+        require(length);
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    private Object javaDeserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(this::checkJavaClass);
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Java 反序列化失败", e);
+        }
+    }
+
+    private ObjectInputFilter.Status checkJavaClass(ObjectInputFilter.FilterInfo info) {
+        if (info.depth() > MAX_DEPTH) {
+            return ObjectInputFilter.Status.REJECTED;
+        }
+        Class<?> type = info.serialClass();
+        if (type == null) {
+            return ObjectInputFilter.Status.UNDECIDED;
+        }
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        return type.isPrimitive() || type.getName().startsWith("java.") || registry.classCode(type) >= 0
+                ? ObjectInputFilter.Status.ALLOWED
+                : ObjectInputFilter.Status.REJECTED;
+    }
+
+    // 每个元素至少占一个字节
+    private int checkCount(int count) {
+        if (count < 0 || count > limit - position) {
+            throw new IllegalStateException("元素数量 " + count + " 超出剩余字节数");
+        }
+        return count;
+    }
+
+    private void require(int length) {
+        if (length < 0 || limit - position < length) {
+            throw new IllegalStateException("输入不完整：需要 " + length + " 字节，剩余 " + (limit - position));
+        }
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw new IllegalStateException("对象嵌套超过 " + MAX_DEPTH + " 层");
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package common.serializer.codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 生成代码使用的输出缓冲区，按需扩容的字节数组，不是线程安全的
+ *
+ * 编码规则：
+ * - int / long / short / char 为 zigzag 变长整数，byte / boolean 为单字节，float / double 为定长小端
+ * - String：变长整数（UTF-8 字节数 + 1，0 表示 null）后跟 UTF-8 字节
+ * - 装箱类型字段：单独的 null 标记后跟值（Boolean 合并为一个字节）
+ * - 声明类型不确定的值（Object、集合、接口等）先写一个类型标签，见 {@link CodegenTags}；
+ * 注册类的标签即 {@link CodegenTags#REGISTERED} 加类编号，后跟生成代码写出的字段
+ *
+ * 不记录对象引用：同一对象出现多次会写出多份，对象图须无环。
+ */
+public final class CodegenOutput {
+    // 对象嵌套层数上限，防止有环的对象图导致栈溢出
+    private static final int MAX_DEPTH = 64;
+
+    private final CodegenRegistry registry;
+    private byte[] buffer;
+    private int position;
+    private int depth;
+
+    public CodegenOutput(CodegenRegistry registry, int initialCapacity) {
+        this.registry = registry;
+        this.buffer = new byte[initialCapacity];
+    }
+
+    public void reset() {
+        position = 0;
+        depth = 0;
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    public byte[] toBytes() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, position);
+    }
+
+    // ---------------- 基本类型 ----------------
+
+    public void writeByte(int value) {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeVarInt(int value) {
+        writeUnsignedVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeVarLong(long value) {
+        writeUnsignedVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeUnsignedVarInt(int value) {
+        ensure(5);
+        byte[] buf = buffer;
+        int pos = position;
+        while ((value & ~0x7F) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        position = pos;
+    }
+
+    public void writeUnsignedVarLong(long value) {
+        ensure(10);
+        byte[] buf = buffer;
+        int pos = position;
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        position = pos;
+    }
+
+    public void writeFloat(float value) {
+        writeFixedInt(Float.floatToRawIntBits(value));
+    }
+
+    public void writeDouble(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        writeFixedInt((int) bits);
+        writeFixedInt((int) (bits >>> 32));
+    }
+
+    private void writeFixedInt(int value) {
+        ensure(4);
+        byte[] buf = buffer;
+        int pos = position;
+        buf[pos] = (byte) value;
+        buf[pos + 1] = (byte) (value >>> 8);
+        buf[pos + 2] = (byte) (value >>> 16);
+        buf[pos + 3] = (byte) (value >>> 24);
+        position = pos + 4;
+    }
+
+    // ---------------- 可为 null 的字段 ----------------
+
+    public void writeString(String value) {
+        if (value == null) {
+            writeUnsignedVarInt(0);
+            return;
+        }
+        int length = value.length();
+        // 多数字符串是 ASCII：逐字符写入，省去 getBytes 的中间数组
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                ascii = false;
+                break;
+            }
+        }
+        if (ascii) {
+            writeUnsignedVarInt(length + 1);
+            ensure(length);
+            byte[] buf = buffer;
+            int pos = position;
+            for (int i = 0; i < length; i++) {
+                buf[pos++] = (byte) value.charAt(i);
+            }
+            position = pos;
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsignedVarInt(bytes.length + 1);
+            writeRawBytes(bytes);
+        }
+    }
+
+    public void writeNullableInt(Integer value) {
+        if (value == null) {
+            writeByte(0);
+        } else {
+            writeByte(1);
+            writeVarInt(value);
+        }
+    }
+
+    public void writeNullableLong(Long value) {
+        if (value == null) {
+            writeByte(0);
+        } else {
+            writeByte(1);
+            writeVarLong(value);
+        }
+    }
+
+    public void writeNullableBoolean(Boolean value) {
+        writeByte(value == null ? 0 : value ? 2 : 1);
+    }
+
+    public void writeNullableDouble(Double value) {
+        if (value == null) {
+            writeByte(0);
+        } else {
+            writeByte(1);
+            writeDouble(value);
+        }
+    }
+
+    /**
+     * 类：0 为 null，内置类与注册类为 2 加类代码（见 {@link CodegenRegistry}），其余为 1 后跟类名
+     */
+    public void writeClass(Class<?> type) {
+        if (type == null) {
+            writeUnsignedVarInt(0);
+            return;
+        }
+        int code = registry.classCode(type);
+        if (code >= 0) {
+            writeUnsignedVarInt(2 + code);
+        } else {
+            writeUnsignedVarInt(1);
+            writeString(type.getName());
+        }
+    }
+
+    public void writeClassArray(Class<?>[] types) {
+        if (types == null) {
+            writeUnsignedVarInt(0);
+            return;
+        }
+        writeUnsignedVarInt(types.length + 1);
+        for (Class<?> type : types) {
+            writeClass(type);
+        }
+    }
+
+    public void writeObjectArray(Object[] values) {
+        if (values == null) {
+            writeUnsignedVarInt(0);
+            return;
+        }
+        writeUnsignedVarInt(values.length + 1);
+        for (Object value : values) {
+            writeObject(value);
+        }
+    }
+
+    /**
+     * 带类型标签写出任意值
+     */
+    public void writeObject(Object value) {
+        if (value == null) {
+            writeByte(CodegenTags.NULL);
+            return;
+        }
+        Class<?> type = value.getClass();
+        CodegenRegistry.Entry entry = registry.entryOf(type);
+        if (entry != null && entry.codec != null) {
+            writeUnsignedVarInt(CodegenTags.REGISTERED + entry.id);
+            enter();
+            entry.codec.write(value, this);
+            depth--;
+            return;
+        }
+        if (type == String.class) {
+            writeByte(CodegenTags.STRING);
+            writeString((String) value);
+        } else if (type == Integer.class) {
+            writeByte(CodegenTags.INT);
+            writeVarInt((Integer) value);
+        } else if (type == Long.class) {
+            writeByte(CodegenTags.LONG);
+            writeVarLong((Long) value);
+        } else if (type == Boolean.class) {
+            writeByte(CodegenTags.BOOLEAN);
+            writeBoolean((Boolean) value);
+        } else if (type == Double.class) {
+            writeByte(CodegenTags.DOUBLE);
+            writeDouble((Double) value);
+        } else if (type == Float.class) {
+            writeByte(CodegenTags.FLOAT);
+            writeFloat((Float) value);
+        } else if (type == Short.class) {
+            writeByte(CodegenTags.SHORT);
+            writeVarInt((Short) value);
+        } else if (type == Byte.class) {
+            writeByte(CodegenTags.BYTE);
+            writeByte((Byte) value);
+        } else if (type == Character.class) {
+            writeByte(CodegenTags.CHAR);
+            writeVarInt((Character) value);
+        } else if (type == byte[].class) {
+            writeByte(CodegenTags.BYTES);
+            byte[] bytes = (byte[]) value;
+            writeUnsignedVarInt(bytes.length);
+            writeRawBytes(bytes);
+        } else if (type == int[].class) {
+            writeByte(CodegenTags.INT_ARRAY);
+            int[] ints = (int[]) value;
+            writeUnsignedVarInt(ints.length);
+            for (int i : ints) {
+                writeVarInt(i);
+            }
+        } else if (type == long[].class) {
+            writeByte(CodegenTags.LONG_ARRAY);
+            long[] longs = (long[]) value;
+            writeUnsignedVarInt(longs.length);
+            for (long l : longs) {
+                writeVarLong(l);
+            }
+        } else if (type == Object[].class) {
+            writeByte(CodegenTags.OBJECT_ARRAY);
+            writeElements(Arrays.asList((Object[]) value));
+        } else if (type.isArray() && !type.getComponentType().isPrimitive()) {
+            writeByte(CodegenTags.ARRAY);
+            writeClass(type.getComponentType());
+            writeElements(Arrays.asList((Object[]) value));
+        } else if (value instanceof List) {
+            writeByte(CodegenTags.LIST);
+            writeElements((List<?>) value);
+        } else if (value instanceof Set) {
+            writeByte(CodegenTags.SET);
+            writeElements((Set<?>) value);
+        } else if (value instanceof Map) {
+            writeByte(CodegenTags.MAP);
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeUnsignedVarInt(map.size());
+            enter();
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                writeObject(e.getKey());
+                writeObject(e.getValue());
+            }
+            depth--;
+        } else if (value instanceof Class) {
+            writeByte(CodegenTags.CLASS);
+            writeClass((Class<?>) value);
+        } else if (value instanceof Enum) {
+            writeByte(CodegenTags.ENUM);
+            writeClass(((Enum<?>) value).getDeclaringClass());
+            writeString(((Enum<?>) value).name());
+        } else if (type == BigDecimal.class) {
+            writeByte(CodegenTags.BIG_DECIMAL);
+            writeString(value.toString());
+        } else if (type == BigInteger.class) {
+            writeByte(CodegenTags.BIG_INTEGER);
+            byte[] bytes = ((BigInteger) value).toByteArray();
+            writeUnsignedVarInt(bytes.length);
+            writeRawBytes(bytes);
+        } else if (type == Date.class) {
+            writeByte(CodegenTags.DATE);
+            writeVarLong(((Date) value).getTime());
+        } else if (value instanceof Serializable) {
+            // 既未注册也无法生成代码的类型（如异常、带 final 字段的类）退回 Java 序列化；
+            // 接收端只接受注册表中的类与 JDK 的类，见 CodegenInput
+            writeByte(CodegenTags.JAVA);
+            byte[] bytes = javaSerialize(value);
+            writeUnsignedVarInt(bytes.length);
+            writeRawBytes(bytes);
+        } else {
+            throw new IllegalArgumentException("无法序列化的类型: " + type.getName());
+        }
+    }
+
+    private void writeElements(Collection<?> values) {
+        writeUnsignedVarInt(values.size());
+        enter();
+        for (Object element : values) {
+            writeObject(element);
+        }
+        depth--;
+    }
+
+    private void writeRawBytes(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw new IllegalStateException("对象嵌套超过 " + MAX_DEPTH + " 层，对象图可能有环");
+        }
+    }
+
+    private static byte[] javaSerialize(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void ensure(int required) {
+        if (buffer.length - position < required) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + required));
+        }
+    }
+}
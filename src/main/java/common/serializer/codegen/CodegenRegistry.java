@@ -0,0 +1,161 @@
+package common.serializer.codegen;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 生成代码序列化的类注册表：类编号与每个类生成的编解码器
+ *
+ * 编号即类在列表中的下标，消息体中只写编号，因此客户端与服务端必须以相同的顺序注册相同的类，
+ * 且各类的字段布局一致；指纹覆盖类名与字段（名称与类型），启动日志打印指纹便于核对不同部署。
+ * 无法生成编解码器的类仍分配编号（类对象按编号写出），其实例退回通用编码，见 {@link CodecGenerator}。
+ *
+ * 写出类对象（如 RpcRequest.paramsType）时，常用的 JDK 类与注册类只写一个类代码：
+ * 内置类代码为在 BUILTIN_CLASSES 中的下标，注册类为内置类数量加类编号。
+ */
+public final class CodegenRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(CodegenRegistry.class);
+
+    // 内置类，只能在末尾追加，调整顺序会改变已有类的代码
+    private static final List<Class<?>> BUILTIN_CLASSES = List.of(
+            int.class, long.class, boolean.class, double.class, float.class, short.class, byte.class, char.class,
+            void.class, String.class, Integer.class, Long.class, Boolean.class, Double.class, Float.class,
+            Short.class, Byte.class, Character.class, Object.class, Object[].class, byte[].class, int[].class,
+            long[].class, String[].class, Class.class, List.class, Map.class, Set.class, ArrayList.class,
+            HashMap.class, LinkedHashMap.class, BigDecimal.class, BigInteger.class, Date.class);
+    private static final Map<Class<?>, Integer> BUILTIN_CODES = new IdentityHashMap<>();
+
+    static {
+        for (int code = 0; code < BUILTIN_CLASSES.size(); code++) {
+            BUILTIN_CODES.put(BUILTIN_CLASSES.get(code), code);
+        }
+    }
+
+    private final List<Class<?>> types;
+    private final Entry[] entries;
+    private final Map<Class<?>, Entry> entriesByType = new IdentityHashMap<>();
+    private final String fingerprint;
+
+    private CodegenRegistry(List<Class<?>> types) {
+        this.types = Collections.unmodifiableList(new ArrayList<>(types));
+        this.entries = new Entry[this.types.size()];
+        long hash = 1125899906842597L;
+        for (int id = 0; id < entries.length; id++) {
+            Class<?> type = this.types.get(id);
+            Entry entry = new Entry(id, type, generate(type));
+            entries[id] = entry;
+            entriesByType.put(type, entry);
+
+            hash = hash(hash, type.getName());
+            for (Field field : CodecGenerator.serializedFields(type)) {
+                hash = hash(hash, field.getName() + ':' + field.getType().getName());
+            }
+        }
+        this.fingerprint = Long.toHexString(hash);
+    }
+
+    /**
+     * 按给定顺序注册并生成编解码器
+     */
+    public static CodegenRegistry forTypes(List<Class<?>> types) {
+        return new CodegenRegistry(types);
+    }
+
+    private static GeneratedCodec generate(Class<?> type) {
+        String reason = CodecGenerator.unsupportedReason(type);
+        if (reason != null) {
+            logger.warn("无法为 {} 生成序列化代码（{}），使用通用编码", type.getName(), reason);
+            return null;
+        }
+        try {
+            return CodecGenerator.generate(type);
+        } catch (Throwable e) {
+            // 例如类所在的命名模块未向序列化框架开放包；退回通用编码而不是让序列化器无法加载
+            logger.warn("为 {} 生成序列化代码失败，使用通用编码", type.getName(), e);
+            return null;
+        }
+    }
+
+    public List<Class<?>> getTypes() {
+        return types;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * 是否已为该类生成编解码器
+     */
+    public boolean isGenerated(Class<?> type) {
+        Entry entry = entriesByType.get(type);
+        return entry != null && entry.codec != null;
+    }
+
+    Entry entryOf(Class<?> type) {
+        return entriesByType.get(type);
+    }
+
+    /**
+     * 类代码，既不是内置类也未注册时返回 -1
+     */
+    int classCode(Class<?> type) {
+        Integer builtin = BUILTIN_CODES.get(type);
+        if (builtin != null) {
+            return builtin;
+        }
+        Entry entry = entriesByType.get(type);
+        return entry == null ? -1 : BUILTIN_CLASSES.size() + entry.id;
+    }
+
+    Class<?> classOf(int code) {
+        return code < BUILTIN_CLASSES.size() ? BUILTIN_CLASSES.get(code) : entry(code - BUILTIN_CLASSES.size()).type;
+    }
+
+    GeneratedCodec codecOf(int id) {
+        Entry entry = entry(id);
+        if (entry.codec == null) {
+            throw new IllegalStateException("类 " + entry.type.getName() + " 没有生成的编解码器");
+        }
+        return entry.codec;
+    }
+
+    private Entry entry(int id) {
+        if (id < 0 || id >= entries.length) {
+            throw new IllegalStateException("未知的类编号: " + id + "，请核对双方的注册表指纹");
+        }
+        return entries[id];
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = 31 * hash + value.charAt(i);
+        }
+        return 31 * hash + ';';
+    }
+
+    static final class Entry {
+        final int id;
+        final Class<?> type;
+        final GeneratedCodec codec;
+
+        private Entry(int id, Class<?> type, GeneratedCodec codec) {
+            this.id = id;
+            this.type = type;
+            this.codec = codec;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package common.serializer.codegen;
+
+/**
+ * {@link CodegenOutput#writeObject(Object)} 写出的类型标签
+ * 只能在末尾追加，修改已有取值会使新旧版本无法互通。
+ */
+final class CodegenTags {
+    static final int NULL = 0;
+    static final int STRING = 1;
+    static final int INT = 2;
+    static final int LONG = 3;
+    static final int BOOLEAN = 4;
+    static final int DOUBLE = 5;
+    static final int FLOAT = 6;
+    static final int SHORT = 7;
+    static final int BYTE = 8;
+    static final int CHAR = 9;
+    static final int BYTES = 10;
+    static final int INT_ARRAY = 11;
+    static final int LONG_ARRAY = 12;
+    // 精确类型为 Object[] 的数组
+    static final int OBJECT_ARRAY = 13;
+    // 其他引用类型数组，后跟元素类型
+    static final int ARRAY = 14;
+    // 解码为 ArrayList
+    static final int LIST = 15;
+    // 解码为 LinkedHashSet
+    static final int SET = 16;
+    // 解码为 LinkedHashMap
+    static final int MAP = 17;
+    static final int CLASS = 18;
+    static final int ENUM = 19;
+    static final int BIG_DECIMAL = 20;
+    static final int BIG_INTEGER = 21;
+    static final int DATE = 22;
+    // Java 序列化的兜底
+    static final int JAVA = 23;
+    // 注册类：标签为 REGISTERED + 类编号
+    static final int REGISTERED = 32;
+
+    private CodegenTags() {
+    }
+}
@@ -0,0 +1,18 @@
+package common.serializer.codegen;
+
+/**
+ * 单个类的编解码器，由 {@link CodecGenerator} 在启动时为每个注册类生成（隐藏类）
+ * 生成的代码直接读写字段，不经过反射，也不对基本类型字段装箱。实现是无状态的，可被所有线程共享。
+ */
+public interface GeneratedCodec {
+
+    /**
+     * 按字段顺序写出对象的全部字段，value 不为 null 且类型与生成时的类完全一致
+     */
+    void write(Object value, CodegenOutput out);
+
+    /**
+     * 创建对象并按字段顺序读取全部字段
+     */
+    Object read(CodegenInput in);
+}
@@ -0,0 +1,187 @@
+package common.serializer.impl;
+
+import common.message.RpcRequest;
+import common.message.RpcResponse;
+import common.serializer.Serializer;
+import common.serializer.codegen.CodegenInput;
+import common.serializer.codegen.CodegenOutput;
+import common.serializer.codegen.CodegenRegistry;
+import common.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 生成代码的序列化实现
+ * 启动时为 RpcRequest、RpcResponse 以及配置的服务接口中出现的类型各生成一个编解码器（隐藏类），
+ * 直接读写字段，基本类型字段按变长整数写出、不装箱；消息体中注册类只写类编号。编码规则见 {@link CodegenOutput}。
+ *
+ * 类编号由配置决定（RpcRequest、RpcResponse 之后按类名排序），客户端与服务端须使用相同的配置与相同版本的类，
+ * 启动日志打印注册表指纹。注册表之外的类型按通用规则带类型标签写出（集合、JDK 常用类型、Java 序列化兜底）。
+ *
+ * 配置项：
+ * - rpc.serializer.codegen.services：参与注册的服务接口全限定名，逗号分隔
+ */
+public class CodegenSerializer implements Serializer {
+    private static final Logger logger = LoggerFactory.getLogger(CodegenSerializer.class);
+
+    // 超过该长度的输出缓冲区用完即弃，不常驻线程
+    private static final int MAX_CACHED_BUFFER = 256 * 1024;
+    private static final int INITIAL_BUFFER = 4096;
+
+    private static volatile CodegenRegistry defaultRegistry;
+
+    private final CodegenRegistry registry;
+    private final ThreadLocal<ThreadState> threadState;
+
+    public CodegenSerializer() {
+        this(defaultRegistry());
+    }
+
+    public CodegenSerializer(CodegenRegistry registry) {
+        this.registry = registry;
+        this.threadState = ThreadLocal.withInitial(() -> new ThreadState(registry));
+    }
+
+    /**
+     * 按配置构建的注册表，进程内所有实例共用
+     */
+    static CodegenRegistry defaultRegistry() {
+        CodegenRegistry registry = defaultRegistry;
+        if (registry == null) {
+            synchronized (CodegenSerializer.class) {
+                registry = defaultRegistry;
+                if (registry == null) {
+                    registry = forServices(ServiceTypes.parse(
+                            AppConfig.getString("rpc.serializer.codegen.services", ""), "生成代码序列化注册表"));
+                    logger.info("生成代码序列化注册表: {} 个类，指纹 {}", registry.getTypes().size(),
+                            registry.getFingerprint());
+                    defaultRegistry = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * RpcRequest、RpcResponse 加上给定服务接口中出现的类型
+     */
+    public static CodegenRegistry forServices(List<Class<?>> serviceInterfaces) {
+        List<Class<?>> types = new ArrayList<>(List.of(RpcRequest.class, RpcResponse.class));
+        for (Class<?> type : ServiceTypes.collect(serviceInterfaces)) {
+            if (!types.contains(type)) {
+                types.add(type);
+            }
+        }
+        return CodegenRegistry.forTypes(types);
+    }
+
+    @Override
+    public byte[] serialize(Object obj) {
+        ThreadState state = threadState.get();
+        CodegenOutput output = state.output;
+        try {
+            output.reset();
+            output.writeObject(obj);
+            return output.toBytes();
+        } catch (Exception e) {
+            logger.error("生成代码序列化失败", e);
+            throw new RuntimeException("生成代码序列化失败", e);
+        } finally {
+            recycle(state);
+        }
+    }
+
+    @Override
+    public void serialize(Object obj, OutputStream out) throws IOException {
+        // 先写入线程内复用的缓冲区，再整体写出，省去 toBytes 的拷贝
+        ThreadState state = threadState.get();
+        CodegenOutput output = state.output;
+        try {
+            output.reset();
+            output.writeObject(obj);
+        } catch (Exception e) {
+            logger.error("生成代码序列化失败", e);
+            throw new IOException("生成代码序列化失败", e);
+        }
+        try {
+            output.writeTo(out);
+        } finally {
+            recycle(state);
+        }
+    }
+
+    private void recycle(ThreadState state) {
+        if (state.output.capacity() > MAX_CACHED_BUFFER) {
+            state.output = new CodegenOutput(registry, INITIAL_BUFFER);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes, int messageType) {
+        return deserialize(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public Object deserialize(ByteBuffer buffer, int messageType) {
+        // 堆内缓冲区直接读取底层数组；直接内存仍需拷贝一次
+        if (buffer.hasArray()) {
+            Object result = deserialize(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return result;
+        }
+        return Serializer.super.deserialize(buffer, messageType);
+    }
+
+    private Object deserialize(byte[] bytes, int offset, int length) {
+        CodegenInput input = threadState.get().input;
+        try {
+            input.setBuffer(bytes, offset, length);
+            return input.readObject();
+        } catch (Exception e) {
+            logger.error("生成代码反序列化失败", e);
+            throw new RuntimeException("生成代码反序列化失败", e);
+        } finally {
+            input.clear();
+        }
+    }
+
+    public CodegenRegistry getRegistry() {
+        return registry;
+    }
+
+    // params 声明为 Object[]，逐个经 CodegenOutput#writeObject 写出：注册类写类ID，内置类型写类型标签，
+    // 其余退回 Java 序列化；读取时不需要 paramsType
+    @Override
+    public boolean isSelfDescribing() {
+        return true;
+    }
+
+    @Override
+    public int getType() {
+        return 4; // 生成代码序列化方式 code = 4
+    }
+
+    @Override
+    public String getSerializerName() {
+        return "CodegenSerializer";
+    }
+
+    /**
+     * 单个线程持有的读写缓冲区
+     */
+    private static final class ThreadState {
+        private CodegenOutput output;
+        private final CodegenInput input;
+
+        private ThreadState(CodegenRegistry registry) {
+            this.output = new CodegenOutput(registry, INITIAL_BUFFER);
+            this.input = new CodegenInput(registry);
+        }
+    }
+}
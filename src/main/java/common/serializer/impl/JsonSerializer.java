@@ -9,6 +9,9 @@ import org.slf4j.LoggerFactory;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 public class JsonSerializer implements Serializer{
     private static final Logger logger = LoggerFactory.getLogger(JsonSerializer.class);
 
@@ -25,6 +28,13 @@ public class JsonSerializer implements Serializer{
         }
     }
 
+    @Override
+    public void serialize(Object obj, OutputStream out) throws IOException {
+        // fastjson 使用线程本地缓冲区编码后直接写入目标流
+        int length = JSON.writeJSONString(out, obj);
+        logger.debug("流式序列化完成，数据长度: {}", length);
+    }
+
     @Override
     public Object deserialize(byte[] bytes, int messageType) {
         try {
@@ -0,0 +1,132 @@
+package common.serializer.impl;
+
+import com.esotericsoftware.kryo.Kryo;
+import common.message.RpcRequest;
+import common.message.RpcResponse;
+import common.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Kryo 类注册表
+ * 未注册的类每次都以全限定类名写入消息体；注册后只写一个变长整数ID。ID 按注册顺序分配，
+ * 因此客户端与服务端必须以相同的顺序注册相同的类，注册表只由配置决定：
+ *
+ * 1. 固定的基础类：RpcRequest、RpcResponse（与早期版本的注册顺序一致），以及常用的 JDK 类型
+ * 2. 配置的服务接口中出现的类型：方法参数与返回值，包括泛型实参（如 CompletableFuture&lt;Result&lt;User&gt;&gt;
+ * 中的 Result 与 User），只取可实例化的非 JDK 具体类，按类名排序后注册
+ *
+ * 双方共用同一份 application.properties 时注册表一致；启动时打印注册表指纹，便于核对不同部署的配置。
+ * 注册表之外的类仍按类名写入（registrationRequired=false），不会失败。
+ *
+ * 配置项：
+ * - rpc.serializer.kryo.registration：是否注册基础类与服务类型，默认 true；
+ * 与未升级的节点混布期间设为 false，只注册 RpcRequest、RpcResponse
+ * - rpc.serializer.kryo.services：参与注册的服务接口全限定名，逗号分隔
+ */
+public final class KryoRegistration {
+    private static final Logger logger = LoggerFactory.getLogger(KryoRegistration.class);
+
+    // 早期版本只注册了这两个类，保持它们的ID 不变
+    private static final List<Class<?>> LEGACY_CLASSES = List.of(RpcRequest.class, RpcResponse.class);
+
+    // 基础类，只能在末尾追加，调整顺序会改变已有类的ID
+    private static final List<Class<?>> BASE_CLASSES = List.of(
+            Object[].class, Class.class, Class[].class, byte[].class, int[].class, long[].class, String[].class,
+            Integer.class, Long.class, Boolean.class, Double.class, Float.class, Short.class, Byte.class,
+            Character.class, BigDecimal.class, BigInteger.class, Date.class,
+            ArrayList.class, LinkedHashMap.class, HashMap.class, HashSet.class, LinkedHashSet.class);
+
+    private static volatile KryoRegistration defaultRegistration;
+
+    private final List<Class<?>> classes;
+    private final String fingerprint;
+
+    KryoRegistration(List<Class<?>> classes) {
+        this.classes = Collections.unmodifiableList(new ArrayList<>(classes));
+        this.fingerprint = computeFingerprint(this.classes);
+    }
+
+    /**
+     * 按配置构建的注册表，进程内所有 Kryo 实例共用
+     */
+    public static KryoRegistration fromConfig() {
+        KryoRegistration registration = defaultRegistration;
+        if (registration == null) {
+            synchronized (KryoRegistration.class) {
+                registration = defaultRegistration;
+                if (registration == null) {
+                    registration = AppConfig.getBoolean("rpc.serializer.kryo.registration", true)
+                            ? forServices(ServiceTypes.parse(AppConfig.getString("rpc.serializer.kryo.services", ""), "Kryo 注册表"))
+                            : legacy();
+                    logger.info("Kryo 注册表: {} 个类，指纹 {}", registration.classes.size(), registration.fingerprint);
+                    defaultRegistration = registration;
+                }
+            }
+        }
+        return registration;
+    }
+
+    /**
+     * 只注册 RpcRequest、RpcResponse，与早期版本一致
+     */
+    public static KryoRegistration legacy() {
+        return new KryoRegistration(LEGACY_CLASSES);
+    }
+
+    /**
+     * 基础类加上给定服务接口中出现的类型
+     */
+    public static KryoRegistration forServices(List<Class<?>> serviceInterfaces) {
+        List<Class<?>> classes = new ArrayList<>(LEGACY_CLASSES);
+        classes.addAll(BASE_CLASSES);
+
+        for (Class<?> type : ServiceTypes.collect(serviceInterfaces)) {
+            if (!classes.contains(type)) {
+                classes.add(type);
+            }
+        }
+        return new KryoRegistration(classes);
+    }
+
+    /**
+     * 按顺序注册到 Kryo 实例；Kryo 默认已注册的类型（基本类型、String 等）保持原有ID
+     */
+    public void register(Kryo kryo) {
+        for (Class<?> type : classes) {
+            if (kryo.getClassResolver().getRegistration(type) == null) {
+                kryo.register(type);
+            }
+        }
+    }
+
+    public List<Class<?>> getClasses() {
+        return classes;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    private static String computeFingerprint(List<Class<?>> classes) {
+        long hash = 1125899906842597L;
+        for (Class<?> type : classes) {
+            for (char c : type.getName().toCharArray()) {
+                hash = 31 * hash + c;
+            }
+            hash = 31 * hash + ';';
+        }
+        return Long.toHexString(hash);
+    }
+}
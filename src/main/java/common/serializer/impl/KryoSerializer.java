@@ -1,61 +1,130 @@
 package common.serializer.impl;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
-import common.message.RpcRequest;
-import common.message.RpcResponse;
 import common.serializer.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Kryo 序列化实现
  * 高性能，体积小
+ *
+ * Kryo 实例与 Input/Output 都不是线程安全的，按线程各持有一份并在调用之间复用，不再为每条消息创建流与缓冲区。
+ * 类注册表见 {@link KryoRegistration}，客户端与服务端须使用相同的配置。
  */
 public class KryoSerializer implements Serializer {
     private static final Logger logger = LoggerFactory.getLogger(KryoSerializer.class);
 
-    // Kryo 不是线程安全的，需要使用 ThreadLocal
-    private static final ThreadLocal<Kryo> kryoThreadLocal = ThreadLocal.withInitial(() -> {
+    // 超过该长度的输出缓冲区用完即弃，不常驻线程
+    private static final int MAX_CACHED_BUFFER = 256 * 1024;
+    private static final int INITIAL_BUFFER = 4096;
+    private static final byte[] EMPTY_BYTES = new byte[0];
+    private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+    private final KryoRegistration registration;
+    private final ThreadLocal<ThreadState> threadState;
+
+    public KryoSerializer() {
+        this(KryoRegistration.fromConfig());
+    }
+
+    public KryoSerializer(KryoRegistration registration) {
+        this.registration = registration;
+        this.threadState = ThreadLocal.withInitial(() -> new ThreadState(newKryo(registration)));
+    }
+
+    private static Kryo newKryo(KryoRegistration registration) {
         Kryo kryo = new Kryo();
-        // 注册常用类，虽然不注册也能工作（会写入类名），但注册后性能更好体积更小
-        // 这里为了通用性，暂时不强制注册所有类，开启 registrationRequired = false
+        // 注册表之外的类仍可序列化（写入类名），避免新增参数类型时调用失败
         kryo.setRegistrationRequired(false);
-        kryo.register(RpcRequest.class);
-        kryo.register(RpcResponse.class);
+        registration.register(kryo);
         return kryo;
-    });
+    }
 
     @Override
     public byte[] serialize(Object obj) {
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                Output output = new Output(bos)) {
-            Kryo kryo = kryoThreadLocal.get();
-            kryo.writeClassAndObject(output, obj);
-            output.flush();
-            return bos.toByteArray();
+        ThreadState state = threadState.get();
+        Output output = state.bytesOutput;
+        try {
+            output.reset();
+            state.kryo.writeClassAndObject(output, obj);
+            return output.toBytes();
         } catch (Exception e) {
             logger.error("Kryo序列化失败", e);
             throw new RuntimeException("Kryo序列化失败", e);
+        } finally {
+            if (output.getBuffer().length > MAX_CACHED_BUFFER) {
+                state.bytesOutput = new Output(INITIAL_BUFFER, -1);
+            }
+        }
+    }
+
+    @Override
+    public void serialize(Object obj, OutputStream out) throws IOException {
+        ThreadState state = threadState.get();
+        Output output = state.streamOutput;
+        output.setOutputStream(out);
+        try {
+            state.kryo.writeClassAndObject(output, obj);
+            output.flush();
+        } catch (Exception e) {
+            logger.error("Kryo序列化失败", e);
+            throw new IOException("Kryo序列化失败", e);
+        } finally {
+            // 解除对目标流的引用，避免线程本地变量持有已写完的缓冲区
+            output.setOutputStream(null);
         }
     }
 
     @Override
     public Object deserialize(byte[] bytes, int messageType) {
-        try (ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
-                Input input = new Input(bis)) {
-            Kryo kryo = kryoThreadLocal.get();
-            return kryo.readClassAndObject(input);
+        ThreadState state = threadState.get();
+        Input input = state.input;
+        try {
+            input.setBuffer(bytes);
+            return state.kryo.readClassAndObject(input);
         } catch (Exception e) {
             logger.error("Kryo反序列化失败", e);
             throw new RuntimeException("Kryo反序列化失败", e);
+        } finally {
+            input.setBuffer(EMPTY_BYTES);
         }
     }
 
+    @Override
+    public Object deserialize(ByteBuffer buffer, int messageType) {
+        // 直接读取缓冲区（支持直接内存），避免拷贝成中间字节数组
+        ThreadState state = threadState.get();
+        ByteBufferInput input = state.byteBufferInput;
+        try {
+            input.setBuffer(buffer);
+            return state.kryo.readClassAndObject(input);
+        } catch (Exception e) {
+            logger.error("Kryo反序列化失败", e);
+            throw new RuntimeException("Kryo反序列化失败", e);
+        } finally {
+            // 缓冲区可能是 Netty 直接内存的视图，调用结束后不再持有
+            input.setBuffer(EMPTY_BUFFER);
+        }
+    }
+
+    public KryoRegistration getRegistration() {
+        return registration;
+    }
+
+    // 参数按对象写入，带有类型信息
+    @Override
+    public boolean isSelfDescribing() {
+        return true;
+    }
+
     @Override
     public int getType() {
         return 3; // Kryo 序列化方式 code = 3
@@ -65,4 +134,21 @@ public class KryoSerializer implements Serializer {
     public String getSerializerName() {
         return "KryoSerializer";
     }
+
+    /**
+     * 单个线程持有的 Kryo 实例与读写缓冲区
+     */
+    private static final class ThreadState {
+        private final Kryo kryo;
+        // 流式写出，写满后分块刷入目标流
+        private final Output streamOutput = new Output(INITIAL_BUFFER);
+        // 序列化为字节数组，按需扩容
+        private Output bytesOutput = new Output(INITIAL_BUFFER, -1);
+        private final Input input = new Input();
+        private final ByteBufferInput byteBufferInput = new ByteBufferInput();
+
+        private ThreadState(Kryo kryo) {
+            this.kryo = kryo;
+        }
+    }
 }
@@ -24,6 +24,13 @@ public class ObjectSerializer implements Serializer {
         }
     }
 
+    @Override
+    public void serialize(Object obj, OutputStream out) throws IOException {
+        ObjectOutputStream oos = new ObjectOutputStream(out);
+        oos.writeObject(obj);
+        oos.flush();
+    }
+
     @Override
     public Object deserialize(byte[] bytes, int messageType) {
         try (ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
@@ -35,6 +42,12 @@ public class ObjectSerializer implements Serializer {
         }
     }
 
+    // Java 序列化的字节流中包含对象的类信息
+    @Override
+    public boolean isSelfDescribing() {
+        return true;
+    }
+
     @Override
     public int getType() {
         return 0; // Java序列化方式
@@ -4,41 +4,98 @@ import common.message.Rpc;
 import common.message.RpcRequest;
 import common.message.RpcResponse;
 import common.serializer.Serializer;
+import common.serializer.codec.ValueCodecs;
+import common.util.AppConfig;
+import common.util.ClassCache;
 import com.alibaba.fastjson.JSON;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.MessageLite;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
  * Protobuf序列化实现
+ *
+ * 参数与响应数据默认按类型编码为二进制（rpc.proto 中的 TypedValue，编解码器见 {@link ValueCodecs}），
+ * 不再转成 JSON 字符串；读取时两种格式都接受。与只认识字符串格式的旧节点混布期间，
+ * 将 rpc.serializer.protobuf.typedValues 设为 false 继续发送字符串格式。
  */
 public class ProtobufSerializer implements Serializer {
     private static final Logger logger = LoggerFactory.getLogger(ProtobufSerializer.class);
 
+    // 是否按类型编码参数与响应数据
+    private final boolean typedValues;
+
+    public ProtobufSerializer() {
+        this(AppConfig.getBoolean("rpc.serializer.protobuf.typedValues", true));
+    }
+
+    public ProtobufSerializer(boolean typedValues) {
+        this.typedValues = typedValues;
+    }
+
     @Override
     public byte[] serialize(Object obj) {
         try {
             logger.debug("开始序列化对象: {}", obj.getClass().getName());
 
-            if (obj instanceof RpcRequest) {
-                return serializeRequest((RpcRequest) obj);
-            } else if (obj instanceof RpcResponse) {
-                return serializeResponse((RpcResponse) obj);
-            } else if (obj instanceof MessageLite) {
-                return ((MessageLite) obj).toByteArray();
-            } else {
-                throw new IllegalArgumentException("不支持的对象类型: " + obj.getClass().getName());
-            }
+            return toProtoMessage(obj).toByteArray();
         } catch (Exception e) {
             logger.error("序列化失败: {}", e.getMessage(), e);
             return null;
         }
     }
 
-    private byte[] serializeRequest(RpcRequest request) {
+    @Override
+    public void serialize(Object obj, OutputStream out) throws IOException {
+        MessageLite message;
+        try {
+            message = toProtoMessage(obj);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        int size = message.getSerializedSize();
+
+        // 编码器提供的是单块 ByteBuf 时，CodedOutputStream 直接写入其可写区域（可为直接内存）
+        if (out instanceof ByteBufOutputStream) {
+            ByteBuf buf = ((ByteBufOutputStream) out).buffer();
+            buf.ensureWritable(size);
+            if (buf.nioBufferCount() == 1) {
+                int writerIndex = buf.writerIndex();
+                CodedOutputStream cos = CodedOutputStream.newInstance(buf.nioBuffer(writerIndex, size));
+                message.writeTo(cos);
+                cos.checkNoSpaceLeft();
+                buf.writerIndex(writerIndex + size);
+                return;
+            }
+        }
+
+        CodedOutputStream cos = CodedOutputStream.newInstance(out, Math.min(size, 4096));
+        message.writeTo(cos);
+        cos.flush();
+    }
+
+    private MessageLite toProtoMessage(Object obj) {
+        if (obj instanceof RpcRequest) {
+            return buildRequest((RpcRequest) obj);
+        } else if (obj instanceof RpcResponse) {
+            return buildResponse((RpcResponse) obj);
+        } else if (obj instanceof MessageLite) {
+            return (MessageLite) obj;
+        } else {
+            throw new IllegalArgumentException("不支持的对象类型: " + obj.getClass().getName());
+        }
+    }
+
+    private Rpc.RpcRequest buildRequest(RpcRequest request) {
         Rpc.RpcRequest.Builder builder = Rpc.RpcRequest.newBuilder();
 
         // 设置基本字段
@@ -50,7 +107,11 @@ public class ProtobufSerializer implements Serializer {
             builder.setMethodName(request.getMethodName());
 
         // 处理参数
-        if (request.getParams() != null) {
+        if (request.getParams() != null && typedValues) {
+            for (Object param : request.getParams()) {
+                builder.addTypedParams(toTypedValue(param));
+            }
+        } else if (request.getParams() != null) {
             for (Object param : request.getParams()) {
                 builder.addParams(
                         param != null ? (isSimpleType(param) ? param.toString() : JSON.toJSONString(param)) : "");
@@ -71,10 +132,10 @@ public class ProtobufSerializer implements Serializer {
         if (request.getSpanId() != null)
             builder.setSpanId(request.getSpanId());
 
-        return builder.build().toByteArray();
+        return builder.build();
     }
 
-    private byte[] serializeResponse(RpcResponse response) {
+    private Rpc.RpcResponse buildResponse(RpcResponse response) {
         Rpc.RpcResponse.Builder builder = Rpc.RpcResponse.newBuilder();
 
         // 设置基本字段
@@ -84,19 +145,26 @@ public class ProtobufSerializer implements Serializer {
             builder.setCode(response.getCode());
         builder.setMessage(response.getMessage() != null ? response.getMessage() : "");
 
-        // 设置数据类型
-        if (response.getDataType() != null) {
-            builder.setDataType(response.getDataType().getName());
+        if (typedValues) {
+            // 数据类型即数据的运行时类型，不再单独携带
+            if (response.getData() != null) {
+                builder.setTypedData(toTypedValue(response.getData()));
+            }
         } else {
-            builder.setDataType("");
-        }
+            // 设置数据类型
+            if (response.getDataType() != null) {
+                builder.setDataType(response.getDataType().getName());
+            } else {
+                builder.setDataType("");
+            }
 
-        // 设置数据
-        if (response.getData() != null) {
-            builder.setData(isSimpleType(response.getData()) ? response.getData().toString()
-                    : JSON.toJSONString(response.getData()));
-        } else {
-            builder.setData("");
+            // 设置数据
+            if (response.getData() != null) {
+                builder.setData(isSimpleType(response.getData()) ? response.getData().toString()
+                        : JSON.toJSONString(response.getData()));
+            } else {
+                builder.setData("");
+            }
         }
 
         // 设置其他字段
@@ -105,7 +173,7 @@ public class ProtobufSerializer implements Serializer {
         if (response.getSpanId() != null)
             builder.setSpanId(response.getSpanId());
 
-        return builder.build().toByteArray();
+        return builder.build();
     }
 
     @Override
@@ -127,34 +195,70 @@ public class ProtobufSerializer implements Serializer {
         }
     }
 
+    @Override
+    public Object deserialize(ByteBuffer buffer, int messageType) {
+        // protobuf 可直接解析 ByteBuffer（含直接内存），无需先拷贝成字节数组
+        try {
+            logger.debug("开始反序列化，消息类型: {}", messageType);
+
+            switch (messageType) {
+                case 0:
+                    return toRpcRequest(Rpc.RpcRequest.parseFrom(buffer));
+                case 1:
+                    return toRpcResponse(Rpc.RpcResponse.parseFrom(buffer));
+                default:
+                    throw new IllegalArgumentException("不支持的消息类型: " + messageType);
+            }
+        } catch (InvalidProtocolBufferException e) {
+            logger.error("反序列化失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
     private RpcRequest deserializeRequest(byte[] bytes) throws InvalidProtocolBufferException {
-        Rpc.RpcRequest protoRequest = Rpc.RpcRequest.parseFrom(bytes);
+        return toRpcRequest(Rpc.RpcRequest.parseFrom(bytes));
+    }
+
+    private RpcRequest toRpcRequest(Rpc.RpcRequest protoRequest) throws InvalidProtocolBufferException {
         RpcRequest request = new RpcRequest();
 
         // 设置基本字段
+        // proto3 中未写入的字符串读出为空串；省略了签名的请求（见 SignatureDictionary）须读出 null，服务端据此按帧头补齐签名
         request.setRequestId(protoRequest.getRequestId());
-        request.setInterfaceName(protoRequest.getInterfaceName());
-        request.setMethodName(protoRequest.getMethodName());
+        request.setInterfaceName(emptyToNull(protoRequest.getInterfaceName()));
+        request.setMethodName(emptyToNull(protoRequest.getMethodName()));
 
-        // 处理参数类型
+        // 处理参数类型：列表为空时保持 null，无参方法按 null 查找方法与计算路由ID 的结果不变
         List<String> paramsTypeList = protoRequest.getParamsTypeList();
-        Class<?>[] paramsTypes = new Class<?>[paramsTypeList.size()];
-        for (int i = 0; i < paramsTypeList.size(); i++) {
-            try {
-                paramsTypes[i] = Class.forName(paramsTypeList.get(i));
-            } catch (ClassNotFoundException e) {
-                paramsTypes[i] = String.class;
+        Class<?>[] paramsTypes = null;
+        if (!paramsTypeList.isEmpty()) {
+            paramsTypes = new Class<?>[paramsTypeList.size()];
+            for (int i = 0; i < paramsTypeList.size(); i++) {
+                try {
+                    paramsTypes[i] = ClassCache.forName(paramsTypeList.get(i));
+                } catch (ClassNotFoundException e) {
+                    paramsTypes[i] = String.class;
+                }
             }
         }
         request.setParamsType(paramsTypes);
 
-        // 处理参数
-        List<String> paramsList = protoRequest.getParamsList();
-        Object[] params = new Object[paramsList.size()];
-        for (int i = 0; i < paramsList.size(); i++) {
-            params[i] = convertParam(paramsList.get(i), paramsTypes[i]);
+        // 处理参数：按类型编码的参数自带类型，不依赖 paramsType（可能已被省略，见 SignatureDictionary）
+        if (protoRequest.getTypedParamsCount() > 0) {
+            List<Rpc.TypedValue> typedParams = protoRequest.getTypedParamsList();
+            Object[] params = new Object[typedParams.size()];
+            for (int i = 0; i < params.length; i++) {
+                params[i] = fromTypedValue(typedParams.get(i));
+            }
+            request.setParams(params);
+        } else {
+            List<String> paramsList = protoRequest.getParamsList();
+            Object[] params = new Object[paramsList.size()];
+            for (int i = 0; i < paramsList.size(); i++) {
+                params[i] = convertParam(paramsList.get(i), paramsTypes[i]);
+            }
+            request.setParams(params);
         }
-        request.setParams(params);
 
         // 设置其他字段
         request.setTimestamp(protoRequest.getTimestamp());
@@ -165,7 +269,10 @@ public class ProtobufSerializer implements Serializer {
     }
 
     private RpcResponse deserializeResponse(byte[] bytes) throws InvalidProtocolBufferException {
-        Rpc.RpcResponse protoResponse = Rpc.RpcResponse.parseFrom(bytes);
+        return toRpcResponse(Rpc.RpcResponse.parseFrom(bytes));
+    }
+
+    private RpcResponse toRpcResponse(Rpc.RpcResponse protoResponse) throws InvalidProtocolBufferException {
         RpcResponse response = new RpcResponse();
 
         // 设置基本字段
@@ -175,9 +282,13 @@ public class ProtobufSerializer implements Serializer {
 
         // 处理数据类型和数据
         String dataTypeStr = protoResponse.getDataType();
-        if (dataTypeStr != null && !dataTypeStr.isEmpty()) {
+        if (protoResponse.hasTypedData()) {
+            Object data = fromTypedValue(protoResponse.getTypedData());
+            response.setData(data);
+            response.setDataType(data != null ? data.getClass() : null);
+        } else if (dataTypeStr != null && !dataTypeStr.isEmpty()) {
             try {
-                Class<?> dataType = Class.forName(dataTypeStr);
+                Class<?> dataType = ClassCache.forName(dataTypeStr);
                 response.setDataType(dataType);
 
                 String dataStr = protoResponse.getData();
@@ -198,6 +309,30 @@ public class ProtobufSerializer implements Serializer {
         return response;
     }
 
+    private Rpc.TypedValue toTypedValue(Object value) {
+        Rpc.TypedValue.Builder builder = Rpc.TypedValue.newBuilder();
+        int codecId = ValueCodecs.codecId(value);
+        builder.setCodec(codecId);
+        if (codecId == ValueCodecs.JSON_ID) {
+            builder.setType(value.getClass().getName());
+        }
+        try {
+            return builder.setValue(ValueCodecs.encode(value)).build();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("编码参数失败: " + value.getClass().getName(), e);
+        }
+    }
+
+    private Object fromTypedValue(Rpc.TypedValue value) throws InvalidProtocolBufferException {
+        try {
+            return ValueCodecs.decode(value.getCodec(), value.getType(), value.getValue());
+        } catch (InvalidProtocolBufferException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new InvalidProtocolBufferException(e);
+        }
+    }
+
     private Object convertParam(String paramStr, Class<?> paramType) {
         try {
             if (paramType == String.class) {
@@ -238,10 +373,20 @@ public class ProtobufSerializer implements Serializer {
         return null;
     }
 
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
     private boolean isSimpleType(Object obj) {
         return obj instanceof String || obj instanceof Number || obj instanceof Boolean;
     }
 
+    // 按类型编码时参数自带类型信息
+    @Override
+    public boolean isSelfDescribing() {
+        return typedValues;
+    }
+
     @Override
     public int getType() {
         return 2; // protobuf序列化方式
@@ -0,0 +1,104 @@
+package common.serializer.impl;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 服务接口中出现的类型：方法参数与返回值，包括泛型实参（如 CompletableFuture&lt;Result&lt;User&gt;&gt;
+ * 中的 Result 与 User），只取可实例化的非 JDK 具体类
+ * 需要按类编号的序列化方式（{@link KryoRegistration}、{@link CodegenSerializer}）据此建立注册表。
+ */
+final class ServiceTypes {
+
+    private ServiceTypes() {
+    }
+
+    /**
+     * 给定服务接口中出现的类型，按类名排序（getMethods 的返回顺序不确定，排序后各进程分配的编号一致）
+     */
+    static List<Class<?>> collect(List<Class<?>> serviceInterfaces) {
+        Set<Class<?>> serviceTypes = new HashSet<>();
+        for (Class<?> serviceInterface : serviceInterfaces) {
+            for (Method method : serviceInterface.getMethods()) {
+                for (Type type : method.getGenericParameterTypes()) {
+                    collect(type, serviceTypes);
+                }
+                collect(method.getGenericReturnType(), serviceTypes);
+            }
+        }
+        return serviceTypes.stream()
+                .sorted(Comparator.comparing(Class::getName))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 解析逗号分隔的服务接口全限定名
+     *
+     * @param owner 使用方的名称，用于异常信息
+     */
+    static List<Class<?>> parse(String value, String owner) {
+        List<Class<?>> services = new ArrayList<>();
+        for (String name : value.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                services.add(Class.forName(name));
+            } catch (ClassNotFoundException e) {
+                // 注册表不一致会导致对端无法反序列化，不能静默跳过
+                throw new IllegalStateException(owner + "中的服务接口不存在: " + name, e);
+            }
+        }
+        return services;
+    }
+
+    private static void collect(Type type, Set<Class<?>> out) {
+        if (type instanceof Class) {
+            Class<?> clazz = (Class<?>) type;
+            if (clazz.isArray()) {
+                if (isConcrete(clazz.getComponentType())) {
+                    out.add(clazz);
+                }
+                collect(clazz.getComponentType(), out);
+            } else if (isConcrete(clazz)) {
+                out.add(clazz);
+            }
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            collect(parameterized.getRawType(), out);
+            for (Type argument : parameterized.getActualTypeArguments()) {
+                collect(argument, out);
+            }
+        } else if (type instanceof GenericArrayType) {
+            collect(((GenericArrayType) type).getGenericComponentType(), out);
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                collect(bound, out);
+            }
+        }
+        // 类型变量无法确定具体类型，跳过
+    }
+
+    // 只有可实例化的具体类会以自身类型出现在消息体中；JDK 类型（如 CompletableFuture）多半不会被序列化，
+    // 且 Kryo 注册时即创建序列化器，会触碰模块未开放的字段
+    private static boolean isConcrete(Class<?> clazz) {
+        return !clazz.isPrimitive() && !clazz.isInterface() && !Modifier.isAbstract(clazz.getModifiers())
+                && !clazz.isAnonymousClass() && !clazz.isSynthetic() && !isJdkType(clazz);
+    }
+
+    private static boolean isJdkType(Class<?> clazz) {
+        String name = clazz.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.");
+    }
+}
@@ -0,0 +1,21 @@
+package common.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记服务接口或接口方法的调用可以被客户端攒批发送
+ * 客户端把同一连接上短时间内的多个此类请求合并为一个批量请求帧，减少帧头、系统调用与 flush 的开销，
+ * 代价是每个请求最多多等待一个攒批窗口（rpc.client.batch.windowMicros）。
+ * 适用于：
+ * 1. 调用频繁、参数与返回值都很小的方法（如按ID查询）
+ * 2. 能接受百微秒级额外延迟的调用方
+ *
+ * 标在接口上时对接口的所有方法生效；服务端无需任何配置。
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Batchable {
+}
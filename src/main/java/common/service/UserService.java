@@ -4,6 +4,7 @@ import common.pojo.User;
 import common.result.Result;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 /**
  * 用户服务接口 - 异步版本
@@ -16,6 +17,7 @@ public interface UserService {
      * @param id 用户ID
      * @return CompletableFuture包装的用户信息结果
      */
+    @Batchable
     CompletableFuture<Result<User>> getUserById(Long id);
 
     /**
@@ -41,4 +43,11 @@ public interface UserService {
      * @return CompletableFuture包装的更新结果
      */
     CompletableFuture<Result<Boolean>> updateUser(User user);
+
+    /**
+     * 导出全部用户（服务端流式）
+     * 
+     * @return 按订阅方需求逐批传回用户的发布者
+     */
+    Flow.Publisher<User> exportUsers();
 }
@@ -7,6 +7,7 @@ import common.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import common.cache.CacheManager;
+import common.stream.IterablePublisher;
 
 import java.util.List;
 import java.util.Map;
@@ -17,6 +18,7 @@ import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 import java.util.Set;
 import java.util.HashSet;
 import com.alibaba.fastjson.JSON;
@@ -469,6 +471,12 @@ public class UserServiceImpl implements UserService {
         return CompletableFuture.completedFuture(updateUserSync(user));
     }
 
+    @Override
+    public Flow.Publisher<User> exportUsers() {
+        // 按需遍历本地存储，不预先复制成列表
+        return new IterablePublisher<>(userStore.values());
+    }
+
     private Result<Boolean> updateUserSync(User user) {
         if (user == null) {
             logger.warn("更新用户失败：用户对象为空");
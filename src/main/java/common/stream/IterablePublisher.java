@@ -0,0 +1,111 @@
+package common.stream;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按需拉取的 Flow.Publisher：只在订阅方 request(n) 后从迭代器取出元素，不预先缓冲
+ * 服务端流式方法可直接返回它，元素在调用 request 的线程上发出（网络调用时为服务端业务线程）。
+ *
+ * 每次订阅重新调用 iterable.iterator()；迭代器抛出的异常以 onError 结束订阅。
+ */
+public final class IterablePublisher<T> implements Flow.Publisher<T> {
+    private final Iterable<? extends T> iterable;
+
+    public IterablePublisher(Iterable<? extends T> iterable) {
+        this.iterable = Objects.requireNonNull(iterable, "iterable");
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        Iterator<? extends T> iterator;
+        try {
+            iterator = iterable.iterator();
+        } catch (Throwable t) {
+            subscriber.onSubscribe(new IteratorSubscription<>(subscriber, null));
+            subscriber.onError(t);
+            return;
+        }
+        subscriber.onSubscribe(new IteratorSubscription<>(subscriber, iterator));
+    }
+
+    private static final class IteratorSubscription<T> implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Iterator<? extends T> iterator;
+        private final AtomicLong demand = new AtomicLong();
+        // 保证同一时刻只有一个线程在发出元素，request 在 onNext 中被重入调用时只累加需求
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+
+        IteratorSubscription(Flow.Subscriber<? super T> subscriber, Iterator<? extends T> iterator) {
+            this.subscriber = subscriber;
+            this.iterator = iterator;
+            this.cancelled = iterator == null;
+        }
+
+        @Override
+        public void request(long n) {
+            if (cancelled) {
+                return;
+            }
+            if (n <= 0) {
+                cancelled = true;
+                subscriber.onError(new IllegalArgumentException("request(n) 的 n 必须为正数: " + n));
+                return;
+            }
+            demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            if (wip.getAndIncrement() == 0) {
+                emit();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void emit() {
+            int missed = 1;
+            do {
+                long requested = demand.get();
+                long emitted = 0;
+                while (!cancelled) {
+                    boolean hasNext;
+                    T next = null;
+                    try {
+                        // 先检查是否结束，需求恰好等于剩余元素数时也能及时完成
+                        hasNext = iterator.hasNext();
+                        if (hasNext && emitted < requested) {
+                            next = iterator.next();
+                        }
+                    } catch (Throwable t) {
+                        cancelled = true;
+                        subscriber.onError(t);
+                        return;
+                    }
+                    if (!hasNext) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    if (emitted == requested) {
+                        break;
+                    }
+                    subscriber.onNext(next);
+                    emitted++;
+                }
+                if (cancelled) {
+                    return;
+                }
+                if (emitted > 0 && requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package common.transport;
+
+import common.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unix domain socket 相关配置与注册信息
+ * 同机部署的调用方与服务提供方通过 domain socket 通信，绕过 TCP 回环协议栈。
+ * 服务端在监听 host:port 的同时绑定一个 socket 文件，并把路径写入注册中心的实例节点数据；
+ * 客户端选中的节点是本机地址且节点通告了 socket 路径时改用 domain socket 连接。
+ *
+ * 配置项：
+ * - rpc.server.uds.enabled：服务端是否绑定 domain socket，默认 false
+ * - rpc.server.uds.path：socket 文件路径，{port} 替换为服务端口，默认 /tmp/myrpc-{port}.sock
+ * - rpc.client.uds.prefer：客户端访问本机节点时是否优先 domain socket，默认 true
+ *
+ * 仅 epoll 传输支持，两端使用其他传输时自动退回 TCP。
+ */
+public final class DomainSockets {
+    private static final Logger logger = LoggerFactory.getLogger(DomainSockets.class);
+
+    // 实例节点数据中的键
+    private static final String REGISTRATION_KEY = "uds=";
+
+    // 本机地址判断结果缓存
+    private static final Map<InetAddress, Boolean> LOCAL_ADDRESS_CACHE = new ConcurrentHashMap<>();
+
+    private DomainSockets() {
+    }
+
+    /**
+     * 服务端是否绑定 domain socket：配置开启且当前传输支持
+     */
+    public static boolean isServerEnabled() {
+        return AppConfig.getBoolean("rpc.server.uds.enabled", false)
+                && Transport.fromConfig().supportsDomainSocket();
+    }
+
+    /**
+     * 服务端在指定端口对应的 socket 文件路径
+     */
+    public static String serverPath(int port) {
+        return AppConfig.getString("rpc.server.uds.path", "/tmp/myrpc-{port}.sock")
+                .replace("{port}", String.valueOf(port));
+    }
+
+    /**
+     * 客户端访问本机节点时是否优先 domain socket
+     */
+    public static boolean isClientPreferred() {
+        return AppConfig.getBoolean("rpc.client.uds.prefer", true);
+    }
+
+    /**
+     * 写入实例节点的数据
+     */
+    public static byte[] encodeRegistration(String path) {
+        return (REGISTRATION_KEY + path).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 从实例节点数据中解析 socket 路径，没有通告时返回 null
+     * 未写入数据的节点默认保存注册方 IP，这里会被忽略
+     */
+    public static String decodeRegistration(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        for (String line : new String(data, StandardCharsets.UTF_8).split("\n")) {
+            line = line.trim();
+            if (line.startsWith(REGISTRATION_KEY) && line.length() > REGISTRATION_KEY.length()) {
+                return line.substring(REGISTRATION_KEY.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 地址是否指向本机（回环地址或本机网卡地址）
+     */
+    public static boolean isLocalAddress(InetSocketAddress address) {
+        InetAddress inetAddress = address.getAddress();
+        if (inetAddress == null) {
+            // 未解析的主机名
+            return false;
+        }
+        return LOCAL_ADDRESS_CACHE.computeIfAbsent(inetAddress, a -> {
+            if (a.isLoopbackAddress() || a.isAnyLocalAddress()) {
+                return true;
+            }
+            try {
+                return NetworkInterface.getByInetAddress(a) != null;
+            } catch (SocketException e) {
+                logger.debug("无法判断地址 {} 是否属于本机: {}", a, e.getMessage());
+                return false;
+            }
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package common.transport;
+
+import common.message.RpcRequest;
+import common.message.RpcResponse;
+import common.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内服务注册表
+ * 服务提供方在本地注册服务时同时登记到这里；同一进程内的客户端发现目标接口已有本地提供方时，
+ * 直接调用本地端点，跳过服务发现、编码、网络与反序列化。
+ * 客户端与服务端代码互不依赖，两者只通过这里的 {@link Endpoint} 交互。
+ *
+ * 配置项：
+ * - rpc.client.injvm.enabled：客户端是否优先调用进程内提供方，默认 true
+ * - rpc.client.injvm.copy：是否在调用时通过序列化复制参数与返回值（隔离调用双方对同一对象的修改），默认 false
+ */
+public enum InJvmRegistry {
+    INSTANCE;
+
+    private static final Logger logger = LoggerFactory.getLogger(InJvmRegistry.class);
+
+    // <接口全限定名，本地端点>
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * 进程内服务端点，由服务端实现
+     */
+    public interface Endpoint {
+        /**
+         * 服务提供方对外注册的地址，客户端以它作为熔断器的键，与经网络调用该节点时一致
+         */
+        InetSocketAddress getAddress();
+
+        /**
+         * 执行请求，限流、链路追踪与业务线程池的使用与网络请求一致
+         */
+        CompletableFuture<RpcResponse> invoke(RpcRequest request);
+    }
+
+    public void register(String interfaceName, Endpoint endpoint) {
+        Endpoint previous = endpoints.put(interfaceName, endpoint);
+        if (previous != null && previous != endpoint) {
+            // 同一进程启动多个服务节点时只保留最后注册的一个，进程内调用不经过负载均衡
+            logger.info("进程内服务 {} 被重复注册，使用最新的提供方 {}", interfaceName, endpoint.getAddress());
+        }
+    }
+
+    /**
+     * 注销该端点登记的所有接口
+     */
+    public void unregister(Endpoint endpoint) {
+        endpoints.values().removeIf(e -> e == endpoint);
+    }
+
+    /**
+     * 查找进程内提供方
+     *
+     * @return 本地端点，未注册或客户端关闭了进程内调用时返回 null
+     */
+    public Endpoint lookup(String interfaceName) {
+        if (endpoints.isEmpty() || !isEnabled()) {
+            return null;
+        }
+        return endpoints.get(interfaceName);
+    }
+
+    public static boolean isEnabled() {
+        return AppConfig.getBoolean("rpc.client.injvm.enabled", true);
+    }
+
+    public static boolean isCopyOnCall() {
+        return AppConfig.getBoolean("rpc.client.injvm.copy", false);
+    }
+}
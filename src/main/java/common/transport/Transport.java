@@ -0,0 +1,224 @@
+package common.transport;
+
+import common.util.AppConfig;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.unix.UnixChannelOption;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 网络传输实现
+ * 客户端与服务端通过 rpc.transport 选择：
+ * - auto（默认）：Linux 上优先 epoll，其次 io_uring（需引入 netty-incubator-transport-native-io_uring），都不可用时回退 NIO
+ * - nio / epoll / iouring：指定实现，不可用时回退 NIO 并打印警告
+ *
+ * epoll 与 io_uring 为 native 传输：边缘触发、更少的系统调用与对象分配，并支持 SO_REUSEPORT，
+ * 服务端可以在同一端口上绑定多个监听 Channel，由内核在多个 acceptor 线程之间分摊新连接。
+ * io_uring 通过反射加载，未引入依赖时不影响编译与运行。
+ */
+public enum Transport {
+    NIO,
+    EPOLL,
+    IO_URING;
+
+    private static final Logger logger = LoggerFactory.getLogger(Transport.class);
+
+    private static final String IO_URING_PACKAGE = "io.netty.incubator.channel.uring.";
+
+    /**
+     * 按 rpc.transport 配置选择可用的传输实现
+     */
+    public static Transport fromConfig() {
+        return resolve(AppConfig.getString("rpc.transport", "auto"));
+    }
+
+    /**
+     * 解析传输名称并检查可用性，不可用时回退
+     */
+    public static Transport resolve(String name) {
+        String normalized = name == null ? "auto" : name.trim().toLowerCase();
+        switch (normalized) {
+            case "nio":
+                return NIO;
+            case "epoll":
+                return availableOrFallback(EPOLL);
+            case "iouring":
+            case "io_uring":
+                return availableOrFallback(IO_URING);
+            case "auto":
+                if (EPOLL.isAvailable()) {
+                    return EPOLL;
+                }
+                return IO_URING.isAvailable() ? IO_URING : NIO;
+            default:
+                logger.warn("未知的传输类型 {}，使用 NIO", name);
+                return NIO;
+        }
+    }
+
+    private static Transport availableOrFallback(Transport transport) {
+        if (transport.isAvailable()) {
+            return transport;
+        }
+        logger.warn("传输 {} 在当前环境不可用，回退到 NIO", transport);
+        return NIO;
+    }
+
+    /**
+     * 当前环境是否可用（native 库能否加载）
+     */
+    public boolean isAvailable() {
+        switch (this) {
+            case EPOLL:
+                try {
+                    return Epoll.isAvailable();
+                } catch (Throwable t) {
+                    // 非 Linux 平台或缺少 native 库
+                    return false;
+                }
+            case IO_URING:
+                try {
+                    return (Boolean) Class.forName(IO_URING_PACKAGE + "IOUring").getMethod("isAvailable").invoke(null);
+                } catch (Throwable t) {
+                    return false;
+                }
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * 是否支持 SO_REUSEPORT（多个监听 Channel 绑定同一端口）
+     */
+    public boolean supportsReusePort() {
+        return this != NIO;
+    }
+
+    /**
+     * 是否支持 Unix domain socket（同机进程间通信，绕过 TCP 协议栈）
+     * Netty 4.1 的 NIO 与 io_uring 传输不支持，仅 epoll 支持
+     */
+    public boolean supportsDomainSocket() {
+        return this == EPOLL;
+    }
+
+    /**
+     * 创建事件循环组
+     *
+     * @param threads    线程数
+     * @param threadName 线程名前缀
+     */
+    public EventLoopGroup newEventLoopGroup(int threads, String threadName) {
+        ThreadFactory threadFactory = new DefaultThreadFactory(threadName);
+        switch (this) {
+            case EPOLL:
+                return new EpollEventLoopGroup(threads, threadFactory);
+            case IO_URING:
+                try {
+                    return (EventLoopGroup) Class.forName(IO_URING_PACKAGE + "IOUringEventLoopGroup")
+                            .getConstructor(int.class, ThreadFactory.class)
+                            .newInstance(threads, threadFactory);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("创建 io_uring 事件循环组失败", e);
+                }
+            default:
+                return new NioEventLoopGroup(threads, threadFactory);
+        }
+    }
+
+    public Class<? extends ServerChannel> serverChannelClass() {
+        switch (this) {
+            case EPOLL:
+                return EpollServerSocketChannel.class;
+            case IO_URING:
+                return loadChannelClass("IOUringServerSocketChannel", ServerChannel.class);
+            default:
+                return NioServerSocketChannel.class;
+        }
+    }
+
+    public Class<? extends Channel> socketChannelClass() {
+        switch (this) {
+            case EPOLL:
+                return EpollSocketChannel.class;
+            case IO_URING:
+                return loadChannelClass("IOUringSocketChannel", Channel.class);
+            default:
+                return NioSocketChannel.class;
+        }
+    }
+
+    public Class<? extends ServerChannel> serverDomainSocketChannelClass() {
+        if (!supportsDomainSocket()) {
+            throw new UnsupportedOperationException("传输 " + this + " 不支持 Unix domain socket");
+        }
+        return EpollServerDomainSocketChannel.class;
+    }
+
+    public Class<? extends Channel> domainSocketChannelClass() {
+        if (!supportsDomainSocket()) {
+            throw new UnsupportedOperationException("传输 " + this + " 不支持 Unix domain socket");
+        }
+        return EpollDomainSocketChannel.class;
+    }
+
+    /**
+     * 服务端传输相关选项
+     *
+     * @param reusePort 是否开启 SO_REUSEPORT（多 acceptor 绑定同一端口时必须开启）
+     */
+    public void configure(ServerBootstrap bootstrap, boolean reusePort) {
+        if (this == EPOLL) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED)
+                    .childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+        }
+        if (reusePort && supportsReusePort()) {
+            bootstrap.option(UnixChannelOption.SO_REUSEPORT, true);
+        }
+    }
+
+    /**
+     * 客户端传输相关选项
+     */
+    public void configure(Bootstrap bootstrap) {
+        if (this == EPOLL) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+        }
+    }
+
+    private static <T> Class<? extends T> loadChannelClass(String simpleName, Class<T> type) {
+        try {
+            return Class.forName(IO_URING_PACKAGE + simpleName).asSubclass(type);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("未找到 io_uring 传输类: " + simpleName, e);
+        }
+    }
+
+    /**
+     * 按 CPU 数确定 IO 线程数，未配置时取可用处理器数（容器内受 CPU 配额限制）
+     *
+     * @param key 配置项，如 rpc.server.ioThreads
+     */
+    public static int ioThreads(String key) {
+        int configured = AppConfig.getInt(key, 0);
+        return configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+}
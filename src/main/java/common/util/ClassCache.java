@@ -0,0 +1,50 @@
+package common.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按类名解析类的缓存
+ * 消息体中以字符串携带的类型（参数类型、返回值类型）每条消息都要解析一次，Class.forName 需要查找类加载器并加锁，
+ * 解析结果在此缓存；解析失败的类名不缓存。
+ */
+public final class ClassCache {
+    private static final Map<String, Class<?>> CACHE = new ConcurrentHashMap<>();
+
+    private ClassCache() {
+    }
+
+    public static Class<?> forName(String name) throws ClassNotFoundException {
+        Class<?> cached = CACHE.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        Class<?> resolved = resolve(name);
+        CACHE.put(name, resolved);
+        return resolved;
+    }
+
+    // Class.forName 不接受基本类型的名称
+    private static Class<?> resolve(String name) throws ClassNotFoundException {
+        switch (name) {
+            case "int":
+                return int.class;
+            case "long":
+                return long.class;
+            case "boolean":
+                return boolean.class;
+            case "double":
+                return double.class;
+            case "float":
+                return float.class;
+            case "short":
+                return short.class;
+            case "byte":
+                return byte.class;
+            case "char":
+                return char.class;
+            default:
+                return Class.forName(name);
+        }
+    }
+}
@@ -90,4 +90,40 @@ public class HashUtil {
         
         return Math.abs(HashUtil.murmurHash(sb.toString()));
     }
-}
\ No newline at end of file
+
+    /**
+     * 计算服务路由ID，写入 v2 帧头供服务端在反序列化前完成路由
+     * 0 保留为"未知路由"
+     *
+     * @param interfaceName 接口全限定名
+     * @return 服务路由ID
+     */
+    public static int serviceRouteId(String interfaceName) {
+        return nonZero((int) murmurHash(interfaceName));
+    }
+
+    /**
+     * 计算方法路由ID，由方法名与参数类型共同决定，以区分重载方法
+     *
+     * @param methodName 方法名称
+     * @param paramTypes 参数类型
+     * @return 方法路由ID
+     */
+    public static int methodRouteId(String methodName, Class<?>[] paramTypes) {
+        StringBuilder sb = new StringBuilder(methodName).append('(');
+        if (paramTypes != null) {
+            for (int i = 0; i < paramTypes.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(paramTypes[i].getName());
+            }
+        }
+        sb.append(')');
+        return nonZero((int) murmurHash(sb.toString()));
+    }
+
+    private static int nonZero(int routeId) {
+        return routeId == 0 ? 1 : routeId;
+    }
+}
@@ -7,15 +7,16 @@ public class PerformanceTracker {
     public static boolean ENABLED = false;
     private static final Map<String, Map<String, Long>> TIMINGS = new ConcurrentHashMap<>();
 
+    // 未设置 requestId 的请求不参与追踪
     public static void startTracking(String requestId) {
-        if (ENABLED) {
+        if (ENABLED && requestId != null) {
             TIMINGS.put(requestId, new ConcurrentHashMap<>());
             record(requestId, "start");
         }
     }
 
     public static void record(String requestId, String phase) {
-        if (ENABLED) {
+        if (ENABLED && requestId != null) {
             Map<String, Long> map = TIMINGS.get(requestId);
             if (map != null) {
                 map.put(phase, System.nanoTime());
@@ -0,0 +1,83 @@
+package server.netty.handler;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 服务端请求分发统计
+ * 记录 IO 线程在 channelRead0 中消耗的时间以及各执行路径的请求数，
+ * 用于对比按帧头分发与按消息体分发对 IO 线程占用的影响。
+ */
+public final class DispatchStats {
+    private DispatchStats() {
+    }
+
+    // IO 线程累计耗时（纳秒）
+    private static final LongAdder EVENT_LOOP_NANOS = new LongAdder();
+    // 按帧头命中 FastService，在 IO 线程直接执行
+    private static final LongAdder INLINE_REQUESTS = new LongAdder();
+    // 按帧头分发到业务线程池，消息体在业务线程反序列化
+    private static final LongAdder OFFLOADED_REQUESTS = new LongAdder();
+    // 帧头无路由信息（v1 帧或未知服务ID），先在 IO 线程反序列化再分发
+    private static final LongAdder BODY_ROUTED_REQUESTS = new LongAdder();
+    // 批量请求帧数及其中的请求数（批内请求同时计入上面的执行路径）
+    private static final LongAdder BATCHES = new LongAdder();
+    private static final LongAdder BATCHED_REQUESTS = new LongAdder();
+
+    static void recordEventLoopNanos(long nanos) {
+        EVENT_LOOP_NANOS.add(nanos);
+    }
+
+    static void recordInline() {
+        INLINE_REQUESTS.increment();
+    }
+
+    static void recordOffloaded() {
+        OFFLOADED_REQUESTS.increment();
+    }
+
+    static void recordBodyRouted() {
+        BODY_ROUTED_REQUESTS.increment();
+    }
+
+    static void recordBatch(int size) {
+        BATCHES.increment();
+        BATCHED_REQUESTS.add(size);
+    }
+
+    public static long getEventLoopNanos() {
+        return EVENT_LOOP_NANOS.sum();
+    }
+
+    public static long getInlineRequests() {
+        return INLINE_REQUESTS.sum();
+    }
+
+    public static long getOffloadedRequests() {
+        return OFFLOADED_REQUESTS.sum();
+    }
+
+    public static long getBodyRoutedRequests() {
+        return BODY_ROUTED_REQUESTS.sum();
+    }
+
+    public static long getBatches() {
+        return BATCHES.sum();
+    }
+
+    public static long getBatchedRequests() {
+        return BATCHED_REQUESTS.sum();
+    }
+
+    public static long getTotalRequests() {
+        return getInlineRequests() + getOffloadedRequests() + getBodyRoutedRequests();
+    }
+
+    public static void reset() {
+        EVENT_LOOP_NANOS.reset();
+        INLINE_REQUESTS.reset();
+        OFFLOADED_REQUESTS.reset();
+        BODY_ROUTED_REQUESTS.reset();
+        BATCHES.reset();
+        BATCHED_REQUESTS.reset();
+    }
+}
@@ -0,0 +1,61 @@
+package server.netty.handler;
+
+import common.message.Heartbeat;
+import common.message.MessageType;
+import common.message.RawMessage;
+import common.util.AppConfig;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务端心跳应答与空闲连接回收
+ *
+ * - 收到 HEARTBEAT_PING 立即回复 HEARTBEAT_PONG，心跳帧不会传给业务处理器
+ * - 配套的 {@link IdleStateHandler} 在超时时间内没有读到任何数据时关闭连接：
+ * 启用心跳的客户端在空闲时会定期发送 PING，不会被回收；被回收的是已失效的对端，以及长时间空闲的 v1 客户端
+ * （客户端在下次调用时重新建连）。连接关闭时进行中的流随之取消
+ *
+ * 须放在 Decoder 与 Encoder 之后、NettyServerHandler 之前。
+ *
+ * 配置项：
+ * - rpc.server.idleTimeoutMs：读空闲超时，默认 60000，需明显大于客户端心跳周期；0 表示不回收
+ */
+public class IdleConnectionHandler extends ChannelInboundHandlerAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(IdleConnectionHandler.class);
+
+    /**
+     * 按配置创建空闲检测器，未启用回收时返回 null
+     */
+    public static IdleStateHandler newIdleStateHandler() {
+        int idleTimeoutMs = AppConfig.getInt("rpc.server.idleTimeoutMs", 60_000);
+        return idleTimeoutMs > 0 ? new IdleStateHandler(idleTimeoutMs, 0, 0, TimeUnit.MILLISECONDS) : null;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof RawMessage
+                && ((RawMessage) msg).getMessageType() == MessageType.HEARTBEAT_PING.getCode()) {
+            ((RawMessage) msg).release();
+            ctx.writeAndFlush(Heartbeat.PONG);
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent && ((IdleStateEvent) evt).state() == IdleState.READER_IDLE) {
+            logger.info("连接 {} 读空闲超时，关闭连接", ctx.channel().remoteAddress());
+            ctx.close();
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+}
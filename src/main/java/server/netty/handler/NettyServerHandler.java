@@ -1,178 +1,297 @@
 package server.netty.handler;
 
+import common.message.MessageType;
+import common.message.ProtocolConstants;
+import common.message.RawMessage;
 import common.message.RpcRequest;
 import common.message.RpcResponse;
-import common.result.Result;
+import common.serializer.Serializer;
+import common.serializer.SerializerFactory;
+import common.service.FastService;
 import common.trace.TraceContext;
 import common.trace.TraceInterceptor;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.CorruptedFrameException;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import server.provider.ServiceDispatchTable;
 import server.provider.ServiceProvider;
-import server.provider.ratelimit.RateLimit;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
 
 @AllArgsConstructor
 public class NettyServerHandler extends SimpleChannelInboundHandler<Object> {
     private static final Logger logger = LoggerFactory.getLogger(NettyServerHandler.class);
     private ServiceProvider serviceProvider;
     private java.util.concurrent.ThreadPoolExecutor threadPool;
+    // 本连接上进行中的流式调用
+    private final ServerStreams streams = ServerStreams.fromConfig();
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
         // 必须是 RawMessage
-        if (!(msg instanceof common.message.RawMessage)) {
+        if (!(msg instanceof RawMessage)) {
             logger.warn("服务端收到非RawMessage消息: {}", msg.getClass());
             return;
         }
-        common.message.RawMessage rawMessage = (common.message.RawMessage) msg;
-
-        // 1. 反序列化 RawMessage -> RpcRequest (这步必须先做，才能知道调用的哪个服务)
-        // 为了避免阻塞IO线程，我们这里需要权衡。
-        // 如果是FastService，我们假设反序列化也很快（通常是小包），或者我们只反序列化Header？
-        // 目前协议没分Header/Body，所以必须反序列化整个包。
-        // 考虑到 EchoService 这种场景，反序列化开销 < 上下文切换开销。
-        // 所以我们先在 IO 线程尝试反序列化。
-
-        try {
-            common.serializer.Serializer serializer = common.serializer.SerializerFactory
-                    .getSerializerByCode(rawMessage.getSerializerType());
-            if (serializer == null) {
-                throw new RuntimeException("不支持的序列化类型: " + rawMessage.getSerializerType());
-            }
+        RawMessage rawMessage = (RawMessage) msg;
+        if (handleStreamControl(ctx, rawMessage)) {
+            return;
+        }
+        if (rawMessage.getMessageType() == MessageType.BATCH_REQUEST.getCode()) {
+            dispatchBatch(ctx, rawMessage);
+            return;
+        }
+        dispatch(ctx, rawMessage);
+    }
 
-            Object deserialized = serializer.deserialize(rawMessage.getData(), rawMessage.getMessageType());
-            if (!(deserialized instanceof RpcRequest)) {
-                throw new RuntimeException("消息类型错误，期望RpcRequest，实际: " + deserialized.getClass());
-            }
-            RpcRequest request = (RpcRequest) deserialized;
+    /**
+     * 分发单个请求帧
+     */
+    private void dispatch(ChannelHandlerContext ctx, RawMessage rawMessage) {
+        streams.requestRead(rawMessage.getRequestId());
+        long startNanos = System.nanoTime();
 
-            // 检查是否为 FastService
-            String serviceName = request.getInterfaceName();
-            Object service = serviceProvider.getService(serviceName);
-            boolean isFastService = service != null
-                    && service.getClass().isAnnotationPresent(common.service.FastService.class);
+        // 1. 只读帧头：按服务ID查预先计算好的分发表决定执行路径，不在 IO 线程反序列化慢服务的消息体
+        ServiceDispatchTable.Entry entry = rawMessage.hasRoute()
+                ? serviceProvider.getDispatchEntry(rawMessage.getServiceId())
+                : null;
 
-            if (isFastService) {
-                // --- 快速路径：直接在 IO 线程执行 ---
-                TraceInterceptor.serverBeforeHandle(request.getTraceId(), request.getSpanId());
-                try {
-                    getResponseAsync(request).thenAccept(response -> {
-                        response.setRequestId(request.getRequestId());
-                        response.setTraceId(TraceContext.getTraceId());
-                        response.setSpanId(TraceContext.getSpanId());
-                        sendResponse(ctx, response, serializer);
-                    });
-                } finally {
-                    TraceInterceptor.serverAfterHandle();
-                }
+        try {
+            if (entry == null) {
+                // 帧头没有可用路由（v1 帧或未注册的服务ID），只能先反序列化再按接口名分发
+                DispatchStats.recordBodyRouted();
+                dispatchByBody(ctx, rawMessage);
+            } else if (entry.isFastService()) {
+                // --- 快速路径：反序列化与执行都在 IO 线程 ---
+                DispatchStats.recordInline();
+                RpcRequest request = decodeRequest(rawMessage);
+                handleRequest(ctx, request, entry);
             } else {
-                // --- 慢速路径：提交到业务线程池 ---
-                CompletableFuture.runAsync(() -> {
-                    TraceInterceptor.serverBeforeHandle(request.getTraceId(), request.getSpanId());
-                    try {
-                        getResponseAsync(request).thenAccept(response -> {
-                            response.setRequestId(request.getRequestId());
-                            response.setTraceId(TraceContext.getTraceId());
-                            response.setSpanId(TraceContext.getSpanId());
-                            sendResponse(ctx, response, serializer);
-                        });
-                    } finally {
-                        TraceInterceptor.serverAfterHandle();
-                    }
-                }, threadPool);
+                // --- 慢速路径：消息体的反序列化连同执行一起交给业务线程池 ---
+                DispatchStats.recordOffloaded();
+                offload(ctx, rawMessage, entry);
             }
-
         } catch (Exception e) {
             logger.error("请求处理失败", e);
-            RpcResponse errorResponse = RpcResponse.fail(500, "服务端处理异常: " + e.getMessage());
-            ctx.writeAndFlush(errorResponse);
+            sendError(ctx, rawMessage.getRequestId(), 500, "服务端处理异常: " + e.getMessage());
+        } finally {
+            DispatchStats.recordEventLoopNanos(System.nanoTime() - startNanos);
         }
     }
 
-    private void sendResponse(ChannelHandlerContext ctx, RpcResponse response,
-            common.serializer.Serializer serializer) {
-        try {
-            byte[] responseBytes = serializer.serialize(response);
-            common.message.RawMessage responseRaw = new common.message.RawMessage(
-                    (short) common.message.MessageType.RESPONSE.getCode(),
-                    (short) serializer.getType(),
-                    responseBytes);
-            ctx.writeAndFlush(responseRaw);
-        } catch (Exception e) {
-            logger.error("序列化响应失败", e);
+    /**
+     * 处理客户端的流控制帧（信用、取消），直接在 IO 线程完成
+     *
+     * @return 是否为流控制帧
+     */
+    private boolean handleStreamControl(ChannelHandlerContext ctx, RawMessage rawMessage) {
+        short messageType = rawMessage.getMessageType();
+        if (messageType == MessageType.STREAM_CREDIT.getCode()) {
+            if (rawMessage.content().readableBytes() < Long.BYTES) {
+                logger.warn("流信用帧缺少需求字段，忽略: {}", rawMessage.getRequestId());
+            } else {
+                streams.credit(ctx, rawMessage.getRequestId(),
+                        rawMessage.content().getLong(rawMessage.content().readerIndex()));
+            }
+            return true;
+        }
+        if (messageType == MessageType.STREAM_CANCEL.getCode()) {
+            streams.cancel(rawMessage.getRequestId());
+            return true;
         }
+        return false;
     }
 
-    @Override
-    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
-        logger.error("服务端处理请求时出错: {}", cause.getMessage(), cause);
-        ctx.close();
+    /**
+     * 拆开批量请求帧，批内请求按与单个请求帧相同的路径逐个分发：慢服务的请求各自提交业务线程池并行执行，
+     * 响应分别写回（由写合并处理器合并 flush）。批内请求的消息体是批量帧消息体的切片，不拷贝。
+     */
+    private void dispatchBatch(ChannelHandlerContext ctx, RawMessage batch) {
+        ByteBuf body = batch.content();
+        int index = body.readerIndex();
+        int end = body.writerIndex();
+        if (end - index < Integer.BYTES) {
+            throw new CorruptedFrameException("批量请求帧缺少请求数");
+        }
+        int count = body.getInt(index);
+        index += Integer.BYTES;
+        DispatchStats.recordBatch(count);
+        for (int i = 0; i < count; i++) {
+            if (end - index < ProtocolConstants.BATCH_ITEM_HEADER_LENGTH) {
+                throw new CorruptedFrameException("批量请求帧长度不足，请求数: " + count);
+            }
+            long requestId = body.getLong(index);
+            int serviceId = body.getInt(index + 8);
+            int methodId = body.getInt(index + 12);
+            int length = body.getInt(index + 16);
+            index += ProtocolConstants.BATCH_ITEM_HEADER_LENGTH;
+            if (length < 0 || end - index < length) {
+                throw new CorruptedFrameException("批量请求帧中的请求长度非法: " + length);
+            }
+            RawMessage request = new RawMessage(batch.getVersion(), (byte) 0, (short) MessageType.REQUEST.getCode(),
+                    batch.getSerializerType(), requestId, serviceId, methodId, body.retainedSlice(index, length));
+            index += length;
+            try {
+                dispatch(ctx, request);
+            } finally {
+                request.release();
+            }
+        }
     }
 
     /**
-     * 异步获取服务响应
+     * 将消息体交给业务线程池反序列化并执行
+     * 消息体需跨线程使用，先 retain，在任务结束时 release；channelRead0 返回时的自动 release 与之抵消
      */
-    private CompletableFuture<RpcResponse> getResponseAsync(RpcRequest rpcRequest) {
-        // 获取服务名
-        String serviceName = rpcRequest.getInterfaceName();
+    private void offload(ChannelHandlerContext ctx, RawMessage rawMessage, ServiceDispatchTable.Entry entry) {
+        rawMessage.retain();
+        try {
+            threadPool.execute(() -> {
+                try {
+                    handleRequest(ctx, decodeRequest(rawMessage), entry);
+                } catch (Exception e) {
+                    logger.error("请求处理失败", e);
+                    sendError(ctx, rawMessage.getRequestId(), 500, "服务端处理异常: " + e.getMessage());
+                } finally {
+                    rawMessage.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rawMessage.release();
+            logger.warn("业务线程池已满，拒绝请求: {}", rawMessage.getRequestId());
+            sendError(ctx, rawMessage.getRequestId(), 503, "服务端繁忙");
+        }
+    }
+
+    /**
+     * 兼容路径：先在 IO 线程反序列化，再按接口名查找服务并判断是否为 FastService
+     */
+    private void dispatchByBody(ChannelHandlerContext ctx, RawMessage rawMessage) {
+        RpcRequest request = decodeRequest(rawMessage);
+        Object service = serviceProvider.getService(request.getInterfaceName());
+        boolean isFastService = service != null
+                && service.getClass().isAnnotationPresent(FastService.class);
 
-        // 得到服务对应限流器
-        RateLimit rateLimit = serviceProvider.getRateLimit(serviceName);
-        if (!rateLimit.getToken()) {
-            logger.warn("服务" + serviceName + "限流器被触发");
-            return CompletableFuture.completedFuture(RpcResponse.fail(429, "服务限流"));
+        if (isFastService) {
+            handleRequest(ctx, request, null);
+        } else {
+            CompletableFuture.runAsync(() -> handleRequest(ctx, request, null), threadPool);
         }
+    }
 
-        // 得到服务端相应实现类
-        Object service = serviceProvider.getService(serviceName);
+    private RpcRequest decodeRequest(RawMessage rawMessage) {
+        Serializer serializer = SerializerFactory.getSerializerByCode(rawMessage.getSerializerType());
+        if (serializer == null) {
+            throw new RuntimeException("不支持的序列化类型: " + rawMessage.getSerializerType());
+        }
 
-        try {
-            // 获取方法对象
-            Method method = service.getClass().getMethod(
-                    rpcRequest.getMethodName(), rpcRequest.getParamsType());
-
-            // 通过 ServiceInvoker 调用方法 (替代反射)
-            Object invoke = serviceProvider.getServiceInvoker().invoke(service, method, rpcRequest.getParams());
-
-            // 如果返回值是 CompletableFuture，异步等待
-            if (invoke instanceof CompletableFuture) {
-                return ((CompletableFuture<?>) invoke).thenApply(result -> {
-                    return buildSuccessResponse(result);
-                }).exceptionally(ex -> {
-                    logger.error("服务端执行异步方法时出错", ex);
-                    return RpcResponse.fail(500, "服务端执行异步方法时出错: " + ex.getMessage());
-                });
+        // 直接读取消息体缓冲区，不拷贝成 byte[]
+        Object deserialized = serializer.deserialize(rawMessage.content().nioBuffer(),
+                rawMessage.getMessageType());
+        if (!(deserialized instanceof RpcRequest)) {
+            throw new RuntimeException("消息类型错误，期望RpcRequest，实际: "
+                    + (deserialized == null ? null : deserialized.getClass()));
+        }
+        RpcRequest request = (RpcRequest) deserialized;
+        // 帧头字段不在消息体中，从 RawMessage 回填
+        request.setSequenceId(rawMessage.getRequestId());
+        request.setServiceId(rawMessage.getServiceId());
+        request.setMethodId(rawMessage.getMethodId());
+        if (request.getInterfaceName() == null && rawMessage.hasRoute()) {
+            // 客户端已收到过该签名的确认，消息体省略了签名，按帧头的ID 从分发表补齐
+            ServiceDispatchTable.Entry entry = serviceProvider.getDispatchEntry(rawMessage.getServiceId());
+            if (entry == null || !entry.fillSignature(request)) {
+                throw new RuntimeException("请求省略了服务签名，但服务端没有对应的方法: serviceId="
+                        + rawMessage.getServiceId() + ", methodId=" + rawMessage.getMethodId());
             }
+        }
+        return request;
+    }
 
-            // 同步方法，直接返回
-            return CompletableFuture.completedFuture(buildSuccessResponse(invoke));
-
-        } catch (Exception e) {
-            logger.error("服务端执行方法时出错: {}", e.getMessage(), e);
-            return CompletableFuture.completedFuture(RpcResponse.fail(500, "服务端执行方法时出错: " + e.getMessage()));
+    private void handleRequest(ChannelHandlerContext ctx, RpcRequest request, ServiceDispatchTable.Entry entry) {
+        TraceInterceptor.serverBeforeHandle(request.getTraceId(), request.getSpanId());
+        try {
+            serviceProvider.invoke(request, entry).thenAccept(response -> {
+                if (response.getData() instanceof Flow.Publisher) {
+                    startStream(ctx, request, entry, (Flow.Publisher<?>) response.getData());
+                    return;
+                }
+                response.setRequestId(request.getRequestId());
+                response.setSequenceId(request.getSequenceId());
+                if (entry != null && entry.getInterfaceName().equals(request.getInterfaceName())
+                        && entry.getMethod(request.getMethodId()) != null) {
+                    // 帧头路由命中分发表：在响应帧头回显路由ID，确认客户端之后可以省略该签名
+                    response.setServiceId(request.getServiceId());
+                    response.setMethodId(request.getMethodId());
+                }
+                response.setTraceId(TraceContext.getTraceId());
+                response.setSpanId(TraceContext.getSpanId());
+                sendResponse(ctx, response);
+            });
+        } finally {
+            TraceInterceptor.serverAfterHandle();
         }
     }
 
     /**
-     * 构建成功响应
+     * 服务方法返回了 Flow.Publisher：订阅它并按客户端信用逐个写出元素，结束时写出普通响应帧
+     * 流元素依赖帧头的请求ID 归属到调用，只支持 v2 协议
      */
-    private RpcResponse buildSuccessResponse(Object invoke) {
-        // 如果返回值是Result类型，根据Result状态转换为RpcResponse
-        if (invoke instanceof Result) {
-            Result<?> result = (Result<?>) invoke;
-            if (result.isSuccess()) {
-                return RpcResponse.success(result.getData());
-            } else {
-                return RpcResponse.fail(result.getCode(), result.getMessage());
+    private void startStream(ChannelHandlerContext ctx, RpcRequest request, ServiceDispatchTable.Entry entry,
+                             Flow.Publisher<?> publisher) {
+        long sequenceId = request.getSequenceId();
+        if (sequenceId == 0) {
+            // v1 客户端按消息体中的 requestId 关联响应
+            RpcResponse response = RpcResponse.fail(400, "流式调用需要 v2 协议");
+            response.setRequestId(request.getRequestId());
+            sendResponse(ctx, response);
+            return;
+        }
+        ServerStream stream = streams.open(ctx, sequenceId);
+        if (stream == null) {
+            // 流数量超过上限，或客户端已取消（其在途请求已结束，回复会被忽略）；连接已关闭时不再回复
+            if (!ctx.channel().isActive()) {
+                return;
             }
-        } else {
-            return RpcResponse.success(invoke);
+            sendError(ctx, sequenceId, 503, "流式调用数量超过上限或已被取消");
+            return;
         }
+        // @FastService 的发布者在 IO 线程上被请求元素，其余交给业务线程池
+        stream.start(publisher, entry != null && entry.isFastService() ? null : threadPool);
+    }
+
+    private void sendError(ChannelHandlerContext ctx, long sequenceId, int code, String message) {
+        streams.discard(sequenceId);
+        RpcResponse errorResponse = RpcResponse.fail(code, message);
+        errorResponse.setSequenceId(sequenceId);
+        ctx.writeAndFlush(errorResponse);
+    }
+
+    private void sendResponse(ChannelHandlerContext ctx, RpcResponse response) {
+        streams.discard(response.getSequenceId());
+        // 直接写出 RpcResponse，由 Encoder 一次性序列化进池化缓冲区，不再预先生成 byte[]
+        ctx.writeAndFlush(response).addListener(future -> {
+            if (!future.isSuccess()) {
+                logger.error("序列化或发送响应失败", future.cause());
+            }
+        });
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        streams.cancelAll();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        logger.error("服务端处理请求时出错: {}", cause.getMessage(), cause);
+        ctx.close();
     }
 }
@@ -0,0 +1,169 @@
+package server.netty.handler;
+
+import common.message.RpcResponse;
+import common.message.StreamFrame;
+import io.netty.channel.ChannelHandlerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务端的一次流式调用：订阅服务方法返回的 Flow.Publisher，把元素写成 STREAM_ITEM 帧，结束时写一个 RESPONSE 帧
+ *
+ * 背压：客户端 STREAM_CREDIT 帧带来的需求累加后转成 subscription.request(n)，服务端不会主动多取元素，
+ * 出站缓冲区中该流的元素数不超过客户端给出的需求。信用可能先于请求本身被处理（请求在业务线程执行），
+ * 此时先累加，订阅建立后再一并请求。
+ *
+ * request/cancel 通过 wip 计数串行执行（Reactive Streams 要求对 Subscription 的调用串行），
+ * 在业务线程池上执行（@FastService 在调用线程上执行），发布者在 request 中同步产生元素时不占用 IO 线程。
+ */
+class ServerStream implements Flow.Subscriber<Object> {
+    private static final Logger logger = LoggerFactory.getLogger(ServerStream.class);
+
+    private final ChannelHandlerContext ctx;
+    private final long sequenceId;
+    private final ServerStreams owner;
+
+    private volatile Executor executor;
+    // 是否已订阅发布者；未订阅的是信用或取消帧先到而登记的占位
+    private volatile boolean started;
+    private volatile Flow.Subscription subscription;
+    // 尚未转交给 subscription 的需求
+    private final AtomicLong credit = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private boolean subscriptionCancelled;
+    // 是否已结束（已写出结束帧或被取消），之后的信号被忽略
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    ServerStream(ChannelHandlerContext ctx, long sequenceId, ServerStreams owner) {
+        this.ctx = ctx;
+        this.sequenceId = sequenceId;
+        this.owner = owner;
+    }
+
+    /**
+     * 订阅发布者
+     *
+     * @param executor 执行 request/cancel 的线程池，为 null 时在调用线程上执行
+     */
+    void start(Flow.Publisher<?> publisher, Executor executor) {
+        this.executor = executor;
+        this.started = true;
+        publisher.subscribe(this);
+    }
+
+    boolean isStarted() {
+        return started;
+    }
+
+    void addCredit(long n) {
+        if (n <= 0) {
+            return;
+        }
+        credit.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+        schedule();
+    }
+
+    /**
+     * 客户端取消或连接关闭：取消订阅，不再写出任何帧
+     */
+    void cancel() {
+        cancelled = true;
+        done.set(true);
+        schedule();
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        schedule();
+    }
+
+    @Override
+    public void onNext(Object item) {
+        if (done.get()) {
+            return;
+        }
+        ctx.writeAndFlush(StreamFrame.item(sequenceId, item)).addListener(future -> {
+            if (!future.isSuccess()) {
+                logger.warn("写出流元素失败，取消流 {}: {}", sequenceId, future.cause().getMessage());
+                owner.remove(sequenceId, this);
+                cancel();
+            }
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        logger.error("服务端流执行出错: {}", sequenceId, throwable);
+        finish(RpcResponse.fail(500, "服务端流执行出错: " + throwable.getMessage()));
+    }
+
+    @Override
+    public void onComplete() {
+        finish(RpcResponse.success(null));
+    }
+
+    private void finish(RpcResponse response) {
+        if (!done.compareAndSet(false, true)) {
+            return;
+        }
+        owner.remove(sequenceId, this);
+        response.setSequenceId(sequenceId);
+        ctx.writeAndFlush(response);
+    }
+
+    private void schedule() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        Executor current = executor;
+        if (current == null) {
+            drain();
+            return;
+        }
+        try {
+            current.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // 线程池已满时在当前线程转交需求，避免流因丢失信用而停滞
+            drain();
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        do {
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                if (cancelled) {
+                    credit.set(0);
+                    if (!subscriptionCancelled) {
+                        subscriptionCancelled = true;
+                        s.cancel();
+                    }
+                } else {
+                    long n = credit.getAndSet(0);
+                    if (n > 0) {
+                        s.request(n);
+                    }
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
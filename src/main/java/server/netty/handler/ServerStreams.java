@@ -0,0 +1,129 @@
+package server.netty.handler;
+
+import common.util.AppConfig;
+import io.netty.channel.ChannelHandlerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单个连接上进行中的流式调用，<请求ID，流>
+ * 客户端在请求帧之前发出首个信用帧，服务端此时尚未读到请求，先登记一个占位的流，
+ * 请求在业务线程执行期间到达的信用与取消都记在占位上；请求最终没有返回 Flow.Publisher 时，
+ * 写出普通响应的同时移除占位。
+ * 请求ID 在连接内单调递增：已读到请求却找不到流的控制帧属于已经结束的调用，直接忽略，不会残留占位。
+ *
+ * 配置项：
+ * - rpc.server.stream.maxPerConnection：单个连接上同时进行的流式调用上限，默认 1024
+ */
+class ServerStreams {
+    private static final Logger logger = LoggerFactory.getLogger(ServerStreams.class);
+
+    private final Map<Long, ServerStream> streams = new ConcurrentHashMap<>();
+    private final int maxStreams;
+    // IO 线程上读到的最大请求ID，只在 IO 线程访问
+    private long lastRequestId;
+
+    ServerStreams(int maxStreams) {
+        this.maxStreams = maxStreams;
+    }
+
+    static ServerStreams fromConfig() {
+        return new ServerStreams(AppConfig.getInt("rpc.server.stream.maxPerConnection", 1024));
+    }
+
+    /**
+     * 为返回 Flow.Publisher 的请求获取流（可能已有信用帧先到而创建的占位）
+     *
+     * @return 流；超过上限或客户端已取消时返回 null
+     */
+    ServerStream open(ChannelHandlerContext ctx, long sequenceId) {
+        ServerStream stream = streams.get(sequenceId);
+        if (stream == null) {
+            return create(ctx, sequenceId);
+        }
+        if (stream.isCancelled()) {
+            streams.remove(sequenceId, stream);
+            return null;
+        }
+        return stream;
+    }
+
+    /**
+     * IO 线程读到一个请求帧
+     */
+    void requestRead(long sequenceId) {
+        if (sequenceId > lastRequestId) {
+            lastRequestId = sequenceId;
+        }
+    }
+
+    /**
+     * IO 线程读到信用帧
+     */
+    void credit(ChannelHandlerContext ctx, long sequenceId, long n) {
+        ServerStream stream = streams.get(sequenceId);
+        if (stream == null) {
+            if (sequenceId <= lastRequestId) {
+                logger.debug("流已结束，忽略信用帧: {}", sequenceId);
+                return;
+            }
+            stream = create(ctx, sequenceId);
+        }
+        if (stream != null) {
+            stream.addCredit(n);
+        }
+    }
+
+    /**
+     * IO 线程读到取消帧：已开始的流立即移除；占位标记为已取消，请求执行完后不再订阅
+     */
+    void cancel(long sequenceId) {
+        ServerStream stream = streams.get(sequenceId);
+        if (stream == null) {
+            return;
+        }
+        stream.cancel();
+        if (stream.isStarted()) {
+            streams.remove(sequenceId, stream);
+        }
+    }
+
+    /**
+     * 请求以普通响应结束时移除可能存在的占位
+     */
+    void discard(long sequenceId) {
+        if (!streams.isEmpty()) {
+            streams.remove(sequenceId);
+        }
+    }
+
+    void remove(long sequenceId, ServerStream stream) {
+        streams.remove(sequenceId, stream);
+    }
+
+    /**
+     * 连接关闭：取消所有流
+     */
+    void cancelAll() {
+        for (ServerStream stream : streams.values()) {
+            stream.cancel();
+        }
+        streams.clear();
+    }
+
+    int size() {
+        return streams.size();
+    }
+
+    private ServerStream create(ChannelHandlerContext ctx, long sequenceId) {
+        if (streams.size() >= maxStreams) {
+            logger.warn("连接 {} 上的流式调用数达到上限 {}，忽略流 {}", ctx.channel().remoteAddress(), maxStreams,
+                    sequenceId);
+            return null;
+        }
+        return streams.computeIfAbsent(sequenceId, id -> new ServerStream(ctx, id, this));
+    }
+}
@@ -2,33 +2,54 @@ package server.netty.initializer;
 
 import common.Decoder;
 import common.Encoder;
+import common.chunk.ChunkedFrameWriter;
+import common.FlushCoalescingHandler;
+import common.message.ProtocolConstants;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.socket.SocketChannel;
 import lombok.AllArgsConstructor;
+import io.netty.handler.timeout.IdleStateHandler;
+import server.netty.handler.IdleConnectionHandler;
 import server.netty.handler.NettyServerHandler;
 import server.provider.ServiceProvider;
 
 @AllArgsConstructor
-public class NettyServerInitializer extends ChannelInitializer<SocketChannel> {
+public class NettyServerInitializer extends ChannelInitializer<Channel> {
     private ServiceProvider serviceProvider;
     private java.util.concurrent.ThreadPoolExecutor threadPool;
 
     @Override
-    protected void initChannel(SocketChannel ch) {
+    protected void initChannel(Channel ch) {
         ChannelPipeline pipeline = ch.pipeline();
+        // 写合并放在最前：合并同一读循环/事件循环 tick 内的 flush，并按编码后的字节数计算预算
+        FlushCoalescingHandler flushCoalescing = FlushCoalescingHandler.fromConfig("rpc.server",
+                FlushCoalescingHandler.SERVER_STATS);
+        if (flushCoalescing != null) {
+            pipeline.addLast(flushCoalescing);
+        }
+        // 超过单帧上限的消息在编码后拆成分片帧，按可写性逐个写出
+        pipeline.addLast(ChunkedFrameWriter.fromConfig());
+        // 空闲连接回收：检测放在拆包之前，分片帧与半个帧的读取同样算作连接活跃
+        IdleStateHandler idleStateHandler = IdleConnectionHandler.newIdleStateHandler();
+        if (idleStateHandler != null) {
+            pipeline.addLast(idleStateHandler);
+        }
         // 使用 LengthFieldBasedFrameDecoder 处理粘包/拆包
-        // maxFrameLength: 1MB
-        // lengthFieldOffset: 4 (消息类型2字节 + 序列化类型2字节)
-        // lengthFieldLength: 4 (数据长度4字节)
+        // maxFrameLength: 1MB（更大的消息以分片帧传输，由 Decoder 拼接）
+        // lengthFieldOffset: 4 (v1: 消息类型2字节 + 序列化类型2字节; v2: 魔数2字节 + 版本1字节 + 标志位1字节)
+        // lengthFieldLength: 4 (v1: 数据长度; v2: 扩展头部 + 数据长度)
         // lengthAdjustment: 0
         // initialBytesToStrip: 0 (保留所有头部信息给Decoder处理)
-        pipeline.addLast(new io.netty.handler.codec.LengthFieldBasedFrameDecoder(1024 * 1024, 4, 4, 0, 0));
+        pipeline.addLast(new io.netty.handler.codec.LengthFieldBasedFrameDecoder(ProtocolConstants.MAX_FRAME_LENGTH,
+                ProtocolConstants.LENGTH_FIELD_OFFSET, ProtocolConstants.LENGTH_FIELD_LENGTH, 0, 0));
 
         // 使用自定义编解码器
         // 编解码器内部通过规约写入流的顺序构建协议体
         pipeline.addLast(new Decoder());
         pipeline.addLast(new Encoder(2));// protobuf
+        // 应答心跳，读空闲超时时关闭连接
+        pipeline.addLast(new IdleConnectionHandler());
         // 业务逻辑处理
         pipeline.addLast(new NettyServerHandler(serviceProvider, threadPool));
     }
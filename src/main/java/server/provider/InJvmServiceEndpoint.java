@@ -0,0 +1,91 @@
+package server.provider;
+
+import common.message.ProtocolConstants;
+import common.message.RpcRequest;
+import common.message.RpcResponse;
+import common.trace.TraceContext;
+import common.trace.TraceInterceptor;
+import common.transport.InJvmRegistry;
+import common.util.HashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 服务提供方的进程内端点
+ * 与 NettyServerHandler 的处理一致：按服务ID查分发表，@FastService 在调用线程直接执行，
+ * 其余提交业务线程池（未设置线程池时在调用线程执行）；限流与服务端 span 的生成也与网络请求相同。
+ */
+class InJvmServiceEndpoint implements InJvmRegistry.Endpoint {
+    private static final Logger logger = LoggerFactory.getLogger(InJvmServiceEndpoint.class);
+
+    private final ServiceProvider serviceProvider;
+    private final InetSocketAddress address;
+
+    InJvmServiceEndpoint(ServiceProvider serviceProvider, InetSocketAddress address) {
+        this.serviceProvider = serviceProvider;
+        this.address = address;
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    @Override
+    public CompletableFuture<RpcResponse> invoke(RpcRequest request) {
+        // 路由ID 与 Encoder 写入帧头的计算方式相同
+        if (request.getServiceId() == ProtocolConstants.UNKNOWN_ROUTE_ID) {
+            request.setServiceId(HashUtil.serviceRouteId(request.getInterfaceName()));
+        }
+        if (request.getMethodId() == ProtocolConstants.UNKNOWN_ROUTE_ID) {
+            request.setMethodId(HashUtil.methodRouteId(request.getMethodName(), request.getParamsType()));
+        }
+        ServiceDispatchTable.Entry entry = serviceProvider.getDispatchEntry(request.getServiceId());
+
+        Executor executor = serviceProvider.getBusinessExecutor();
+        if (executor == null || (entry != null && entry.isFastService())) {
+            return handle(request, entry);
+        }
+
+        CompletableFuture<RpcResponse> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> handle(request, entry).whenComplete((response, e) -> {
+                if (e != null) {
+                    future.completeExceptionally(e);
+                } else {
+                    future.complete(response);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            logger.warn("业务线程池已满，拒绝进程内请求: {}", request.getInterfaceName());
+            future.complete(RpcResponse.fail(503, "服务端繁忙"));
+        }
+        return future;
+    }
+
+    private CompletableFuture<RpcResponse> handle(RpcRequest request, ServiceDispatchTable.Entry entry) {
+        // 可能在调用方线程上执行：服务端 span 结束时会清空追踪上下文，需保存并恢复调用方的上下文
+        String callerTraceId = TraceContext.getTraceId();
+        String callerSpanId = TraceContext.getSpanId();
+        TraceInterceptor.serverBeforeHandle(request.getTraceId(), request.getSpanId());
+        try {
+            String traceId = TraceContext.getTraceId();
+            String spanId = TraceContext.getSpanId();
+            return serviceProvider.invoke(request, entry).thenApply(response -> {
+                response.setRequestId(request.getRequestId());
+                response.setTraceId(traceId);
+                response.setSpanId(spanId);
+                return response;
+            });
+        } finally {
+            TraceInterceptor.serverAfterHandle();
+            TraceContext.setTraceId(callerTraceId);
+            TraceContext.setSpanId(callerSpanId);
+        }
+    }
+}
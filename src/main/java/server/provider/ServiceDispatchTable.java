@@ -0,0 +1,117 @@
+package server.provider;
+
+import common.message.RpcRequest;
+import common.service.FastService;
+import common.util.HashUtil;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 服务分发表
+ * 在服务注册时按帧头中的服务ID/方法ID 预先计算好路由信息，
+ * 使 IO 线程只读帧头即可决定执行路径（IO 线程直接执行 / 提交业务线程池），无需先反序列化消息体。
+ *
+ * 路由ID 由 {@link HashUtil#serviceRouteId(String)} 与 {@link HashUtil#methodRouteId(String, Class[])}
+ * 计算，注册时检测哈希冲突，冲突时拒绝注册，避免请求被路由到错误的服务。
+ */
+public class ServiceDispatchTable {
+    private static final Logger logger = LoggerFactory.getLogger(ServiceDispatchTable.class);
+
+    // <服务ID，分发条目>
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 注册一个服务接口及其实现
+     *
+     * @param serviceInterface 对外暴露的接口
+     * @param service          接口实现类实例
+     */
+    public void register(Class<?> serviceInterface, Object service) {
+        String interfaceName = serviceInterface.getName();
+        int serviceId = HashUtil.serviceRouteId(interfaceName);
+
+        Entry existing = entries.get(serviceId);
+        if (existing != null && !existing.getInterfaceName().equals(interfaceName)) {
+            throw new IllegalStateException("服务路由ID冲突: " + interfaceName + " 与 "
+                    + existing.getInterfaceName() + " 的服务ID均为 " + serviceId);
+        }
+
+        Map<Integer, Method> methods = new HashMap<>();
+        for (Method interfaceMethod : serviceInterface.getMethods()) {
+            int methodId = HashUtil.methodRouteId(interfaceMethod.getName(), interfaceMethod.getParameterTypes());
+            Method implMethod;
+            try {
+                // 与按名称查找保持一致：调用的是实现类上的方法对象
+                implMethod = service.getClass().getMethod(interfaceMethod.getName(),
+                        interfaceMethod.getParameterTypes());
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("实现类缺少接口方法: " + interfaceMethod, e);
+            }
+            Method previous = methods.put(methodId, implMethod);
+            if (previous != null && !previous.equals(implMethod)) {
+                throw new IllegalStateException("方法路由ID冲突: " + interfaceName + "#" + implMethod.getName()
+                        + " 与 " + previous.getName());
+            }
+        }
+
+        boolean fastService = service.getClass().isAnnotationPresent(FastService.class);
+        entries.put(serviceId, new Entry(interfaceName, service, fastService, methods));
+        logger.debug("服务分发表注册: {} -> serviceId={}, 方法数={}, fastService={}",
+                interfaceName, serviceId, methods.size(), fastService);
+    }
+
+    /**
+     * 按帧头中的服务ID查找分发条目
+     *
+     * @return 对应条目，未注册时返回 null
+     */
+    public Entry lookup(int serviceId) {
+        return entries.get(serviceId);
+    }
+
+    /**
+     * 分发条目，注册后不再修改，可在 IO 线程与业务线程间安全共享
+     */
+    @Getter
+    public static final class Entry {
+        private final String interfaceName;
+        private final Object service;
+        // 实现类标注了 @FastService 时在 IO 线程直接执行
+        private final boolean fastService;
+        // <方法ID，实现类方法>
+        private final Map<Integer, Method> methods;
+
+        Entry(String interfaceName, Object service, boolean fastService, Map<Integer, Method> methods) {
+            this.interfaceName = interfaceName;
+            this.service = service;
+            this.fastService = fastService;
+            this.methods = methods;
+        }
+
+        public Method getMethod(int methodId) {
+            return methods.get(methodId);
+        }
+
+        /**
+         * 为省略了服务签名的请求补齐接口名、方法名与参数类型，见 common.message.SignatureDictionary
+         *
+         * @return 方法ID 未注册时返回 false，请求不被修改
+         */
+        public boolean fillSignature(RpcRequest request) {
+            Method method = methods.get(request.getMethodId());
+            if (method == null) {
+                return false;
+            }
+            request.setInterfaceName(interfaceName);
+            request.setMethodName(method.getName());
+            request.setParamsType(method.getParameterTypes());
+            return true;
+        }
+    }
+}
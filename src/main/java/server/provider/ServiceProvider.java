@@ -1,15 +1,26 @@
 package server.provider;
 
+import common.message.RpcRequest;
+import common.message.RpcResponse;
+import common.result.Result;
+import common.transport.InJvmRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import server.provider.ratelimit.RateLimit;
 import server.provider.ratelimit.RateLimitProvider; // 导入我们的单例类
 import server.serviceRegister.ServiceRegister;
 import server.serviceRegister.impl.ZKServiceRegister;
 
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class ServiceProvider {
+    private static final Logger logger = LoggerFactory.getLogger(ServiceProvider.class);
+
     // 存放服务实例，<接口全限定名，接口实现类实例>
     private Map<String, Object> interfaceProvider;
 
@@ -20,11 +31,25 @@ public class ServiceProvider {
 
     private ServiceInvoker serviceInvoker;
 
+    // 按帧头路由ID预先计算的分发表
+    private final ServiceDispatchTable dispatchTable = new ServiceDispatchTable();
+
+    // 同进程内的客户端直接调用的端点，首次注册服务时创建
+    private volatile InJvmServiceEndpoint inJvmEndpoint;
+
+    // 非 FastService 的执行线程池，由服务器启动时设置；进程内调用同样使用它
+    private volatile Executor businessExecutor;
+
     public ServiceProvider(String host, int port) {
+        this(host, port, new ZKServiceRegister());
+    }
+
+    // 使用指定的注册中心，例如不依赖 Zookeeper 的进程内注册表
+    public ServiceProvider(String host, int port, ServiceRegister serviceRegister) {
         this.host = host;
         this.port = port;
         this.interfaceProvider = new HashMap<>();
-        this.serviceRegister = new ZKServiceRegister();
+        this.serviceRegister = serviceRegister;
         this.serviceInvoker = new LambdaMetafactoryInvoker();
     }
 
@@ -36,6 +61,8 @@ public class ServiceProvider {
             interfaceProvider.put(
                     clazz.getName(),
                     service);// 将接口的全限定名和对应服务实例注册到map中
+            dispatchTable.register(clazz, service);
+            InJvmRegistry.INSTANCE.register(clazz.getName(), inJvmEndpoint());
             serviceRegister.register(
                     clazz.getName(),
                     new InetSocketAddress(host, port),
@@ -48,6 +75,11 @@ public class ServiceProvider {
         return interfaceProvider.get(serviceName);
     }
 
+    // 按帧头中的服务ID获取分发条目
+    public ServiceDispatchTable.Entry getDispatchEntry(int serviceId) {
+        return dispatchTable.lookup(serviceId);
+    }
+
     // 获取对应限流器
     public RateLimit getRateLimit(String serviceName) {
         // 直接通过 RateLimitProvider.INSTANCE 访问单例实例
@@ -57,4 +89,100 @@ public class ServiceProvider {
     public ServiceInvoker getServiceInvoker() {
         return serviceInvoker;
     }
+
+    public Executor getBusinessExecutor() {
+        return businessExecutor;
+    }
+
+    public void setBusinessExecutor(Executor businessExecutor) {
+        this.businessExecutor = businessExecutor;
+    }
+
+    // 从进程内注册表注销本提供方的所有服务（服务器停止时调用）
+    public void unregisterInJvm() {
+        InJvmServiceEndpoint endpoint = inJvmEndpoint;
+        if (endpoint != null) {
+            InJvmRegistry.INSTANCE.unregister(endpoint);
+        }
+    }
+
+    // 不在构造函数中创建，避免端点引用尚未构造完成的 this
+    private InJvmServiceEndpoint inJvmEndpoint() {
+        InJvmServiceEndpoint endpoint = inJvmEndpoint;
+        if (endpoint == null) {
+            endpoint = new InJvmServiceEndpoint(this, new InetSocketAddress(host, port));
+            inJvmEndpoint = endpoint;
+        }
+        return endpoint;
+    }
+
+    /**
+     * 限流后执行请求，网络请求与进程内调用共用
+     *
+     * @param rpcRequest 请求
+     * @param entry      帧头路由得到的分发条目，为 null 或与接口名不一致时按名称查找服务与方法
+     */
+    public CompletableFuture<RpcResponse> invoke(RpcRequest rpcRequest, ServiceDispatchTable.Entry entry) {
+        // 获取服务名
+        String serviceName = rpcRequest.getInterfaceName();
+
+        // 得到服务对应限流器
+        RateLimit rateLimit = getRateLimit(serviceName);
+        if (!rateLimit.getToken()) {
+            logger.warn("服务" + serviceName + "限流器被触发");
+            return CompletableFuture.completedFuture(RpcResponse.fail(429, "服务限流"));
+        }
+
+        // 分发条目与消息体中的接口名一致时直接复用预先解析的服务与方法，否则回退到按名称查找
+        boolean routed = entry != null && entry.getInterfaceName().equals(serviceName);
+
+        // 得到服务端相应实现类
+        Object service = routed ? entry.getService() : getService(serviceName);
+
+        try {
+            // 获取方法对象
+            Method method = routed ? entry.getMethod(rpcRequest.getMethodId()) : null;
+            if (method == null) {
+                method = service.getClass().getMethod(
+                        rpcRequest.getMethodName(), rpcRequest.getParamsType());
+            }
+
+            // 通过 ServiceInvoker 调用方法 (替代反射)
+            Object invoke = serviceInvoker.invoke(service, method, rpcRequest.getParams());
+
+            // 如果返回值是 CompletableFuture，异步等待
+            if (invoke instanceof CompletableFuture) {
+                return ((CompletableFuture<?>) invoke).thenApply(result -> {
+                    return buildSuccessResponse(result);
+                }).exceptionally(ex -> {
+                    logger.error("服务端执行异步方法时出错", ex);
+                    return RpcResponse.fail(500, "服务端执行异步方法时出错: " + ex.getMessage());
+                });
+            }
+
+            // 同步方法，直接返回
+            return CompletableFuture.completedFuture(buildSuccessResponse(invoke));
+
+        } catch (Exception e) {
+            logger.error("服务端执行方法时出错: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(RpcResponse.fail(500, "服务端执行方法时出错: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 构建成功响应
+     */
+    private RpcResponse buildSuccessResponse(Object invoke) {
+        // 如果返回值是Result类型，根据Result状态转换为RpcResponse
+        if (invoke instanceof Result) {
+            Result<?> result = (Result<?>) invoke;
+            if (result.isSuccess()) {
+                return RpcResponse.success(result.getData());
+            } else {
+                return RpcResponse.fail(result.getCode(), result.getMessage());
+            }
+        } else {
+            return RpcResponse.success(invoke);
+        }
+    }
 }
@@ -1,17 +1,23 @@
 package server.server.impl;
 
+import common.transport.DomainSockets;
+import common.transport.Transport;
+import common.util.AppConfig;
 import io.netty.bootstrap.ServerBootstrap;
-import io.netty.channel.ChannelFuture;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import server.netty.initializer.NettyServerInitializer;
 import server.provider.ServiceProvider;
 import server.server.RpcServer;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * NettyRPCServer 是基于 Netty 实现的 RPC 服务器。
  * 它负责启动一个 Netty 服务器，监听指定端口，并处理客户端的 RPC 请求。
@@ -39,6 +45,8 @@ public class NettyRPCServer implements RpcServer {
         java.util.concurrent.ThreadFactory threadFactory = java.util.concurrent.Executors.defaultThreadFactory();
         this.threadPool = new java.util.concurrent.ThreadPoolExecutor(corePoolSize, maximumPoolSize, keepAliveTime,
                 java.util.concurrent.TimeUnit.SECONDS, workingQueue, threadFactory);
+        // 同进程内客户端的直接调用同样在业务线程池执行非 FastService
+        serviceProvider.setBusinessExecutor(threadPool);
 
         // 启动线程池监控
         java.util.concurrent.Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
@@ -66,13 +74,21 @@ public class NettyRPCServer implements RpcServer {
          * - workGroup: 负责客户端数据的读写。连接建立后，它处理网络读写、消息编解码和业务逻辑。
          * 通常线程数较多，以支持高并发。
          */
-        bossGroup = new NioEventLoopGroup(1); // 创建 bossGroup
-        workerGroup = new NioEventLoopGroup(32); // 创建 workGroup
+        // 传输实现由 rpc.transport 选择（auto 时 Linux 上优先 epoll），IO 线程数按 CPU 数确定
+        Transport transport = Transport.fromConfig();
+        int acceptors = Math.max(1, AppConfig.getInt("rpc.server.acceptors", 1));
+        if (acceptors > 1 && !transport.supportsReusePort()) {
+            logger.warn("传输 {} 不支持 SO_REUSEPORT，acceptor 数量降为 1", transport);
+            acceptors = 1;
+        }
+        int ioThreads = Transport.ioThreads("rpc.server.ioThreads");
+        bossGroup = transport.newEventLoopGroup(acceptors, "rpc-server-boss"); // 创建 bossGroup
+        workerGroup = transport.newEventLoopGroup(ioThreads, "rpc-server-worker"); // 创建 workGroup
         try {
             // 创建 ServerBootstrap 实例，用于配置和启动服务器
             ServerBootstrap serverBootstrap = new ServerBootstrap();
             serverBootstrap.group(bossGroup, workerGroup) // 设置 bossGroup 和 workGroup
-                    .channel(NioServerSocketChannel.class) // 使用 NIO 模式
+                    .channel(transport.serverChannelClass())
                     .childHandler(new NettyServerInitializer(serviceProvider, threadPool))
                     .option(ChannelOption.SO_BACKLOG, 128)
                     .option(ChannelOption.SO_REUSEADDR, true)
@@ -80,14 +96,27 @@ public class NettyRPCServer implements RpcServer {
                     .childOption(ChannelOption.TCP_NODELAY, true) // 禁用 Nagle 算法，减少延迟
                     .childOption(ChannelOption.SO_SNDBUF, 65536) // 发送缓冲区 64KB
                     .childOption(ChannelOption.SO_RCVBUF, 65536); // 接收缓冲区 64KB
+            transport.configure(serverBootstrap, acceptors > 1);
 
-            // 绑定端口并启动服务器
-            logger.info("Netty服务端已启用");
-            ChannelFuture channelFuture = serverBootstrap.bind(port).sync();
+            // 绑定端口并启动服务器：多 acceptor 时每个监听 Channel 注册到 bossGroup 中不同的线程，
+            // 借助 SO_REUSEPORT 由内核分摊新连接
+            logger.info("Netty服务端已启用: transport={}, acceptors={}, ioThreads={}", transport, acceptors, ioThreads);
+            List<Channel> serverChannels = new ArrayList<>(acceptors);
+            for (int i = 0; i < acceptors; i++) {
+                serverChannels.add(serverBootstrap.bind(port).sync().channel());
+            }
+            this.port = port;
             logger.info("服务器已启动，监听端口: {}", port);
 
+            // 同机调用方通过 domain socket 访问，绕过 TCP 回环协议栈
+            if (DomainSockets.isServerEnabled()) {
+                serverChannels.add(bindDomainSocket(transport, DomainSockets.serverPath(port)));
+            }
+
             // 等待服务器 Channel 关闭（阻塞当前线程，直到服务器关闭）
-            channelFuture.channel().closeFuture().sync();
+            for (Channel serverChannel : serverChannels) {
+                serverChannel.closeFuture().sync();
+            }
         } catch (InterruptedException e) {
             // 处理中断异常
             logger.error("服务器启动失败: {}", e.getMessage(), e);
@@ -99,11 +128,35 @@ public class NettyRPCServer implements RpcServer {
         }
     }
 
+    /**
+     * 在 domain socket 上监听，与 TCP 监听共用线程组与处理链
+     * 启动前删除上次未清理的 socket 文件，监听关闭时删除
+     */
+    private Channel bindDomainSocket(Transport transport, String path) throws InterruptedException {
+        File socketFile = new File(path);
+        if (socketFile.exists() && !socketFile.delete()) {
+            logger.warn("无法删除残留的 socket 文件: {}", path);
+        }
+        Channel channel = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(transport.serverDomainSocketChannelClass())
+                .childHandler(new NettyServerInitializer(serviceProvider, threadPool))
+                .bind(new DomainSocketAddress(path)).sync().channel();
+        channel.closeFuture().addListener(f -> {
+            if (socketFile.exists() && !socketFile.delete()) {
+                logger.warn("无法删除 socket 文件: {}", path);
+            }
+        });
+        logger.info("服务器已监听 domain socket: {}", path);
+        return channel;
+    }
+
     /**
      * 停止服务器，优雅关闭所有资源。
      */
     @Override
     public void stop() {
+        serviceProvider.unregisterInJvm();
         try {
             // 关闭所有 EventLoopGroup
             if (bossGroup != null) {
@@ -1,5 +1,6 @@
 package server.serviceRegister.impl;
 
+import common.transport.DomainSockets;
 import common.util.AddressUtil;
 
 import org.apache.curator.RetryPolicy;
@@ -53,10 +54,20 @@ public class ZKServiceRegister implements ServiceRegister {
             }
 
             // 创建服务实例节点（临时节点）
-            client.create()
-                    .creatingParentsIfNeeded()
-                    .withMode(CreateMode.EPHEMERAL)
-                    .forPath(instancePath);
+            // 服务端同时监听 domain socket 时，在节点数据中通告 socket 路径，供同机客户端优先使用
+            if (DomainSockets.isServerEnabled()) {
+                String socketPath = DomainSockets.serverPath(serviceAddress.getPort());
+                client.create()
+                        .creatingParentsIfNeeded()
+                        .withMode(CreateMode.EPHEMERAL)
+                        .forPath(instancePath, DomainSockets.encodeRegistration(socketPath));
+                logger.info("服务 {} 通告 domain socket: {}", serviceName, socketPath);
+            } else {
+                client.create()
+                        .creatingParentsIfNeeded()
+                        .withMode(CreateMode.EPHEMERAL)
+                        .forPath(instancePath);
+            }
 
             // 如果支持 retry，创建 retry 节点（也包含唯一地址）
             if (canRetry) {
@@ -0,0 +1,159 @@
+package client.netty;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("EndpointChannelPool 节点连接池测试")
+class EndpointChannelPoolTest {
+
+    private static final int POOL_SIZE = 3;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private LocalAddress address;
+    private Bootstrap bootstrap;
+    private EndpointChannelPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        group = new DefaultEventLoopGroup(2);
+        address = new LocalAddress("pool-test-" + System.nanoTime());
+        serverChannel = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        // 服务端只需接受连接
+                    }
+                })
+                .bind(address).sync().channel();
+        // 与 NettyClientInitializer 一致：每个连接绑定自己的在途请求表
+        bootstrap = new Bootstrap().group(group).channel(LocalChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        InFlightRequests.attach(ch);
+                    }
+                });
+        pool = new EndpointChannelPool(bootstrap, address, POOL_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pool.close();
+        serverChannel.close().sync();
+        group.shutdownGracefully().sync();
+    }
+
+    @Test
+    @DisplayName("预热后所有槽位均建立连接")
+    void shouldWarmUpAllSlots() throws Exception {
+        pool.warmUp();
+        waitForActive(POOL_SIZE);
+
+        Set<Channel> distinct = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            distinct.add(pool.acquire().get());
+        }
+        assertEquals(POOL_SIZE, distinct.size(), "在途请求数相同时应分散到所有连接");
+    }
+
+    @Test
+    @DisplayName("优先选择在途请求最少的连接")
+    void shouldPreferLeastPendingChannel() throws Exception {
+        pool.warmUp();
+        waitForActive(POOL_SIZE);
+
+        Set<Channel> channels = new HashSet<>();
+        while (channels.size() < POOL_SIZE) {
+            channels.add(pool.acquire().get());
+        }
+        Channel idle = channels.iterator().next();
+        // 除 idle 外的连接各有一个在途请求
+        for (Channel channel : channels) {
+            if (channel != idle) {
+                InFlightRequests.get(channel).register(new CompletableFuture<>());
+            }
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertSame(idle, pool.select(), "应选择在途请求最少的连接");
+        }
+    }
+
+    @Test
+    @DisplayName("连接断开后在后台被替换")
+    void shouldReplaceClosedChannelInBackground() throws Exception {
+        pool.warmUp();
+        waitForActive(POOL_SIZE);
+
+        Channel victim = pool.acquire().get();
+        victim.close().sync();
+        assertFalse(victim.isActive());
+
+        waitForActive(POOL_SIZE);
+        for (int i = 0; i < 20; i++) {
+            assertNotSame(victim, pool.acquire().get(), "已断开的连接不应再被选中");
+        }
+    }
+
+    @Test
+    @DisplayName("没有活跃连接时 acquire 异步建立连接")
+    void shouldConnectOnDemandWhenEmpty() throws Exception {
+        Channel channel = pool.acquire().get(5, TimeUnit.SECONDS);
+        assertNotNull(channel);
+        assertTrue(channel.isActive());
+    }
+
+    @Test
+    @DisplayName("建连期间的并发获取共享同一个 future")
+    void shouldShareOneFutureWhileConnecting() throws Exception {
+        CompletableFuture<Channel> first = pool.acquire();
+        CompletableFuture<Channel> second = pool.acquire();
+        if (!first.isDone()) {
+            assertSame(first, second, "等待者应挂在同一次建连上");
+        }
+        assertTrue(first.get(5, TimeUnit.SECONDS).isActive());
+        assertTrue(second.get(5, TimeUnit.SECONDS).isActive());
+    }
+
+    @Test
+    @DisplayName("节点不可达时 future 异常完成而不阻塞调用线程")
+    void shouldFailFutureWhenEndpointUnreachable() throws Exception {
+        EndpointChannelPool unreachable = new EndpointChannelPool(bootstrap,
+                new LocalAddress("pool-test-missing-" + System.nanoTime()), POOL_SIZE);
+        try {
+            CompletableFuture<Channel> future = unreachable.acquire();
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertNotNull(e.getCause());
+        } finally {
+            unreachable.close();
+        }
+    }
+
+    private void waitForActive(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.activeCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, pool.activeCount(), "活跃连接数应达到池大小");
+    }
+}
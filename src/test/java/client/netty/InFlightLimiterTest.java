@@ -0,0 +1,109 @@
+package client.netty;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("连接在途许可与等待队列测试")
+class InFlightLimiterTest {
+
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private EmbeddedChannel channel;
+    private InFlightLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        channel = new EmbeddedChannel();
+        limiter = new InFlightLimiter(channel, 2, 2);
+        SaturationStats.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    @DisplayName("在途请求数达到上限后不再发放许可，排队请求在许可归还时按入队顺序发出，队列满时拒绝")
+    void shouldQueueWhenSaturatedAndDrainInOrder() {
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire(), "达到上限后不应再发放许可");
+
+        List<String> sent = new ArrayList<>();
+        assertTrue(limiter.enqueue(new CompletableFuture<>(), () -> sent.add("a"), TIMEOUT_NANOS));
+        assertTrue(limiter.enqueue(new CompletableFuture<>(), () -> sent.add("b"), TIMEOUT_NANOS));
+        assertFalse(limiter.enqueue(new CompletableFuture<>(), () -> sent.add("c"), TIMEOUT_NANOS), "队列已满应拒绝");
+        assertTrue(sent.isEmpty());
+
+        limiter.release();
+        assertEquals(List.of("a"), sent);
+        assertFalse(limiter.tryAcquire(), "队列非空时新请求不应越过排队中的请求");
+        limiter.release();
+        assertEquals(List.of("a", "b"), sent);
+        assertEquals(2, limiter.inFlightCount());
+        assertEquals(0, limiter.waitingCount());
+
+        assertEquals(2, SaturationStats.getQueued());
+        assertEquals(1, SaturationStats.getQueueFull());
+    }
+
+    @Test
+    @DisplayName("排队超时的请求不再发出，也不占用许可")
+    void shouldSkipTimedOutWaiters() throws Exception {
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        CompletableFuture<Object> expired = new CompletableFuture<>();
+        List<String> sent = new ArrayList<>();
+        assertTrue(limiter.enqueue(expired, () -> sent.add("expired"), TimeUnit.MILLISECONDS.toNanos(1)));
+        assertTrue(limiter.enqueue(new CompletableFuture<>(), () -> sent.add("live"), TIMEOUT_NANOS));
+
+        Throwable cause = expired.handle((r, e) -> e).get(2, TimeUnit.SECONDS);
+        assertInstanceOf(TimeoutException.class, cause);
+        limiter.release();
+        assertEquals(List.of("live"), sent);
+        assertEquals(2, limiter.inFlightCount());
+        assertEquals(1, SaturationStats.getQueueTimeouts());
+    }
+
+    @Test
+    @DisplayName("连接不可写时视为饱和，恢复可写后发出排队请求；连接关闭时排队请求立即失败")
+    void shouldRespectWritabilityAndFailWaitersOnClose() {
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+        channel.write(Unpooled.wrappedBuffer(new byte[32]));
+        assertFalse(channel.isWritable());
+        assertFalse(limiter.tryAcquire(), "不可写时不应发放许可");
+
+        List<String> sent = new ArrayList<>();
+        assertTrue(limiter.enqueue(new CompletableFuture<>(), () -> sent.add("a"), TIMEOUT_NANOS));
+        assertTrue(sent.isEmpty());
+        channel.flush();
+        assertTrue(channel.isWritable());
+        limiter.onWritable();
+        assertEquals(List.of("a"), sent);
+
+        limiter.tryAcquire();
+        CompletableFuture<Object> waiting = new CompletableFuture<>();
+        assertTrue(limiter.enqueue(waiting, () -> sent.add("b"), TIMEOUT_NANOS));
+        limiter.close(new ClosedChannelException());
+        assertTrue(waiting.isCompletedExceptionally());
+        assertEquals(0, limiter.waitingCount());
+        assertFalse(limiter.enqueue(new CompletableFuture<>(), () -> sent.add("c"), TIMEOUT_NANOS),
+                "连接关闭后不应再接受排队");
+        assertEquals(List.of("a"), sent);
+    }
+}
@@ -0,0 +1,93 @@
+package client.netty;
+
+import common.message.RpcResponse;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("InFlightRequests 连接内在途请求表测试")
+class InFlightRequestsTest {
+
+    private InFlightRequests inFlightRequests;
+
+    @BeforeEach
+    void setUp() {
+        inFlightRequests = new InFlightRequests();
+    }
+
+    @Test
+    @DisplayName("请求ID 从 1 开始单调递增，响应按请求ID 完成对应 future")
+    void shouldCorrelateByMonotonicRequestId() throws Exception {
+        CompletableFuture<RpcResponse> first = new CompletableFuture<>();
+        CompletableFuture<RpcResponse> second = new CompletableFuture<>();
+        long firstId = inFlightRequests.register(first);
+        long secondId = inFlightRequests.register(second);
+
+        assertEquals(1L, firstId, "0 保留给无请求ID 的帧");
+        assertEquals(2L, secondId);
+        assertEquals(2, inFlightRequests.pendingCount());
+
+        RpcResponse response = RpcResponse.success("ok");
+        assertTrue(inFlightRequests.complete(secondId, response));
+        assertSame(response, second.get());
+        assertFalse(first.isDone(), "其他请求不受影响");
+        assertFalse(inFlightRequests.complete(secondId, response), "重复响应应被忽略");
+        assertEquals(1, inFlightRequests.pendingCount());
+    }
+
+    @Test
+    @DisplayName("超时失败后迟到的响应不会再完成 future")
+    void shouldIgnoreLateResponseAfterTimeout() {
+        CompletableFuture<RpcResponse> future = new CompletableFuture<>();
+        long requestId = inFlightRequests.register(future);
+
+        assertTrue(inFlightRequests.fail(requestId, new TimeoutException()));
+        assertFalse(inFlightRequests.complete(requestId, RpcResponse.success("late")));
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(0, inFlightRequests.pendingCount());
+    }
+
+    @Test
+    @DisplayName("连接关闭时在途请求立即失败，之后登记的请求也直接失败")
+    void shouldFailAllPendingWhenChannelCloses() {
+        CompletableFuture<RpcResponse> first = new CompletableFuture<>();
+        CompletableFuture<RpcResponse> second = new CompletableFuture<>();
+        inFlightRequests.register(first);
+        inFlightRequests.register(second);
+
+        assertEquals(2, inFlightRequests.failAll(new ClosedChannelException()));
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        assertEquals(0, inFlightRequests.pendingCount());
+
+        CompletableFuture<RpcResponse> late = new CompletableFuture<>();
+        inFlightRequests.register(late);
+        assertTrue(late.isCompletedExceptionally(), "关闭后登记的请求不应等待超时");
+        assertEquals(0, inFlightRequests.pendingCount());
+    }
+
+    @Test
+    @DisplayName("每个 Channel 绑定独立的在途请求表")
+    void shouldAttachOneTablePerChannel() {
+        EmbeddedChannel a = new EmbeddedChannel();
+        EmbeddedChannel b = new EmbeddedChannel();
+        InFlightRequests tableA = InFlightRequests.attach(a);
+        InFlightRequests tableB = InFlightRequests.attach(b);
+
+        assertSame(tableA, InFlightRequests.get(a));
+        assertNotSame(tableA, tableB);
+        assertEquals(1L, tableA.register(new CompletableFuture<>()));
+        assertEquals(1L, tableB.register(new CompletableFuture<>()), "请求ID 在连接内独立编号");
+        a.finishAndReleaseAll();
+        b.finishAndReleaseAll();
+    }
+}
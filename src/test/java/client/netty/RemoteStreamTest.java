@@ -0,0 +1,186 @@
+package client.netty;
+
+import common.message.MessageType;
+import common.message.ProtocolConstants;
+import common.message.RawMessage;
+import common.message.RpcRequest;
+import common.message.RpcResponse;
+import common.message.StreamFrame;
+import common.serializer.Serializer;
+import common.serializer.impl.KryoSerializer;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("客户端远程流测试")
+class RemoteStreamTest {
+
+    private final Serializer serializer = new KryoSerializer();
+    private ResponseDispatcher.Mode previousMode;
+    private EmbeddedChannel channel;
+    private InFlightRequests inFlightRequests;
+    private final RpcRequest request = RpcRequest.builder().interfaceName("StreamService").methodName("list").build();
+
+    @BeforeEach
+    void setUp() {
+        // 在当前线程处理帧，便于断言
+        previousMode = ResponseDispatcher.INSTANCE.getMode();
+        ResponseDispatcher.INSTANCE.setMode(ResponseDispatcher.Mode.EVENT_LOOP);
+        channel = new EmbeddedChannel();
+        inFlightRequests = InFlightRequests.attach(channel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ResponseDispatcher.INSTANCE.setMode(previousMode);
+        channel.finishAndReleaseAll();
+    }
+
+    private RemoteStream newStream() {
+        return new RemoteStream(stream -> stream.attach(channel, inFlightRequests, id -> {
+            request.setSequenceId(id);
+            channel.writeAndFlush(request);
+        }));
+    }
+
+    private RawMessage frame(MessageType type, long requestId, RpcResponse response) {
+        return new RawMessage(ProtocolConstants.VERSION_2, (byte) 0, (short) type.getCode(),
+                (short) serializer.getType(), requestId, ProtocolConstants.UNKNOWN_ROUTE_ID,
+                ProtocolConstants.UNKNOWN_ROUTE_ID, Unpooled.wrappedBuffer(serializer.serialize(response)));
+    }
+
+    private List<Object> drainOutbound() {
+        channel.runPendingTasks();
+        List<Object> messages = new ArrayList<>();
+        Object message;
+        while ((message = channel.readOutbound()) != null) {
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<Object> {
+        private final List<Object> items = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Object item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    @DisplayName("首个信用帧先于请求写出，之后的 request(n) 合并为一个信用帧，元素与结束帧按序通知订阅方")
+    void shouldSendCreditBeforeRequestAndDeliverInOrder() {
+        RemoteStream stream = newStream();
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        stream.subscribe(subscriber);
+        subscriber.subscription.request(2);
+
+        List<Object> sent = drainOutbound();
+        assertEquals(2, sent.size());
+        StreamFrame credit = (StreamFrame) sent.get(0);
+        assertEquals(MessageType.STREAM_CREDIT, credit.getType());
+        assertEquals(2L, credit.getCredit());
+        assertSame(request, sent.get(1), "请求帧应在首个信用帧之后");
+
+        subscriber.subscription.request(1);
+        subscriber.subscription.request(1);
+        List<Object> credits = drainOutbound();
+        assertEquals(1, credits.size(), "连续的 request(n) 应合并写出");
+        assertEquals(2L, ((StreamFrame) credits.get(0)).getCredit());
+
+        long id = request.getSequenceId();
+        stream.onFrame(frame(MessageType.STREAM_ITEM, id, RpcResponse.success("a")));
+        stream.onFrame(frame(MessageType.STREAM_ITEM, id, RpcResponse.success("b")));
+        assertFalse(subscriber.completed);
+        stream.onFrame(frame(MessageType.RESPONSE, id, RpcResponse.success(null)));
+
+        assertEquals(List.of("a", "b"), subscriber.items);
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        assertNull(inFlightRequests.stream(id), "结束后应从流表移除");
+        assertEquals(0, inFlightRequests.pendingCount());
+    }
+
+    @Test
+    @DisplayName("取消时通知服务端并结束调用，之后到达的元素被丢弃且不通知订阅方")
+    void shouldNotifyServerOnCancel() {
+        RemoteStream stream = newStream();
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        stream.subscribe(subscriber);
+        subscriber.subscription.request(1);
+        drainOutbound();
+
+        subscriber.subscription.cancel();
+        List<Object> sent = drainOutbound();
+        assertEquals(1, sent.size());
+        assertEquals(MessageType.STREAM_CANCEL, ((StreamFrame) sent.get(0)).getType());
+        assertTrue(stream.result().isCompletedExceptionally());
+        assertThrows(Exception.class, () -> stream.result().join());
+        assertEquals(0, inFlightRequests.pendingCount());
+
+        RawMessage late = frame(MessageType.STREAM_ITEM, request.getSequenceId(), RpcResponse.success("late"));
+        stream.onFrame(late);
+        assertEquals(0, late.refCnt(), "丢弃的帧应被释放");
+        assertTrue(subscriber.items.isEmpty());
+        assertNull(subscriber.error, "主动取消不应回调 onError");
+        assertFalse(subscriber.completed);
+        assertInstanceOf(CancellationException.class, stream.result().handle((r, e) -> e).join());
+    }
+
+    @Test
+    @DisplayName("订阅方处理元素抛出异常时通知服务端取消，并以该异常结束订阅")
+    void shouldCancelServerStreamWhenItemHandlingFails() {
+        RemoteStream stream = newStream();
+        IllegalStateException failure = new IllegalStateException("onNext failure");
+        RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(Object item) {
+                throw failure;
+            }
+        };
+        stream.subscribe(subscriber);
+        subscriber.subscription.request(2);
+        drainOutbound();
+
+        RawMessage item = frame(MessageType.STREAM_ITEM, request.getSequenceId(), RpcResponse.success("a"));
+        stream.onFrame(item);
+        assertEquals(0, item.refCnt());
+
+        List<Object> sent = drainOutbound();
+        assertEquals(1, sent.size(), "应写出取消帧");
+        StreamFrame cancel = (StreamFrame) sent.get(0);
+        assertEquals(MessageType.STREAM_CANCEL, cancel.getType());
+        assertEquals(request.getSequenceId(), cancel.getSequenceId());
+        assertSame(failure, subscriber.error);
+        assertEquals(0, inFlightRequests.pendingCount());
+    }
+}
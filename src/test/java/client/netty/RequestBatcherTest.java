@@ -0,0 +1,91 @@
+package client.netty;
+
+import common.message.RequestBatch;
+import common.message.RpcRequest;
+import common.message.RpcResponse;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("客户端请求攒批测试")
+class RequestBatcherTest {
+
+    private EmbeddedChannel channel;
+    private InFlightRequests inFlightRequests;
+    private RequestBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        channel = new EmbeddedChannel();
+        inFlightRequests = InFlightRequests.attach(channel);
+        batcher = new RequestBatcher(channel, inFlightRequests, 4, 20_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private RpcRequest newRequest() {
+        RpcRequest request = RpcRequest.builder().interfaceName("UserService").methodName("getUserById").build();
+        request.setSequenceId(inFlightRequests.register(new CompletableFuture<RpcResponse>()));
+        return request;
+    }
+
+    private List<Object> drainOutbound() {
+        List<Object> messages = new ArrayList<>();
+        Object message;
+        while ((message = channel.readOutbound()) != null) {
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    @Test
+    @DisplayName("窗口结束前不写出，窗口结束后队列中的请求合并为一个批量帧")
+    void shouldFlushQueuedRequestsWhenWindowEnds() throws InterruptedException {
+        List<RpcRequest> requests = List.of(newRequest(), newRequest(), newRequest());
+        requests.forEach(batcher::add);
+
+        channel.runPendingTasks();
+        assertTrue(drainOutbound().isEmpty(), "窗口未结束时不应写出");
+        assertEquals(3, batcher.pendingCount());
+
+        Thread.sleep(25);
+        channel.runScheduledPendingTasks();
+        List<Object> sent = drainOutbound();
+        assertEquals(1, sent.size());
+        RequestBatch batch = (RequestBatch) sent.get(0);
+        assertEquals(requests, batch.getRequests(), "批内请求应保持入队顺序");
+        assertEquals(0, batcher.pendingCount());
+    }
+
+    @Test
+    @DisplayName("攒满一批立即写出；窗口内只有一个请求时按普通请求帧写出")
+    void shouldFlushFullBatchImmediatelyAndSendSingleRequestAsIs() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            batcher.add(newRequest());
+        }
+        channel.runPendingTasks();
+        List<Object> sent = drainOutbound();
+        assertEquals(1, sent.size(), "攒满时不应等待窗口结束");
+        assertEquals(4, ((RequestBatch) sent.get(0)).getRequests().size());
+
+        RpcRequest single = newRequest();
+        batcher.add(single);
+        Thread.sleep(25);
+        channel.runScheduledPendingTasks();
+        List<Object> rest = drainOutbound();
+        assertEquals(1, rest.size());
+        assertSame(single, rest.get(0), "单个请求不应包装为批量帧");
+        assertEquals(5, inFlightRequests.pendingCount(), "攒批不影响在途请求登记");
+    }
+}
@@ -0,0 +1,85 @@
+package client.netty.handler;
+
+import client.netty.InFlightRequests;
+import common.message.Heartbeat;
+import common.message.MessageType;
+import common.message.ProtocolConstants;
+import common.message.RawMessage;
+import common.message.RpcResponse;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("客户端心跳测试")
+class HeartbeatHandlerTest {
+
+    private EmbeddedChannel channel;
+    private InFlightRequests inFlightRequests;
+
+    @BeforeEach
+    void setUp() {
+        channel = new EmbeddedChannel();
+        inFlightRequests = InFlightRequests.attach(channel);
+        channel.pipeline().addLast(new HeartbeatHandler(3000, 2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private static RawMessage frame(MessageType type) {
+        return new RawMessage(ProtocolConstants.VERSION_2, ProtocolConstants.FLAG_HEARTBEAT, (short) type.getCode(),
+                (short) 0, 0L, ProtocolConstants.UNKNOWN_ROUTE_ID, ProtocolConstants.UNKNOWN_ROUTE_ID,
+                Unpooled.buffer(0));
+    }
+
+    @Test
+    @DisplayName("读空闲时发送 PING，PING 未获应答时连接可疑，收到 PONG 后恢复且 PONG 不传给业务处理器")
+    void shouldPingOnIdleAndConsumePong() {
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT);
+        assertSame(Heartbeat.PING, channel.readOutbound());
+        assertFalse(HeartbeatHandler.isSuspect(channel), "刚发出 PING 时不应视为可疑");
+
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.READER_IDLE_STATE_EVENT);
+        assertSame(Heartbeat.PING, channel.readOutbound());
+        assertTrue(HeartbeatHandler.isSuspect(channel), "PING 一个周期未获应答应视为可疑");
+
+        RawMessage pong = frame(MessageType.HEARTBEAT_PONG);
+        channel.writeInbound(pong);
+        assertNull(channel.readInbound(), "PONG 应在心跳处理器中消费");
+        assertEquals(0, pong.refCnt());
+        assertFalse(HeartbeatHandler.isSuspect(channel));
+
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.FIRST_WRITER_IDLE_STATE_EVENT);
+        assertSame(Heartbeat.PING, channel.readOutbound(), "写空闲时同样发送 PING，避免被服务端回收");
+        assertTrue(channel.isActive());
+    }
+
+    @Test
+    @DisplayName("连续未应答超过上限时以心跳超时结束在途请求并关闭连接")
+    void shouldFailPendingRequestsAndCloseWhenPeerIsDead() {
+        CompletableFuture<RpcResponse> pending = new CompletableFuture<>();
+        inFlightRequests.register(pending);
+
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT);
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.READER_IDLE_STATE_EVENT);
+        assertTrue(channel.isActive(), "未超过上限时不应关闭");
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.READER_IDLE_STATE_EVENT);
+
+        assertFalse(channel.isActive(), "超过上限应关闭连接");
+        ExecutionException e = assertThrows(ExecutionException.class, pending::get);
+        assertInstanceOf(IOException.class, e.getCause(), "在途请求应以心跳超时失败，而不是等待请求超时");
+        assertEquals(0, inFlightRequests.pendingCount());
+    }
+}
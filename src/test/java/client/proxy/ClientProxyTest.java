@@ -7,16 +7,20 @@ import common.message.RpcResponse;
 import common.pojo.User;
 import common.result.Result;
 import common.service.UserService;
+import common.util.HashUtil;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @DisplayName("ClientProxy 测试")
@@ -68,5 +72,23 @@ class ClientProxyTest {
             assertEquals(userId, user.getId(), "用户ID应匹配");
             assertEquals(expectedUser.getUserName(), user.getUserName(), "用户名应匹配");
         }
+
+        @Test
+        @DisplayName("请求携带按方法缓存的路由ID，与帧头路由的计算方式一致")
+        void shouldSetRouteIdsOnRequest() throws Exception {
+            when(mockRpcClient.sendRequestAsync(any(RpcRequest.class)))
+                    .thenReturn(CompletableFuture.completedFuture(RpcResponse.success(null)));
+
+            userService.getUserById(1L).get();
+            userService.getUserById(2L).get();
+
+            ArgumentCaptor<RpcRequest> captor = ArgumentCaptor.forClass(RpcRequest.class);
+            verify(mockRpcClient, times(2)).sendRequestAsync(captor.capture());
+            for (RpcRequest request : captor.getAllValues()) {
+                assertEquals(HashUtil.serviceRouteId(UserService.class.getName()), request.getServiceId());
+                assertEquals(HashUtil.methodRouteId("getUserById", new Class<?>[] { Long.class }),
+                        request.getMethodId());
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,556 @@
+package common;
+
+import common.compress.FrameCompression;
+import common.compress.impl.DeflateCompressor;
+import common.compress.impl.Lz4Compressor;
+import common.message.Heartbeat;
+import common.message.MessageType;
+import common.message.ProtocolConstants;
+import common.message.RawMessage;
+import common.message.RequestBatch;
+import common.message.RpcRequest;
+import common.message.RpcResponse;
+import common.message.SignatureDictionary;
+import common.serializer.Serializer;
+import common.serializer.impl.KryoSerializer;
+import common.util.HashUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.ResourceLeakDetector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Encoder / Decoder 编解码测试")
+class CodecTest {
+
+    private ResourceLeakDetector.Level originalLevel;
+    private final Serializer serializer = new KryoSerializer();
+
+    @BeforeEach
+    void setUp() {
+        originalLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ResourceLeakDetector.setLevel(originalLevel);
+    }
+
+    private RpcRequest buildRequest() {
+        return RpcRequest.builder()
+                .requestId(UUID.randomUUID().toString())
+                .interfaceName("common.service.EchoService")
+                .methodName("echo")
+                .params(new Object[] { "hello" })
+                .paramsType(new Class<?>[] { String.class })
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+
+    private EmbeddedChannel newDecodeChannel() {
+        return new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(1024 * 1024, 4, 4, 0, 0),
+                new Decoder());
+    }
+
+    // 手工构造 v1 帧，验证解码端对旧版本的兼容
+    private ByteBuf encodeFrame(RpcRequest request) {
+        byte[] body = serializer.serialize(request);
+        ByteBuf frame = PooledByteBufAllocator.DEFAULT.directBuffer();
+        frame.writeShort(MessageType.REQUEST.getCode());
+        frame.writeShort(serializer.getType());
+        frame.writeInt(body.length);
+        frame.writeBytes(body);
+        return frame;
+    }
+
+    @Nested
+    @DisplayName("零拷贝解码")
+    class ZeroCopyDecodeTests {
+
+        @Test
+        @DisplayName("消息体应为池化缓冲区的 retained slice，消费后引用计数归零")
+        void shouldDecodeRetainedSliceAndReleaseAfterUse() {
+            EmbeddedChannel channel = newDecodeChannel();
+            RpcRequest request = buildRequest();
+
+            assertTrue(channel.writeInbound(encodeFrame(request)));
+            RawMessage rawMessage = channel.readInbound();
+            assertNotNull(rawMessage, "应解码出 RawMessage");
+            assertEquals(1, rawMessage.refCnt(), "下游拿到的消息应只持有一个引用");
+
+            try {
+                RpcRequest decoded = (RpcRequest) serializer.deserialize(rawMessage.content().nioBuffer(),
+                        rawMessage.getMessageType());
+                assertEquals(request.getRequestId(), decoded.getRequestId(), "请求ID应保持一致");
+                assertEquals(request.getInterfaceName(), decoded.getInterfaceName(), "接口名应保持一致");
+            } finally {
+                assertTrue(rawMessage.release(), "release 后引用计数应归零");
+            }
+            assertEquals(0, rawMessage.refCnt());
+            assertFalse(channel.finish(), "通道内不应残留未消费的消息");
+        }
+
+        @Test
+        @DisplayName("跨线程消费时 retain/release 应成对出现")
+        void shouldKeepBodyAliveWhenRetainedForAsyncUse() throws Exception {
+            EmbeddedChannel channel = newDecodeChannel();
+            channel.writeInbound(encodeFrame(buildRequest()));
+            RawMessage rawMessage = channel.readInbound();
+
+            // 模拟 handler：retain 后交给线程池，channelRead0 返回时自动 release 一次
+            rawMessage.retain();
+            rawMessage.release();
+            assertEquals(1, rawMessage.refCnt(), "异步任务执行前消息体不应被回收");
+
+            Thread worker = new Thread(() -> {
+                try {
+                    serializer.deserialize(rawMessage.content().nioBuffer(), rawMessage.getMessageType());
+                } finally {
+                    rawMessage.release();
+                }
+            });
+            worker.start();
+            worker.join();
+
+            assertEquals(0, rawMessage.refCnt(), "异步任务结束后消息体应被释放");
+            channel.finish();
+        }
+    }
+
+    @Nested
+    @DisplayName("RawMessage 透传编码")
+    class RawMessageEncodeTests {
+
+        @Test
+        @DisplayName("Encoder 写出 RawMessage 后应释放其消息体")
+        void shouldReleaseRawMessageAfterEncode() {
+            EmbeddedChannel channel = new EmbeddedChannel(new Encoder(serializer.getType()));
+            byte[] body = serializer.serialize(buildRequest());
+            ByteBuf content = PooledByteBufAllocator.DEFAULT.directBuffer().writeBytes(body);
+            RawMessage rawMessage = new RawMessage((short) MessageType.REQUEST.getCode(),
+                    (short) serializer.getType(), content);
+
+            assertTrue(channel.writeOutbound(rawMessage));
+            assertEquals(0, rawMessage.refCnt(), "编码完成后消息体应被释放");
+
+            ByteBuf encoded = channel.readOutbound();
+            try {
+                assertEquals(ProtocolConstants.MAGIC, encoded.readShort());
+                assertEquals(ProtocolConstants.VERSION_2, encoded.readByte());
+                // 除通告的可接受压缩算法外不带任何标志
+                assertEquals(FrameCompression.fromConfig().advertise((byte) 0), encoded.readByte());
+                assertEquals(ProtocolConstants.V2_EXTENDED_HEADER_LENGTH + body.length, encoded.readInt());
+                assertEquals(MessageType.REQUEST.getCode(), encoded.readUnsignedByte());
+                assertEquals(serializer.getType(), encoded.readUnsignedByte());
+                encoded.skipBytes(ProtocolConstants.V2_EXTENDED_HEADER_LENGTH - 2);
+                assertEquals(body.length, encoded.readableBytes());
+            } finally {
+                encoded.release();
+            }
+            assertFalse(channel.finish());
+        }
+    }
+
+    @Nested
+    @DisplayName("流式序列化编码")
+    class StreamingEncodeTests {
+
+        @Test
+        @DisplayName("Encoder 直接序列化进缓冲区并回填长度字段，解码后内容一致")
+        void shouldSerializeIntoBufferAndBackPatchLength() {
+            EmbeddedChannel encodeChannel = new EmbeddedChannel(new Encoder(serializer.getType()));
+            RpcRequest request = buildRequest();
+            assertTrue(encodeChannel.writeOutbound(request));
+            ByteBuf encoded = encodeChannel.readOutbound();
+
+            assertEquals(encoded.readableBytes() - 8, encoded.getInt(4), "长度字段应等于长度字段之后实际写入的字节数");
+            assertArrayEquals(serializer.serialize(request), readBody(encoded), "流式写出应与 byte[] 序列化结果一致");
+
+            EmbeddedChannel decodeChannel = newDecodeChannel();
+            assertTrue(decodeChannel.writeInbound(encoded));
+            RawMessage rawMessage = decodeChannel.readInbound();
+            try {
+                RpcRequest decoded = (RpcRequest) serializer.deserialize(rawMessage.content().nioBuffer(),
+                        rawMessage.getMessageType());
+                assertEquals(request.getRequestId(), decoded.getRequestId(), "请求ID应保持一致");
+            } finally {
+                rawMessage.release();
+            }
+            assertFalse(encodeChannel.finish());
+            assertFalse(decodeChannel.finish());
+        }
+
+        private byte[] readBody(ByteBuf encoded) {
+            byte[] body = new byte[encoded.readableBytes() - ProtocolConstants.V2_HEADER_LENGTH];
+            encoded.getBytes(ProtocolConstants.V2_HEADER_LENGTH, body);
+            return body;
+        }
+    }
+
+    @Nested
+    @DisplayName("v2 帧头")
+    class ProtocolV2Tests {
+
+        @Test
+        @DisplayName("请求帧头应携带请求ID与路由字段，解码后无需反序列化即可读取")
+        void shouldCarryRequestIdAndRouteInHeader() {
+            EmbeddedChannel encodeChannel = new EmbeddedChannel(new Encoder(serializer.getType()));
+            RpcRequest request = buildRequest();
+            request.setSequenceId(42L);
+            encodeChannel.writeOutbound(request);
+
+            EmbeddedChannel decodeChannel = newDecodeChannel();
+            decodeChannel.writeInbound((ByteBuf) encodeChannel.readOutbound());
+            RawMessage rawMessage = decodeChannel.readInbound();
+            try {
+                assertEquals(ProtocolConstants.VERSION_2, rawMessage.getVersion());
+                assertEquals(42L, rawMessage.getRequestId(), "请求ID应写入帧头");
+                assertTrue(rawMessage.hasRoute(), "请求帧应携带路由字段");
+                assertEquals(HashUtil.serviceRouteId(request.getInterfaceName()), rawMessage.getServiceId());
+                assertEquals(HashUtil.methodRouteId(request.getMethodName(), request.getParamsType()),
+                        rawMessage.getMethodId());
+                assertFalse(rawMessage.hasFlag(ProtocolConstants.FLAG_COMPRESSED));
+            } finally {
+                rawMessage.release();
+            }
+            assertFalse(encodeChannel.finish());
+            assertFalse(decodeChannel.finish());
+        }
+
+        @Test
+        @DisplayName("心跳帧为带心跳标志、没有消息体的 v2 帧")
+        void shouldEncodeHeartbeatWithoutBody() {
+            EmbeddedChannel encodeChannel = new EmbeddedChannel(new Encoder(serializer.getType()));
+            encodeChannel.writeOutbound(Heartbeat.PING);
+
+            EmbeddedChannel decodeChannel = newDecodeChannel();
+            decodeChannel.writeInbound((ByteBuf) encodeChannel.readOutbound());
+            RawMessage rawMessage = decodeChannel.readInbound();
+            try {
+                assertEquals(ProtocolConstants.VERSION_2, rawMessage.getVersion());
+                assertEquals(MessageType.HEARTBEAT_PING.getCode(), rawMessage.getMessageType());
+                assertTrue(rawMessage.hasFlag(ProtocolConstants.FLAG_HEARTBEAT));
+                assertFalse(rawMessage.content().isReadable(), "心跳帧不应有消息体");
+            } finally {
+                rawMessage.release();
+            }
+            assertFalse(encodeChannel.finish());
+            assertFalse(decodeChannel.finish());
+        }
+
+        @Test
+        @DisplayName("v1 帧应被解码为无路由信息的 RawMessage")
+        void shouldAcceptV1Frames() {
+            EmbeddedChannel channel = newDecodeChannel();
+            channel.writeInbound(encodeFrame(buildRequest()));
+            RawMessage rawMessage = channel.readInbound();
+            try {
+                assertEquals(ProtocolConstants.VERSION_1, rawMessage.getVersion());
+                assertFalse(rawMessage.hasRoute(), "v1 帧不携带路由字段");
+                assertEquals(MessageType.REQUEST.getCode(), rawMessage.getMessageType());
+            } finally {
+                rawMessage.release();
+            }
+            assertFalse(channel.finish());
+        }
+
+        @Test
+        @DisplayName("重载方法应得到不同的方法路由ID")
+        void shouldDistinguishOverloadedMethods() {
+            int byString = HashUtil.methodRouteId("echo", new Class<?>[] { String.class });
+            int byLong = HashUtil.methodRouteId("echo", new Class<?>[] { Long.class });
+            assertNotEquals(byString, byLong);
+            assertNotEquals(ProtocolConstants.UNKNOWN_ROUTE_ID, byString);
+        }
+    }
+
+    @Nested
+    @DisplayName("v1 兼容")
+    class ProtocolV1Tests {
+
+        @Test
+        @DisplayName("默认发送 v2 的服务端收到 v1 请求时以 v1 帧回复")
+        void shouldReplyInVersionOfRequest() {
+            EmbeddedChannel serverChannel = new EmbeddedChannel(
+                    new LengthFieldBasedFrameDecoder(1024 * 1024, 4, 4, 0, 0),
+                    new Decoder(),
+                    new Encoder(serializer.getType()));
+            RpcRequest request = buildRequest();
+            serverChannel.writeInbound(encodeFrame(request));
+            ((RawMessage) serverChannel.readInbound()).release();
+
+            RpcResponse response = RpcResponse.success("hello");
+            response.setRequestId(request.getRequestId());
+            assertTrue(serverChannel.writeOutbound(response));
+            ByteBuf encoded = serverChannel.readOutbound();
+            try {
+                assertEquals(MessageType.RESPONSE.getCode(), encoded.readShort(), "应为 v1 帧头");
+                assertEquals(serializer.getType(), encoded.readShort());
+                assertEquals(encoded.readableBytes() - 4, encoded.readInt());
+                byte[] body = new byte[encoded.readableBytes()];
+                encoded.readBytes(body);
+                RpcResponse decoded = (RpcResponse) serializer.deserialize(body, MessageType.RESPONSE.getCode());
+                assertEquals(request.getRequestId(), decoded.getRequestId(), "v1 响应靠消息体回显请求ID");
+            } finally {
+                encoded.release();
+            }
+            assertFalse(serverChannel.finish());
+        }
+
+        @Test
+        @DisplayName("v1 编码借消息体携带请求ID 时不修改调用方的请求")
+        void shouldNotMutateRequestWhenEncodingV1() {
+            System.setProperty("rpc.protocol.version", "1");
+            EmbeddedChannel encodeChannel;
+            try {
+                encodeChannel = new EmbeddedChannel(new Encoder(serializer.getType()));
+            } finally {
+                System.clearProperty("rpc.protocol.version");
+            }
+            RpcRequest request = buildRequest();
+            request.setRequestId(null);
+            request.setSequenceId(9L);
+            assertTrue(encodeChannel.writeOutbound(request));
+            assertNull(request.getRequestId(), "调用方的请求不应被修改");
+
+            EmbeddedChannel decodeChannel = newDecodeChannel();
+            decodeChannel.writeInbound((ByteBuf) encodeChannel.readOutbound());
+            RawMessage rawMessage = decodeChannel.readInbound();
+            try {
+                assertEquals(ProtocolConstants.VERSION_1, rawMessage.getVersion());
+                RpcRequest decoded = (RpcRequest) serializer.deserialize(rawMessage.content().nioBuffer(),
+                        rawMessage.getMessageType());
+                assertEquals("9", decoded.getRequestId(), "数字请求ID应写入消息体");
+                assertEquals(request.getInterfaceName(), decoded.getInterfaceName());
+            } finally {
+                rawMessage.release();
+            }
+            assertFalse(encodeChannel.finish());
+            assertFalse(decodeChannel.finish());
+        }
+    }
+
+    @Nested
+    @DisplayName("帧压缩")
+    class CompressionTests {
+
+        private RpcResponse buildLargeResponse() {
+            StringBuilder data = new StringBuilder();
+            for (int i = 0; i < 200; i++) {
+                data.append("{\"id\":").append(i).append(",\"userName\":\"user").append(i)
+                        .append("\",\"email\":\"user").append(i).append("@example.com\"}");
+            }
+            RpcResponse response = RpcResponse.success(data.toString());
+            response.setSequenceId(7L);
+            return response;
+        }
+
+        private EmbeddedChannel newEncodeChannel(int peerCodec) {
+            EmbeddedChannel channel = new EmbeddedChannel(new Encoder(serializer.getType()));
+            FrameCompression.get(channel).onPeerFlags(ProtocolConstants.withAcceptedCodec((byte) 0, peerCodec));
+            return channel;
+        }
+
+        @Test
+        @DisplayName("对端通告了可接受的算法且超过阈值时压缩，解码后消息体与原始序列化结果一致")
+        void shouldCompressWhenPeerAcceptsCodec() {
+            RpcResponse response = buildLargeResponse();
+            byte[] original = serializer.serialize(response);
+            EmbeddedChannel encodeChannel = newEncodeChannel(Lz4Compressor.TYPE);
+            assertTrue(encodeChannel.writeOutbound(response));
+            ByteBuf encoded = encodeChannel.readOutbound();
+
+            assertTrue(ProtocolConstants.hasFlag(encoded.getByte(3), ProtocolConstants.FLAG_COMPRESSED));
+            assertTrue(encoded.readableBytes() < original.length, "压缩后的帧应小于原始消息体");
+
+            EmbeddedChannel decodeChannel = newDecodeChannel();
+            assertTrue(decodeChannel.writeInbound(encoded));
+            RawMessage rawMessage = decodeChannel.readInbound();
+            try {
+                assertFalse(rawMessage.hasFlag(ProtocolConstants.FLAG_COMPRESSED), "下游看到的应是解压后的消息体");
+                assertEquals(7L, rawMessage.getRequestId());
+                byte[] body = new byte[rawMessage.content().readableBytes()];
+                rawMessage.content().getBytes(rawMessage.content().readerIndex(), body);
+                assertArrayEquals(original, body);
+            } finally {
+                rawMessage.release();
+            }
+            assertFalse(encodeChannel.finish());
+            assertFalse(decodeChannel.finish());
+        }
+
+        @Test
+        @DisplayName("对端未通告可接受的算法时不压缩")
+        void shouldNotCompressBeforeNegotiation() {
+            EmbeddedChannel encodeChannel = newEncodeChannel(0);
+            assertTrue(encodeChannel.writeOutbound(buildLargeResponse()));
+            ByteBuf encoded = encodeChannel.readOutbound();
+            try {
+                assertFalse(ProtocolConstants.hasFlag(encoded.getByte(3), ProtocolConstants.FLAG_COMPRESSED));
+            } finally {
+                encoded.release();
+            }
+            assertFalse(encodeChannel.finish());
+        }
+
+        @Test
+        @DisplayName("低于阈值的消息体不压缩")
+        void shouldNotCompressBelowThreshold() {
+            EmbeddedChannel encodeChannel = newEncodeChannel(DeflateCompressor.TYPE);
+            assertTrue(encodeChannel.writeOutbound(buildRequest()));
+            ByteBuf encoded = encodeChannel.readOutbound();
+            try {
+                assertFalse(ProtocolConstants.hasFlag(encoded.getByte(3), ProtocolConstants.FLAG_COMPRESSED));
+            } finally {
+                encoded.release();
+            }
+            assertFalse(encodeChannel.finish());
+        }
+
+        @Test
+        @DisplayName("解码时记录对端通告的可接受算法")
+        void shouldRecordPeerCodecFromHeader() {
+            EmbeddedChannel encodeChannel = new EmbeddedChannel(new Encoder(serializer.getType()));
+            encodeChannel.writeOutbound(buildRequest());
+
+            EmbeddedChannel decodeChannel = newDecodeChannel();
+            assertNull(FrameCompression.get(decodeChannel).peerCompressor(), "收到对端帧前不压缩");
+            decodeChannel.writeInbound((ByteBuf) encodeChannel.readOutbound());
+            ((RawMessage) decodeChannel.readInbound()).release();
+
+            assertNotNull(FrameCompression.get(decodeChannel).peerCompressor(), "默认配置下对端通告 lz4");
+            assertFalse(encodeChannel.finish());
+            assertFalse(decodeChannel.finish());
+        }
+    }
+
+    @Nested
+    @DisplayName("批量请求帧")
+    class BatchEncodeTests {
+
+        @Test
+        @DisplayName("批量帧逐项携带请求ID与路由字段，各项消息体可独立反序列化")
+        void shouldEncodeEachItemWithIdAndRoute() {
+            EmbeddedChannel encodeChannel = new EmbeddedChannel(new Encoder(serializer.getType()));
+            RpcRequest first = buildRequest();
+            first.setSequenceId(10L);
+            RpcRequest second = buildRequest();
+            second.setSequenceId(11L);
+            encodeChannel.writeOutbound(new RequestBatch(List.of(first, second)));
+
+            EmbeddedChannel decodeChannel = newDecodeChannel();
+            decodeChannel.writeInbound((ByteBuf) encodeChannel.readOutbound());
+            RawMessage rawMessage = decodeChannel.readInbound();
+            try {
+                assertEquals(MessageType.BATCH_REQUEST.getCode(), rawMessage.getMessageType());
+                assertEquals(10L, rawMessage.getRequestId(), "帧头请求ID为第一项的请求ID");
+                ByteBuf body = rawMessage.content();
+                assertEquals(2, body.readInt());
+                for (RpcRequest expected : List.of(first, second)) {
+                    assertEquals(expected.getSequenceId(), body.readLong());
+                    assertEquals(HashUtil.serviceRouteId(expected.getInterfaceName()), body.readInt());
+                    assertEquals(HashUtil.methodRouteId(expected.getMethodName(), expected.getParamsType()),
+                            body.readInt());
+                    int length = body.readInt();
+                    RpcRequest decoded = (RpcRequest) serializer.deserialize(
+                            body.readSlice(length).nioBuffer(), MessageType.REQUEST.getCode());
+                    assertEquals(expected.getRequestId(), decoded.getRequestId());
+                }
+                assertFalse(body.isReadable(), "批量帧不应有多余字节");
+            } finally {
+                rawMessage.release();
+            }
+            assertFalse(encodeChannel.finish());
+            assertFalse(decodeChannel.finish());
+        }
+    }
+
+    @Nested
+    @DisplayName("服务签名字典")
+    class SignatureDictionaryTests {
+
+        private int encodeAndMeasure(EmbeddedChannel encodeChannel, RpcRequest request, RpcRequest[] decoded) {
+            encodeChannel.writeOutbound(request);
+            EmbeddedChannel decodeChannel = newDecodeChannel();
+            decodeChannel.writeInbound((ByteBuf) encodeChannel.readOutbound());
+            RawMessage rawMessage = decodeChannel.readInbound();
+            try {
+                assertEquals(request.getSequenceId(), rawMessage.getRequestId());
+                assertTrue(rawMessage.hasRoute(), "省略签名与否，帧头都应携带路由字段");
+                decoded[0] = (RpcRequest) serializer.deserialize(rawMessage.content().nioBuffer(),
+                        MessageType.REQUEST.getCode());
+                return rawMessage.content().readableBytes();
+            } finally {
+                rawMessage.release();
+                assertFalse(decodeChannel.finish());
+            }
+        }
+
+        @Test
+        @DisplayName("对端确认签名之前发送完整请求，确认之后消息体省略签名且原请求不被修改")
+        void shouldOmitSignatureAfterAcknowledged() {
+            EmbeddedChannel encodeChannel = new EmbeddedChannel(new Encoder(serializer.getType()));
+            RpcRequest[] decoded = new RpcRequest[1];
+
+            RpcRequest first = buildRequest();
+            first.setSequenceId(1L);
+            int fullLength = encodeAndMeasure(encodeChannel, first, decoded);
+            assertEquals(first.getInterfaceName(), decoded[0].getInterfaceName(), "未确认的签名应完整发送");
+
+            SignatureDictionary.get(encodeChannel).acknowledge(
+                    HashUtil.serviceRouteId(first.getInterfaceName()),
+                    HashUtil.methodRouteId(first.getMethodName(), first.getParamsType()));
+
+            RpcRequest second = buildRequest();
+            second.setSequenceId(2L);
+            int compactLength = encodeAndMeasure(encodeChannel, second, decoded);
+            assertNull(decoded[0].getInterfaceName());
+            assertNull(decoded[0].getMethodName());
+            assertNull(decoded[0].getParamsType());
+            assertArrayEquals(second.getParams(), decoded[0].getParams(), "参数应照常发送");
+            assertEquals(second.getRequestId(), decoded[0].getRequestId());
+            assertTrue(compactLength < fullLength - second.getInterfaceName().length(),
+                    "省略签名后消息体应明显变小: " + fullLength + " -> " + compactLength);
+            assertEquals("common.service.EchoService", second.getInterfaceName(), "原请求可能被重试，不应被修改");
+            assertFalse(encodeChannel.finish());
+        }
+
+        @Test
+        @DisplayName("响应帧头回显服务端确认的路由ID，未确认时为 0")
+        void shouldEchoAcknowledgedRouteInResponseHeader() {
+            EmbeddedChannel encodeChannel = new EmbeddedChannel(new Encoder(serializer.getType()));
+            RpcResponse acknowledged = RpcResponse.success("ok");
+            acknowledged.setSequenceId(7L);
+            acknowledged.setServiceId(11);
+            acknowledged.setMethodId(22);
+            encodeChannel.writeOutbound(acknowledged, RpcResponse.success("ok"));
+
+            EmbeddedChannel decodeChannel = newDecodeChannel();
+            decodeChannel.writeInbound((ByteBuf) encodeChannel.readOutbound(), (ByteBuf) encodeChannel.readOutbound());
+            RawMessage first = decodeChannel.readInbound();
+            RawMessage second = decodeChannel.readInbound();
+            try {
+                assertEquals(11, first.getServiceId());
+                assertEquals(22, first.getMethodId());
+                assertFalse(second.hasRoute(), "未确认签名的响应不应携带路由字段");
+            } finally {
+                first.release();
+                second.release();
+            }
+            assertFalse(encodeChannel.finish());
+            assertFalse(decodeChannel.finish());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package common;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FlushCoalescingHandler 写合并测试")
+class FlushCoalescingHandlerTest {
+
+    // EmbeddedChannel 在 write 时会执行积压任务，读循环外的合并行为使用真实事件循环验证
+    private EventLoopGroup group;
+    private LocalAddress address;
+    private Channel serverChannel;
+    private FlushCoalescingHandler.Stats stats;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        group = new DefaultEventLoopGroup(1);
+        address = new LocalAddress("flush-test-" + System.nanoTime());
+        serverChannel = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public boolean isSharable() {
+                        return true;
+                    }
+
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ReferenceCountUtil.release(msg);
+                    }
+                })
+                .bind(address).sync().channel();
+        stats = new FlushCoalescingHandler.Stats();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        serverChannel.close().sync();
+        group.shutdownGracefully().sync();
+    }
+
+    @Test
+    @DisplayName("读循环外同一事件循环 tick 内的多次 flush 合并为一次")
+    void shouldCoalesceFlushesWithinOneTick() throws Exception {
+        Channel client = connect(new FlushCoalescingHandler(64, 64 * 1024, stats));
+
+        // 同一个事件循环任务内的三次写，相当于调用线程连续提交的写任务
+        client.eventLoop().submit(() -> {
+            for (int i = 0; i < 3; i++) {
+                client.writeAndFlush(buffer(8));
+            }
+            assertEquals(0, stats.getActualFlushes(), "flush 应推迟到事件循环的下一个任务");
+        }).sync();
+        // 排在后面的空任务执行完时，合并的 flush 已经执行
+        client.eventLoop().submit(() -> { }).sync();
+
+        assertEquals(3, stats.getRequestedFlushes());
+        assertEquals(1, stats.getActualFlushes());
+        client.close().sync();
+    }
+
+    @Test
+    @DisplayName("达到 flush 次数或字节预算时立即 flush")
+    void shouldFlushImmediatelyWhenBudgetExceeded() throws Exception {
+        Channel client = connect(new FlushCoalescingHandler(2, 32, stats));
+
+        client.eventLoop().submit(() -> {
+            client.writeAndFlush(buffer(8));
+            assertEquals(0, stats.getActualFlushes());
+            client.writeAndFlush(buffer(8));
+            assertEquals(1, stats.getActualFlushes(), "达到次数预算");
+            client.writeAndFlush(buffer(64));
+            assertEquals(2, stats.getActualFlushes(), "达到字节预算");
+        }).sync();
+        client.close().sync();
+    }
+
+    @Test
+    @DisplayName("读循环中产生的响应在 channelReadComplete 时统一 flush")
+    void shouldFlushOnceAfterReadLoop() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FlushCoalescingHandler(64, 64 * 1024, stats),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        // 模拟服务端在 IO 线程内联处理请求并写回响应
+                        ctx.writeAndFlush(msg);
+                    }
+                });
+
+        channel.writeInbound(buffer(8), buffer(8), buffer(8), buffer(8));
+        assertEquals(4, channel.outboundMessages().size());
+        assertEquals(4, stats.getRequestedFlushes());
+        assertEquals(1, stats.getActualFlushes());
+        channel.finishAndReleaseAll();
+    }
+
+    private Channel connect(FlushCoalescingHandler handler) throws InterruptedException {
+        return new Bootstrap().group(group).channel(LocalChannel.class)
+                .handler(handler)
+                .connect(address).sync().channel();
+    }
+
+    private static ByteBuf buffer(int size) {
+        return Unpooled.wrappedBuffer(new byte[size]);
+    }
+}
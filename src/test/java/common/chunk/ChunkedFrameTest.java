@@ -0,0 +1,217 @@
+package common.chunk;
+
+import common.Decoder;
+import common.Encoder;
+import common.message.MessageType;
+import common.message.ProtocolConstants;
+import common.message.RawMessage;
+import common.message.RpcResponse;
+import common.message.StreamFrame;
+import common.serializer.Serializer;
+import common.serializer.impl.KryoSerializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("大消息分片传输测试")
+class ChunkedFrameTest {
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private final Serializer serializer = new KryoSerializer();
+
+    private RpcResponse buildResponse(int size, long sequenceId) {
+        // 随机字符不可压缩，保证帧长度超过单帧上限
+        Random random = new Random(size);
+        StringBuilder data = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            data.append((char) ('a' + random.nextInt(26)));
+        }
+        RpcResponse response = RpcResponse.success(data.toString());
+        response.setSequenceId(sequenceId);
+        return response;
+    }
+
+    private EmbeddedChannel newEncodeChannel() {
+        return new EmbeddedChannel(new ChunkedFrameWriter(CHUNK_SIZE), new Encoder(serializer.getType()));
+    }
+
+    private EmbeddedChannel newDecodeChannel() {
+        return new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(ProtocolConstants.MAX_FRAME_LENGTH,
+                        ProtocolConstants.LENGTH_FIELD_OFFSET, ProtocolConstants.LENGTH_FIELD_LENGTH, 0, 0),
+                new Decoder());
+    }
+
+    private List<ByteBuf> drainOutbound(EmbeddedChannel channel) {
+        List<ByteBuf> frames = new ArrayList<>();
+        ByteBuf frame;
+        while ((frame = channel.readOutbound()) != null) {
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    private byte[] bodyOf(RawMessage rawMessage) {
+        ByteBuf content = rawMessage.content();
+        byte[] body = new byte[content.readableBytes()];
+        content.getBytes(content.readerIndex(), body);
+        return body;
+    }
+
+    @Test
+    @DisplayName("超过单帧上限的消息拆成不超过上限的分片，接收端拼接后与原始消息体一致")
+    void shouldSplitAndReassembleLargeMessage() {
+        RpcResponse response = buildResponse(3 * 1024 * 1024, 11L);
+        byte[] original = serializer.serialize(response);
+
+        EmbeddedChannel encodeChannel = newEncodeChannel();
+        assertTrue(encodeChannel.writeOutbound(response));
+        List<ByteBuf> frames = drainOutbound(encodeChannel);
+        assertTrue(frames.size() > 1, "大消息应被拆成多个分片");
+        for (int i = 0; i < frames.size(); i++) {
+            ByteBuf frame = frames.get(i);
+            assertTrue(frame.readableBytes() <= ProtocolConstants.MAX_FRAME_LENGTH, "分片不应超过单帧上限");
+            assertEquals(i < frames.size() - 1,
+                    ProtocolConstants.hasFlag(frame.getByte(ProtocolConstants.FLAGS_OFFSET), ProtocolConstants.FLAG_MORE_CHUNKS),
+                    "只有最后一个分片不带 FLAG_MORE_CHUNKS");
+        }
+
+        EmbeddedChannel decodeChannel = newDecodeChannel();
+        for (int i = 0; i < frames.size() - 1; i++) {
+            assertFalse(decodeChannel.writeInbound(frames.get(i)), "收齐之前不应输出消息");
+        }
+        assertTrue(decodeChannel.writeInbound(frames.get(frames.size() - 1)));
+        RawMessage rawMessage = decodeChannel.readInbound();
+        try {
+            assertEquals(11L, rawMessage.getRequestId());
+            assertFalse(rawMessage.hasFlag(ProtocolConstants.FLAG_MORE_CHUNKS));
+            assertArrayEquals(original, bodyOf(rawMessage));
+        } finally {
+            rawMessage.release();
+        }
+        assertFalse(encodeChannel.finish());
+        assertFalse(decodeChannel.finish());
+    }
+
+    @Test
+    @DisplayName("其他消息的帧可以穿插在分片之间")
+    void shouldDecodeFramesInterleavedWithChunks() {
+        EmbeddedChannel encodeChannel = newEncodeChannel();
+        encodeChannel.writeOutbound(buildResponse(2 * 1024 * 1024, 1L));
+        List<ByteBuf> chunks = drainOutbound(encodeChannel);
+        RpcResponse small = RpcResponse.success("small");
+        small.setSequenceId(2L);
+        encodeChannel.writeOutbound(small);
+        ByteBuf smallFrame = encodeChannel.readOutbound();
+
+        EmbeddedChannel decodeChannel = newDecodeChannel();
+        decodeChannel.writeInbound(chunks.get(0));
+        assertTrue(decodeChannel.writeInbound(smallFrame));
+        RawMessage first = decodeChannel.readInbound();
+        assertEquals(2L, first.getRequestId(), "穿插的小消息应立即输出");
+        first.release();
+
+        for (int i = 1; i < chunks.size(); i++) {
+            decodeChannel.writeInbound(chunks.get(i));
+        }
+        RawMessage large = decodeChannel.readInbound();
+        assertEquals(1L, large.getRequestId());
+        large.release();
+        assertFalse(encodeChannel.finish());
+        assertFalse(decodeChannel.finish());
+    }
+
+    @Test
+    @DisplayName("Channel 不可写时暂停写出分片，写完最后一个分片后才完成写操作")
+    void shouldPaceChunksByWritability() {
+        EmbeddedChannel encodeChannel = newEncodeChannel();
+        encodeChannel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1024, 2048));
+
+        ChannelFuture future = encodeChannel.write(buildResponse(2 * 1024 * 1024, 3L));
+        assertTrue(encodeChannel.unsafe().outboundBuffer().totalPendingWriteBytes() < 2 * CHUNK_SIZE,
+                "不可写时出站缓冲区只应有一个分片");
+        assertFalse(future.isDone());
+
+        encodeChannel.flush();
+        assertTrue(future.isSuccess(), "flush 后随可写性恢复逐个写出剩余分片");
+        List<ByteBuf> chunks = drainOutbound(encodeChannel);
+        assertTrue(chunks.size() > 1);
+        chunks.forEach(ByteBuf::release);
+        assertFalse(encodeChannel.finish());
+    }
+
+    @Test
+    @DisplayName("流元素超过单帧上限时，同一流的后续元素与结束响应排在分片之后，逐个完整到达")
+    void shouldKeepStreamFramesBehindPendingChunks() {
+        String large = buildResponse(2 * 1024 * 1024, 7L).getData().toString();
+        EmbeddedChannel encodeChannel = newEncodeChannel();
+        // 不可写时分片暂停，后续小帧若不排队就会越过未写完的分片
+        encodeChannel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1024, 2048));
+        encodeChannel.write(StreamFrame.item(7L, large));
+        encodeChannel.write(StreamFrame.item(7L, "a"));
+        encodeChannel.write(StreamFrame.item(7L, "b"));
+        RpcResponse completion = RpcResponse.success(null);
+        completion.setSequenceId(7L);
+        ChannelFuture last = encodeChannel.write(completion);
+        assertFalse(last.isDone(), "结束响应应排在未写完的分片之后");
+        encodeChannel.flush();
+        assertTrue(last.isSuccess());
+
+        EmbeddedChannel decodeChannel = newDecodeChannel();
+        for (ByteBuf frame : drainOutbound(encodeChannel)) {
+            decodeChannel.writeInbound(frame);
+        }
+        Object[] expectedItems = { large, "a", "b" };
+        for (Object expected : expectedItems) {
+            RawMessage item = decodeChannel.readInbound();
+            try {
+                assertEquals(MessageType.STREAM_ITEM.getCode(), item.getMessageType());
+                assertEquals(7L, item.getRequestId());
+                RpcResponse decoded = (RpcResponse) serializer.deserialize(bodyOf(item),
+                        MessageType.RESPONSE.getCode());
+                assertEquals(expected, decoded.getData());
+            } finally {
+                item.release();
+            }
+        }
+        RawMessage end = decodeChannel.readInbound();
+        try {
+            assertEquals(MessageType.RESPONSE.getCode(), end.getMessageType());
+            assertEquals(7L, end.getRequestId());
+        } finally {
+            end.release();
+        }
+        assertNull(decodeChannel.readInbound());
+        assertFalse(encodeChannel.finish());
+        assertFalse(decodeChannel.finish());
+    }
+
+    @Test
+    @DisplayName("未收齐的分片超过连接上限时抛出 TooLongFrameException 并释放已收到的分片")
+    void shouldRejectWhenPendingBytesExceedLimit() throws Exception {
+        ChunkAssembler assembler = new ChunkAssembler(1024);
+        ByteBuf first = Unpooled.buffer().writeZero(800);
+        assertNull(assembler.append(UnpooledByteBufAllocator.DEFAULT, 5L, first, false));
+        assertEquals(1, assembler.pendingMessages());
+
+        ByteBuf second = Unpooled.buffer().writeZero(800);
+        assertThrows(TooLongFrameException.class,
+                () -> assembler.append(UnpooledByteBufAllocator.DEFAULT, 5L, second, false));
+        assertEquals(0, assembler.pendingMessages());
+        assertEquals(0, first.refCnt(), "已收到的分片应被释放");
+        assertEquals(0, second.refCnt());
+    }
+}
@@ -0,0 +1,92 @@
+package common.compress;
+
+import common.compress.impl.DeflateCompressor;
+import common.compress.impl.Lz4Compressor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Compressor 压缩算法测试")
+class CompressorTest {
+
+    private final Compressor[] compressors = { new DeflateCompressor(), new Lz4Compressor() };
+
+    @Test
+    @DisplayName("SPI 按名称与编号均可查找到内置算法")
+    void shouldLoadBuiltInCompressors() {
+        assertEquals(DeflateCompressor.TYPE, CompressorFactory.getByName("deflate").getType());
+        assertEquals(Lz4Compressor.TYPE, CompressorFactory.getByName("LZ4").getType());
+        assertEquals("lz4", CompressorFactory.getByType(Lz4Compressor.TYPE).getName());
+        assertNull(CompressorFactory.getByName("none"));
+    }
+
+    @Test
+    @DisplayName("各类输入压缩后均可无损还原")
+    void shouldRoundTrip() {
+        Random random = new Random(42);
+        byte[] randomBytes = new byte[10_000];
+        random.nextBytes(randomBytes);
+        byte[] runs = new byte[70_000];
+        Arrays.fill(runs, 20_000, 50_000, (byte) 7);
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            json.append("{\"id\":").append(i).append(",\"userName\":\"user").append(random.nextInt(1000))
+                    .append("\",\"sex\":").append(i % 2 == 0).append(",\"email\":\"user").append(i)
+                    .append("@example.com\"},");
+        }
+
+        byte[][] inputs = { new byte[0], "a".getBytes(StandardCharsets.UTF_8),
+                "abcdabcdabcdabcd".getBytes(StandardCharsets.UTF_8), randomBytes, runs,
+                json.toString().getBytes(StandardCharsets.UTF_8) };
+        for (Compressor compressor : compressors) {
+            for (byte[] input : inputs) {
+                assertArrayEquals(input, roundTrip(compressor, input),
+                        compressor.getName() + " 还原失败，输入长度 " + input.length);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("可压缩数据压缩后明显变小")
+    void shouldShrinkCompressibleData() {
+        byte[] input = "{\"userName\":\"alice\",\"email\":\"alice@example.com\"},".repeat(200)
+                .getBytes(StandardCharsets.UTF_8);
+        for (Compressor compressor : compressors) {
+            byte[] dst = new byte[compressor.maxCompressedLength(input.length)];
+            int compressed = compressor.compress(input, 0, input.length, dst, 0);
+            assertTrue(compressed < input.length / 4, compressor.getName() + " 压缩后 " + compressed + " 字节");
+        }
+    }
+
+    @Test
+    @DisplayName("损坏的数据或长度不符时抛出 IllegalArgumentException")
+    void shouldRejectCorruptedInput() {
+        byte[] input = "hello hello hello hello hello hello".getBytes(StandardCharsets.UTF_8);
+        for (Compressor compressor : compressors) {
+            byte[] dst = new byte[compressor.maxCompressedLength(input.length)];
+            int compressed = compressor.compress(input, 0, input.length, dst, 0);
+            assertThrows(IllegalArgumentException.class,
+                    () -> compressor.decompress(dst, 0, compressed, new byte[input.length + 1], 0, input.length + 1));
+            byte[] truncated = Arrays.copyOf(dst, compressed - 2);
+            assertThrows(IllegalArgumentException.class,
+                    () -> compressor.decompress(truncated, 0, truncated.length, new byte[input.length], 0,
+                            input.length));
+        }
+    }
+
+    private static byte[] roundTrip(Compressor compressor, byte[] input) {
+        // 输入与输出都带偏移，验证实现正确处理数组偏移
+        byte[] src = new byte[input.length + 3];
+        System.arraycopy(input, 0, src, 3, input.length);
+        byte[] dst = new byte[compressor.maxCompressedLength(input.length) + 5];
+        int compressed = compressor.compress(src, 3, input.length, dst, 5);
+        byte[] restored = new byte[input.length + 2];
+        compressor.decompress(dst, 5, compressed, restored, 2, input.length);
+        return Arrays.copyOfRange(restored, 2, restored.length);
+    }
+}
@@ -3,13 +3,25 @@ package common.serializer;
 import common.message.RpcRequest;
 import common.message.RpcResponse;
 import common.pojo.User;
+import common.serializer.impl.CodegenSerializer;
 import common.serializer.impl.JsonSerializer;
+import common.serializer.impl.KryoRegistration;
+import common.serializer.impl.KryoSerializer;
 import common.serializer.impl.ProtobufSerializer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.UUID;
 
@@ -107,6 +119,22 @@ class SerializerTest {
             RpcResponse deserializedResponse = (RpcResponse) serializer.deserialize(responseBytes, 1);
             assertEquals(testResponse.getCode(), deserializedResponse.getCode(), "响应码应保持一致");
         }
+
+        @Test
+        @DisplayName("省略签名的请求反序列化后签名字段为 null，服务端据此按帧头补齐")
+        void shouldReadOmittedSignatureAsNull() {
+            Serializer serializer = new ProtobufSerializer(true);
+            RpcRequest compact = (RpcRequest) serializer.deserialize(
+                    serializer.serialize(testRequest.withoutSignature()), 0);
+            assertNull(compact.getInterfaceName());
+            assertNull(compact.getMethodName());
+            assertNull(compact.getParamsType());
+            assertArrayEquals(testRequest.getParams(), compact.getParams(), "按类型编码的参数不依赖参数类型");
+
+            RpcRequest full = (RpcRequest) serializer.deserialize(serializer.serialize(testRequest), 0);
+            assertEquals(testRequest.getInterfaceName(), full.getInterfaceName());
+            assertArrayEquals(testRequest.getParamsType(), full.getParamsType());
+        }
     }
 
     @Nested
@@ -133,4 +161,144 @@ class SerializerTest {
             assertEquals(testResponse.getRequestId(), deserializedResponse.getRequestId(), "请求ID应保持一致");
         }
     }
+
+    @Nested
+    @DisplayName("KryoSerializer")
+    class KryoSerializerTests {
+
+        @Test
+        @DisplayName("注册表由服务接口确定，与声明顺序无关，且保持早期版本的类ID")
+        void shouldBuildDeterministicRegistration() {
+            KryoRegistration forward = KryoRegistration.forServices(
+                    List.of(common.service.UserService.class, common.service.EchoService.class));
+            KryoRegistration backward = KryoRegistration.forServices(
+                    List.of(common.service.EchoService.class, common.service.UserService.class));
+
+            assertEquals(forward.getClasses(), backward.getClasses());
+            assertEquals(forward.getFingerprint(), backward.getFingerprint());
+            assertEquals(KryoRegistration.legacy().getClasses(), forward.getClasses().subList(0, 2),
+                    "RpcRequest、RpcResponse 应保持最先注册");
+            assertTrue(forward.getClasses().contains(User.class), "返回值泛型实参中的类型应被注册");
+            assertTrue(forward.getClasses().contains(common.result.Result.class));
+            assertNotEquals(forward.getFingerprint(), KryoRegistration.legacy().getFingerprint());
+        }
+
+        @Test
+        @DisplayName("注册的类只写类ID；复用的缓冲区在连续调用间互不影响")
+        void shouldWriteClassIdsAndReuseBuffers() {
+            KryoSerializer registered = new KryoSerializer(
+                    KryoRegistration.forServices(List.of(common.service.UserService.class)));
+            KryoSerializer legacy = new KryoSerializer(KryoRegistration.legacy());
+
+            byte[] compact = registered.serialize(testResponse);
+            byte[] verbose = legacy.serialize(testResponse);
+            assertFalse(new String(compact, StandardCharsets.ISO_8859_1).contains(User.class.getName()),
+                    "已注册的类不应写入类名");
+            assertTrue(compact.length < verbose.length, "注册后消息体应更小: " + verbose.length + " -> " + compact.length);
+
+            // 大消息之后紧接小消息，复用的 Output/Input 不应残留上一次的内容
+            RpcResponse large = RpcResponse.success("x".repeat(64 * 1024));
+            RpcResponse decodedLarge = (RpcResponse) registered.deserialize(registered.serialize(large), 1);
+            assertEquals(large.getData(), decodedLarge.getData());
+
+            RpcResponse fromBytes = (RpcResponse) registered.deserialize(compact, 1);
+            RpcResponse fromBuffer = (RpcResponse) registered.deserialize(ByteBuffer.wrap(compact), 1);
+            for (RpcResponse decoded : List.of(fromBytes, fromBuffer)) {
+                assertEquals(testResponse.getRequestId(), decoded.getRequestId());
+                assertEquals(testUser.getUserName(), ((User) decoded.getData()).getUserName());
+                assertEquals(User.class, decoded.getDataType());
+            }
+            RpcRequest decodedRequest = (RpcRequest) registered.deserialize(registered.serialize(testRequest), 0);
+            assertEquals(testRequest.getInterfaceName(), decodedRequest.getInterfaceName());
+            assertArrayEquals(testRequest.getParams(), decodedRequest.getParams());
+        }
+    }
+
+    // 既未注册也无法生成代码（final 字段）的类型，按 Java 序列化写出
+    static final class UnregisteredPayload implements java.io.Serializable {
+        private final String value;
+
+        UnregisteredPayload(String value) {
+            this.value = value;
+        }
+    }
+
+    @Nested
+    @DisplayName("CodegenSerializer")
+    class CodegenSerializerTests {
+
+        private final CodegenSerializer serializer = new CodegenSerializer(
+                CodegenSerializer.forServices(List.of(common.service.UserService.class)));
+
+        @Test
+        @DisplayName("为请求、响应与服务中的类型生成编解码器，往返后字段一致且不写类名")
+        void shouldRoundTripGeneratedTypes() {
+            assertTrue(serializer.getRegistry().isGenerated(RpcRequest.class));
+            assertTrue(serializer.getRegistry().isGenerated(RpcResponse.class));
+            assertTrue(serializer.getRegistry().isGenerated(User.class));
+
+            byte[] bytes = serializer.serialize(testResponse);
+            assertFalse(new String(bytes, StandardCharsets.ISO_8859_1).contains(User.class.getName()),
+                    "已注册的类不应写入类名");
+            RpcResponse fromBytes = (RpcResponse) serializer.deserialize(bytes, 1);
+            RpcResponse fromBuffer = (RpcResponse) serializer.deserialize(ByteBuffer.wrap(bytes), 1);
+            for (RpcResponse decoded : List.of(fromBytes, fromBuffer)) {
+                assertEquals(testResponse.getRequestId(), decoded.getRequestId());
+                assertEquals(testResponse.getCode(), decoded.getCode());
+                assertEquals(User.class, decoded.getDataType());
+                assertEquals(testUser, decoded.getData());
+            }
+
+            RpcRequest decoded = (RpcRequest) serializer.deserialize(serializer.serialize(testRequest), 0);
+            assertEquals(testRequest.getInterfaceName(), decoded.getInterfaceName());
+            assertEquals(testRequest.getMethodName(), decoded.getMethodName());
+            assertEquals(testRequest.getTimestamp(), decoded.getTimestamp());
+            assertEquals(testRequest.getFeatureCode(), decoded.getFeatureCode(), "没有 setter 的字段也应写出");
+            assertArrayEquals(testRequest.getParams(), decoded.getParams());
+            assertArrayEquals(testRequest.getParamsType(), decoded.getParamsType());
+        }
+
+        @Test
+        @DisplayName("注册表之外的类型按类型标签编码，残缺的输入抛出异常")
+        void shouldEncodeUnregisteredTypesAndRejectTruncatedInput() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("users", List.of(testUser, testUser));
+            map.put("tags", new LinkedHashSet<>(List.of("a", "b")));
+            map.put("amount", new BigDecimal("12.50"));
+            map.put("date", new Date(1_700_000_000_000L));
+            map.put("unit", java.util.concurrent.TimeUnit.SECONDS);
+            map.put("ids", new long[] { 1L, -2L });
+            map.put("names", new String[] { "x", null });
+            map.put("none", null);
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> decoded = (Map<String, Object>) serializer.deserialize(serializer.serialize(map), 1);
+            assertEquals(map.keySet(), decoded.keySet());
+            assertEquals(List.of(testUser, testUser), decoded.get("users"));
+            assertEquals(map.get("tags"), decoded.get("tags"));
+            assertEquals(map.get("amount"), decoded.get("amount"));
+            assertEquals(map.get("date"), decoded.get("date"));
+            assertEquals(map.get("unit"), decoded.get("unit"));
+            assertArrayEquals((long[]) map.get("ids"), (long[]) decoded.get("ids"));
+            assertArrayEquals((String[]) map.get("names"), (String[]) decoded.get("names"));
+            assertNull(decoded.get("none"));
+
+            byte[] bytes = serializer.serialize(testResponse);
+            assertThrows(RuntimeException.class,
+                    () -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length / 2), 1));
+        }
+
+        @Test
+        @DisplayName("退回 Java 序列化时只接受注册表中的类与 JDK 的类")
+        void shouldFilterJavaSerializedClasses() {
+            IllegalStateException failure = new IllegalStateException("boom");
+            Object decoded = serializer.deserialize(serializer.serialize(failure), 1);
+            assertEquals(IllegalStateException.class, decoded.getClass());
+            assertEquals("boom", ((IllegalStateException) decoded).getMessage());
+
+            byte[] bytes = serializer.serialize(new UnregisteredPayload("x"));
+            assertThrows(RuntimeException.class, () -> serializer.deserialize(bytes, 1),
+                    "注册表之外的非 JDK 类应在实例化之前被拒绝");
+        }
+    }
 }
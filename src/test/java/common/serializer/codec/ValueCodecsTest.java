@@ -0,0 +1,95 @@
+package common.serializer.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.google.protobuf.ByteString;
+import common.pojo.User;
+import common.result.Result;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("参数与返回值二进制编解码测试")
+class ValueCodecsTest {
+
+    private static Object roundTrip(Object value) throws IOException {
+        int codecId = ValueCodecs.codecId(value);
+        String typeName = codecId == ValueCodecs.JSON_ID ? value.getClass().getName() : "";
+        return ValueCodecs.decode(codecId, typeName, ValueCodecs.encode(value));
+    }
+
+    private static User buildUser() {
+        return User.builder()
+                .id(100_001L)
+                .userName("user_100001")
+                .sex(true)
+                .age(-1)
+                .email("user_100001@example.com")
+                .phone("13800138000")
+                .address("北京市海淀区")
+                .userType("NORMAL")
+                .lastUpdateTime(1_700_000_000_000L)
+                .build();
+    }
+
+    @Test
+    @DisplayName("标量、null 与字节数组按内置编解码器编码，解码后类型与值不变")
+    void shouldRoundTripBuiltInTypes() throws IOException {
+        List<Object> values = Arrays.asList("中文 text", 42, -7, Long.MIN_VALUE, true, 3.5d, 1.25f);
+        for (Object value : values) {
+            assertTrue(ValueCodecs.codecId(value) > ValueCodecs.JSON_ID, "应有专用编解码器: " + value.getClass());
+            assertEquals(value, roundTrip(value));
+        }
+        assertEquals(ValueCodecs.NULL_ID, ValueCodecs.codecId(null));
+        assertNull(roundTrip(null));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) roundTrip(new byte[] { 1, 2, 3 }));
+        assertEquals(1, ValueCodecs.encode(42L).size(), "小整数应按变长编码写出");
+        String large = "x".repeat(64 * 1024);
+        assertEquals(large, roundTrip(large), "超出临时数组的值应改用可增长的输出");
+    }
+
+    @Test
+    @DisplayName("User 通过 SPI 加载的编解码器按 protobuf 字段编码，比 JSON 小且保留 null 字段")
+    void shouldEncodeUserWithRegisteredCodec() throws IOException {
+        User user = buildUser();
+        assertTrue(ValueCodecs.codecId(user) >= ValueCodecs.MIN_CUSTOM_ID, "User 应由 SPI 编解码器处理");
+        assertEquals(user, roundTrip(user));
+
+        ByteString encoded = ValueCodecs.encode(user);
+        int jsonLength = JSON.toJSONBytes(user).length;
+        assertTrue(encoded.size() < jsonLength * 0.7, "二进制编码应明显小于 JSON: " + jsonLength + " -> " + encoded.size());
+
+        User partial = User.builder().id(1L).userName("partial").build();
+        User decoded = (User) roundTrip(partial);
+        assertEquals(partial, decoded);
+        assertNull(decoded.getAge(), "未设置的字段解码后应为 null");
+    }
+
+    @Test
+    @DisplayName("List 逐个元素编码；没有专用编解码器的类型按 JSON 编码并携带类名")
+    void shouldEncodeListsAndFallBackToJson() throws IOException {
+        List<Object> list = new ArrayList<>();
+        list.add(buildUser());
+        list.add(null);
+        list.add(7L);
+        list.add(List.of("a", "b"));
+        @SuppressWarnings("unchecked")
+        List<Object> decoded = (List<Object>) roundTrip(list);
+        assertEquals(list, decoded);
+
+        Result<String> result = Result.success("ok");
+        assertEquals(ValueCodecs.JSON_ID, ValueCodecs.codecId(result));
+        @SuppressWarnings("unchecked")
+        Result<String> decodedResult = (Result<String>) roundTrip(result);
+        assertEquals(result.getData(), decodedResult.getData());
+        assertEquals(result.getCode(), decodedResult.getCode());
+
+        assertThrows(IOException.class, () -> ValueCodecs.decode(15, "", ByteString.EMPTY),
+                "未知的编解码器编号应失败");
+    }
+}
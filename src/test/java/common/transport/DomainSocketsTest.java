@@ -0,0 +1,43 @@
+package common.transport;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("DomainSockets 注册信息测试")
+class DomainSocketsTest {
+
+    @Test
+    @DisplayName("socket 路径写入实例节点后可以解析")
+    void shouldRoundTripRegistration() {
+        byte[] data = DomainSockets.encodeRegistration("/tmp/myrpc-9999.sock");
+        assertEquals("/tmp/myrpc-9999.sock", DomainSockets.decodeRegistration(data));
+    }
+
+    @Test
+    @DisplayName("未通告路径的节点数据解析为 null")
+    void shouldIgnoreNodesWithoutPath() {
+        assertNull(DomainSockets.decodeRegistration(null));
+        assertNull(DomainSockets.decodeRegistration(new byte[0]));
+        // Curator 未指定数据时写入注册方 IP
+        assertNull(DomainSockets.decodeRegistration("172.17.0.2".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("回环地址视为本机地址")
+    void shouldTreatLoopbackAsLocal() {
+        assertTrue(DomainSockets.isLocalAddress(new InetSocketAddress("127.0.0.1", 9999)));
+        assertFalse(DomainSockets.isLocalAddress(InetSocketAddress.createUnresolved("example.invalid", 9999)));
+    }
+
+    @Test
+    @DisplayName("socket 路径中的端口占位符被替换")
+    void shouldResolveServerPathPerPort() {
+        assertTrue(DomainSockets.serverPath(9999).contains("9999"));
+        assertFalse(DomainSockets.serverPath(9999).contains("{port}"));
+    }
+}
@@ -0,0 +1,50 @@
+package common.transport;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Transport 传输选择测试")
+class TransportTest {
+
+    @Test
+    @DisplayName("显式指定 nio 或未知名称时使用 NIO")
+    void shouldUseNioWhenRequestedOrUnknown() {
+        assertEquals(Transport.NIO, Transport.resolve("nio"));
+        assertEquals(Transport.NIO, Transport.resolve(" NIO "));
+        assertEquals(Transport.NIO, Transport.resolve("bogus"));
+    }
+
+    @Test
+    @DisplayName("auto 优先选择可用的 native 传输，不可用的传输回退到 NIO")
+    void shouldPreferAvailableNativeTransport() {
+        Transport auto = Transport.resolve("auto");
+        assertTrue(auto.isAvailable());
+        if (Epoll.isAvailable()) {
+            assertEquals(Transport.EPOLL, auto);
+            assertEquals(Transport.EPOLL, Transport.resolve("epoll"));
+        } else {
+            assertEquals(Transport.NIO, Transport.resolve("epoll"));
+        }
+        if (!Transport.IO_URING.isAvailable()) {
+            assertEquals(Transport.NIO, Transport.resolve("iouring"));
+        }
+    }
+
+    @Test
+    @DisplayName("事件循环组与 Channel 类型来自同一传输实现")
+    void shouldCreateMatchingEventLoopGroup() throws Exception {
+        Transport transport = Transport.resolve("auto");
+        EventLoopGroup group = transport.newEventLoopGroup(1, "transport-test");
+        try {
+            assertNotNull(transport.serverChannelClass());
+            assertNotNull(transport.socketChannelClass());
+            assertEquals(transport != Transport.NIO, transport.supportsReusePort());
+        } finally {
+            group.shutdownGracefully().sync();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package performance;
+
+import common.compress.Compressor;
+import common.compress.impl.DeflateCompressor;
+import common.compress.impl.Lz4Compressor;
+import common.message.ProtocolConstants;
+import common.message.RpcResponse;
+import common.pojo.User;
+import common.serializer.Serializer;
+import common.serializer.impl.JsonSerializer;
+import common.serializer.impl.KryoSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 帧压缩算法对比：在 JSON 与 Kryo 序列化的 User 列表响应上，比较各算法的线上字节数与压缩/解压吞吐
+ * 吞吐按原始（未压缩）字节计算；线上字节数为压缩帧的消息体（含算法编号与原始长度）加 v2 帧头。
+ */
+@DisplayName("Frame Compression Performance Test")
+class CompressionPerformanceTest {
+
+    private static final int[] USER_COUNTS = { 10, 100, 1000 };
+    private static final long MEASURE_NANOS = 500_000_000L;
+
+    @Test
+    @DisplayName("各压缩算法在 User 列表响应上的吞吐与线上字节数")
+    void compareCodecsOnUserPayloads() {
+        Serializer[] serializers = { new JsonSerializer(), new KryoSerializer() };
+        Compressor[] compressors = { new DeflateCompressor(), new Lz4Compressor() };
+
+        List<String> reportLines = new ArrayList<>();
+        reportLines.add(String.format("%-16s | %-6s | %-8s | %-10s | %-8s | %-14s | %s", "Serializer", "Users",
+                "Codec", "Wire(B)", "Ratio", "Compress MB/s", "Decompress MB/s"));
+
+        for (Serializer serializer : serializers) {
+            for (int userCount : USER_COUNTS) {
+                byte[] body = serializer.serialize(RpcResponse.success(buildUsers(userCount)));
+                String prefix = String.format("%-16s | %-6d | ", serializer.getSerializerName(), userCount);
+                reportLines.add(prefix + String.format("%-8s | %-10d | %-8.2f | %-14s | %s", "none",
+                        body.length + ProtocolConstants.V2_HEADER_LENGTH, 1.0, "-", "-"));
+                for (Compressor compressor : compressors) {
+                    reportLines.add(prefix + measure(compressor, body));
+                }
+            }
+        }
+
+        System.out.println("--------------------------------------------------");
+        for (String line : reportLines) {
+            System.out.println(line);
+        }
+        System.out.println("--------------------------------------------------");
+    }
+
+    /**
+     * 测量单个算法在给定消息体上的压缩比与吞吐，返回报告行中算法相关的列
+     */
+    private static String measure(Compressor compressor, byte[] body) {
+        byte[] compressed = new byte[compressor.maxCompressedLength(body.length)];
+        byte[] restored = new byte[body.length];
+
+        // 预热 JIT
+        int compressedLength = 0;
+        for (int i = 0; i < 2000; i++) {
+            compressedLength = compressor.compress(body, 0, body.length, compressed, 0);
+            compressor.decompress(compressed, 0, compressedLength, restored, 0, body.length);
+        }
+        if (!Arrays.equals(body, restored)) {
+            throw new AssertionError(compressor.getName() + " 解压结果与原始数据不一致");
+        }
+
+        long iterations = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < MEASURE_NANOS) {
+            compressor.compress(body, 0, body.length, compressed, 0);
+            iterations++;
+        }
+        double compressMbps = mbPerSecond(body.length, iterations, System.nanoTime() - start);
+
+        iterations = 0;
+        start = System.nanoTime();
+        while (System.nanoTime() - start < MEASURE_NANOS) {
+            compressor.decompress(compressed, 0, compressedLength, restored, 0, body.length);
+            iterations++;
+        }
+        double decompressMbps = mbPerSecond(body.length, iterations, System.nanoTime() - start);
+
+        int wire = compressedLength + ProtocolConstants.COMPRESSED_BODY_HEADER_LENGTH
+                + ProtocolConstants.V2_HEADER_LENGTH;
+        return String.format("%-8s | %-10d | %-8.2f | %-14.1f | %.1f", compressor.getName(), wire,
+                (double) body.length / compressedLength, compressMbps, decompressMbps);
+    }
+
+    private static double mbPerSecond(int bytes, long iterations, long nanos) {
+        return bytes * (double) iterations / (1024 * 1024) / (nanos / 1_000_000_000.0);
+    }
+
+    /**
+     * 与 UserServiceImpl 存储的数据形态一致的用户列表，字段取值有一定随机性
+     */
+    private static List<User> buildUsers(int count) {
+        Random random = new Random(count);
+        String[] cities = { "北京市朝阳区", "上海市浦东新区", "广州市天河区", "深圳市南山区", "杭州市西湖区" };
+        String[] types = { "NORMAL", "VIP", "ADMIN" };
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = 100_000L + random.nextInt(900_000);
+            users.add(User.builder()
+                    .id(id)
+                    .userName("user_" + id)
+                    .sex(random.nextBoolean())
+                    .age(18 + random.nextInt(50))
+                    .email("user_" + id + "@example.com")
+                    .phone("138" + String.format("%08d", random.nextInt(100_000_000)))
+                    .address(cities[random.nextInt(cities.length)] + random.nextInt(300) + "号")
+                    .userType(types[random.nextInt(types.length)])
+                    .lastUpdateTime(1_700_000_000_000L + random.nextInt(1_000_000_000))
+                    .build());
+        }
+        return users;
+    }
+}
@@ -2,8 +2,13 @@ package performance;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.LoggerContext;
+import client.netty.ResponseDispatcher;
+import client.proxy.ClientProxy;
+import client.retry.GuavaRetry;
 import client.rpcClient.impl.NettyRpcClient;
+import common.FlushCoalescingHandler;
 import common.message.RpcRequest;
+import common.message.RpcResponse;
 import common.service.EchoService;
 import common.service.impl.EchoServiceImpl;
 import org.apache.curator.framework.CuratorFramework;
@@ -13,16 +18,19 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import server.netty.handler.DispatchStats;
 import server.provider.ServiceProvider;
 import server.server.impl.NettyRPCServer;
 
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * Echo Loopback Auto-Tuning Performance Test
@@ -60,6 +68,8 @@ public class EchoPerformanceTest {
         System.setProperty("rpc.ratelimit.capacity", "99999999");
         System.setProperty("rpc.breaker.failureThreshold", "99999999");
         System.setProperty("serializer.type", "3"); // Kryo
+        // 服务节点与客户端同进程，关闭进程内直连以压测网络链路（compareInJvmShortCircuit 单独开启）
+        System.setProperty("rpc.client.injvm.enabled", "false");
 
         startServer();
     }
@@ -152,6 +162,241 @@ public class EchoPerformanceTest {
         System.out.println("############################################################");
     }
 
+    /**
+     * 对比按消息体分发（v1 帧，IO 线程先反序列化再查服务）与按帧头分发（v2 帧，IO 线程只读帧头）
+     * 对 IO 线程的占用：统计服务端 channelRead0 的累计耗时，折算为每请求 IO 线程微秒数
+     */
+    @Test
+    public void compareDispatchEventLoopCost() throws Exception {
+        int concurrency = 200;
+        List<String> reportLines = new ArrayList<>();
+        reportLines.add(String.format("%-14s | %-10s | %-14s | %-8s | %-8s | %s", "Dispatch", "QPS",
+                "EL us/req", "Inline", "Offload", "BodyRouted"));
+
+        for (int version : new int[] { 1, 2 }) {
+            // 客户端 Encoder 在建立连接时读取协议版本，每种模式使用独立的客户端与连接
+            System.setProperty("rpc.protocol.version", String.valueOf(version));
+            try (NettyRpcClient rpcClient = new NettyRpcClient()) {
+                runAsyncPhase(rpcClient, 50, 3, false);
+                System.gc();
+                Thread.sleep(1000);
+
+                DispatchStats.reset();
+                TestResult result = runAsyncPhase(rpcClient, concurrency, TEST_DURATION_SECONDS, true);
+                long requests = Math.max(1, DispatchStats.getTotalRequests());
+                double eventLoopUsPerRequest = DispatchStats.getEventLoopNanos() / 1000.0 / requests;
+
+                String line = String.format("%-14s | %-10.2f | %-14.3f | %-8d | %-8d | %d",
+                        version == 1 ? "body (v1)" : "header (v2)", result.qps, eventLoopUsPerRequest,
+                        DispatchStats.getInlineRequests(), DispatchStats.getOffloadedRequests(),
+                        DispatchStats.getBodyRoutedRequests());
+                logger.info(line);
+                reportLines.add(line);
+            } finally {
+                System.clearProperty("rpc.protocol.version");
+            }
+        }
+
+        System.out.println("\n############################################################");
+        System.out.println("#              IO 线程分发开销对比 (并发 " + concurrency + ")");
+        System.out.println("############################################################");
+        for (String line : reportLines) {
+            System.out.println(line);
+        }
+        System.out.println("############################################################");
+    }
+
+    /**
+     * 客户端响应分发模式对比：IO 线程直接处理 / 一次切换到共享线程池 / 每个响应一个虚拟线程
+     * 经 ClientProxy 调用，包含反序列化、请求完成与返回值类型转换的完整响应路径
+     */
+    @Test
+    public void compareResponseDispatchModes() throws Exception {
+        int concurrency = 64;
+        List<String> reportLines = new ArrayList<>();
+        reportLines.add(String.format("%-16s | %-10s | %-12s | %-12s | %s", "Mode", "QPS", "Avg(us)", "P99(us)",
+                "Fail"));
+
+        ResponseDispatcher.Mode original = ResponseDispatcher.INSTANCE.getMode();
+        try (NettyRpcClient rpcClient = new NettyRpcClient()) {
+            EchoService echoService = new ClientProxy(rpcClient, new GuavaRetry()).getProxy(EchoService.class);
+            for (ResponseDispatcher.Mode mode : ResponseDispatcher.Mode.values()) {
+                ResponseDispatcher.INSTANCE.setMode(mode);
+                runAsyncPhase(() -> echoService.echo("ping"), 50, 3, false);
+                System.gc();
+                Thread.sleep(1000);
+
+                TestResult result = runAsyncPhase(() -> echoService.echo("ping"), concurrency,
+                        TEST_DURATION_SECONDS, true);
+                String line = String.format("%-16s | %-10.2f | %-12.2f | %-12d | %d", mode, result.qps,
+                        result.avgLatency, result.p99Latency, result.failCount);
+                logger.info(line);
+                reportLines.add(line);
+            }
+            logger.info(ResponseDispatcher.INSTANCE.reportStats());
+        } finally {
+            ResponseDispatcher.INSTANCE.setMode(original);
+        }
+
+        System.out.println("\n############################################################");
+        System.out.println("#            客户端响应分发模式对比 (并发 " + concurrency + ")");
+        System.out.println("############################################################");
+        for (String line : reportLines) {
+            System.out.println(line);
+        }
+        System.out.println("############################################################");
+    }
+
+    /**
+     * 进程内直连对比：经网络调用同进程的服务节点 / 进程内直连 / 进程内直连并复制参数与返回值
+     */
+    @Test
+    public void compareInJvmShortCircuit() throws Exception {
+        int concurrency = 200;
+        List<String> reportLines = new ArrayList<>();
+        reportLines.add(String.format("%-16s | %-10s | %-12s | %-12s | %s", "Mode", "QPS", "Avg(us)", "P99(us)",
+                "Fail"));
+
+        String[][] modes = { { "network", "false", "false" }, { "injvm", "true", "false" },
+                { "injvm+copy", "true", "true" } };
+        try (NettyRpcClient rpcClient = new NettyRpcClient()) {
+            EchoService echoService = new ClientProxy(rpcClient, new GuavaRetry()).getProxy(EchoService.class);
+            for (String[] mode : modes) {
+                System.setProperty("rpc.client.injvm.enabled", mode[1]);
+                System.setProperty("rpc.client.injvm.copy", mode[2]);
+                runAsyncPhase(() -> echoService.echo("ping"), 50, 3, false);
+                System.gc();
+                Thread.sleep(1000);
+
+                TestResult result = runAsyncPhase(() -> echoService.echo("ping"), concurrency,
+                        TEST_DURATION_SECONDS, true);
+                String line = String.format("%-16s | %-10.2f | %-12.2f | %-12d | %d", mode[0], result.qps,
+                        result.avgLatency, result.p99Latency, result.failCount);
+                logger.info(line);
+                reportLines.add(line);
+            }
+        } finally {
+            System.setProperty("rpc.client.injvm.enabled", "false");
+            System.clearProperty("rpc.client.injvm.copy");
+        }
+
+        System.out.println("\n############################################################");
+        System.out.println("#              进程内直连对比 (并发 " + concurrency + ")");
+        System.out.println("############################################################");
+        for (String line : reportLines) {
+            System.out.println(line);
+        }
+        System.out.println("############################################################");
+    }
+
+    /**
+     * 写合并对比：两端关闭 / 开启 flush 合并时的 QPS 与每请求 write 类系统调用数
+     * 系统调用数取自 /proc/self/io 的 syscw（客户端与服务端同进程，为两端之和），非 Linux 环境下记为 -1
+     */
+    @Test
+    public void compareFlushCoalescing() throws Exception {
+        int concurrency = 200;
+        List<String> reportLines = new ArrayList<>();
+        reportLines.add(String.format("%-10s | %-10s | %-12s | %-14s | %-14s | %s", "Coalesce", "QPS",
+                "P99(us)", "syscw/req", "client ratio", "server ratio"));
+
+        for (boolean enabled : new boolean[] { false, true }) {
+            // 两端的合并处理器在连接建立时按配置创建，每种模式使用独立的客户端与连接
+            System.setProperty("rpc.client.flush.coalesce", String.valueOf(enabled));
+            System.setProperty("rpc.server.flush.coalesce", String.valueOf(enabled));
+            try (NettyRpcClient rpcClient = new NettyRpcClient()) {
+                runAsyncPhase(rpcClient, 50, 3, false);
+                System.gc();
+                Thread.sleep(1000);
+
+                FlushCoalescingHandler.CLIENT_STATS.reset();
+                FlushCoalescingHandler.SERVER_STATS.reset();
+                long syscallsBefore = readWriteSyscalls();
+                TestResult result = runAsyncPhase(rpcClient, concurrency, TEST_DURATION_SECONDS, true);
+                long syscallsAfter = readWriteSyscalls();
+
+                long requests = Math.max(1, result.successCount + result.failCount);
+                double syscallsPerRequest = syscallsBefore < 0 || syscallsAfter < 0 ? -1
+                        : (double) (syscallsAfter - syscallsBefore) / requests;
+                String line = String.format("%-10s | %-10.2f | %-12d | %-14.3f | %-14.2f | %.2f",
+                        enabled ? "on" : "off", result.qps, result.p99Latency, syscallsPerRequest,
+                        FlushCoalescingHandler.CLIENT_STATS.getCoalescingRatio(),
+                        FlushCoalescingHandler.SERVER_STATS.getCoalescingRatio());
+                logger.info(line);
+                reportLines.add(line);
+            } finally {
+                System.clearProperty("rpc.client.flush.coalesce");
+                System.clearProperty("rpc.server.flush.coalesce");
+            }
+        }
+
+        System.out.println("\n############################################################");
+        System.out.println("#              写合并对比 (并发 " + concurrency + ")");
+        System.out.println("############################################################");
+        for (String line : reportLines) {
+            System.out.println(line);
+        }
+        System.out.println("############################################################");
+    }
+
+    @Test
+    public void compareRequestBatching() throws Exception {
+        int concurrency = 200;
+        List<String> reportLines = new ArrayList<>();
+        reportLines.add(String.format("%-10s | %-10s | %-12s | %-10s | %s", "Batch", "QPS", "P99(us)",
+                "batches", "avg size"));
+
+        for (boolean enabled : new boolean[] { false, true }) {
+            // 开关在客户端创建时读取，每种模式使用独立的客户端与连接
+            System.setProperty("rpc.client.batch.enabled", String.valueOf(enabled));
+            try (NettyRpcClient rpcClient = new NettyRpcClient()) {
+                Supplier<CompletableFuture<?>> call = () -> {
+                    RpcRequest request = buildRequest();
+                    request.setBatchable(true);
+                    return rpcClient.sendRequestAsync(request);
+                };
+                runAsyncPhase(call, 50, 3, false);
+                System.gc();
+                Thread.sleep(1000);
+
+                DispatchStats.reset();
+                TestResult result = runAsyncPhase(call, concurrency, TEST_DURATION_SECONDS, true);
+                long batches = DispatchStats.getBatches();
+                double avgSize = batches == 0 ? 0 : (double) DispatchStats.getBatchedRequests() / batches;
+                String line = String.format("%-10s | %-10.2f | %-12d | %-10d | %.2f",
+                        enabled ? "on" : "off", result.qps, result.p99Latency, batches, avgSize);
+                logger.info(line);
+                reportLines.add(line);
+            } finally {
+                System.clearProperty("rpc.client.batch.enabled");
+            }
+        }
+
+        System.out.println("\n############################################################");
+        System.out.println("#              请求攒批对比 (并发 " + concurrency + ")");
+        System.out.println("############################################################");
+        for (String line : reportLines) {
+            System.out.println(line);
+        }
+        System.out.println("############################################################");
+    }
+
+    /**
+     * 读取本进程累计的 write 类系统调用次数（/proc/self/io 的 syscw），不可用时返回 -1
+     */
+    private static long readWriteSyscalls() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/io"))) {
+                if (line.startsWith("syscw:")) {
+                    return Long.parseLong(line.substring("syscw:".length()).trim());
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("无法读取 /proc/self/io: {}", e.getMessage());
+        }
+        return -1;
+    }
+
     /**
      * 执行单轮压测
      * 
@@ -160,6 +405,14 @@ public class EchoPerformanceTest {
      */
     private TestResult runAsyncPhase(NettyRpcClient client, int concurrency, int durationSeconds, boolean record)
             throws InterruptedException {
+        return runAsyncPhase(() -> client.sendRequestAsync(buildRequest()), concurrency, durationSeconds, record);
+    }
+
+    /**
+     * 以固定并发持续发起异步调用；结果为 RpcResponse 时以 code 200 判定成功，其他结果以正常完成判定成功
+     */
+    private TestResult runAsyncPhase(Supplier<CompletableFuture<?>> call, int concurrency, int durationSeconds,
+            boolean record) throws InterruptedException {
         Semaphore semaphore = new Semaphore(concurrency);
         LongAdder successCount = new LongAdder();
         LongAdder failCount = new LongAdder();
@@ -182,17 +435,17 @@ public class EchoPerformanceTest {
                     try {
                         semaphore.acquire(); // 流量控制核心
 
-                        RpcRequest request = buildRequest();
                         long reqStart = System.nanoTime();
 
-                        client.sendRequestAsync(request).whenComplete((response, ex) -> {
+                        call.get().whenComplete((response, ex) -> {
                             try {
                                 long reqEnd = System.nanoTime();
                                 if (record) {
                                     long latencyUs = (reqEnd - reqStart) / 1000;
                                     latencies.add(latencyUs);
 
-                                    if (ex == null && response != null && response.getCode() == 200) {
+                                    if (ex == null && response != null && (!(response instanceof RpcResponse)
+                                            || ((RpcResponse) response).getCode() == 200)) {
                                         successCount.increment();
                                     } else {
                                         failCount.increment();
@@ -235,7 +488,6 @@ public class EchoPerformanceTest {
                 .methodName("echo")
                 .params(new Object[] { "hello" })
                 .paramsType(new Class[] { String.class })
-                .requestId(UUID.randomUUID().toString())
                 .timestamp(System.currentTimeMillis())
                 .build();
     }
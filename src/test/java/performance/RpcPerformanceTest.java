@@ -78,6 +78,8 @@ public class RpcPerformanceTest {
     public void testRpcPerformance() throws Exception {
         // Reset state
         // Reset state
+        // 服务节点与客户端同进程，关闭进程内直连以压测网络链路
+        System.setProperty("rpc.client.injvm.enabled", "false");
         // 1. Start Server
         startServer();
 
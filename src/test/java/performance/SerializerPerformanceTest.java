@@ -0,0 +1,243 @@
+package performance;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import common.message.RpcRequest;
+import common.message.RpcResponse;
+import common.pojo.User;
+import common.serializer.Serializer;
+import common.serializer.impl.CodegenSerializer;
+import common.serializer.impl.KryoRegistration;
+import common.serializer.impl.KryoSerializer;
+import common.serializer.impl.ProtobufSerializer;
+import common.service.EchoService;
+import common.service.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 序列化对比：单条消息的字节数与一次序列化加反序列化的耗时
+ * - kryo-alloc：每次调用新建流与 Input/Output、只注册 RpcRequest/RpcResponse（优化前的 KryoSerializer）
+ * - kryo-legacy：线程内复用缓冲区，注册表同上
+ * - kryo-registered：线程内复用缓冲区，按服务接口注册（当前默认配置）
+ * - protobuf-string：参数与响应数据转成字符串（复杂对象为 JSON）放入 protobuf 消息（优化前的 ProtobufSerializer）
+ * - protobuf-typed：参数与响应数据按类型编码为二进制（当前默认配置）
+ * - codegen：启动时为每个类生成的编解码器直接读写字段
+ */
+@DisplayName("Serializer Performance Test")
+class SerializerPerformanceTest {
+
+    private static final long MEASURE_NANOS = 500_000_000L;
+    private static final int WARMUP_ITERATIONS = 20_000;
+
+    @Test
+    @DisplayName("Kryo 缓冲区复用与类注册对消息大小和耗时的影响")
+    void compareKryoBuffersAndRegistration() {
+        Map<String, Serializer> serializers = new LinkedHashMap<>();
+        serializers.put("kryo-alloc", new AllocatingKryoSerializer());
+        serializers.put("kryo-legacy", new KryoSerializer(KryoRegistration.legacy()));
+        serializers.put("kryo-registered", new KryoSerializer(
+                KryoRegistration.forServices(List.of(UserService.class, EchoService.class))));
+
+        Map<String, Object> messages = new LinkedHashMap<>();
+        messages.put("request", buildRequest());
+        messages.put("response(User)", buildUserResponse());
+        messages.put("response(10 Users)", RpcResponse.success(buildUsers(10)));
+
+        List<String> reportLines = new ArrayList<>();
+        reportLines.add(String.format("%-16s | %-20s | %-10s | %s", "Serializer", "Message", "Bytes", "ns/op"));
+        for (Map.Entry<String, Serializer> serializer : serializers.entrySet()) {
+            for (Map.Entry<String, Object> message : messages.entrySet()) {
+                reportLines.add(String.format("%-16s | %-20s | %s", serializer.getKey(), message.getKey(),
+                        measure(serializer.getValue(), message.getValue())));
+            }
+        }
+
+        System.out.println("--------------------------------------------------");
+        for (String line : reportLines) {
+            System.out.println(line);
+        }
+        System.out.println("--------------------------------------------------");
+    }
+
+    @Test
+    @DisplayName("生成代码序列化与 Kryo 的对比")
+    void compareCodegenWithKryo() {
+        List<Class<?>> services = List.of(UserService.class, EchoService.class);
+        Map<String, Serializer> serializers = new LinkedHashMap<>();
+        serializers.put("kryo-registered", new KryoSerializer(KryoRegistration.forServices(services)));
+        serializers.put("codegen", new CodegenSerializer(CodegenSerializer.forServices(services)));
+
+        Map<String, Object> messages = new LinkedHashMap<>();
+        messages.put("request", buildRequest());
+        messages.put("request(User)", buildUserRequest());
+        messages.put("response(User)", buildUserResponse());
+        messages.put("response(10 Users)", RpcResponse.success(buildUsers(10)));
+
+        List<String> reportLines = new ArrayList<>();
+        reportLines.add(String.format("%-16s | %-20s | %-10s | %s", "Serializer", "Message", "Bytes", "ns/op"));
+        for (Map.Entry<String, Serializer> serializer : serializers.entrySet()) {
+            for (Map.Entry<String, Object> message : messages.entrySet()) {
+                reportLines.add(String.format("%-16s | %-20s | %s", serializer.getKey(), message.getKey(),
+                        measure(serializer.getValue(), message.getValue())));
+            }
+        }
+
+        System.out.println("--------------------------------------------------");
+        for (String line : reportLines) {
+            System.out.println(line);
+        }
+        System.out.println("--------------------------------------------------");
+    }
+
+    @Test
+    @DisplayName("Protobuf 参数与响应数据按类型编码与转成字符串的对比")
+    void compareProtobufValueEncoding() {
+        Map<String, Serializer> serializers = new LinkedHashMap<>();
+        serializers.put("protobuf-string", new ProtobufSerializer(false));
+        serializers.put("protobuf-typed", new ProtobufSerializer(true));
+
+        // 字符串格式无法还原 List 中元素的类型，只对比单个对象
+        Map<String, Object> messages = new LinkedHashMap<>();
+        messages.put("request", buildRequest());
+        messages.put("request(User)", buildUserRequest());
+        messages.put("response(User)", buildUserResponse());
+
+        List<String> reportLines = new ArrayList<>();
+        reportLines.add(String.format("%-16s | %-20s | %-10s | %s", "Serializer", "Message", "Bytes", "ns/op"));
+        for (Map.Entry<String, Serializer> serializer : serializers.entrySet()) {
+            for (Map.Entry<String, Object> message : messages.entrySet()) {
+                reportLines.add(String.format("%-16s | %-20s | %s", serializer.getKey(), message.getKey(),
+                        measure(serializer.getValue(), message.getValue())));
+            }
+        }
+
+        System.out.println("--------------------------------------------------");
+        for (String line : reportLines) {
+            System.out.println(line);
+        }
+        System.out.println("--------------------------------------------------");
+    }
+
+    private static String measure(Serializer serializer, Object message) {
+        int messageType = message instanceof RpcRequest ? 0 : 1;
+        byte[] bytes = serializer.serialize(message);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            serializer.deserialize(serializer.serialize(message), messageType);
+        }
+
+        long iterations = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < MEASURE_NANOS) {
+            serializer.deserialize(serializer.serialize(message), messageType);
+            iterations++;
+        }
+        long nanosPerOp = (System.nanoTime() - start) / iterations;
+        return String.format("%-10d | %d", bytes.length, nanosPerOp);
+    }
+
+    private static RpcRequest buildRequest() {
+        return RpcRequest.builder()
+                .requestId(UUID.randomUUID().toString())
+                .interfaceName(UserService.class.getName())
+                .methodName("getUserById")
+                .params(new Object[] { 1L })
+                .paramsType(new Class<?>[] { Long.class })
+                .timestamp(System.currentTimeMillis())
+                .traceId(UUID.randomUUID().toString())
+                .spanId(UUID.randomUUID().toString())
+                .build();
+    }
+
+    private static RpcRequest buildUserRequest() {
+        return RpcRequest.builder()
+                .requestId(UUID.randomUUID().toString())
+                .interfaceName(UserService.class.getName())
+                .methodName("insertUser")
+                .params(new Object[] { buildUsers(1).get(0) })
+                .paramsType(new Class<?>[] { User.class })
+                .timestamp(System.currentTimeMillis())
+                .traceId(UUID.randomUUID().toString())
+                .spanId(UUID.randomUUID().toString())
+                .build();
+    }
+
+    private static RpcResponse buildUserResponse() {
+        return RpcResponse.success(buildUsers(1).get(0));
+    }
+
+    private static List<User> buildUsers(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = 100_000L + i;
+            users.add(User.builder()
+                    .id(id)
+                    .userName("user_" + id)
+                    .sex(i % 2 == 0)
+                    .age(18 + i % 50)
+                    .email("user_" + id + "@example.com")
+                    .phone("13800138" + String.format("%03d", i % 1000))
+                    .address("北京市海淀区" + i + "号")
+                    .userType("NORMAL")
+                    .lastUpdateTime(1_700_000_000_000L + i)
+                    .build());
+        }
+        return users;
+    }
+
+    /**
+     * 优化前的 KryoSerializer：每次调用新建流与 Input/Output，只注册 RpcRequest/RpcResponse
+     */
+    private static final class AllocatingKryoSerializer implements Serializer {
+        private final ThreadLocal<Kryo> kryoThreadLocal = ThreadLocal.withInitial(() -> {
+            Kryo kryo = new Kryo();
+            kryo.setRegistrationRequired(false);
+            kryo.register(RpcRequest.class);
+            kryo.register(RpcResponse.class);
+            return kryo;
+        });
+
+        @Override
+        public byte[] serialize(Object obj) {
+            try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                    Output output = new Output(bos)) {
+                kryoThreadLocal.get().writeClassAndObject(output, obj);
+                output.flush();
+                return bos.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Object deserialize(byte[] bytes, int messageType) {
+            try (ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
+                    Input input = new Input(bis)) {
+                return kryoThreadLocal.get().readClassAndObject(input);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int getType() {
+            return 3;
+        }
+
+        @Override
+        public String getSerializerName() {
+            return "AllocatingKryoSerializer";
+        }
+    }
+}
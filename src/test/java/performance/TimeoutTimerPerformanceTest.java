@@ -0,0 +1,127 @@
+package performance;
+
+import client.netty.RequestTimeoutTimer;
+import io.netty.util.Timeout;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 请求超时管理对比：ScheduledExecutorService（每个请求一个延迟任务且不取消）vs 时间轮（完成即取消）
+ * 以固定速率模拟稳定负载，每个请求登记超时后立即收到响应，统计负载结束时的堆占用、进程 CPU 时间与残留任务数
+ */
+@DisplayName("Request Timeout Timer Performance Test")
+class TimeoutTimerPerformanceTest {
+
+    private static final int TARGET_QPS = 100_000;
+    private static final int DURATION_SECONDS = 5;
+    private static final long REQUEST_TIMEOUT_SECONDS = 5;
+
+    @Test
+    @DisplayName("稳定负载下的堆与 CPU 开销对比")
+    void compareSteadyLoad() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        try {
+            System.out.println("Starting timeout management comparison: " + TARGET_QPS + " req/s for "
+                    + DURATION_SECONDS + "s, timeout " + REQUEST_TIMEOUT_SECONDS + "s");
+
+            Result legacy = runSteadyLoad("ScheduledExecutor", future -> {
+                // 旧实现：每个请求一个延迟任务，响应到达后不取消
+                scheduler.schedule(() -> {
+                    if (!future.isDone()) {
+                        future.completeExceptionally(new TimeoutException());
+                    }
+                }, REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            });
+            long legacyQueued = ((ScheduledThreadPoolExecutor) scheduler).getQueue().size();
+
+            Result wheel = runSteadyLoad("HashedWheelTimer", future -> {
+                Timeout timeout = RequestTimeoutTimer.INSTANCE.newTimeout(
+                        t -> future.completeExceptionally(new TimeoutException()),
+                        REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                future.whenComplete((r, ex) -> RequestTimeoutTimer.INSTANCE.cancel(timeout));
+            });
+            // 已取消的任务在下一次 tick 时清理
+            Thread.sleep(RequestTimeoutTimer.INSTANCE.getTickMs() * 5);
+
+            System.out.println("--------------------------------------------------");
+            System.out.printf("%-18s | %-12s | %-12s | %-14s | %s%n", "Impl", "Ops/s", "CPU ms",
+                    "Heap after MB", "Live timeouts");
+            System.out.printf("%-18s | %-12.0f | %-12d | %-14.1f | %d%n", legacy.name, legacy.opsPerSecond,
+                    legacy.cpuMs, legacy.heapAfterMb, legacyQueued);
+            System.out.printf("%-18s | %-12.0f | %-12d | %-14.1f | %d%n", wheel.name, wheel.opsPerSecond,
+                    wheel.cpuMs, wheel.heapAfterMb, RequestTimeoutTimer.INSTANCE.getPendingTimeouts());
+            System.out.println(RequestTimeoutTimer.INSTANCE.reportStats());
+            System.out.println("--------------------------------------------------");
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private Result runSteadyLoad(String name, TimeoutRegistrar registrar) throws InterruptedException {
+        System.gc();
+        Thread.sleep(500);
+        long cpuStart = processCpuNanos();
+        long start = System.nanoTime();
+        long ops = 0;
+
+        // 按毫秒分批发压，保持固定速率
+        int perMillis = TARGET_QPS / 1000;
+        long totalMillis = TimeUnit.SECONDS.toMillis(DURATION_SECONDS);
+        for (long ms = 0; ms < totalMillis; ms++) {
+            for (int i = 0; i < perMillis; i++) {
+                CompletableFuture<Object> future = new CompletableFuture<>();
+                registrar.register(future);
+                // 模拟响应到达
+                future.complete(Boolean.TRUE);
+                ops++;
+            }
+            long next = start + TimeUnit.MILLISECONDS.toNanos(ms + 1);
+            while (System.nanoTime() < next) {
+                Thread.onSpinWait();
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long cpuMs = (processCpuNanos() - cpuStart) / 1_000_000;
+        System.gc();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        double heapMb = memory.getHeapMemoryUsage().getUsed() / 1024.0 / 1024.0;
+        return new Result(name, ops * 1_000_000_000.0 / elapsed, cpuMs, heapMb);
+    }
+
+    private static long processCpuNanos() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return 0L;
+    }
+
+    @FunctionalInterface
+    private interface TimeoutRegistrar {
+        void register(CompletableFuture<Object> future);
+    }
+
+    private static class Result {
+        final String name;
+        final double opsPerSecond;
+        final long cpuMs;
+        final double heapAfterMb;
+
+        Result(String name, double opsPerSecond, long cpuMs, double heapAfterMb) {
+            this.name = name;
+            this.opsPerSecond = opsPerSecond;
+            this.cpuMs = cpuMs;
+            this.heapAfterMb = heapAfterMb;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package performance;
+
+import common.message.ProtocolConstants;
+import common.transport.Transport;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 传输实现对比：NIO / epoll / io_uring 在本机回环上的吞吐与延迟
+ * 不依赖 ZooKeeper：服务端按 RPC 帧格式（长度字段位于偏移 4）切帧后原样回显，
+ * 客户端在每个连接上保持固定数量的在途帧，收到回显后立即发送下一帧（闭环压测）。
+ * 当前环境不可用的传输会被跳过。
+ * 另对比同机 TCP 回环与 Unix domain socket（仅 epoll），CPU 列为压测期间进程 CPU 时间与帧数之比。
+ */
+@DisplayName("Transport Loopback Performance Test")
+class TransportPerformanceTest {
+
+    private static final int PORT = 18801;
+    private static final int CONNECTIONS = 4;
+    private static final int WINDOW_PER_CONNECTION = 64;
+    private static final int PAYLOAD_BYTES = 128;
+    private static final int WARMUP_SECONDS = 2;
+    private static final int DURATION_SECONDS = 5;
+    private static final String HEADER = String.format("%-10s | %-12s | %-10s | %-10s | %-10s | %s", "Transport",
+            "Frames/s", "Avg(us)", "P99(us)", "P999(us)", "CPU(us)/frame");
+
+    @Test
+    @DisplayName("各传输实现的回环吞吐与延迟")
+    void compareTransports() throws Exception {
+        List<String> reportLines = new ArrayList<>();
+        reportLines.add(HEADER);
+
+        for (Transport transport : Transport.values()) {
+            if (!transport.isAvailable()) {
+                reportLines.add(String.format("%-10s | %s", transport, "unavailable"));
+                continue;
+            }
+            reportLines.add(run(transport.name(), transport, transport.serverChannelClass(),
+                    transport.socketChannelClass(), new InetSocketAddress("127.0.0.1", PORT)));
+        }
+        print(reportLines);
+    }
+
+    @Test
+    @DisplayName("同机 TCP 回环与 Unix domain socket 对比")
+    void compareLoopbackWithDomainSocket() throws Exception {
+        List<String> reportLines = new ArrayList<>();
+        reportLines.add(HEADER);
+
+        Transport transport = Transport.resolve("epoll");
+        if (!transport.supportsDomainSocket()) {
+            reportLines.add(String.format("%-10s | %s", "UDS", "unavailable (requires epoll)"));
+            print(reportLines);
+            return;
+        }
+        reportLines.add(run("TCP", transport, transport.serverChannelClass(), transport.socketChannelClass(),
+                new InetSocketAddress("127.0.0.1", PORT)));
+
+        File socketFile = new File(System.getProperty("java.io.tmpdir"), "myrpc-bench-" + PORT + ".sock");
+        socketFile.delete();
+        try {
+            reportLines.add(run("UDS", transport, transport.serverDomainSocketChannelClass(),
+                    transport.domainSocketChannelClass(), new DomainSocketAddress(socketFile)));
+        } finally {
+            socketFile.delete();
+        }
+        print(reportLines);
+    }
+
+    private static void print(List<String> reportLines) {
+        System.out.println("--------------------------------------------------");
+        for (String line : reportLines) {
+            System.out.println(line);
+        }
+        System.out.println("--------------------------------------------------");
+    }
+
+    private String run(String label, Transport transport, Class<? extends ServerChannel> serverChannelClass,
+                       Class<? extends Channel> channelClass, SocketAddress address) throws Exception {
+        boolean tcp = address instanceof InetSocketAddress;
+        int ioThreads = Transport.ioThreads("rpc.server.ioThreads");
+        EventLoopGroup bossGroup = transport.newEventLoopGroup(1, "bench-boss");
+        EventLoopGroup serverGroup = transport.newEventLoopGroup(ioThreads, "bench-server");
+        EventLoopGroup clientGroup = transport.newEventLoopGroup(ioThreads, "bench-client");
+        try {
+            ServerBootstrap serverBootstrap = new ServerBootstrap().group(bossGroup, serverGroup)
+                    .channel(serverChannelClass)
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(frameDecoder(), new EchoHandler());
+                        }
+                    });
+            transport.configure(serverBootstrap, false);
+            Bootstrap bootstrap = new Bootstrap().group(clientGroup).channel(channelClass);
+            transport.configure(bootstrap);
+            if (tcp) {
+                // domain socket 不支持 TCP 选项
+                serverBootstrap.option(ChannelOption.SO_REUSEADDR, true).childOption(ChannelOption.TCP_NODELAY, true);
+                bootstrap.option(ChannelOption.TCP_NODELAY, true);
+            }
+            Channel serverChannel = serverBootstrap.bind(address).sync().channel();
+
+            List<LoadHandler> handlers = new ArrayList<>();
+            List<Channel> channels = new ArrayList<>();
+            for (int i = 0; i < CONNECTIONS; i++) {
+                LoadHandler handler = new LoadHandler();
+                handlers.add(handler);
+                channels.add(bootstrap.clone().handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(frameDecoder(), handler);
+                    }
+                }).connect(address).sync().channel());
+            }
+
+            for (Channel channel : channels) {
+                channel.eventLoop().execute(() -> {
+                    for (int i = 0; i < WINDOW_PER_CONNECTION; i++) {
+                        LoadHandler.send(channel);
+                    }
+                    channel.flush();
+                });
+            }
+            Thread.sleep(TimeUnit.SECONDS.toMillis(WARMUP_SECONDS));
+            handlers.forEach(h -> h.recording = true);
+            long start = System.nanoTime();
+            long cpuStart = processCpuTime();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(DURATION_SECONDS));
+            handlers.forEach(h -> h.running = false);
+            long elapsed = System.nanoTime() - start;
+            long cpu = processCpuTime() - cpuStart;
+
+            for (Channel channel : channels) {
+                channel.close().sync();
+            }
+            serverChannel.close().sync();
+
+            long frames = 0;
+            List<long[]> samples = new ArrayList<>();
+            for (LoadHandler handler : handlers) {
+                frames += handler.count;
+                samples.add(Arrays.copyOf(handler.latencies, handler.samples));
+            }
+            long[] all = samples.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            double avg = Arrays.stream(all).average().orElse(0) / 1000.0;
+            return String.format("%-10s | %-12.0f | %-10.1f | %-10.1f | %-10.1f | %.2f", label,
+                    frames * 1_000_000_000.0 / elapsed, avg, percentile(all, 0.99) / 1000.0,
+                    percentile(all, 0.999) / 1000.0, frames == 0 ? 0 : cpu / 1000.0 / frames);
+        } finally {
+            clientGroup.shutdownGracefully().sync();
+            serverGroup.shutdownGracefully().sync();
+            bossGroup.shutdownGracefully().sync();
+        }
+    }
+
+    private static LengthFieldBasedFrameDecoder frameDecoder() {
+        return new LengthFieldBasedFrameDecoder(ProtocolConstants.MAX_FRAME_LENGTH,
+                ProtocolConstants.LENGTH_FIELD_OFFSET, ProtocolConstants.LENGTH_FIELD_LENGTH, 0, 0);
+    }
+
+    /**
+     * 进程累计 CPU 时间（纳秒），不支持时返回 0
+     */
+    private static long processCpuTime() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+
+    /**
+     * 服务端：原样回显整帧
+     */
+    private static class EchoHandler extends SimpleChannelInboundHandler<ByteBuf> {
+        EchoHandler() {
+            super(false);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            ctx.write(frame);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            // 压测结束时客户端先关闭连接，回显中的写会被对端重置
+            ctx.close();
+        }
+    }
+
+    /**
+     * 客户端：帧内携带发送时间，收到回显后记录延迟并发送下一帧
+     * 状态只在该连接的事件循环中访问
+     */
+    private static class LoadHandler extends SimpleChannelInboundHandler<ByteBuf> {
+        private static final int MAX_SAMPLES = 1 << 21;
+
+        final long[] latencies = new long[MAX_SAMPLES];
+        int samples;
+        long count;
+        volatile boolean recording;
+        volatile boolean running = true;
+
+        static void send(Channel channel) {
+            ByteBuf frame = channel.alloc().buffer(8 + PAYLOAD_BYTES);
+            frame.writeInt(0);
+            frame.writeInt(PAYLOAD_BYTES);
+            frame.writeLong(System.nanoTime());
+            frame.writeZero(PAYLOAD_BYTES - 8);
+            channel.write(frame);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            long latency = System.nanoTime() - frame.getLong(8);
+            if (recording && running) {
+                count++;
+                if (samples < MAX_SAMPLES) {
+                    latencies[samples++] = latency;
+                }
+            }
+            if (running) {
+                send(ctx.channel());
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+}
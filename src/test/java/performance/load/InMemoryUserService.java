@@ -0,0 +1,69 @@
+package performance.load;
+
+import common.pojo.User;
+import common.result.Result;
+import common.service.UserService;
+import common.stream.IterablePublisher;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+
+/**
+ * 压测用的 UserService 实现：数据只保存在内存中
+ * UserServiceImpl 依赖 Redis 与数据文件，压测衡量的是 RPC 链路本身，因此用它代替；
+ * 返回的 Result 与 UserServiceImpl 保持一致（不存在时 404、ID 冲突时 409）。
+ */
+public class InMemoryUserService implements UserService {
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+
+    /**
+     * 预先写入 ID 为 0 ~ count-1 的用户
+     */
+    public InMemoryUserService(int count) {
+        for (int i = 0; i < count; i++) {
+            User user = LoadMix.newUser(i);
+            users.put(user.getId(), user);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Result<User>> getUserById(Long id) {
+        User user = users.get(id);
+        return CompletableFuture.completedFuture(user == null ? Result.fail(404, "用户不存在") : Result.success(user));
+    }
+
+    @Override
+    public CompletableFuture<Result<Long>> insertUser(User user) {
+        if (user == null || user.getId() == null) {
+            return CompletableFuture.completedFuture(Result.fail(400, "用户对象为空"));
+        }
+        return CompletableFuture.completedFuture(users.putIfAbsent(user.getId(), user) == null
+                ? Result.success(user.getId())
+                : Result.fail(409, "用户ID已存在"));
+    }
+
+    @Override
+    public CompletableFuture<Result<Boolean>> deleteUserById(Long id) {
+        return CompletableFuture.completedFuture(id != null && users.remove(id) != null
+                ? Result.success(true, "用户删除成功")
+                : Result.fail(404, "用户不存在"));
+    }
+
+    @Override
+    public CompletableFuture<Result<Boolean>> updateUser(User user) {
+        if (user == null || user.getId() == null) {
+            return CompletableFuture.completedFuture(Result.fail(400, "用户对象为空"));
+        }
+        return CompletableFuture.completedFuture(users.replace(user.getId(), user) != null
+                ? Result.success(true, "用户更新成功")
+                : Result.fail(404, "用户不存在"));
+    }
+
+    @Override
+    public Flow.Publisher<User> exportUsers() {
+        return new IterablePublisher<>(new ArrayList<>(users.values()));
+    }
+}
@@ -0,0 +1,72 @@
+package performance.load;
+
+import client.proxy.breaker.BreakerProvider;
+import client.serviceCenter.ServiceCenter;
+import client.serviceCenter.balance.LoadBalance;
+import server.serviceRegister.ServiceRegister;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * 替代 Zookeeper 的进程内注册表：服务端注册与客户端发现共用同一个实例
+ * 节点选择与 ZKServiceCenter 一致：排除调用方指定的节点与熔断中的节点后交给负载均衡策略。
+ */
+final class InProcessRegistry implements ServiceRegister, ServiceCenter {
+    private final LoadBalance loadBalance;
+    private final Map<String, List<InetSocketAddress>> services = new ConcurrentHashMap<>();
+    private final Set<String> retryableServices = ConcurrentHashMap.newKeySet();
+
+    InProcessRegistry(LoadBalance loadBalance) {
+        this.loadBalance = loadBalance;
+    }
+
+    @Override
+    public void register(String serviceName, InetSocketAddress serviceAddress, boolean canRetry) {
+        List<InetSocketAddress> addresses = services.computeIfAbsent(serviceName, k -> new CopyOnWriteArrayList<>());
+        if (!addresses.contains(serviceAddress)) {
+            addresses.add(serviceAddress);
+        }
+        if (canRetry) {
+            retryableServices.add(serviceName);
+        }
+    }
+
+    @Override
+    public InetSocketAddress serviceDiscovery(String serviceName) {
+        return serviceDiscovery(serviceName, System.nanoTime());
+    }
+
+    @Override
+    public InetSocketAddress serviceDiscovery(String serviceName, long featureCode) {
+        return serviceDiscovery(serviceName, featureCode, null);
+    }
+
+    @Override
+    public InetSocketAddress serviceDiscovery(String serviceName, long featureCode, InetSocketAddress excluded) {
+        List<InetSocketAddress> addresses = services.get(serviceName);
+        if (addresses == null) {
+            return null;
+        }
+        List<InetSocketAddress> available = addresses.stream()
+                .filter(addr -> !addr.equals(excluded))
+                .filter(addr -> BreakerProvider.getInstance().getBreaker(addr).isAvailable())
+                .collect(Collectors.toList());
+        return available.isEmpty() ? null : loadBalance.select(serviceName, available, featureCode);
+    }
+
+    @Override
+    public boolean checkRetry(String serviceName) {
+        return retryableServices.contains(serviceName);
+    }
+
+    @Override
+    public String reportServiceDistribution() {
+        return "进程内注册表: " + services;
+    }
+}
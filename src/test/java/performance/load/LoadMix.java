@@ -0,0 +1,174 @@
+package performance.load;
+
+import common.pojo.User;
+import common.service.EchoService;
+import common.service.UserService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 按权重混合的调用负载
+ * 规格为预置名称（echo、crud）或 "操作:权重" 的逗号分隔列表，例如 echo:5,getUser:3,insertUser:1,deleteUser:1。
+ * 操作：
+ * - echo：EchoService#echo，消息长度由 payloadBytes 指定
+ * - getUser / updateUser：随机访问预置的用户
+ * - insertUser：写入新的用户 ID
+ * - deleteUser：删除本次压测写入的用户，没有可删除的用户时改为 getUser，避免删除预置用户后查询失败
+ */
+final class LoadMix {
+    static final Map<String, String> PRESETS = Map.of(
+            "echo", "echo:1",
+            "crud", "getUser:6,insertUser:1,updateUser:2,deleteUser:1");
+
+    enum Operation {
+        ECHO("echo"),
+        GET_USER("getUser"),
+        INSERT_USER("insertUser"),
+        UPDATE_USER("updateUser"),
+        DELETE_USER("deleteUser");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation of(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equalsIgnoreCase(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("未知的压测操作: " + key);
+        }
+    }
+
+    private final String name;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+    private LoadMix(String name, Map<Operation, Integer> weights) {
+        this.name = name;
+        this.operations = weights.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += weights.get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+        this.totalWeight = sum;
+    }
+
+    static LoadMix parse(String spec) {
+        String trimmed = spec.trim();
+        String expanded = PRESETS.getOrDefault(trimmed, trimmed);
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String part : expanded.split(",")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            String[] pair = part.trim().split(":");
+            int weight = pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1;
+            if (weight < 0) {
+                throw new IllegalArgumentException("权重不能为负数: " + part);
+            }
+            if (weight > 0) {
+                weights.merge(Operation.of(pair[0].trim()), weight, Integer::sum);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("压测负载为空: " + spec);
+        }
+        return new LoadMix(trimmed, weights);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String describe() {
+        List<String> parts = new ArrayList<>();
+        int previous = 0;
+        for (int i = 0; i < operations.length; i++) {
+            parts.add(operations[i].key + ":" + (cumulativeWeights[i] - previous));
+            previous = cumulativeWeights[i];
+        }
+        return String.join(",", parts);
+    }
+
+    /**
+     * 绑定到客户端代理，得到每次调用一个请求的发起函数；可由多个发压线程并发调用
+     *
+     * @param userCount 服务端预置的用户数量（ID 为 0 ~ userCount-1）
+     */
+    Supplier<CompletableFuture<?>> bind(EchoService echoService, UserService userService, int payloadBytes,
+                                        int userCount) {
+        String message = "x".repeat(Math.max(0, payloadBytes));
+        AtomicLong nextUserId = new AtomicLong(userCount);
+        ConcurrentLinkedQueue<Long> insertedIds = new ConcurrentLinkedQueue<>();
+        return () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            switch (pick(random)) {
+                case ECHO:
+                    return echoService.echo(message);
+                case INSERT_USER: {
+                    long id = nextUserId.getAndIncrement();
+                    return userService.insertUser(newUser(id)).thenApply(result -> {
+                        if (result.isSuccess()) {
+                            insertedIds.add(id);
+                        }
+                        return result;
+                    });
+                }
+                case UPDATE_USER:
+                    return userService.updateUser(newUser(random.nextInt(userCount)));
+                case DELETE_USER: {
+                    Long id = insertedIds.poll();
+                    if (id != null) {
+                        return userService.deleteUserById(id);
+                    }
+                    return userService.getUserById((long) random.nextInt(userCount));
+                }
+                case GET_USER:
+                default:
+                    return userService.getUserById((long) random.nextInt(userCount));
+            }
+        };
+    }
+
+    private Operation pick(ThreadLocalRandom random) {
+        if (operations.length == 1) {
+            return operations[0];
+        }
+        int value = random.nextInt(totalWeight);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    static User newUser(long id) {
+        return User.builder()
+                .id(id)
+                .userName("user_" + id)
+                .sex(id % 2 == 0)
+                .age((int) (18 + id % 50))
+                .email("user_" + id + "@example.com")
+                .phone(String.format("138%08d", id % 100_000_000))
+                .address("北京市海淀区" + id + "号")
+                .userType("NORMAL")
+                .lastUpdateTime(System.currentTimeMillis())
+                .build();
+    }
+}
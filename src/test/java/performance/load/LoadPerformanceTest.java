@@ -0,0 +1,202 @@
+package performance.load;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import client.proxy.ClientProxy;
+import client.retry.GuavaRetry;
+import client.rpcClient.impl.NettyRpcClient;
+import client.serviceCenter.balance.LoadBalanceFactory;
+import common.service.EchoService;
+import common.service.UserService;
+import common.service.impl.EchoServiceImpl;
+import common.util.AppConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import server.provider.ServiceProvider;
+import server.server.impl.NettyRPCServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 不依赖 Zookeeper 的端到端开环压测：吞吐与 p50 / p99 / p999 延迟的关系
+ * 同进程内启动若干 NettyRPCServer 节点，服务注册与发现走进程内注册表，客户端经 ClientProxy 走完整的网络调用链路
+ * （关闭进程内直连）。每个负载按目标速率从低到高逐档发压，延迟按计划发出时间修正（见 {@link OpenLoopGenerator}），
+ * 实际吞吐低于目标的 90% 或错误率超过 2% 时判定饱和并停止加压。
+ *
+ * 运行：mvn test -Dtest=LoadPerformanceTest，可用系统属性调整（括号内为默认值）：
+ * - load.mixes：负载列表，分号分隔，每项为预置名称或 "操作:权重" 列表，见 {@link LoadMix}（echo;crud）
+ * - load.rates：目标速率（请求/秒），逗号分隔（1000,2000,5000,10000,20000,50000）
+ * - load.warmupSeconds / load.durationSeconds：每档预热与测量时长（2 / 5）
+ * - load.nodes：服务节点数（2），load.port：起始端口（18901）
+ * - load.generators：发压线程数（1），load.maxOutstanding：在途请求上限（50000）
+ * - load.payloadBytes：echo 消息长度（128），load.users：预置用户数（10000）
+ * - load.timeoutMs：客户端请求超时（5000）
+ * 限流与熔断默认放开以测量链路容量，需要时可通过 rpc.ratelimit.* / rpc.breaker.* 系统属性覆盖。
+ */
+@DisplayName("Open-Loop Load Test")
+class LoadPerformanceTest {
+    private static final String HOST = "127.0.0.1";
+    private static final double SATURATION_RATIO = 0.90;
+    private static final double ERROR_RATE_THRESHOLD = 0.02;
+    private static final String HEADER = String.format("%-9s | %-10s | %-8s | %-7s | %-9s | %-9s | %-9s | %-9s | %-9s"
+            + " | %-11s | %-11s | %s", "Target/s", "Achieved/s", "OK", "Err", "p50(us)", "p90(us)", "p99(us)",
+            "p999(us)", "Max(us)", "Svc p99(us)", "Lag p99(us)", "Status");
+
+    static {
+        try {
+            LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+            loggerContext.getLogger("ROOT").setLevel(Level.ERROR);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    @DisplayName("各负载的吞吐与延迟曲线")
+    void sweepArrivalRates() throws Exception {
+        setIfAbsent("rpc.ratelimit.rate.tps", "99999999");
+        setIfAbsent("rpc.ratelimit.capacity", "99999999");
+        setIfAbsent("rpc.breaker.failureThreshold", "99999999");
+        // 服务节点与客户端同进程，关闭进程内直连以压测网络链路
+        System.setProperty("rpc.client.injvm.enabled", "false");
+
+        String[] mixes = AppConfig.getString("load.mixes", "echo;crud").split(";");
+        double[] rates = Arrays.stream(AppConfig.getString("load.rates", "1000,2000,5000,10000,20000,50000")
+                .split(",")).mapToDouble(rate -> Double.parseDouble(rate.trim())).toArray();
+        long warmupNanos = TimeUnit.SECONDS.toNanos(AppConfig.getInt("load.warmupSeconds", 2));
+        long durationNanos = TimeUnit.SECONDS.toNanos(AppConfig.getInt("load.durationSeconds", 5));
+        int nodes = Math.max(1, AppConfig.getInt("load.nodes", 2));
+        int port = AppConfig.getInt("load.port", 18901);
+        int generators = AppConfig.getInt("load.generators", 1);
+        int maxOutstanding = AppConfig.getInt("load.maxOutstanding", 50_000);
+        int payloadBytes = AppConfig.getInt("load.payloadBytes", 128);
+        int users = Math.max(1, AppConfig.getInt("load.users", 10_000));
+        long timeoutMs = AppConfig.getInt("load.timeoutMs", 5000);
+        long drainNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs + 1000);
+
+        InProcessRegistry registry = new InProcessRegistry(LoadBalanceFactory.getFromConfigOrDefault());
+        List<NettyRPCServer> servers = startServers(registry, nodes, port, users);
+        List<String> reportLines = new ArrayList<>();
+        try (NettyRpcClient rpcClient = new NettyRpcClient(registry, timeoutMs, TimeUnit.MILLISECONDS)) {
+            ClientProxy proxy = new ClientProxy(rpcClient, new GuavaRetry());
+            EchoService echoService = proxy.getProxy(EchoService.class);
+            UserService userService = proxy.getProxy(UserService.class);
+
+            for (String spec : mixes) {
+                LoadMix mix = LoadMix.parse(spec);
+                Supplier<CompletableFuture<?>> call = mix.bind(echoService, userService, payloadBytes, users);
+                OpenLoopGenerator generator = new OpenLoopGenerator(call, generators, maxOutstanding);
+
+                reportLines.add("");
+                reportLines.add("负载 " + mix.getName() + " (" + mix.describe() + "), 节点 " + nodes + ", 发压线程 "
+                        + generators);
+                reportLines.add(HEADER);
+                double bestRate = 0;
+                String bestLine = null;
+                for (double rate : rates) {
+                    generator.run(rate, warmupNanos, drainNanos);
+                    System.gc();
+                    Thread.sleep(500);
+
+                    OpenLoopGenerator.Phase phase = generator.run(rate, durationNanos, drainNanos);
+                    boolean saturated = phase.achievedRate() < rate * SATURATION_RATIO
+                            || phase.errorRate() > ERROR_RATE_THRESHOLD;
+                    String line = format(phase, saturated ? "SATURATED" : "OK");
+                    System.out.println(line);
+                    reportLines.add(line);
+                    if (saturated) {
+                        break;
+                    }
+                    bestRate = rate;
+                    bestLine = line;
+                }
+                reportLines.add(bestLine == null ? "最低目标速率即已饱和"
+                        : String.format("可持续的最高目标速率: %.0f/s", bestRate));
+            }
+        } finally {
+            for (NettyRPCServer server : servers) {
+                server.stop();
+            }
+            System.clearProperty("rpc.client.injvm.enabled");
+        }
+
+        System.out.println("\n############################################################");
+        System.out.println("#        开环压测报告（延迟自计划发出时间起算）");
+        System.out.println("#  Svc p99：自实际发出起算的 p99（闭环口径）  Lag p99：发压线程落后计划的 p99");
+        System.out.println("############################################################");
+        for (String line : reportLines) {
+            System.out.println(line);
+        }
+        System.out.println("############################################################");
+    }
+
+    private static String format(OpenLoopGenerator.Phase phase, String status) {
+        LatencyHistogram latency = phase.latency;
+        return String.format("%-9.0f | %-10.0f | %-8d | %-7d | %-9.1f | %-9.1f | %-9.1f | %-9.1f | %-9.1f | %-11.1f"
+                        + " | %-11.1f | %s", phase.targetRate, phase.achievedRate(), phase.succeeded.sum(),
+                phase.errors(), micros(latency.getValueAtPercentile(0.50)),
+                micros(latency.getValueAtPercentile(0.90)), micros(latency.getValueAtPercentile(0.99)),
+                micros(latency.getValueAtPercentile(0.999)), micros(latency.getMax()),
+                micros(phase.serviceTime.getValueAtPercentile(0.99)), micros(phase.sendLag.getValueAtPercentile(0.99)),
+                status);
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    private static void setIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    /**
+     * 每个节点在独立线程中启动（start 会阻塞到服务器关闭），等到端口可连接后返回
+     * 各节点共用同一个用户存储（相当于共享的数据库），写入与删除落在不同节点时结果仍然一致
+     */
+    private static List<NettyRPCServer> startServers(InProcessRegistry registry, int nodes, int firstPort, int users)
+            throws InterruptedException {
+        InMemoryUserService userService = new InMemoryUserService(users);
+        List<NettyRPCServer> servers = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            int port = firstPort + i;
+            ServiceProvider provider = new ServiceProvider(HOST, port, registry);
+            provider.provideServiceInterface(new EchoServiceImpl(), true);
+            provider.provideServiceInterface(userService, true);
+            NettyRPCServer server = new NettyRPCServer(provider);
+            servers.add(server);
+            Thread thread = new Thread(() -> server.start(port), "load-server-" + port);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        for (int i = 0; i < nodes; i++) {
+            awaitListening(firstPort + i, TimeUnit.SECONDS.toMillis(10));
+        }
+        return servers;
+    }
+
+    private static void awaitListening(int port, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(HOST, port), 200);
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("服务节点未能在端口 " + port + " 上启动", e);
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+}
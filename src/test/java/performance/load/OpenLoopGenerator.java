@@ -0,0 +1,194 @@
+package performance.load;
+
+import common.message.RpcResponse;
+import common.result.Result;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 开环（恒定到达率）发压器
+ * 第 n 个请求的计划发出时间固定为 start + n / rate，与之前的请求是否完成无关；
+ * 延迟从计划发出时间算起（修正 coordinated omission）：系统停顿期间本应发出的请求
+ * 在停顿结束后补发，等待的时间计入它们的延迟，而闭环压测会因为少发请求而看不到这段排队。
+ * 同时记录从实际发出算起的服务时间（即闭环压测的口径）与发压线程的落后时间，便于对照。
+ *
+ * 多个发压线程交错负责请求序号（第 i 个线程发序号 i、i+G、i+2G…）。
+ * 在途请求达到上限时丢弃并计为失败，避免服务端停滞时客户端内存无限增长。
+ */
+final class OpenLoopGenerator {
+    // 距计划时间小于该值时自旋等待，否则 park；park 的唤醒误差通常在数十微秒
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Supplier<CompletableFuture<?>> call;
+    private final int generatorThreads;
+    private final int maxOutstanding;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    OpenLoopGenerator(Supplier<CompletableFuture<?>> call, int generatorThreads, int maxOutstanding) {
+        this.call = call;
+        this.generatorThreads = Math.max(1, generatorThreads);
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    /**
+     * 以给定速率发压，结束发压后等待在途请求完成（最多 drainTimeout）
+     */
+    Phase run(double ratePerSecond, long durationNanos, long drainTimeoutNanos) throws InterruptedException {
+        Phase phase = new Phase(ratePerSecond);
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long end = start + durationNanos;
+        phase.start = start;
+
+        List<Thread> threads = new ArrayList<>(generatorThreads);
+        for (int i = 0; i < generatorThreads; i++) {
+            int first = i;
+            Thread thread = new Thread(() -> generate(phase, first, start, end, intervalNanos), "load-generator-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        phase.issueEnd = System.nanoTime();
+
+        long drainDeadline = System.nanoTime() + drainTimeoutNanos;
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(1);
+        }
+        phase.close();
+        return phase;
+    }
+
+    private void generate(Phase phase, long first, long start, long end, double intervalNanos) {
+        for (long n = first; ; n += generatorThreads) {
+            long intended = start + (long) (n * intervalNanos);
+            if (intended >= end) {
+                return;
+            }
+            waitUntil(intended);
+            issue(phase, intended);
+        }
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void issue(Phase phase, long intended) {
+        if (outstanding.incrementAndGet() > maxOutstanding) {
+            outstanding.decrementAndGet();
+            phase.dropped.increment();
+            return;
+        }
+        long sent = System.nanoTime();
+        phase.sendLag.record(sent - intended);
+        CompletableFuture<?> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            outstanding.decrementAndGet();
+            phase.complete(intended, sent, System.nanoTime(), false);
+            return;
+        }
+        future.whenComplete((value, e) -> {
+            long done = System.nanoTime();
+            outstanding.decrementAndGet();
+            phase.complete(intended, sent, done, e == null && isSuccess(value));
+        });
+    }
+
+    /**
+     * 与 EchoPerformanceTest 的口径一致：RpcResponse 以 code 200、Result 以 success 判定，其他结果正常完成即成功
+     */
+    static boolean isSuccess(Object value) {
+        if (value instanceof RpcResponse) {
+            return ((RpcResponse) value).getCode() == 200;
+        }
+        if (value instanceof Result) {
+            return ((Result<?>) value).isSuccess();
+        }
+        return true;
+    }
+
+    /**
+     * 一轮发压的统计；关闭后到达的完成回调（超过等待时间的请求）不再计入
+     */
+    static final class Phase {
+        final double targetRate;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram serviceTime = new LatencyHistogram();
+        final LatencyHistogram sendLag = new LatencyHistogram();
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        private final AtomicLong lastCompletion = new AtomicLong();
+        private volatile boolean closed;
+        private long start;
+        private long issueEnd;
+        private long unfinished;
+
+        private Phase(double targetRate) {
+            this.targetRate = targetRate;
+        }
+
+        private void complete(long intended, long sent, long done, boolean success) {
+            if (closed) {
+                return;
+            }
+            latency.record(done - intended);
+            serviceTime.record(done - sent);
+            (success ? succeeded : failed).increment();
+            long last = lastCompletion.get();
+            while (done > last && !lastCompletion.compareAndSet(last, done)) {
+                last = lastCompletion.get();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            long issued = sendLag.getCount();
+            unfinished = Math.max(0, issued - succeeded.sum() - failed.sum());
+        }
+
+        /**
+         * 成功完成的请求数除以从开始发压到最后一个请求完成（不早于发压结束）的时间
+         */
+        double achievedRate() {
+            long elapsed = Math.max(issueEnd, lastCompletion.get()) - start;
+            return elapsed <= 0 ? 0 : succeeded.sum() * 1_000_000_000.0 / elapsed;
+        }
+
+        /**
+         * 失败、被丢弃以及等待结束时仍未完成的请求
+         */
+        long errors() {
+            return failed.sum() + dropped.sum() + unfinished;
+        }
+
+        long total() {
+            return succeeded.sum() + errors();
+        }
+
+        double errorRate() {
+            long total = total();
+            return total == 0 ? 0 : (double) errors() / total;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package performance.load;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenLoopGeneratorTest {
+
+    @Test
+    @DisplayName("直方图百分位的相对误差不超过 1%")
+    void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000L, histogram.getMax());
+        for (double percentile : new double[] { 0.5, 0.9, 0.99, 0.999 }) {
+            long expected = (long) (percentile * 100_000) * 1000;
+            long actual = histogram.getValueAtPercentile(percentile);
+            assertTrue(actual >= expected && actual <= expected * 1.01,
+                    "p" + percentile + " expected ~" + expected + " but was " + actual);
+        }
+        assertEquals(0, new LatencyHistogram().getValueAtPercentile(0.99));
+    }
+
+    @Test
+    @DisplayName("桶下标与桶上界互相对应")
+    void bucketBoundaries() {
+        for (long value : new long[] { 0, 1, 127, 128, 129, 255, 256, 1_000_003, Long.MAX_VALUE / 3 }) {
+            int index = LatencyHistogram.indexOf(value);
+            long highest = LatencyHistogram.highestValueOf(index);
+            assertTrue(highest >= value, "bucket of " + value);
+            assertEquals(index, LatencyHistogram.indexOf(highest));
+            assertEquals(index + 1, LatencyHistogram.indexOf(highest + 1));
+        }
+    }
+
+    @Test
+    @DisplayName("发送端停顿期间本应发出的请求计入停顿时间")
+    void latencyIncludesTimeBehindSchedule() throws Exception {
+        AtomicBoolean stalled = new AtomicBoolean();
+        OpenLoopGenerator generator = new OpenLoopGenerator(() -> {
+            // 第一次调用阻塞 200ms，模拟 GC 或连接建立造成的停顿；被挡住的请求随后立即补发
+            if (stalled.compareAndSet(false, true)) {
+                sleep(200);
+            }
+            return CompletableFuture.completedFuture("ok");
+        }, 1, 10_000);
+
+        OpenLoopGenerator.Phase phase = generator.run(1000, TimeUnit.SECONDS.toNanos(1), TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(1000, phase.succeeded.sum());
+        assertEquals(0, phase.errors());
+        // 约 20% 的请求计划在停顿期间发出，修正后的 p90 落在停顿区间内，而服务时间只有停顿的那一个请求很长
+        assertTrue(phase.latency.getValueAtPercentile(0.90) >= TimeUnit.MILLISECONDS.toNanos(50),
+                "corrected p90 " + phase.latency.getValueAtPercentile(0.90));
+        assertTrue(phase.serviceTime.getValueAtPercentile(0.90) < TimeUnit.MILLISECONDS.toNanos(50),
+                "service p90 " + phase.serviceTime.getValueAtPercentile(0.90));
+        assertTrue(phase.latency.getMax() >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
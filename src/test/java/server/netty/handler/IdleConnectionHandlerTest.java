@@ -0,0 +1,50 @@
+package server.netty.handler;
+
+import common.message.Heartbeat;
+import common.message.MessageType;
+import common.message.ProtocolConstants;
+import common.message.RawMessage;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("服务端心跳应答与空闲回收测试")
+class IdleConnectionHandlerTest {
+
+    private static RawMessage frame(MessageType type) {
+        return new RawMessage(ProtocolConstants.VERSION_2, ProtocolConstants.FLAG_HEARTBEAT, (short) type.getCode(),
+                (short) 0, 0L, ProtocolConstants.UNKNOWN_ROUTE_ID, ProtocolConstants.UNKNOWN_ROUTE_ID,
+                Unpooled.buffer(0));
+    }
+
+    @Test
+    @DisplayName("收到 PING 立即回复 PONG，其他消息原样传给业务处理器")
+    void shouldReplyPongAndPassOtherMessages() {
+        EmbeddedChannel channel = new EmbeddedChannel(new IdleConnectionHandler());
+        RawMessage ping = frame(MessageType.HEARTBEAT_PING);
+        channel.writeInbound(ping);
+        assertSame(Heartbeat.PONG, channel.readOutbound());
+        assertNull(channel.readInbound(), "PING 不应传给业务处理器");
+        assertEquals(0, ping.refCnt());
+
+        RawMessage request = frame(MessageType.REQUEST);
+        channel.writeInbound(request);
+        assertSame(request, channel.readInbound());
+        request.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    @DisplayName("读空闲超时时关闭连接")
+    void shouldCloseOnReaderIdle() {
+        EmbeddedChannel channel = new EmbeddedChannel(new IdleConnectionHandler());
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.WRITER_IDLE_STATE_EVENT);
+        assertTrue(channel.isActive(), "写空闲不应回收连接");
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT);
+        assertFalse(channel.isActive());
+    }
+}
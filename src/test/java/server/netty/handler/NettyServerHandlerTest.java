@@ -0,0 +1,101 @@
+package server.netty.handler;
+
+import common.Decoder;
+import common.Encoder;
+import common.message.ProtocolConstants;
+import common.message.RpcRequest;
+import common.message.RpcResponse;
+import common.message.SignatureDictionary;
+import common.serializer.SerializerFactory;
+import common.serializer.impl.ProtobufSerializer;
+import common.service.EchoService;
+import common.service.impl.EchoServiceImpl;
+import common.util.HashUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.provider.ServiceProvider;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("服务端请求解码与分发测试")
+class NettyServerHandlerTest {
+
+    private ServiceProvider serviceProvider;
+    private EmbeddedChannel serverChannel;
+
+    @BeforeEach
+    void setUp() {
+        serviceProvider = new ServiceProvider("127.0.0.1", 19521, (serviceName, address, canRetry) -> {
+        });
+        serviceProvider.provideServiceInterface(new EchoServiceImpl(), true);
+        // EchoServiceImpl 是 FastService，在 IO 线程执行，不需要业务线程池
+        serverChannel = new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(ProtocolConstants.MAX_FRAME_LENGTH,
+                        ProtocolConstants.LENGTH_FIELD_OFFSET, ProtocolConstants.LENGTH_FIELD_LENGTH, 0, 0),
+                new Decoder(),
+                new NettyServerHandler(serviceProvider, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        serviceProvider.unregisterInJvm();
+        serverChannel.finishAndReleaseAll();
+    }
+
+    private RpcRequest buildEchoRequest(long sequenceId, String message) {
+        RpcRequest request = RpcRequest.builder()
+                .requestId(UUID.randomUUID().toString())
+                .interfaceName(EchoService.class.getName())
+                .methodName("echo")
+                .params(new Object[] { message })
+                .paramsType(new Class<?>[] { String.class })
+                .timestamp(System.currentTimeMillis())
+                .build();
+        request.setSequenceId(sequenceId);
+        return request;
+    }
+
+    private RpcResponse call(EmbeddedChannel clientChannel, RpcRequest request) {
+        assertTrue(clientChannel.writeOutbound(request));
+        serverChannel.writeInbound((ByteBuf) clientChannel.readOutbound());
+        return serverChannel.readOutbound();
+    }
+
+    @Test
+    @DisplayName("Protobuf 序列化的请求省略签名后，服务端按帧头路由补齐签名并正常执行")
+    void shouldFillSignatureOmittedByProtobufRequest() {
+        // 编码器与服务端解码都按配置的序列化方式取得序列化器
+        System.setProperty("rpc.serializer.type", "2");
+        try {
+            assertInstanceOf(ProtobufSerializer.class, SerializerFactory.getSerializerByCode(2));
+            assertTrue(SerializerFactory.getSerializerByCode(2).isSelfDescribing());
+            EmbeddedChannel clientChannel = new EmbeddedChannel(new Encoder(2));
+            RpcRequest first = buildEchoRequest(1L, "first");
+
+            RpcResponse full = call(clientChannel, first);
+            assertEquals(Integer.valueOf(200), full.getCode(), full.getMessage());
+            assertEquals("first", full.getData());
+            int serviceId = HashUtil.serviceRouteId(first.getInterfaceName());
+            int methodId = HashUtil.methodRouteId(first.getMethodName(), first.getParamsType());
+            assertEquals(serviceId, full.getServiceId(), "命中分发表的响应应回显路由ID");
+            assertEquals(methodId, full.getMethodId());
+
+            // 客户端收到确认后，之后的请求消息体不再携带接口名、方法名与参数类型
+            SignatureDictionary.get(clientChannel).acknowledge(serviceId, methodId);
+            RpcResponse compact = call(clientChannel, buildEchoRequest(2L, "second"));
+            assertEquals(Integer.valueOf(200), compact.getCode(), compact.getMessage());
+            assertEquals("second", compact.getData());
+            assertEquals(2L, compact.getSequenceId());
+            assertFalse(clientChannel.finish());
+        } finally {
+            System.clearProperty("rpc.serializer.type");
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package server.netty.handler;
+
+import common.message.MessageType;
+import common.message.RpcResponse;
+import common.message.StreamFrame;
+import common.stream.IterablePublisher;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("服务端流式调用背压测试")
+class ServerStreamTest {
+
+    private static final long STREAM_ID = 7L;
+
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext ctx;
+    private ServerStreams streams;
+
+    @BeforeEach
+    void setUp() {
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ctx = channel.pipeline().firstContext();
+        streams = new ServerStreams(16);
+    }
+
+    private IterablePublisher<Integer> numbers(int count) {
+        return new IterablePublisher<>(IntStream.range(0, count).boxed().collect(Collectors.toList()));
+    }
+
+    private List<Object> drainOutbound() {
+        List<Object> messages = new ArrayList<>();
+        Object message;
+        while ((message = channel.readOutbound()) != null) {
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    @Test
+    @DisplayName("只按客户端信用写出元素，信用用完后暂停，全部发出后以普通响应结束")
+    void shouldEmitOnlyAsManyItemsAsCredited() {
+        // 首个信用帧先于请求到达，登记占位
+        streams.credit(ctx, STREAM_ID, 3);
+        streams.requestRead(STREAM_ID);
+        ServerStream stream = streams.open(ctx, STREAM_ID);
+        assertNotNull(stream);
+        stream.start(numbers(5), null);
+
+        List<Object> first = drainOutbound();
+        assertEquals(3, first.size(), "信用为 3 时只应写出 3 个元素");
+        for (int i = 0; i < first.size(); i++) {
+            StreamFrame frame = (StreamFrame) first.get(i);
+            assertEquals(MessageType.STREAM_ITEM, frame.getType());
+            assertEquals(STREAM_ID, frame.getSequenceId());
+            assertEquals(i, frame.getItem().getData());
+        }
+
+        streams.credit(ctx, STREAM_ID, 10);
+        List<Object> rest = drainOutbound();
+        assertEquals(3, rest.size(), "剩余 2 个元素加一个结束响应");
+        RpcResponse terminal = (RpcResponse) rest.get(2);
+        assertEquals(Integer.valueOf(200), terminal.getCode());
+        assertEquals(STREAM_ID, terminal.getSequenceId());
+        assertEquals(0, streams.size(), "结束后应从流表移除");
+    }
+
+    @Test
+    @DisplayName("请求执行期间被取消的流不再订阅，结束后迟到的控制帧不会残留占位")
+    void shouldHonorCancelAndIgnoreLateControlFrames() {
+        streams.credit(ctx, STREAM_ID, 1);
+        streams.requestRead(STREAM_ID);
+        streams.cancel(STREAM_ID);
+        assertNull(streams.open(ctx, STREAM_ID), "已取消的流不应开始");
+        assertEquals(0, streams.size());
+
+        // 请求已读到且流已结束：迟到的信用与取消直接忽略
+        streams.credit(ctx, STREAM_ID, 5);
+        streams.cancel(STREAM_ID);
+        assertEquals(0, streams.size());
+        assertTrue(drainOutbound().isEmpty());
+    }
+
+    @Test
+    @DisplayName("连接关闭时取消所有进行中的流")
+    void shouldCancelAllStreamsOnClose() {
+        streams.credit(ctx, STREAM_ID, 1);
+        streams.requestRead(STREAM_ID);
+        ServerStream stream = streams.open(ctx, STREAM_ID);
+        stream.start(numbers(3), null);
+        assertEquals(1, drainOutbound().size());
+
+        streams.cancelAll();
+        assertTrue(stream.isCancelled());
+        assertEquals(0, streams.size());
+        stream.addCredit(5);
+        assertTrue(drainOutbound().isEmpty(), "取消后不应再写出元素");
+    }
+}
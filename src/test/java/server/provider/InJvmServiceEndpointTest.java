@@ -0,0 +1,331 @@
+package server.provider;
+
+import client.proxy.breaker.Breaker;
+import client.proxy.breaker.BreakerProvider;
+import client.rpcClient.impl.NettyRpcClient;
+import client.serviceCenter.ServiceCenter;
+import common.message.RpcRequest;
+import common.message.RpcResponse;
+import common.pojo.User;
+import common.stream.IterablePublisher;
+import common.trace.TraceContext;
+import common.transport.InJvmRegistry;
+import common.util.AppConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.provider.ratelimit.RateLimit;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("进程内调用测试")
+class InJvmServiceEndpointTest {
+
+    private static final String HOST = "127.0.0.1";
+
+    interface ProbeService {
+        // 修改并返回参数，用于检查调用双方是否共享对象
+        User rename(User user, String userName);
+
+        // 返回服务端 span 中的追踪ID
+        String currentTrace();
+
+        // 总是抛出异常，服务端以 500 回复
+        String fail();
+
+        // 返回 count 个元素的流，failAtEnd 为 true 时发出全部元素后以异常结束
+        Flow.Publisher<Integer> numbers(int count, boolean failAtEnd);
+    }
+
+    static class ProbeServiceImpl implements ProbeService {
+        final AtomicInteger invocations = new AtomicInteger();
+        volatile User received;
+        volatile String streamTrace;
+
+        @Override
+        public User rename(User user, String userName) {
+            invocations.incrementAndGet();
+            received = user;
+            user.setUserName(userName);
+            return user;
+        }
+
+        @Override
+        public String currentTrace() {
+            invocations.incrementAndGet();
+            return TraceContext.getTraceId() + "/" + TraceContext.getSpanId();
+        }
+
+        @Override
+        public String fail() {
+            invocations.incrementAndGet();
+            throw new IllegalStateException("probe failure");
+        }
+
+        @Override
+        public Flow.Publisher<Integer> numbers(int count, boolean failAtEnd) {
+            invocations.incrementAndGet();
+            streamTrace = TraceContext.getTraceId() + "/" + TraceContext.getSpanId();
+            Iterator<Integer> items = IntStream.range(0, count).iterator();
+            return new IterablePublisher<>(() -> new Iterator<Integer>() {
+                @Override
+                public boolean hasNext() {
+                    return failAtEnd || items.hasNext();
+                }
+
+                @Override
+                public Integer next() {
+                    if (!items.hasNext()) {
+                        throw new IllegalStateException("probe stream failure");
+                    }
+                    return items.next();
+                }
+            });
+        }
+    }
+
+    // 一次请求全部元素，记录收到的信号
+    static class RecordingSubscriber implements Flow.Subscriber<Object> {
+        final List<Object> items = new ArrayList<>();
+        volatile Throwable error;
+        volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Object item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    // 进程内调用不经过服务发现，注册中心与发现中心都只是占位
+    private static final ServiceCenter NO_DISCOVERY = new ServiceCenter() {
+        @Override
+        public InetSocketAddress serviceDiscovery(String serviceName) {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress serviceDiscovery(String serviceName, long featureCode) {
+            return null;
+        }
+
+        @Override
+        public boolean checkRetry(String serviceName) {
+            return false;
+        }
+
+        @Override
+        public String reportServiceDistribution() {
+            return "";
+        }
+    };
+
+    private final ProbeServiceImpl service = new ProbeServiceImpl();
+    private ServiceProvider provider;
+
+    private ServiceProvider provide(ServiceProvider serviceProvider) {
+        provider = serviceProvider;
+        provider.provideServiceInterface(service, true);
+        return provider;
+    }
+
+    private ServiceProvider newProvider(int port) {
+        return new ServiceProvider(HOST, port, (serviceName, address, canRetry) -> {
+        });
+    }
+
+    private RpcRequest buildRequest(String methodName, Object[] params, Class<?>[] paramsType) {
+        return RpcRequest.builder()
+                .requestId(UUID.randomUUID().toString())
+                .interfaceName(ProbeService.class.getName())
+                .methodName(methodName)
+                .params(params)
+                .paramsType(paramsType)
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+
+    private RpcResponse call(RpcRequest request) throws Exception {
+        try (NettyRpcClient client = new NettyRpcClient(NO_DISCOVERY, 1, TimeUnit.SECONDS)) {
+            return client.sendRequestAsync(request).get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private RecordingSubscriber stream(RpcRequest request) {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        try (NettyRpcClient client = new NettyRpcClient(NO_DISCOVERY, 1, TimeUnit.SECONDS)) {
+            // 未设置业务线程池，服务方法与元素都在调用方线程上同步发出
+            client.streamRequest(request).subscribe(subscriber);
+        }
+        return subscriber;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (provider != null) {
+            provider.unregisterInJvm();
+        }
+        TraceContext.clear();
+    }
+
+    @Test
+    @DisplayName("首次注册服务时才创建端点，并以提供方地址登记到进程内注册表")
+    void shouldRegisterEndpointOnFirstService() {
+        ServiceProvider serviceProvider = newProvider(19511);
+        assertNull(InJvmRegistry.INSTANCE.lookup(ProbeService.class.getName()));
+
+        provide(serviceProvider);
+        InJvmRegistry.Endpoint endpoint = InJvmRegistry.INSTANCE.lookup(ProbeService.class.getName());
+        assertNotNull(endpoint);
+        assertEquals(new InetSocketAddress(HOST, 19511), endpoint.getAddress());
+
+        serviceProvider.unregisterInJvm();
+        assertNull(InJvmRegistry.INSTANCE.lookup(ProbeService.class.getName()));
+    }
+
+    @Test
+    @DisplayName("限流器拒绝时返回 429，不执行服务方法")
+    void shouldRejectWithRateLimit() throws Exception {
+        provide(new ServiceProvider(HOST, 19512, (serviceName, address, canRetry) -> {
+        }) {
+            @Override
+            public RateLimit getRateLimit(String serviceName) {
+                return () -> false;
+            }
+        });
+
+        RpcResponse response = call(buildRequest("currentTrace", new Object[0], new Class<?>[0]));
+        assertEquals(Integer.valueOf(429), response.getCode());
+        assertEquals(0, service.invocations.get());
+    }
+
+    @Test
+    @DisplayName("熔断器按提供方注册的地址计数，熔断后不再调用服务方法")
+    void shouldAccountBreakerByProviderAddress() throws Exception {
+        provide(newProvider(19513));
+        Breaker breaker = BreakerProvider.getInstance().getBreaker(new InetSocketAddress(HOST, 19513));
+        // 只差一次失败即熔断，这一次由进程内调用记录
+        int threshold = AppConfig.getInt("rpc.breaker.failureThreshold", 1);
+        for (int i = 1; i < threshold; i++) {
+            breaker.recordFailure();
+        }
+        assertTrue(breaker.isAvailable());
+
+        assertEquals(Integer.valueOf(500), call(buildRequest("fail", new Object[0], new Class<?>[0])).getCode());
+        assertFalse(breaker.isAvailable(), "进程内调用的失败应计入该地址的熔断器");
+
+        RpcResponse rejected = call(buildRequest("fail", new Object[0], new Class<?>[0]));
+        assertEquals(Integer.valueOf(500), rejected.getCode());
+        assertTrue(rejected.getMessage().contains("熔断"), rejected.getMessage());
+        assertEquals(1, service.invocations.get(), "熔断后不应再执行服务方法");
+    }
+
+    @Test
+    @DisplayName("在调用方线程执行时生成服务端 span，返回后恢复调用方的追踪上下文")
+    void shouldRestoreCallerTraceContext() throws Exception {
+        provide(newProvider(19514));
+        TraceContext.setTraceId("trace-1");
+        TraceContext.setSpanId("span-1");
+        RpcRequest request = buildRequest("currentTrace", new Object[0], new Class<?>[0]);
+        request.setTraceId("trace-1");
+        request.setSpanId("span-1");
+
+        // 未设置业务线程池，服务方法在调用方线程上同步执行
+        RpcResponse response = InJvmRegistry.INSTANCE.lookup(ProbeService.class.getName()).invoke(request)
+                .get(1, TimeUnit.SECONDS);
+
+        assertEquals(Integer.valueOf(200), response.getCode());
+        String serverTrace = (String) response.getData();
+        assertTrue(serverTrace.startsWith("trace-1/span-1."), "服务端 span 应是调用方 span 的子 span: " + serverTrace);
+        assertEquals(serverTrace, response.getTraceId() + "/" + response.getSpanId());
+        assertEquals("trace-1", TraceContext.getTraceId());
+        assertEquals("span-1", TraceContext.getSpanId());
+    }
+
+    @Test
+    @DisplayName("开启复制时参数与返回值经序列化复制，服务端的修改不影响调用方的对象")
+    void shouldIsolateCallersWhenCopyOnCall() throws Exception {
+        provide(newProvider(19515));
+        User user = User.builder().id(1L).userName("original").build();
+        RpcRequest request = buildRequest("rename", new Object[] { user, "renamed" },
+                new Class<?>[] { User.class, String.class });
+
+        System.setProperty("rpc.client.injvm.copy", "true");
+        RpcResponse response;
+        try {
+            response = call(request);
+        } finally {
+            System.clearProperty("rpc.client.injvm.copy");
+        }
+
+        assertEquals(Integer.valueOf(200), response.getCode());
+        assertNotSame(user, service.received, "服务方法应收到参数的副本");
+        assertEquals("original", user.getUserName(), "调用方的参数不应被服务端修改");
+        User returned = (User) response.getData();
+        assertEquals("renamed", returned.getUserName());
+        assertNotSame(service.received, returned, "返回值应为副本");
+    }
+
+    @Test
+    @DisplayName("进程内流式调用同样受熔断器控制，流以异常结束时计入该地址的熔断器")
+    void shouldAccountBreakerForInJvmStream() {
+        provide(newProvider(19516));
+        Breaker breaker = BreakerProvider.getInstance().getBreaker(new InetSocketAddress(HOST, 19516));
+        int threshold = AppConfig.getInt("rpc.breaker.failureThreshold", 1);
+        for (int i = 1; i < threshold; i++) {
+            breaker.recordFailure();
+        }
+
+        RecordingSubscriber failed = stream(buildRequest("numbers", new Object[] { 2, true },
+                new Class<?>[] { int.class, boolean.class }));
+        assertEquals(List.of(0, 1), failed.items);
+        assertNotNull(failed.error);
+        assertFalse(breaker.isAvailable(), "流的失败应计入该地址的熔断器");
+
+        RecordingSubscriber rejected = stream(buildRequest("numbers", new Object[] { 2, false },
+                new Class<?>[] { int.class, boolean.class }));
+        assertTrue(rejected.items.isEmpty());
+        assertTrue(rejected.error.getMessage().contains("熔断"), rejected.error.getMessage());
+        assertEquals(1, service.invocations.get(), "熔断后不应再执行服务方法");
+    }
+
+    @Test
+    @DisplayName("进程内流式调用携带调用方的追踪上下文，服务端 span 是调用方 span 的子 span")
+    void shouldPropagateTraceForInJvmStream() {
+        provide(newProvider(19517));
+        TraceContext.setTraceId("trace-2");
+        TraceContext.setSpanId("span-2");
+
+        RecordingSubscriber subscriber = stream(buildRequest("numbers", new Object[] { 3, false },
+                new Class<?>[] { int.class, boolean.class }));
+        assertEquals(List.of(0, 1, 2), subscriber.items);
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        assertTrue(service.streamTrace.startsWith("trace-2/span-2."),
+                "服务端 span 应是调用方 span 的子 span: " + service.streamTrace);
+    }
+}
@@ -0,0 +1,95 @@
+package server.provider;
+
+import common.message.RpcRequest;
+import common.service.EchoService;
+import common.service.impl.EchoServiceImpl;
+import common.util.HashUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ServiceDispatchTable 帧头分发表测试")
+class ServiceDispatchTableTest {
+
+    // 未标注 @FastService 的服务，避免依赖 UserServiceImpl 的数据库/缓存初始化
+    interface ReportService {
+        String report(Long id);
+
+        String report(String name);
+    }
+
+    static class ReportServiceImpl implements ReportService {
+        @Override
+        public String report(Long id) {
+            return "id:" + id;
+        }
+
+        @Override
+        public String report(String name) {
+            return "name:" + name;
+        }
+    }
+
+    private ServiceDispatchTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = new ServiceDispatchTable();
+        table.register(EchoService.class, new EchoServiceImpl());
+        table.register(ReportService.class, new ReportServiceImpl());
+    }
+
+    @Test
+    @DisplayName("按服务ID查到条目，并根据 @FastService 预先确定执行路径")
+    void shouldResolveExecutionPathByServiceId() {
+        ServiceDispatchTable.Entry echo = table.lookup(HashUtil.serviceRouteId(EchoService.class.getName()));
+        ServiceDispatchTable.Entry report = table.lookup(HashUtil.serviceRouteId(ReportService.class.getName()));
+
+        assertNotNull(echo);
+        assertNotNull(report);
+        assertTrue(echo.isFastService(), "EchoServiceImpl 标注了 @FastService，应在 IO 线程执行");
+        assertFalse(report.isFastService(), "未标注 @FastService 的服务应提交到业务线程池");
+        assertEquals(EchoService.class.getName(), echo.getInterfaceName());
+    }
+
+    @Test
+    @DisplayName("按方法ID查到实现类上的方法对象，重载方法互不混淆")
+    void shouldResolveImplementationMethodByMethodId() throws Exception {
+        ServiceDispatchTable.Entry report = table.lookup(HashUtil.serviceRouteId(ReportService.class.getName()));
+        Method byId = report.getMethod(HashUtil.methodRouteId("report", new Class<?>[] { Long.class }));
+        Method byName = report.getMethod(HashUtil.methodRouteId("report", new Class<?>[] { String.class }));
+
+        assertEquals(ReportServiceImpl.class.getMethod("report", Long.class), byId);
+        assertEquals(ReportServiceImpl.class.getMethod("report", String.class), byName);
+    }
+
+    @Test
+    @DisplayName("未注册的服务ID与方法ID返回 null，由调用方回退到按名称查找")
+    void shouldReturnNullForUnknownRoute() {
+        assertNull(table.lookup(HashUtil.serviceRouteId("common.service.UnknownService")));
+        ServiceDispatchTable.Entry echo = table.lookup(HashUtil.serviceRouteId(EchoService.class.getName()));
+        assertNull(echo.getMethod(HashUtil.methodRouteId("echo", new Class<?>[] { Long.class })));
+    }
+
+    @Test
+    @DisplayName("按方法ID为省略了签名的请求补齐接口名、方法名与参数类型")
+    void shouldFillOmittedSignatureByMethodId() {
+        ServiceDispatchTable.Entry report = table.lookup(HashUtil.serviceRouteId(ReportService.class.getName()));
+        RpcRequest request = new RpcRequest();
+        request.setMethodId(HashUtil.methodRouteId("report", new Class<?>[] { Long.class }));
+
+        assertTrue(report.fillSignature(request));
+        assertEquals(ReportService.class.getName(), request.getInterfaceName());
+        assertEquals("report", request.getMethodName());
+        assertArrayEquals(new Class<?>[] { Long.class }, request.getParamsType());
+
+        RpcRequest unknown = new RpcRequest();
+        unknown.setMethodId(HashUtil.methodRouteId("report", new Class<?>[] { Integer.class }));
+        assertFalse(report.fillSignature(unknown), "未注册的方法ID不应补齐");
+        assertNull(unknown.getInterfaceName());
+    }
+}